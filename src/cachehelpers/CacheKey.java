@@ -0,0 +1,115 @@
+package cachehelpers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import sequenceextractor.ExtractionOptions;
+
+/**
+ * Class that represents the key of a cached sequence, which is the SHA-256 hash of the snippet and of the options used
+ * to extract its sequence. The key does not keep the snippet itself, so caching a sequence does not keep its snippet
+ * in memory.
+ * 
+ * @author themis
+ */
+public class CacheKey {
+
+	/**
+	 * The length of the hash of each key, in bytes.
+	 */
+	static final int HASH_LENGTH = 32;
+
+	/**
+	 * The digest of each thread, which is created once per thread since creating a digest involves looking up its
+	 * provider.
+	 */
+	private static final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	};
+
+	/**
+	 * The hash of the snippet and of the options.
+	 */
+	private final byte[] hash;
+
+	/**
+	 * Initializes this key given a snippet and the options used to extract its sequence.
+	 * 
+	 * @param snippet the snippet given as a string.
+	 * @param options the options used to extract the sequence of the snippet.
+	 */
+	public CacheKey(String snippet, ExtractionOptions options) {
+		int flags = (options.keepFunctionCallTypes ? 1 : 0) | (options.keepLiterals ? 2 : 0)
+				| (options.keepBranches ? 4 : 0) | (options.outputTree ? 8 : 0) | (options.flattenOutput ? 16 : 0)
+				| (options.addUniqueIDs ? 32 : 0);
+		MessageDigest digest = digests.get();
+		digest.update((byte) flags);
+		digest.update((byte) options.engine.ordinal());
+		digest.update(snippet.getBytes(StandardCharsets.UTF_8));
+		hash = digest.digest();
+	}
+
+	/**
+	 * Initializes this key given its hash.
+	 * 
+	 * @param hash the hash of the key, which must have a length of {@link #HASH_LENGTH} bytes.
+	 */
+	CacheKey(byte[] hash) {
+		this.hash = hash;
+	}
+
+	/**
+	 * Returns the hash of this key. The returned array must not be modified.
+	 * 
+	 * @return the hash of this key.
+	 */
+	byte[] getHash() {
+		return hash;
+	}
+
+	/**
+	 * Returns a hash code value for this key, which is given by the first bytes of its hash.
+	 * 
+	 * @return a hash code value for this key.
+	 */
+	@Override
+	public int hashCode() {
+		return (hash[0] & 0xFF) << 24 | (hash[1] & 0xFF) << 16 | (hash[2] & 0xFF) << 8 | (hash[3] & 0xFF);
+	}
+
+	/**
+	 * Indicates whether the given key is equal to this one, i.e. if their hashes are equal.
+	 * 
+	 * @param otherKey the given object to be compared to this one.
+	 * @return {@code true} if the given key is equal to this one, or {@code false} otherwise.
+	 */
+	@Override
+	public boolean equals(Object otherKey) {
+		if (otherKey == null || getClass() != otherKey.getClass())
+			return false;
+		return Arrays.equals(hash, ((CacheKey) otherKey).hash);
+	}
+
+	/**
+	 * Returns a string representation of this key, which is its hash in hexadecimal form.
+	 * 
+	 * @return a string representation of this key.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(2 * hash.length);
+		for (byte b : hash)
+			result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,358 @@
+package cachehelpers;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class that represents a bounded cache of extracted sequences. The cache is bounded both by the number of its entries
+ * and by their weight, i.e. the total length of the cached sequences, and evicts the least recently used entries when
+ * any of the two bounds is exceeded. When many threads request the same key at the same time, the sequence is
+ * extracted only once and all threads receive it. The cache may also be backed by a {@link SequenceStore}, so that the
+ * sequences extracted in previous runs are read from the store instead of being extracted again. Errors of the store
+ * do not fail the extractions; a sequence that cannot be read from the store is extracted, and one that cannot be
+ * written is only kept in memory, while the errors are counted (see {@link #getStoreErrors()}). The cache is
+ * thread-safe.
+ * 
+ * @author themis
+ */
+public class SequenceCache {
+
+	/**
+	 * The default maximum number of entries of a cache.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/**
+	 * The default maximum total length of the cached sequences, in characters.
+	 */
+	public static final long DEFAULT_MAX_WEIGHT = 10000000;
+
+	/**
+	 * The maximum number of entries of the cache.
+	 */
+	private final int maxEntries;
+
+	/**
+	 * The maximum total length of the cached sequences.
+	 */
+	private final long maxWeight;
+
+	/**
+	 * The cached sequences in access order, where the first one is the least recently used.
+	 */
+	private final LinkedHashMap<CacheKey, String> entries;
+
+	/**
+	 * The total length of the cached sequences.
+	 */
+	private long weight;
+
+	/**
+	 * The extractions that are currently running, which are shared by all threads requesting the same key.
+	 */
+	private final ConcurrentHashMap<CacheKey, FutureTask<String>> extractions;
+
+	/**
+	 * The store backing this cache, or {@code null} if the cache is kept only in memory.
+	 */
+	private final SequenceStore store;
+
+	/**
+	 * The number of requests that were served by the cache, by its store, or by a running extraction.
+	 */
+	private final AtomicLong hits;
+
+	/**
+	 * The number of requests that required an extraction.
+	 */
+	private final AtomicLong misses;
+
+	/**
+	 * The number of entries evicted from the cache.
+	 */
+	private final AtomicLong evictions;
+
+	/**
+	 * The number of errors of the store, i.e. of sequences that could not be read from or written to the store.
+	 */
+	private final AtomicLong storeErrors;
+
+	/**
+	 * Initializes this cache given the store backing it, using the default bounds (see {@link #DEFAULT_MAX_ENTRIES}
+	 * and {@link #DEFAULT_MAX_WEIGHT}).
+	 * 
+	 * @param store the store backing the cache, or {@code null} if the cache should be kept only in memory.
+	 */
+	public SequenceCache(SequenceStore store) {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT, store);
+	}
+
+	/**
+	 * Initializes this cache given its bounds.
+	 * 
+	 * @param maxEntries the maximum number of entries of the cache.
+	 * @param maxWeight the maximum total length of the cached sequences, in characters.
+	 */
+	public SequenceCache(int maxEntries, long maxWeight) {
+		this(maxEntries, maxWeight, null);
+	}
+
+	/**
+	 * Initializes this cache given its bounds and the store backing it. The sequences that are not found in memory are
+	 * looked up in the store, and any extracted sequences are appended to the store.
+	 * 
+	 * @param maxEntries the maximum number of entries of the cache.
+	 * @param maxWeight the maximum total length of the cached sequences, in characters.
+	 * @param store the store backing the cache, or {@code null} if the cache should be kept only in memory.
+	 */
+	public SequenceCache(int maxEntries, long maxWeight, SequenceStore store) {
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.store = store;
+		entries = new LinkedHashMap<CacheKey, String>(16, 0.75f, true);
+		extractions = new ConcurrentHashMap<CacheKey, FutureTask<String>>();
+		hits = new AtomicLong();
+		misses = new AtomicLong();
+		evictions = new AtomicLong();
+		storeErrors = new AtomicLong();
+	}
+
+	/**
+	 * Returns the sequence of the given key, extracting it if it is not cached in memory or in the store of this cache.
+	 * If the sequence of the key is already being looked up or extracted by another thread, this function waits for
+	 * that thread instead of starting a new extraction. Failed extractions are not cached; their error is thrown to all
+	 * the threads that requested the key.
+	 * 
+	 * @param key the key of the sequence.
+	 * @param extraction the extraction of the sequence, which is called only if the sequence is not cached.
+	 * @return the sequence of the key.
+	 */
+	public String get(final CacheKey key, final Callable<String> extraction) {
+		String sequence = getIfPresent(key);
+		if (sequence != null) {
+			hits.incrementAndGet();
+			return sequence;
+		}
+		FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				// Another thread may have cached the sequence after the first lookup and before this task was added
+				String sequence = getIfPresent(key);
+				if (sequence != null) {
+					hits.incrementAndGet();
+					return sequence;
+				}
+				sequence = getFromStore(key);
+				if (sequence != null) {
+					hits.incrementAndGet();
+				} else {
+					misses.incrementAndGet();
+					sequence = extraction.call();
+					putInStore(key, sequence);
+				}
+				put(key, sequence);
+				return sequence;
+			}
+		});
+		FutureTask<String> runningTask = extractions.putIfAbsent(key, task);
+		if (runningTask != null) {
+			hits.incrementAndGet();
+			return waitFor(runningTask);
+		}
+		try {
+			task.run();
+			return waitFor(task);
+		} finally {
+			extractions.remove(key, task);
+		}
+	}
+
+	/**
+	 * Returns the sequence of the given key from the store of this cache.
+	 * 
+	 * @param key the key of the sequence.
+	 * @return the sequence of the key, or {@code null} if there is no store, the store does not contain the key, or the
+	 *         sequence cannot be read.
+	 */
+	private String getFromStore(CacheKey key) {
+		if (store == null)
+			return null;
+		try {
+			return store.get(key);
+		} catch (IOException e) {
+			storeErrors.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Appends an extracted sequence to the store of this cache, if there is one.
+	 * 
+	 * @param key the key of the sequence.
+	 * @param sequence the sequence to be appended.
+	 */
+	private void putInStore(CacheKey key, String sequence) {
+		if (store == null || sequence == null)
+			return;
+		try {
+			store.put(key, sequence);
+		} catch (IOException e) {
+			storeErrors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the store backing this cache.
+	 * 
+	 * @return the store backing this cache, or {@code null} if the cache is kept only in memory.
+	 */
+	public SequenceStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Returns the cached sequence of the given key, marking it as recently used.
+	 * 
+	 * @param key the key of the sequence.
+	 * @return the sequence of the key, or {@code null} if it is not cached.
+	 */
+	public String getIfPresent(CacheKey key) {
+		synchronized (entries) {
+			return entries.get(key);
+		}
+	}
+
+	/**
+	 * Adds a sequence to the cache, evicting the least recently used entries if the cache exceeds its bounds. A
+	 * sequence that is longer than the maximum weight of the cache is not added.
+	 * 
+	 * @param key the key of the sequence.
+	 * @param sequence the sequence to be added.
+	 */
+	public void put(CacheKey key, String sequence) {
+		if (sequence == null || sequence.length() > maxWeight)
+			return;
+		synchronized (entries) {
+			String previousSequence = entries.put(key, sequence);
+			if (previousSequence != null)
+				weight -= previousSequence.length();
+			weight += sequence.length();
+			Iterator<String> iterator = entries.values().iterator();
+			while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+				weight -= iterator.next().length();
+				iterator.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries of the cache. The counters of the cache are not reset.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			weight = 0;
+		}
+	}
+
+	/**
+	 * Waits for an extraction to finish and returns its sequence, throwing its error if it failed.
+	 * 
+	 * @param task the task of the extraction.
+	 * @return the extracted sequence.
+	 */
+	private static String waitFor(FutureTask<String> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Returns the number of entries of the cache.
+	 * 
+	 * @return the number of entries of the cache.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Returns the total length of the cached sequences.
+	 * 
+	 * @return the total length of the cached sequences, in characters.
+	 */
+	public long getWeight() {
+		synchronized (entries) {
+			return weight;
+		}
+	}
+
+	/**
+	 * Returns the number of requests that were served by the cache, by its store, or by an extraction started by
+	 * another request.
+	 * 
+	 * @return the number of hits of the cache.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of requests that required an extraction.
+	 * 
+	 * @return the number of misses of the cache.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of entries evicted from the cache.
+	 * 
+	 * @return the number of evictions of the cache.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Returns the number of errors of the store of this cache, i.e. of sequences that could not be read from the store
+	 * (and were extracted instead) or could not be written to it (and were only cached in memory).
+	 * 
+	 * @return the number of errors of the store.
+	 */
+	public long getStoreErrors() {
+		return storeErrors.get();
+	}
+
+	/**
+	 * Returns a string representation of the state of this cache.
+	 * 
+	 * @return a string representation of this cache.
+	 */
+	@Override
+	public String toString() {
+		return "SequenceCache(size: " + size() + ", weight: " + getWeight() + ", hits: " + getHits() + ", misses: "
+				+ getMisses() + ", evictions: " + getEvictions() + ", store errors: " + getStoreErrors() + ")";
+	}
+
+}
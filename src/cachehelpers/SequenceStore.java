@@ -0,0 +1,672 @@
+package cachehelpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Class that represents a persistent store of extracted sequences, kept in a directory of append-only segment files.
+ * Each record of a segment holds the hash of a {@link CacheKey}, the length and the checksum of the sequence, and the
+ * sequence itself in UTF-8. When the store is opened, the segments are scanned to build an in-memory index from each
+ * key to its record, and the segments are memory-mapped read-only, so that reading a sequence does not copy it from
+ * the file. The hash and the checksum of a record are checked whenever it is read, so a record that was changed on
+ * disk is dropped from the index instead of being returned for the wrong key.<br>
+ * Many processes may use the same store at the same time. Appends and compactions lock the lock file of the store, so
+ * that the records of different processes are never interleaved. An incomplete record left by a failed process is
+ * truncated by the next append, while a complete record that is corrupted is never overwritten; the next append starts
+ * a new segment instead. The segments belong to a generation, which is given by the generation file of the store.
+ * {@link #compact()} writes the valid records to the segments of a new generation, atomically replaces the generation
+ * file and then deletes the segments of the older generations. The records appended by other processes and the
+ * generations written by them are found by calling {@link #refresh()}, while the records of an older generation stay
+ * readable through their mappings until then, since they are never modified. Within a process, a single store should
+ * be opened for each directory and shared by all threads, since the store is thread-safe.
+ * 
+ * @author themis
+ */
+public class SequenceStore implements Closeable {
+
+	/**
+	 * The length of the header of each record, i.e. the hash of the key, the length and the checksum of the sequence.
+	 */
+	private static final int HEADER_LENGTH = CacheKey.HASH_LENGTH + 8;
+
+	/**
+	 * The pattern of the names of the segment files, which include the generation and the number of each segment.
+	 */
+	private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)-(\\d+)\\.dat");
+
+	/**
+	 * The name of the file that holds the current generation of the segments.
+	 */
+	private static final String GENERATION_FILE = "generation";
+
+	/**
+	 * The name of the file that is locked by appends and compactions.
+	 */
+	private static final String LOCK_FILE = "store.lock";
+
+	/**
+	 * Class that represents a segment file of the store.
+	 */
+	private static class Segment {
+
+		/**
+		 * The number of the segment, which gives the order of the segments of a generation.
+		 */
+		private final int number;
+
+		/**
+		 * The channel of the file of the segment.
+		 */
+		private final FileChannel channel;
+
+		/**
+		 * The read-only mapping of the file of the segment, or {@code null} if the segment is not mapped yet.
+		 */
+		private volatile MappedByteBuffer buffer;
+
+		/**
+		 * The length of the segment that has been scanned, i.e. the end of its last valid record.
+		 */
+		private long length;
+
+		/**
+		 * {@code true} if the last scan stopped at a complete record that is corrupted, so that nothing must be
+		 * appended to the segment, or {@code false} otherwise.
+		 */
+		private boolean corrupted;
+
+		/**
+		 * Initializes this segment, opening its file.
+		 * 
+		 * @param number the number of the segment.
+		 * @param file the file of the segment.
+		 * @param create {@code true} if the file is created if it does not exist, or {@code false} otherwise.
+		 * @throws IOException if the file cannot be opened.
+		 */
+		Segment(int number, File file, boolean create) throws IOException {
+			this.number = number;
+			if (create)
+				this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE);
+			else
+				this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+	}
+
+	/**
+	 * Class that represents a generation of the store, i.e. its segments and the index of their records.
+	 */
+	private static class Generation {
+
+		/**
+		 * The number of the generation.
+		 */
+		private final int number;
+
+		/**
+		 * The segments of the generation, ordered by their number.
+		 */
+		private final TreeMap<Integer, Segment> segments;
+
+		/**
+		 * The location of the record of each key, given by {@link SequenceStore#getLocation(int, long)}.
+		 */
+		private final ConcurrentHashMap<CacheKey, Long> index;
+
+		/**
+		 * Initializes this generation without any segments.
+		 * 
+		 * @param number the number of the generation.
+		 */
+		Generation(int number) {
+			this.number = number;
+			this.segments = new TreeMap<Integer, Segment>();
+			this.index = new ConcurrentHashMap<CacheKey, Long>();
+		}
+	}
+
+	/**
+	 * The directory of the store.
+	 */
+	private final File directory;
+
+	/**
+	 * The maximum size of each segment file, in bytes.
+	 */
+	private final int maxSegmentSize;
+
+	/**
+	 * The channel of the lock file of the store.
+	 */
+	private final FileChannel lockChannel;
+
+	/**
+	 * The generation of the store that is read and appended.
+	 */
+	private volatile Generation generation;
+
+	/**
+	 * {@code true} if the store is closed, or {@code false} otherwise.
+	 */
+	private boolean closed;
+
+	/**
+	 * Initializes this store given its directory, opening and scanning all its segments. The directory is created if
+	 * it does not exist. Segments are limited to 64 MB.
+	 * 
+	 * @param directory the directory of the store.
+	 * @throws IOException if the directory or its segments cannot be opened.
+	 */
+	public SequenceStore(File directory) throws IOException {
+		this(directory, 64 * 1024 * 1024);
+	}
+
+	/**
+	 * Initializes this store given its directory and the maximum size of its segments, opening and scanning all its
+	 * segments. The directory is created if it does not exist.
+	 * 
+	 * @param directory the directory of the store.
+	 * @param maxSegmentSize the maximum size of each segment file, in bytes.
+	 * @throws IOException if the directory or its segments cannot be opened.
+	 */
+	@SuppressWarnings("resource")
+	public SequenceStore(File directory, int maxSegmentSize) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create the directory " + directory);
+		this.directory = directory;
+		this.maxSegmentSize = maxSegmentSize;
+		this.lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+		this.generation = new Generation(-1);
+		refresh();
+	}
+
+	/**
+	 * Encodes the location of a record given its segment and its offset in the segment.
+	 * 
+	 * @param segmentNumber the number of the segment of the record.
+	 * @param offset the offset of the record in the segment.
+	 * @return the location of the record.
+	 */
+	private static long getLocation(int segmentNumber, long offset) {
+		return ((long) segmentNumber << 32) | offset;
+	}
+
+	/**
+	 * Returns the file of the segment with the given generation and number.
+	 * 
+	 * @param generationNumber the generation of the segment.
+	 * @param number the number of the segment.
+	 * @return the file of the segment.
+	 */
+	private File getSegmentFile(int generationNumber, int number) {
+		return new File(directory, String.format("segment-%08d-%08d.dat", generationNumber, number));
+	}
+
+	/**
+	 * Reads the current generation of the store from its generation file.
+	 * 
+	 * @return the current generation, which is 0 if the store has never been compacted.
+	 * @throws IOException if the generation file cannot be read.
+	 */
+	private int readGeneration() throws IOException {
+		File file = new File(directory, GENERATION_FILE);
+		if (!file.exists())
+			return 0;
+		return Integer.parseInt(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim());
+	}
+
+	/**
+	 * Replaces the generation file of the store atomically, so that other processes read either the previous or the
+	 * given generation.
+	 * 
+	 * @param generationNumber the new generation of the store.
+	 * @throws IOException if the generation file cannot be written.
+	 */
+	private void writeGeneration(int generationNumber) throws IOException {
+		File temporaryFile = new File(directory, GENERATION_FILE + ".tmp");
+		RandomAccessFile file = new RandomAccessFile(temporaryFile, "rw");
+		try {
+			file.setLength(0);
+			file.write(Integer.toString(generationNumber).getBytes(StandardCharsets.US_ASCII));
+			file.getFD().sync();
+		} finally {
+			file.close();
+		}
+		Files.move(temporaryFile.toPath(), new File(directory, GENERATION_FILE).toPath(),
+				StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Switches to the current generation of the store if it was changed (e.g. by a compaction of another process),
+	 * opens any segments of the generation that were created since the last refresh, and scans all segments for
+	 * records appended since the last refresh, adding them to the index.
+	 * 
+	 * @throws IOException if a segment cannot be opened or read.
+	 */
+	public void refresh() throws IOException {
+		update();
+	}
+
+	/**
+	 * Refreshes the store (see {@link #refresh()}) and returns its current generation.
+	 * 
+	 * @return the current generation of the store.
+	 * @throws IOException if a segment cannot be opened or read.
+	 */
+	private synchronized Generation update() throws IOException {
+		if (closed)
+			return generation;
+		Generation current = generation;
+		while (true) {
+			int generationNumber = readGeneration();
+			Generation next = current.number == generationNumber ? current : new Generation(generationNumber);
+			openSegments(next);
+			for (Segment segment : next.segments.values())
+				scan(next, segment);
+			if (readGeneration() != generationNumber) {
+				// The generation was replaced while its segments were opened, so some of them may have been deleted
+				if (next != current) {
+					for (Segment segment : next.segments.values())
+						segment.channel.close();
+				}
+				continue;
+			}
+			if (next != current) {
+				// Switch to the new generation, keeping the mappings of the old one for any reads that are running
+				generation = next;
+				for (Segment segment : current.segments.values())
+					segment.channel.close();
+			}
+			return next;
+		}
+	}
+
+	/**
+	 * Opens the segments of a generation that are not open yet.
+	 * 
+	 * @param generation the generation of which the segments are opened.
+	 * @throws IOException if a segment cannot be opened.
+	 */
+	private void openSegments(Generation generation) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+			if (matcher.matches() && Integer.parseInt(matcher.group(1)) == generation.number) {
+				int number = Integer.parseInt(matcher.group(2));
+				try {
+					if (!generation.segments.containsKey(number))
+						generation.segments.put(number, new Segment(number, file, false));
+				} catch (NoSuchFileException e) {
+					// The segment was deleted by a compaction, which is found when the generation is read again
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scans a segment from the end of its last scanned record, adding any valid records to the index. Scanning stops
+	 * at the first incomplete or corrupted record.
+	 * 
+	 * @param generation the generation of the segment.
+	 * @param segment the segment to be scanned.
+	 * @throws IOException if the segment cannot be read.
+	 */
+	private static void scan(Generation generation, Segment segment) throws IOException {
+		long size = segment.channel.size();
+		segment.corrupted = false;
+		if (size <= segment.length)
+			return;
+		ByteBuffer buffer = map(segment, size);
+		int offset = (int) segment.length;
+		CRC32 checksum = new CRC32();
+		while (offset + HEADER_LENGTH <= size) {
+			int length = buffer.getInt(offset + CacheKey.HASH_LENGTH);
+			if (length < 0) {
+				segment.corrupted = true;
+				break;
+			}
+			if ((long) offset + HEADER_LENGTH + length > size)
+				break;
+			ByteBuffer sequence = buffer.duplicate();
+			sequence.limit(offset + HEADER_LENGTH + length).position(offset + HEADER_LENGTH);
+			checksum.reset();
+			checksum.update(sequence);
+			if ((int) checksum.getValue() != buffer.getInt(offset + CacheKey.HASH_LENGTH + 4)) {
+				segment.corrupted = true;
+				break;
+			}
+			byte[] hash = new byte[CacheKey.HASH_LENGTH];
+			ByteBuffer key = buffer.duplicate();
+			key.position(offset);
+			key.get(hash);
+			generation.index.putIfAbsent(new CacheKey(hash), getLocation(segment.number, offset));
+			offset += HEADER_LENGTH + length;
+		}
+		segment.length = offset;
+	}
+
+	/**
+	 * Maps a segment read-only so that at least the given number of bytes is mapped, unless the file of the segment is
+	 * shorter.
+	 * 
+	 * @param segment the segment to be mapped.
+	 * @param size the number of bytes that must be mapped.
+	 * @return the mapping of the segment.
+	 * @throws IOException if the segment cannot be mapped.
+	 */
+	private static MappedByteBuffer map(Segment segment, long size) throws IOException {
+		MappedByteBuffer buffer = segment.buffer;
+		if (buffer == null || buffer.capacity() < size) {
+			synchronized (segment) {
+				buffer = segment.buffer;
+				if (buffer == null || buffer.capacity() < size) {
+					buffer = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.channel.size());
+					segment.buffer = buffer;
+				}
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns the record of a key at the given location of a generation, after checking that it holds the hash of the
+	 * key and that its checksum is valid.
+	 * 
+	 * @param generation the generation of the record.
+	 * @param key the key of the record.
+	 * @param location the location of the record.
+	 * @return a read-only view of the record, or {@code null} if the segment of the record is closed or the record is
+	 *         not valid.
+	 * @throws IOException if the segment of the record cannot be mapped.
+	 */
+	private ByteBuffer getRecord(Generation generation, CacheKey key, long location) throws IOException {
+		Segment segment;
+		synchronized (this) {
+			segment = generation.segments.get((int) (location >>> 32));
+		}
+		if (segment == null)
+			return null;
+		int offset = (int) (location & 0xFFFFFFFFL);
+		try {
+			MappedByteBuffer buffer = map(segment, offset + HEADER_LENGTH);
+			if (buffer.capacity() < offset + HEADER_LENGTH)
+				return null;
+			int length = buffer.getInt(offset + CacheKey.HASH_LENGTH);
+			if (length < 0)
+				return null;
+			buffer = map(segment, (long) offset + HEADER_LENGTH + length);
+			if (buffer.capacity() < (long) offset + HEADER_LENGTH + length)
+				return null;
+			byte[] hash = key.getHash();
+			for (int i = 0; i < hash.length; i++) {
+				if (buffer.get(offset + i) != hash[i])
+					return null;
+			}
+			ByteBuffer sequence = buffer.duplicate();
+			sequence.limit(offset + HEADER_LENGTH + length).position(offset + HEADER_LENGTH);
+			CRC32 checksum = new CRC32();
+			checksum.update(sequence);
+			if ((int) checksum.getValue() != buffer.getInt(offset + CacheKey.HASH_LENGTH + 4))
+				return null;
+			ByteBuffer record = buffer.asReadOnlyBuffer();
+			record.limit(offset + HEADER_LENGTH + length).position(offset);
+			return record.slice();
+		} catch (ClosedChannelException e) {
+			// The generation of the segment was replaced by a compaction
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if the store contains the sequence of the given key.
+	 * 
+	 * @param key the key of the sequence.
+	 * @return {@code true} if the store contains the sequence of the key, or {@code false} otherwise.
+	 */
+	public boolean contains(CacheKey key) {
+		return generation.index.containsKey(key);
+	}
+
+	/**
+	 * Returns the sequence of the given key as UTF-8 bytes. The returned buffer is a read-only view of the mapped
+	 * segment, so no bytes are copied. If the record of the key cannot be read from its segment, the store is
+	 * refreshed and the record is found again in the current generation; if it is still not valid, it is dropped
+	 * from the index.
+	 * 
+	 * @param key the key of the sequence.
+	 * @return the bytes of the sequence of the key, or {@code null} if the store does not contain a valid record of the
+	 *         key (e.g. because it was closed).
+	 * @throws IOException if the segment of the sequence cannot be mapped.
+	 */
+	public ByteBuffer getBytes(CacheKey key) throws IOException {
+		Generation current = generation;
+		Long location = current.index.get(key);
+		if (location == null)
+			return null;
+		ByteBuffer record = getRecord(current, key, location);
+		if (record == null) {
+			current = update();
+			location = current.index.get(key);
+			if (location == null)
+				return null;
+			record = getRecord(current, key, location);
+			if (record == null) {
+				current.index.remove(key, location);
+				return null;
+			}
+		}
+		record.position(HEADER_LENGTH);
+		return record.slice();
+	}
+
+	/**
+	 * Returns the sequence of the given key.
+	 * 
+	 * @param key the key of the sequence.
+	 * @return the sequence of the key, or {@code null} if the store does not contain the key.
+	 * @throws IOException if the segment of the sequence cannot be mapped.
+	 */
+	public String get(CacheKey key) throws IOException {
+		ByteBuffer sequence = getBytes(key);
+		return sequence == null ? null : StandardCharsets.UTF_8.decode(sequence).toString();
+	}
+
+	/**
+	 * Appends the sequence of a key to the last segment of the store, unless the store already contains the key. A
+	 * new segment is started if the record does not fit in the last segment or if the last segment has a corrupted
+	 * record.
+	 * 
+	 * @param key the key of the sequence.
+	 * @param sequence the sequence to be added.
+	 * @throws IOException if the segment cannot be written.
+	 */
+	public synchronized void put(CacheKey key, String sequence) throws IOException {
+		if (generation.index.containsKey(key))
+			return;
+		byte[] bytes = sequence.getBytes(StandardCharsets.UTF_8);
+		CRC32 checksum = new CRC32();
+		checksum.update(bytes);
+		ByteBuffer record = ByteBuffer.allocate(HEADER_LENGTH + bytes.length);
+		record.put(key.getHash()).putInt(bytes.length).putInt((int) checksum.getValue()).put(bytes).flip();
+
+		FileLock lock = lockChannel.lock();
+		try {
+			// Find the generation and the records written by other processes
+			Generation current = update();
+			if (current.index.containsKey(key))
+				return;
+			Segment segment = current.segments.isEmpty() ? openSegment(current, 0) : current.segments.lastEntry()
+					.getValue();
+			while (true) {
+				scan(current, segment);
+				if (current.index.containsKey(key))
+					return;
+				if (!segment.corrupted
+						&& (segment.length == 0 || segment.length + record.remaining() <= maxSegmentSize)) {
+					// Remove any incomplete record, which no process has indexed
+					if (segment.channel.size() > segment.length)
+						segment.channel.truncate(segment.length);
+					append(current, segment, key, record);
+					return;
+				}
+				segment = openSegment(current, segment.number + 1);
+			}
+		} finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Appends a record to the end of a segment and adds it to the index of its generation.
+	 * 
+	 * @param generation the generation of the segment.
+	 * @param segment the segment where the record is appended.
+	 * @param key the key of the record.
+	 * @param record the record, from its start to its limit.
+	 * @throws IOException if the segment cannot be written.
+	 */
+	private static void append(Generation generation, Segment segment, CacheKey key, ByteBuffer record)
+			throws IOException {
+		long offset = segment.length;
+		int start = record.position();
+		while (record.hasRemaining())
+			segment.channel.write(record, offset + record.position() - start);
+		segment.length = offset + record.limit() - start;
+		generation.index.put(key, getLocation(segment.number, offset));
+	}
+
+	/**
+	 * Opens the segment of a generation with the given number, creating its file if it does not exist.
+	 * 
+	 * @param generation the generation of the segment.
+	 * @param number the number of the segment.
+	 * @return the segment.
+	 * @throws IOException if the segment cannot be opened.
+	 */
+	private Segment openSegment(Generation generation, int number) throws IOException {
+		Segment segment = generation.segments.get(number);
+		if (segment == null) {
+			segment = new Segment(number, getSegmentFile(generation.number, number), true);
+			generation.segments.put(number, segment);
+		}
+		return segment;
+	}
+
+	/**
+	 * Compacts the store, copying the valid records of all keys to the segments of a new generation, which replaces
+	 * the current one atomically, and deleting the segments of the older generations. This removes any duplicate,
+	 * corrupted or incomplete records. Compaction locks the store, so it may be run while other processes use it; they
+	 * keep reading the records of the older generation through their mappings, and switch to the new generation when
+	 * they are refreshed or append a sequence.
+	 * 
+	 * @throws IOException if the segments cannot be read or written.
+	 */
+	public synchronized void compact() throws IOException {
+		FileLock lock = lockChannel.lock();
+		try {
+			Generation current = update();
+			Generation compacted = new Generation(current.number + 1);
+			deleteSegments(current.number);
+
+			// Sort the records by their location, so that the segments are read sequentially
+			ArrayList<Map.Entry<CacheKey, Long>> records = new ArrayList<Map.Entry<CacheKey, Long>>(
+					current.index.entrySet());
+			Collections.sort(records, new Comparator<Map.Entry<CacheKey, Long>>() {
+				@Override
+				public int compare(Map.Entry<CacheKey, Long> record1, Map.Entry<CacheKey, Long> record2) {
+					return record1.getValue().compareTo(record2.getValue());
+				}
+			});
+
+			// Copy the valid records to the segments of the new generation and write them to disk
+			Segment segment = openSegment(compacted, 0);
+			for (Map.Entry<CacheKey, Long> entry : records) {
+				ByteBuffer record = getRecord(current, entry.getKey(), entry.getValue());
+				if (record == null)
+					continue;
+				if (segment.length > 0 && segment.length + record.remaining() > maxSegmentSize)
+					segment = openSegment(compacted, segment.number + 1);
+				append(compacted, segment, entry.getKey(), record);
+			}
+			for (Segment compactedSegment : compacted.segments.values())
+				compactedSegment.channel.force(true);
+
+			// Switch to the new generation, keeping the mappings of the old one for any reads that are running
+			writeGeneration(compacted.number);
+			generation = compacted;
+			for (Segment oldSegment : current.segments.values())
+				oldSegment.channel.close();
+			deleteSegments(compacted.number);
+		} finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Deletes the segment files of all generations other than the given one. Files that cannot be deleted (e.g.
+	 * because they are mapped on some systems) are deleted by a later compaction.
+	 * 
+	 * @param generationNumber the generation of which the segments are kept.
+	 */
+	private void deleteSegments(int generationNumber) {
+		File[] files = directory.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+			if (matcher.matches() && Integer.parseInt(matcher.group(1)) != generationNumber)
+				file.delete();
+		}
+	}
+
+	/**
+	 * Returns the number of sequences of the store.
+	 * 
+	 * @return the number of sequences of the store.
+	 */
+	public int size() {
+		return generation.index.size();
+	}
+
+	/**
+	 * Closes the segment files and the lock file of the store.
+	 * 
+	 * @throws IOException if a file cannot be closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		Generation current = generation;
+		for (Segment segment : current.segments.values()) {
+			segment.buffer = null;
+			segment.channel.close();
+		}
+		current.segments.clear();
+		current.index.clear();
+		lockChannel.close();
+	}
+
+}
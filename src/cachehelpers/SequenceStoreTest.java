@@ -0,0 +1,285 @@
+package cachehelpers;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sequenceextractor.ExtractionOptions;
+
+/**
+ * Class used as a test of the {@link SequenceStore}, which checks that the sequences of a store are read back after
+ * reopening it, that corrupted records are dropped without being overwritten while incomplete records are overwritten
+ * by the next append, and that a store can be compacted while another store reads the same directory.
+ * 
+ * @author themis
+ */
+public class SequenceStoreTest {
+
+	/**
+	 * The number of sequences written in the store.
+	 */
+	private static final int SEQUENCES = 100;
+
+	/**
+	 * The number of compactions while another store reads the same directory.
+	 */
+	private static final int COMPACTIONS = 20;
+
+	/**
+	 * Returns the key of the sequence with the given number.
+	 * 
+	 * @param number the number of the sequence.
+	 * @return the key of the sequence.
+	 */
+	private static CacheKey getKey(int number) {
+		return new CacheKey("snippet " + number, new ExtractionOptions());
+	}
+
+	/**
+	 * Returns the sequence with the given number, which includes non-ASCII characters.
+	 * 
+	 * @param number the number of the sequence.
+	 * @return the sequence.
+	 */
+	private static String getSequence(int number) {
+		return "[[CI_List#" + number + ", FC_void, FC_\u00e9\u4e2d\ud83d\ude00]]";
+	}
+
+	/**
+	 * Checks that the store contains the first sequences up to the given number and none of the rest.
+	 * 
+	 * @param store the store to be checked.
+	 * @param sequences the number of sequences that the store must contain.
+	 * @return the number of sequences that are not as expected.
+	 * @throws IOException if the store cannot be read.
+	 */
+	private static int check(SequenceStore store, int sequences) throws IOException {
+		int mismatches = store.size() == sequences ? 0 : 1;
+		for (int i = 0; i < SEQUENCES; i++) {
+			String sequence = store.get(getKey(i));
+			if (i < sequences ? !getSequence(i).equals(sequence) : sequence != null)
+				mismatches++;
+		}
+		return mismatches;
+	}
+
+	/**
+	 * Returns the offset of the record of the sequence with the given number in a store with a single segment.
+	 * 
+	 * @param number the number of the sequence.
+	 * @return the offset of the record.
+	 */
+	private static long getOffset(int number) {
+		long offset = 0;
+		for (int i = 0; i < number; i++)
+			offset += CacheKey.HASH_LENGTH + 8 + getSequence(i).getBytes(StandardCharsets.UTF_8).length;
+		return offset;
+	}
+
+	/**
+	 * Returns the segment files of a store, ordered by their generation and number.
+	 * 
+	 * @param directory the directory of the store.
+	 * @return the segment files of the store.
+	 */
+	private static File[] getSegments(File directory) {
+		File[] segments = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.getName().startsWith("segment-");
+			}
+		});
+		Arrays.sort(segments);
+		return segments;
+	}
+
+	/**
+	 * Returns the total length of the segment files of a store.
+	 * 
+	 * @param directory the directory of the store.
+	 * @return the total length of the segment files.
+	 */
+	private static long getLength(File directory) {
+		long length = 0;
+		for (File segment : getSegments(directory))
+			length += segment.length();
+		return length;
+	}
+
+	/**
+	 * Flips a bit of the given byte of a file.
+	 * 
+	 * @param segment the file to be changed.
+	 * @param offset the offset of the byte in the file.
+	 * @throws IOException if the file cannot be changed.
+	 */
+	private static void corrupt(File segment, long offset) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(segment, "rw");
+		try {
+			file.seek(offset);
+			int value = file.read();
+			file.seek(offset);
+			file.write(value ^ 1);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Appends an incomplete record of the sequence with the given number to a file, as left by a failed process.
+	 * 
+	 * @param segment the file where the record is appended.
+	 * @param number the number of the sequence.
+	 * @throws IOException if the file cannot be changed.
+	 */
+	private static void appendIncompleteRecord(File segment, int number) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(segment, "rw");
+		try {
+			file.seek(file.length());
+			file.write(getKey(number).getHash());
+			file.writeInt(1000);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Deletes the directory of a store along with its files.
+	 * 
+	 * @param directory the directory of the store.
+	 */
+	private static void delete(File directory) {
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+
+	/**
+	 * Writes sequences in stores, reopens the stores and checks their sequences, after corrupting or truncating their
+	 * records, and checks that compacting a store does not affect another store that reads the same directory.
+	 * 
+	 * @param args unused parameter.
+	 * @throws IOException if a store cannot be created, read or written.
+	 * @throws InterruptedException if the thread that reads the store is interrupted.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int mismatches = 0;
+
+		// Write the sequences in small segments and read them back after reopening the store
+		File directory = Files.createTempDirectory("store").toFile();
+		SequenceStore store = new SequenceStore(directory, 1024);
+		for (int i = 0; i < SEQUENCES; i++)
+			store.put(getKey(i), getSequence(i));
+		store.put(getKey(0), "duplicate");
+		mismatches += check(store, SEQUENCES);
+		store.close();
+		if (getSegments(directory).length < 2)
+			mismatches++;
+		store = new SequenceStore(directory, 1024);
+		mismatches += check(store, SEQUENCES);
+		store.close();
+		delete(directory);
+		System.out.println(mismatches == 0 ? "All sequences were read back after reopening the store"
+				: mismatches + " sequences were not read back after reopening the store");
+
+		// Corrupt a sequence of a single segment, so that it and all records after it are dropped but not overwritten
+		int corruptions = 0;
+		directory = Files.createTempDirectory("store").toFile();
+		store = new SequenceStore(directory);
+		for (int i = 0; i < 10; i++)
+			store.put(getKey(i), getSequence(i));
+		store.close();
+		File segment = getSegments(directory)[0];
+		corrupt(segment, getOffset(5) + CacheKey.HASH_LENGTH + 8);
+		store = new SequenceStore(directory);
+		corruptions += check(store, 5);
+		store.put(getKey(5), getSequence(5));
+		store.close();
+		if (segment.length() != getOffset(10) || getSegments(directory).length != 2)
+			corruptions++;
+		store = new SequenceStore(directory);
+		corruptions += check(store, 6);
+		store.close();
+
+		// Append an incomplete record, as left by a failed process, which is dropped and overwritten
+		segment = getSegments(directory)[1];
+		appendIncompleteRecord(segment, 6);
+		store = new SequenceStore(directory);
+		corruptions += check(store, 6);
+		store.put(getKey(6), getSequence(6));
+		store.close();
+		if (segment.length() != getOffset(7) - getOffset(5))
+			corruptions++;
+		store = new SequenceStore(directory);
+		corruptions += check(store, 7);
+
+		// Compact the store, which removes the corrupted records
+		store.compact();
+		corruptions += check(store, 7);
+		store.close();
+		if (getSegments(directory).length != 1 || getLength(directory) != getOffset(7))
+			corruptions++;
+		store = new SequenceStore(directory);
+		corruptions += check(store, 7);
+
+		// Corrupt a record that is already indexed, which is dropped when it is read
+		corrupt(getSegments(directory)[0], getOffset(3) + CacheKey.HASH_LENGTH + 8);
+		if (store.get(getKey(3)) != null || store.size() != 6 || !getSequence(4).equals(store.get(getKey(4))))
+			corruptions++;
+		store.close();
+		delete(directory);
+		System.out.println(corruptions == 0 ? "All corrupted and incomplete records were dropped"
+				: corruptions + " sequences were not as expected after corrupting the store");
+
+		// Compact a store many times while another store of the same directory keeps reading it
+		directory = Files.createTempDirectory("store").toFile();
+		store = new SequenceStore(directory, 1024);
+		for (int i = 0; i < SEQUENCES - 1; i++)
+			store.put(getKey(i), getSequence(i));
+		appendIncompleteRecord(getSegments(directory)[getSegments(directory).length - 1], SEQUENCES);
+		final SequenceStore reader = new SequenceStore(directory, 1024);
+		final AtomicBoolean stopped = new AtomicBoolean();
+		final AtomicInteger readErrors = new AtomicInteger();
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				while (!stopped.get()) {
+					for (int i = 0; i < SEQUENCES - 1; i++) {
+						try {
+							if (!getSequence(i).equals(reader.get(getKey(i))))
+								readErrors.incrementAndGet();
+						} catch (IOException e) {
+							readErrors.incrementAndGet();
+						}
+					}
+				}
+			}
+		};
+		thread.start();
+		for (int i = 0; i < COMPACTIONS; i++) {
+			store.compact();
+			if (i % 2 == 1)
+				reader.refresh();
+		}
+		stopped.set(true);
+		thread.join();
+
+		// Append a sequence to the last generation, which is found by the other store after refreshing it
+		store.put(getKey(SEQUENCES - 1), getSequence(SEQUENCES - 1));
+		reader.refresh();
+		int compactionErrors = readErrors.get() + check(store, SEQUENCES) + check(reader, SEQUENCES);
+		if (getLength(directory) != getOffset(SEQUENCES))
+			compactionErrors++;
+		reader.close();
+		store.close();
+		delete(directory);
+		System.out.println(compactionErrors == 0 ? "All sequences were read while compacting the store"
+				: compactionErrors + " sequences were not read as expected while compacting the store");
+	}
+}
@@ -0,0 +1,446 @@
+package corpushelpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import outputhelpers.TokenDictionary;
+
+/**
+ * Class that represents a corpus of encoded sequences kept in a memory-mapped file, which is written using
+ * {@link SequenceCorpusWriter}. The file is columnar, so that the sequences are read from the mapping without being
+ * deserialized. It starts with a header of {@link #HEADER_SIZE} bytes, i.e. {@link #MAGIC} followed by the numbers of
+ * snippets, methods, sequences and tokens and the positions of the sections of the file as 8-byte big-endian integers,
+ * and is followed by these sections:
+ * <ul>
+ * <li>the IDs of the tokens of all sequences as 4-byte integers, padded to a multiple of 8 bytes,</li>
+ * <li>the offset of each sequence in the tokens as an 8-byte integer, followed by the total number of tokens,</li>
+ * <li>the offset of each method in the sequences as an 8-byte integer, followed by the total number of sequences,</li>
+ * <li>the offset of each snippet in the methods as an 8-byte integer, followed by the total number of methods,</li>
+ * <li>a bit for each snippet denoting if its extraction failed, and</li>
+ * <li>the dictionary of the tokens, i.e. their number followed by the length and the UTF-8 bytes of each token in the
+ * order of their IDs.</li>
+ * </ul>
+ * The sequences of a snippet are the functions or the paths of its tree, as given by the options used to encode it,
+ * and are grouped by the method they belong to (see
+ * {@link sequenceextractor.ExtractionResult#encodeMethods(TokenDictionary)}), so that the paths of each method of a
+ * flattened tree can be told apart. The magic is written last, so that a file that was not closed is not read as a
+ * corpus. Each section is mapped read-only in chunks of at most 1 GB, so that
+ * files larger than 2 GB can be read, and the sequences of any snippet are found in constant time from the offsets.
+ * 
+ * @author themis
+ */
+public class SequenceCorpus extends AbstractList<int[][]> implements RandomAccess, Closeable {
+
+	/**
+	 * The bytes at the start of each corpus file.
+	 */
+	public static final byte[] MAGIC = "SEQUENCE".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * The size of the header of each corpus file.
+	 */
+	static final int HEADER_SIZE = 80;
+
+	/**
+	 * The maximum size of each mapped chunk of a section, which is a multiple of the size of all items so that no item
+	 * is split between chunks.
+	 */
+	private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+	/**
+	 * Class that represents a section of the file as an array of items, mapped in chunks.
+	 */
+	private static class Section {
+
+		/**
+		 * The mapped chunks of the section.
+		 */
+		private final MappedByteBuffer[] chunks;
+
+		/**
+		 * The size of each chunk, except for the last one.
+		 */
+		private final int chunkSize;
+
+		/**
+		 * Maps a section of the file.
+		 * 
+		 * @param channel the channel of the file.
+		 * @param start the position where the section starts.
+		 * @param size the size of the section in bytes.
+		 * @param chunkSize the size of each chunk, which must be a multiple of 8.
+		 * @throws IOException if the section cannot be mapped.
+		 */
+		Section(FileChannel channel, long start, long size, int chunkSize) throws IOException {
+			this.chunkSize = chunkSize;
+			chunks = new MappedByteBuffer[(int) ((size + chunkSize - 1) / chunkSize)];
+			for (int i = 0; i < chunks.length; i++)
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + (long) i * chunkSize,
+						Math.min(chunkSize, size - (long) i * chunkSize));
+		}
+
+		/**
+		 * Reads an item as a 4-byte integer.
+		 * 
+		 * @param index the index of the item.
+		 * @return the item.
+		 */
+		int getInt(long index) {
+			long position = index * 4;
+			return chunks[(int) (position / chunkSize)].getInt((int) (position % chunkSize));
+		}
+
+		/**
+		 * Reads an item as an 8-byte integer.
+		 * 
+		 * @param index the index of the item.
+		 * @return the item.
+		 */
+		long getLong(long index) {
+			long position = index * 8;
+			return chunks[(int) (position / chunkSize)].getLong((int) (position % chunkSize));
+		}
+
+		/**
+		 * Reads consecutive items as 4-byte integers in bulk.
+		 * 
+		 * @param index the index of the first item.
+		 * @param items the array where the items are read.
+		 */
+		void getInts(long index, int[] items) {
+			int read = 0;
+			while (read < items.length) {
+				long position = (index + read) * 4;
+				ByteBuffer chunk = chunks[(int) (position / chunkSize)].duplicate();
+				chunk.position((int) (position % chunkSize));
+				int count = Math.min(items.length - read, chunk.remaining() / 4);
+				chunk.asIntBuffer().get(items, read, count);
+				read += count;
+			}
+		}
+
+		/**
+		 * Reads a bit of the section.
+		 * 
+		 * @param index the index of the bit.
+		 * @return {@code true} if the bit is set, or {@code false} otherwise.
+		 */
+		boolean getBit(long index) {
+			long position = index / 8;
+			byte bits = chunks[(int) (position / chunkSize)].get((int) (position % chunkSize));
+			return (bits & (1 << (index % 8))) != 0;
+		}
+	}
+
+	/**
+	 * The file of the corpus.
+	 */
+	private final RandomAccessFile file;
+
+	/**
+	 * The number of snippets of the corpus.
+	 */
+	private final int size;
+
+	/**
+	 * The number of tokens of all sequences of the corpus.
+	 */
+	private final long tokenCount;
+
+	/**
+	 * The IDs of the tokens of all sequences.
+	 */
+	private final Section tokens;
+
+	/**
+	 * The offset of each sequence in the tokens.
+	 */
+	private final Section sequenceOffsets;
+
+	/**
+	 * The offset of each method in the sequences.
+	 */
+	private final Section methodOffsets;
+
+	/**
+	 * The offset of each snippet in the methods.
+	 */
+	private final Section snippetOffsets;
+
+	/**
+	 * The bits denoting the snippets of which the extraction failed.
+	 */
+	private final Section failed;
+
+	/**
+	 * The dictionary of the tokens.
+	 */
+	private final TokenDictionary dictionary;
+
+	/**
+	 * Opens a corpus file and maps its sections.
+	 * 
+	 * @param file the file of the corpus.
+	 * @throws IOException if the file cannot be read or is not a valid corpus file.
+	 */
+	public SequenceCorpus(File file) throws IOException {
+		this(file, MAX_CHUNK_SIZE);
+	}
+
+	/**
+	 * Opens a corpus file and maps its sections in chunks of at most the given size.
+	 * 
+	 * @param file the file of the corpus.
+	 * @param maxChunkSize the maximum size of each mapped chunk, which must be a multiple of 8.
+	 * @throws IOException if the file cannot be read or is not a valid corpus file.
+	 */
+	SequenceCorpus(File file, int maxChunkSize) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = this.file.getChannel();
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE)
+				throw new IOException("Not a sequence corpus");
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			if (!Arrays.equals(magic, MAGIC))
+				throw new IOException("Not a sequence corpus");
+			long snippetCount = header.getLong();
+			long methodCount = header.getLong();
+			long sequenceCount = header.getLong();
+			tokenCount = header.getLong();
+			long sequenceOffsetsStart = header.getLong();
+			long methodOffsetsStart = header.getLong();
+			long snippetOffsetsStart = header.getLong();
+			long failedStart = header.getLong();
+			long dictionaryStart = header.getLong();
+			if (snippetCount < 0 || snippetCount > Integer.MAX_VALUE || methodCount < 0 || sequenceCount < 0
+					|| tokenCount < 0 || sequenceOffsetsStart != HEADER_SIZE + 4 * (tokenCount + tokenCount % 2)
+					|| methodOffsetsStart != sequenceOffsetsStart + 8 * (sequenceCount + 1)
+					|| snippetOffsetsStart != methodOffsetsStart + 8 * (methodCount + 1)
+					|| failedStart != snippetOffsetsStart + 8 * (snippetCount + 1)
+					|| dictionaryStart != failedStart + (snippetCount + 7) / 8 || dictionaryStart + 4 > fileSize)
+				throw new IOException("Truncated sequence corpus");
+			size = (int) snippetCount;
+			tokens = new Section(channel, HEADER_SIZE, sequenceOffsetsStart - HEADER_SIZE, maxChunkSize);
+			sequenceOffsets = new Section(channel, sequenceOffsetsStart, methodOffsetsStart - sequenceOffsetsStart,
+					maxChunkSize);
+			methodOffsets = new Section(channel, methodOffsetsStart, snippetOffsetsStart - methodOffsetsStart,
+					maxChunkSize);
+			snippetOffsets = new Section(channel, snippetOffsetsStart, failedStart - snippetOffsetsStart,
+					maxChunkSize);
+			failed = new Section(channel, failedStart, dictionaryStart - failedStart, maxChunkSize);
+			dictionary = readDictionary(channel, dictionaryStart, fileSize);
+		} catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks if a file is a corpus file, i.e. if it starts with {@link #MAGIC}.
+	 * 
+	 * @param file the file to be checked.
+	 * @return {@code true} if the file is a corpus file, or {@code false} otherwise.
+	 */
+	public static boolean isSequenceCorpus(File file) {
+		if (!file.isFile() || file.length() < HEADER_SIZE)
+			return false;
+		byte[] magic = new byte[MAGIC.length];
+		try {
+			RandomAccessFile input = new RandomAccessFile(file, "r");
+			try {
+				input.readFully(magic);
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		return Arrays.equals(magic, MAGIC);
+	}
+
+	/**
+	 * Reads the dictionary of the tokens at the end of the file.
+	 * 
+	 * @param channel the channel of the file.
+	 * @param start the position where the dictionary starts.
+	 * @param fileSize the size of the file.
+	 * @return the dictionary of the tokens.
+	 * @throws IOException if the dictionary cannot be read.
+	 */
+	private static TokenDictionary readDictionary(FileChannel channel, long start, long fileSize) throws IOException {
+		if (fileSize - start > Integer.MAX_VALUE)
+			throw new IOException("Invalid dictionary of sequence corpus");
+		ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, fileSize - start);
+		try {
+			int count = bytes.getInt();
+			ArrayList<String> tokens = new ArrayList<String>(Math.min(count, bytes.remaining() / 4));
+			for (int i = 0; i < count; i++) {
+				byte[] token = new byte[bytes.getInt()];
+				bytes.get(token);
+				tokens.add(new String(token, StandardCharsets.UTF_8));
+			}
+			return new TokenDictionary(tokens);
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid dictionary of sequence corpus", e);
+		}
+	}
+
+	/**
+	 * Returns the number of snippets of the corpus.
+	 * 
+	 * @return the number of snippets of the corpus.
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of tokens of all sequences of the corpus.
+	 * 
+	 * @return the number of tokens of all sequences of the corpus.
+	 */
+	public long getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Returns the dictionary of the tokens of the corpus.
+	 * 
+	 * @return the dictionary of the tokens.
+	 */
+	public TokenDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Checks if the extraction of a snippet failed.
+	 * 
+	 * @param index the index of the snippet.
+	 * @return {@code true} if the extraction of the snippet failed, or {@code false} otherwise.
+	 */
+	public boolean isFailed(int index) {
+		checkIndex(index);
+		return failed.getBit(index);
+	}
+
+	/**
+	 * Returns the number of methods of a snippet.
+	 * 
+	 * @param index the index of the snippet.
+	 * @return the number of methods of the snippet.
+	 */
+	public int getMethodCount(int index) {
+		checkIndex(index);
+		return (int) (snippetOffsets.getLong(index + 1) - snippetOffsets.getLong(index));
+	}
+
+	/**
+	 * Returns the number of sequences of a snippet, i.e. of all its methods.
+	 * 
+	 * @param index the index of the snippet.
+	 * @return the number of sequences of the snippet.
+	 */
+	public int getSequenceCount(int index) {
+		checkIndex(index);
+		return (int) (methodOffsets.getLong(snippetOffsets.getLong(index + 1))
+				- methodOffsets.getLong(snippetOffsets.getLong(index)));
+	}
+
+	/**
+	 * Returns a sequence of a snippet as the IDs of its tokens.
+	 * 
+	 * @param index the index of the snippet.
+	 * @param sequenceIndex the index of the sequence among the sequences of the snippet.
+	 * @return the IDs of the tokens of the sequence.
+	 */
+	public int[] getSequence(int index, int sequenceIndex) {
+		if (sequenceIndex < 0 || sequenceIndex >= getSequenceCount(index))
+			throw new IndexOutOfBoundsException("Sequence: " + sequenceIndex + ", Sequences: "
+					+ getSequenceCount(index));
+		return getSequence(methodOffsets.getLong(snippetOffsets.getLong(index)) + sequenceIndex);
+	}
+
+	/**
+	 * Returns a sequence of the corpus as the IDs of its tokens.
+	 * 
+	 * @param sequence the index of the sequence among all sequences of the corpus.
+	 * @return the IDs of the tokens of the sequence.
+	 */
+	private int[] getSequence(long sequence) {
+		long start = sequenceOffsets.getLong(sequence);
+		int[] ids = new int[(int) (sequenceOffsets.getLong(sequence + 1) - start)];
+		tokens.getInts(start, ids);
+		return ids;
+	}
+
+	/**
+	 * Returns the sequences of a method of a snippet as the IDs of their tokens, e.g. the paths of the tree that run
+	 * through the method.
+	 * 
+	 * @param index the index of the snippet.
+	 * @param methodIndex the index of the method among the methods of the snippet.
+	 * @return the sequences of the method.
+	 */
+	public int[][] getMethod(int index, int methodIndex) {
+		if (methodIndex < 0 || methodIndex >= getMethodCount(index))
+			throw new IndexOutOfBoundsException("Method: " + methodIndex + ", Methods: " + getMethodCount(index));
+		long method = snippetOffsets.getLong(index) + methodIndex;
+		long start = methodOffsets.getLong(method);
+		int[][] sequences = new int[(int) (methodOffsets.getLong(method + 1) - start)][];
+		for (int i = 0; i < sequences.length; i++)
+			sequences[i] = getSequence(start + i);
+		return sequences;
+	}
+
+	/**
+	 * Returns the sequences of a snippet as the IDs of their tokens, i.e. the sequences of all its methods in order.
+	 * 
+	 * @param index the index of the snippet.
+	 * @return the sequences of the snippet, or {@code null} if its extraction failed.
+	 */
+	@Override
+	public int[][] get(int index) {
+		if (isFailed(index))
+			return null;
+		int[][] sequences = new int[getSequenceCount(index)][];
+		long first = methodOffsets.getLong(snippetOffsets.getLong(index));
+		for (int i = 0; i < sequences.length; i++)
+			sequences[i] = getSequence(first + i);
+		return sequences;
+	}
+
+	/**
+	 * Checks that an index is the index of a snippet of the corpus.
+	 * 
+	 * @param index the index to be checked.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	/**
+	 * Closes the file of the corpus. The mapped sections are released when they are no longer referenced.
+	 * 
+	 * @throws IOException if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+}
@@ -0,0 +1,145 @@
+package corpushelpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import outputhelpers.TokenDictionary;
+import sequenceextractor.ExtractionResult;
+
+/**
+ * Class used as a test of the {@link SequenceCorpus}, which checks that the sequences of a corpus and their methods are
+ * read back when its sections are mapped in chunks that are much smaller than the sections, so that sequences and
+ * offsets continue in the next chunk, and that truncated files are rejected.
+ * 
+ * @author themis
+ */
+public class SequenceCorpusTest {
+
+	/**
+	 * The number of snippets written in the corpus, which is enough for the bits of the failed snippets to span many
+	 * chunks.
+	 */
+	private static final int SNIPPETS = 300;
+
+	/**
+	 * The maximum size of the chunks of the corpus, which holds only a few tokens or offsets.
+	 */
+	private static final int MAX_CHUNK_SIZE = 16;
+
+	/**
+	 * Returns the sequences of each method of the snippet with the given number, using the tokens of a dictionary.
+	 * Every seventh snippet failed, and the rest have a different number of methods, sequences and tokens, including
+	 * snippets without methods, methods without sequences and empty sequences.
+	 * 
+	 * @param number the number of the snippet.
+	 * @param dictionary the dictionary of the tokens.
+	 * @return the sequences of each method of the snippet, or {@code null} if its extraction failed.
+	 */
+	private static int[][][] getMethods(int number, TokenDictionary dictionary) {
+		if (number % 7 == 3)
+			return null;
+		int[][][] methods = new int[number % 3][][];
+		for (int m = 0; m < methods.length; m++) {
+			methods[m] = new int[(number + m) % 4][];
+			for (int i = 0; i < methods[m].length; i++) {
+				methods[m][i] = new int[(number + m + i) % 6];
+				for (int j = 0; j < methods[m][i].length; j++)
+					methods[m][i][j] = dictionary.getId("FC_token" + (number * j + m + i) % 50);
+			}
+		}
+		return methods;
+	}
+
+	/**
+	 * Checks that the snippets of a corpus have the expected sequences, both in order and grouped by method.
+	 * 
+	 * @param corpus the corpus to be checked.
+	 * @param dictionary the dictionary of the tokens of the expected sequences.
+	 * @return the number of snippets that do not have the expected sequences.
+	 */
+	private static int check(SequenceCorpus corpus, TokenDictionary dictionary) {
+		int mismatches = corpus.size() == SNIPPETS ? 0 : 1;
+		if (!corpus.getDictionary().getTokens(0).equals(dictionary.getTokens(0)))
+			mismatches++;
+		long tokenCount = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			int[][][] methods = getMethods(i, dictionary);
+			int[][] sequences = methods == null ? null : ExtractionResult.flatten(methods);
+			if (!Arrays.deepEquals(corpus.get(i), sequences) || corpus.isFailed(i) != (sequences == null))
+				mismatches++;
+			if (methods != null && corpus.getMethodCount(i) != methods.length)
+				mismatches++;
+			for (int m = 0; methods != null && m < methods.length; m++) {
+				if (!Arrays.deepEquals(corpus.getMethod(i, m), methods[m]))
+					mismatches++;
+			}
+			for (int j = 0; sequences != null && j < sequences.length; j++)
+				tokenCount += sequences[j].length;
+		}
+		if (corpus.getTokenCount() != tokenCount)
+			mismatches++;
+		return mismatches;
+	}
+
+	/**
+	 * Checks that a corpus file cannot be opened.
+	 * 
+	 * @param file the corpus file.
+	 * @return {@code true} if the file is rejected, or {@code false} otherwise.
+	 */
+	private static boolean isRejected(File file) {
+		try {
+			new SequenceCorpus(file, MAX_CHUNK_SIZE).close();
+			return false;
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Writes sequences in a corpus, reads them back using small chunks, and checks that truncated files are rejected.
+	 * 
+	 * @param args unused parameter.
+	 * @throws IOException if the corpus cannot be written or read.
+	 */
+	public static void main(String[] args) throws IOException {
+		File file = File.createTempFile("sequences", ".corpus");
+		file.deleteOnExit();
+		TokenDictionary dictionary = new TokenDictionary();
+		SequenceCorpusWriter writer = new SequenceCorpusWriter(file, dictionary);
+		for (int i = 0; i < SNIPPETS; i++)
+			writer.append(getMethods(i, dictionary));
+		writer.close();
+
+		// Read the sequences back from chunks that are much smaller than the sections
+		int mismatches = 0;
+		SequenceCorpus corpus = new SequenceCorpus(file, MAX_CHUNK_SIZE);
+		mismatches += check(corpus, dictionary);
+		corpus.close();
+		corpus = new SequenceCorpus(file);
+		mismatches += check(corpus, dictionary);
+		corpus.close();
+		System.out.println(mismatches == 0 ? "All sequences were read back across the chunks of the corpus"
+				: mismatches + " snippets were not read back across the chunks of the corpus");
+
+		// Truncate the dictionary and then the sections of the file
+		int acceptedFiles = 0;
+		RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+		try {
+			truncated.setLength(file.length() - 1);
+			if (!isRejected(file))
+				acceptedFiles++;
+			truncated.setLength(SequenceCorpus.HEADER_SIZE + 8);
+			if (!isRejected(file))
+				acceptedFiles++;
+		} finally {
+			truncated.close();
+		}
+		System.out.println(acceptedFiles == 0 ? "All truncated files were rejected"
+				: acceptedFiles + " truncated files were not rejected");
+		file.delete();
+	}
+
+}
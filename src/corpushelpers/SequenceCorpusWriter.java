@@ -0,0 +1,230 @@
+package corpushelpers;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.List;
+
+import outputhelpers.TokenDictionary;
+
+/**
+ * Class used to write a corpus of encoded sequences in the format read by {@link SequenceCorpus}. The sequences of
+ * each snippet are appended as they are extracted, so that a corpus of any size can be written without keeping it in
+ * memory. The IDs of the tokens are written to the file directly, while the offsets of the sequences, the methods and
+ * the snippets are written to temporary files next to it, which are appended to the file when it is closed, followed
+ * by the tokens of the dictionary, which may grow until then. A writer must be used by one thread at a time.
+ * 
+ * @author themis
+ */
+public class SequenceCorpusWriter implements Closeable {
+
+	/**
+	 * The file of the corpus.
+	 */
+	private final File file;
+
+	/**
+	 * The dictionary of the tokens of the sequences.
+	 */
+	private final TokenDictionary dictionary;
+
+	/**
+	 * The buffered output of the file of the corpus, where the IDs of the tokens are written.
+	 */
+	private final DataOutputStream tokens;
+
+	/**
+	 * The temporary file of the offsets of the sequences.
+	 */
+	private final File sequenceOffsetsFile;
+
+	/**
+	 * The buffered output of the offsets of the sequences.
+	 */
+	private final DataOutputStream sequenceOffsets;
+
+	/**
+	 * The temporary file of the offsets of the methods.
+	 */
+	private final File methodOffsetsFile;
+
+	/**
+	 * The buffered output of the offsets of the methods.
+	 */
+	private final DataOutputStream methodOffsets;
+
+	/**
+	 * The temporary file of the offsets of the snippets.
+	 */
+	private final File snippetOffsetsFile;
+
+	/**
+	 * The buffered output of the offsets of the snippets.
+	 */
+	private final DataOutputStream snippetOffsets;
+
+	/**
+	 * The snippets of which the extraction failed.
+	 */
+	private final BitSet failed;
+
+	/**
+	 * The number of snippets that were appended.
+	 */
+	private long snippetCount;
+
+	/**
+	 * The number of methods that were appended.
+	 */
+	private long methodCount;
+
+	/**
+	 * The number of sequences that were appended.
+	 */
+	private long sequenceCount;
+
+	/**
+	 * The number of tokens that were appended.
+	 */
+	private long tokenCount;
+
+	/**
+	 * Creates a corpus file, replacing any existing file.
+	 * 
+	 * @param file the file of the corpus.
+	 * @param dictionary the dictionary of the tokens of the sequences, which is written when the corpus is closed.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public SequenceCorpusWriter(File file, TokenDictionary dictionary) throws IOException {
+		this.file = file;
+		this.dictionary = dictionary;
+		File directory = file.getAbsoluteFile().getParentFile();
+		sequenceOffsetsFile = File.createTempFile(file.getName(), ".sequences.tmp", directory);
+		methodOffsetsFile = File.createTempFile(file.getName(), ".methods.tmp", directory);
+		snippetOffsetsFile = File.createTempFile(file.getName(), ".snippets.tmp", directory);
+		tokens = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		sequenceOffsets = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sequenceOffsetsFile)));
+		methodOffsets = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(methodOffsetsFile)));
+		snippetOffsets = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snippetOffsetsFile)));
+		failed = new BitSet();
+		tokens.write(new byte[SequenceCorpus.HEADER_SIZE]);
+		sequenceOffsets.writeLong(0);
+		methodOffsets.writeLong(0);
+		snippetOffsets.writeLong(0);
+	}
+
+	/**
+	 * Returns the dictionary of the tokens of the sequences.
+	 * 
+	 * @return the dictionary of the tokens of the sequences.
+	 */
+	public TokenDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Returns the number of snippets that were appended.
+	 * 
+	 * @return the number of snippets that were appended.
+	 */
+	public long size() {
+		return snippetCount;
+	}
+
+	/**
+	 * Appends the encoded sequences of a snippet to the corpus, grouped by method (see
+	 * {@link sequenceextractor.ExtractionResult#encodeMethods(TokenDictionary)}).
+	 * 
+	 * @param methods the encoded sequences of each method of the snippet, or {@code null} if its extraction failed.
+	 * @throws IOException if the sequences cannot be written.
+	 */
+	public void append(int[][][] methods) throws IOException {
+		if (snippetCount == Integer.MAX_VALUE)
+			throw new IOException("The corpus cannot have more than " + Integer.MAX_VALUE + " snippets");
+		if (methods == null) {
+			failed.set((int) snippetCount);
+		} else {
+			for (int[][] sequences : methods) {
+				for (int[] sequence : sequences) {
+					for (int id : sequence)
+						tokens.writeInt(id);
+					tokenCount += sequence.length;
+					sequenceOffsets.writeLong(tokenCount);
+				}
+				sequenceCount += sequences.length;
+				methodOffsets.writeLong(sequenceCount);
+			}
+			methodCount += methods.length;
+		}
+		snippetOffsets.writeLong(methodCount);
+		snippetCount++;
+	}
+
+	/**
+	 * Writes the offsets and the dictionary, fills in the header, and closes the file of the corpus. The temporary
+	 * files are deleted even if the corpus cannot be written.
+	 * 
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			sequenceOffsets.close();
+			methodOffsets.close();
+			snippetOffsets.close();
+			if (tokenCount % 2 == 1)
+				tokens.writeInt(0);
+			long sequenceOffsetsStart = SequenceCorpus.HEADER_SIZE + 4 * (tokenCount + tokenCount % 2);
+			Files.copy(sequenceOffsetsFile.toPath(), tokens);
+			long methodOffsetsStart = sequenceOffsetsStart + 8 * (sequenceCount + 1);
+			Files.copy(methodOffsetsFile.toPath(), tokens);
+			long snippetOffsetsStart = methodOffsetsStart + 8 * (methodCount + 1);
+			Files.copy(snippetOffsetsFile.toPath(), tokens);
+			long failedStart = snippetOffsetsStart + 8 * (snippetCount + 1);
+			byte[] failedBytes = new byte[(int) ((snippetCount + 7) / 8)];
+			byte[] setBytes = failed.toByteArray();
+			System.arraycopy(setBytes, 0, failedBytes, 0, setBytes.length);
+			tokens.write(failedBytes);
+			long dictionaryStart = failedStart + failedBytes.length;
+			List<String> dictionaryTokens = dictionary.getTokens(0);
+			tokens.writeInt(dictionaryTokens.size());
+			for (String token : dictionaryTokens) {
+				byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+				tokens.writeInt(bytes.length);
+				tokens.write(bytes);
+			}
+			tokens.close();
+			RandomAccessFile header = new RandomAccessFile(file, "rw");
+			try {
+				header.write(SequenceCorpus.MAGIC);
+				header.writeLong(snippetCount);
+				header.writeLong(methodCount);
+				header.writeLong(sequenceCount);
+				header.writeLong(tokenCount);
+				header.writeLong(sequenceOffsetsStart);
+				header.writeLong(methodOffsetsStart);
+				header.writeLong(snippetOffsetsStart);
+				header.writeLong(failedStart);
+				header.writeLong(dictionaryStart);
+			} finally {
+				header.close();
+			}
+		} finally {
+			tokens.close();
+			sequenceOffsets.close();
+			methodOffsets.close();
+			snippetOffsets.close();
+			sequenceOffsetsFile.delete();
+			methodOffsetsFile.delete();
+			snippetOffsetsFile.delete();
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+package corpushelpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Class that represents a corpus of snippets kept in a memory-mapped file. The file starts with {@link #MAGIC} and is
+ * followed by a record for each snippet, which holds the length of the snippet as a 4-byte big-endian integer and the
+ * snippet itself in UTF-8, i.e. the same frames as the ones of the binders, so that it can be written using
+ * {@link SnippetCorpusWriter}. When the corpus is opened, the file is scanned once to index the start of each record,
+ * while the file is mapped read-only in segments of at most 1 GB, so that files larger than 2 GB can be read. Each
+ * record lies entirely in a segment, so that a snippet is read from a single mapping.<br>
+ * The snippets are given as {@link CharSequence} views of their bytes in the mapping, which are not copied until the
+ * snippet is converted to a string (e.g. to be parsed). The corpus is a random access list, so that its snippets can
+ * be split in ranges that are read by many threads at the same time.
+ * 
+ * @author themis
+ */
+public class SnippetCorpus extends AbstractList<CharSequence> implements RandomAccess, Closeable {
+
+	/**
+	 * The bytes at the start of each corpus file.
+	 */
+	public static final byte[] MAGIC = "SNIPPETS".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * The maximum size of each mapped segment of the file.
+	 */
+	private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+	/**
+	 * Class that represents a snippet of the corpus as a view of its UTF-8 bytes. If the snippet has only ASCII
+	 * characters, each byte is a character, so the characters are read directly from the mapping. Otherwise, the bytes
+	 * are decoded once when a character is first needed. The bytes are checked for non-ASCII characters only when a
+	 * character or the length is first needed, so that snippets that are only converted to strings are not scanned.
+	 */
+	private static class SnippetView implements CharSequence {
+
+		/**
+		 * The bytes of the snippet, as a read-only slice of the mapping.
+		 */
+		private final ByteBuffer bytes;
+
+		/**
+		 * Denotes if the snippet has only ASCII characters, or {@code null} if its bytes are not checked yet.
+		 */
+		private Boolean ascii;
+
+		/**
+		 * The decoded snippet, or {@code null} if it is not decoded yet.
+		 */
+		private String decoded;
+
+		/**
+		 * Initializes this view given the bytes of a snippet.
+		 * 
+		 * @param bytes the bytes of the snippet.
+		 * @param ascii {@code true} if the snippet has only ASCII characters, or {@code null} if this is not known.
+		 */
+		SnippetView(ByteBuffer bytes, Boolean ascii) {
+			this.bytes = bytes;
+			this.ascii = ascii;
+		}
+
+		/**
+		 * Checks if the snippet has only ASCII characters, scanning its bytes the first time.
+		 * 
+		 * @return {@code true} if the snippet has only ASCII characters, or {@code false} otherwise.
+		 */
+		private boolean isAscii() {
+			if (ascii == null) {
+				int i = 0;
+				while (i < bytes.limit() && bytes.get(i) >= 0)
+					i++;
+				ascii = i == bytes.limit();
+			}
+			return ascii;
+		}
+
+		@Override
+		public int length() {
+			return isAscii() ? bytes.limit() : toString().length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return isAscii() ? (char) bytes.get(index) : toString().charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (!isAscii())
+				return toString().subSequence(start, end);
+			ByteBuffer slice = bytes.duplicate();
+			slice.position(start).limit(end);
+			return new SnippetView(slice.slice(), true);
+		}
+
+		@Override
+		public String toString() {
+			if (decoded == null) {
+				byte[] array = new byte[bytes.limit()];
+				bytes.duplicate().get(array);
+				decoded = new String(array, StandardCharsets.UTF_8);
+			}
+			return decoded;
+		}
+	}
+
+	/**
+	 * The file of the corpus.
+	 */
+	private final RandomAccessFile file;
+
+	/**
+	 * The mapped segments of the file.
+	 */
+	private final ArrayList<MappedByteBuffer> segments;
+
+	/**
+	 * The position in the file where each segment starts, in ascending order.
+	 */
+	private long[] segmentStarts;
+
+	/**
+	 * The position in the file where the record of each snippet starts, in ascending order.
+	 */
+	private long[] recordStarts;
+
+	/**
+	 * The number of snippets of the corpus.
+	 */
+	private int size;
+
+	/**
+	 * Opens a corpus file and indexes its snippets.
+	 * 
+	 * @param file the file of the corpus.
+	 * @throws IOException if the file cannot be read or is not a valid corpus file.
+	 */
+	public SnippetCorpus(File file) throws IOException {
+		this(file, MAX_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Opens a corpus file and indexes its snippets, mapping it in segments of at most the given size.
+	 * 
+	 * @param file the file of the corpus.
+	 * @param maxSegmentSize the maximum size of each mapped segment of the file.
+	 * @throws IOException if the file cannot be read or is not a valid corpus file.
+	 */
+	SnippetCorpus(File file, int maxSegmentSize) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		segments = new ArrayList<MappedByteBuffer>();
+		segmentStarts = new long[8];
+		recordStarts = new long[1024];
+		try {
+			index(maxSegmentSize);
+		} catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks if a file is a corpus file, i.e. if it starts with {@link #MAGIC}.
+	 * 
+	 * @param file the file to be checked.
+	 * @return {@code true} if the file is a corpus file, or {@code false} otherwise.
+	 */
+	public static boolean isSnippetCorpus(File file) {
+		if (!file.isFile() || file.length() < MAGIC.length)
+			return false;
+		byte[] magic = new byte[MAGIC.length];
+		try {
+			RandomAccessFile input = new RandomAccessFile(file, "r");
+			try {
+				input.readFully(magic);
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		return Arrays.equals(magic, MAGIC);
+	}
+
+	/**
+	 * Scans the file to index the start of each record, mapping a new segment whenever a record does not fit in the
+	 * current one.
+	 * 
+	 * @param maxSegmentSize the maximum size of each mapped segment of the file.
+	 * @throws IOException if the file cannot be read or is not a valid corpus file.
+	 */
+	private void index(int maxSegmentSize) throws IOException {
+		FileChannel channel = file.getChannel();
+		long fileSize = channel.size();
+		if (fileSize < MAGIC.length)
+			throw new IOException("Not a snippet corpus");
+		long position = MAGIC.length;
+		MappedByteBuffer segment = mapSegment(channel, 0, fileSize, maxSegmentSize);
+		byte[] magic = new byte[MAGIC.length];
+		segment.get(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("Not a snippet corpus");
+		while (position < fileSize) {
+			long segmentStart = segmentStarts[segments.size() - 1];
+			if (position + 4 > fileSize)
+				throw new IOException("Truncated record at position " + position);
+			if (position + 4 > segmentStart + segment.limit()) {
+				segment = mapSegment(channel, position, fileSize, maxSegmentSize);
+				continue;
+			}
+			int length = segment.getInt((int) (position - segmentStart));
+			long recordEnd = position + 4 + length;
+			if (length < 0 || recordEnd > fileSize)
+				throw new IOException("Truncated record at position " + position);
+			if (recordEnd > segmentStart + segment.limit()) {
+				if (4L + length > maxSegmentSize)
+					throw new IOException("Record at position " + position + " is larger than a segment");
+				segment = mapSegment(channel, position, fileSize, maxSegmentSize);
+				continue;
+			}
+			if (size == recordStarts.length)
+				recordStarts = Arrays.copyOf(recordStarts, 2 * size);
+			recordStarts[size++] = position;
+			position = recordEnd;
+		}
+	}
+
+	/**
+	 * Maps a new segment of the file, starting at the given position.
+	 * 
+	 * @param channel the channel of the file.
+	 * @param start the position where the segment starts.
+	 * @param fileSize the size of the file.
+	 * @param maxSegmentSize the maximum size of the segment.
+	 * @return the mapped segment.
+	 * @throws IOException if the segment cannot be mapped.
+	 */
+	private MappedByteBuffer mapSegment(FileChannel channel, long start, long fileSize, int maxSegmentSize)
+			throws IOException {
+		MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+				Math.min(maxSegmentSize, fileSize - start));
+		if (segments.size() == segmentStarts.length)
+			segmentStarts = Arrays.copyOf(segmentStarts, 2 * segments.size());
+		segmentStarts[segments.size()] = start;
+		segments.add(segment);
+		return segment;
+	}
+
+	/**
+	 * Returns the number of snippets of the corpus.
+	 * 
+	 * @return the number of snippets of the corpus.
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the bytes of a snippet as a read-only slice of the mapping, without copying them.
+	 * 
+	 * @param index the index of the snippet.
+	 * @return the UTF-8 bytes of the snippet.
+	 */
+	public ByteBuffer getBytes(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		long recordStart = recordStarts[index];
+		int segmentIndex = Arrays.binarySearch(segmentStarts, 0, segments.size(), recordStart);
+		if (segmentIndex < 0)
+			segmentIndex = -segmentIndex - 2;
+		ByteBuffer bytes = segments.get(segmentIndex).asReadOnlyBuffer();
+		int start = (int) (recordStart - segmentStarts[segmentIndex]);
+		bytes.position(start + 4).limit(start + 4 + bytes.getInt(start));
+		return bytes.slice();
+	}
+
+	/**
+	 * Returns a snippet as a view of its bytes, which are not copied until the snippet is converted to a string.
+	 * 
+	 * @param index the index of the snippet.
+	 * @return the snippet.
+	 */
+	@Override
+	public CharSequence get(int index) {
+		return new SnippetView(getBytes(index), null);
+	}
+
+	/**
+	 * Closes the file of the corpus. The mapped segments are released when they are no longer referenced.
+	 * 
+	 * @throws IOException if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+}
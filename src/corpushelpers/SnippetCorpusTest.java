@@ -0,0 +1,139 @@
+package corpushelpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Class used as a test of the {@link SnippetCorpus}, which checks that the snippets of a corpus are read back when the
+ * file is mapped in segments that are much smaller than the file, so that records start at the end of a segment and
+ * continue in the next one, and that records that do not fit in a segment or are truncated are rejected.
+ * 
+ * @author themis
+ */
+public class SnippetCorpusTest {
+
+	/**
+	 * The number of snippets written in the corpus.
+	 */
+	private static final int SNIPPETS = 200;
+
+	/**
+	 * The maximum size of the segments of the corpus, which fits the record of each snippet but only a few records.
+	 */
+	private static final int MAX_SEGMENT_SIZE = 64;
+
+	/**
+	 * Returns the snippet with the given number, which has a different length for each number and includes non-ASCII
+	 * characters for every third number.
+	 * 
+	 * @param number the number of the snippet.
+	 * @return the snippet.
+	 */
+	private static String getSnippet(int number) {
+		StringBuilder snippet = new StringBuilder("f(" + number + ");");
+		for (int i = 0; i < number % 37; i++)
+			snippet.append(i % 10);
+		if (number % 3 == 0)
+			snippet.append("// \u00e9\u4e2d\ud83d\ude00");
+		return snippet.toString();
+	}
+
+	/**
+	 * Checks that a snippet of the corpus has the same characters as the expected snippet, using both its string and
+	 * its characters.
+	 * 
+	 * @param snippet the snippet of the corpus.
+	 * @param expected the expected snippet.
+	 * @return {@code true} if the snippet is as expected, or {@code false} otherwise.
+	 */
+	private static boolean check(CharSequence snippet, String expected) {
+		if (snippet.length() != expected.length())
+			return false;
+		for (int i = 0; i < expected.length(); i++) {
+			if (snippet.charAt(i) != expected.charAt(i))
+				return false;
+		}
+		int start = expected.length() / 3;
+		return snippet.subSequence(start, expected.length()).toString().equals(expected.substring(start))
+				&& snippet.toString().equals(expected);
+	}
+
+	/**
+	 * Checks that a corpus file cannot be opened with segments of the given size.
+	 * 
+	 * @param file the corpus file.
+	 * @param maxSegmentSize the maximum size of the segments.
+	 * @return {@code true} if the file is rejected, or {@code false} otherwise.
+	 */
+	private static boolean isRejected(File file, int maxSegmentSize) {
+		try {
+			new SnippetCorpus(file, maxSegmentSize).close();
+			return false;
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Writes snippets in a corpus, reads them back using small segments, and checks that records larger than a segment
+	 * or truncated records are rejected.
+	 * 
+	 * @param args unused parameter.
+	 * @throws IOException if the corpus cannot be written or read.
+	 */
+	public static void main(String[] args) throws IOException {
+		File file = File.createTempFile("snippets", ".corpus");
+		file.deleteOnExit();
+		SnippetCorpusWriter writer = new SnippetCorpusWriter(file);
+		for (int i = 0; i < SNIPPETS; i++)
+			writer.append(getSnippet(i));
+		writer.close();
+
+		// Read the snippets back from segments that are much smaller than the file
+		int mismatches = 0;
+		SnippetCorpus corpus = new SnippetCorpus(file, MAX_SEGMENT_SIZE);
+		if (corpus.size() != SNIPPETS)
+			mismatches++;
+		for (int i = 0; i < corpus.size(); i++) {
+			if (!check(corpus.get(i), getSnippet(i)))
+				mismatches++;
+		}
+		corpus.close();
+		corpus = new SnippetCorpus(file);
+		for (int i = 0; i < corpus.size(); i++) {
+			if (!check(corpus.get(i), getSnippet(i)))
+				mismatches++;
+		}
+		corpus.close();
+		System.out.println(mismatches == 0 ? "All snippets were read back across the segments of the corpus"
+				: mismatches + " snippets were not read back across the segments of the corpus");
+
+		// Append a record that is larger than a segment and then truncate it
+		int acceptedFiles = 0;
+		writer = new SnippetCorpusWriter(file);
+		for (int i = 0; i < SNIPPETS; i++)
+			writer.append(getSnippet(i));
+		StringBuilder longSnippet = new StringBuilder();
+		while (longSnippet.length() <= MAX_SEGMENT_SIZE)
+			longSnippet.append("f();");
+		writer.append(longSnippet.toString());
+		writer.close();
+		if (!isRejected(file, MAX_SEGMENT_SIZE))
+			acceptedFiles++;
+		if (isRejected(file, 2 * MAX_SEGMENT_SIZE))
+			acceptedFiles++;
+		RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+		try {
+			truncated.setLength(file.length() - 1);
+		} finally {
+			truncated.close();
+		}
+		if (!isRejected(file, 2 * MAX_SEGMENT_SIZE))
+			acceptedFiles++;
+		System.out.println(acceptedFiles == 0 ? "All invalid records were rejected"
+				: acceptedFiles + " files were read differently than expected");
+		file.delete();
+	}
+
+}
@@ -0,0 +1,57 @@
+package corpushelpers;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class used to write a corpus of snippets in the format read by {@link SnippetCorpus}, i.e.
+ * {@link SnippetCorpus#MAGIC} followed by the length and the UTF-8 bytes of each snippet.
+ * 
+ * @author themis
+ */
+public class SnippetCorpusWriter implements Closeable {
+
+	/**
+	 * The buffered output of the file of the corpus.
+	 */
+	private final DataOutputStream output;
+
+	/**
+	 * Creates a corpus file, replacing any existing file.
+	 * 
+	 * @param file the file of the corpus.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public SnippetCorpusWriter(File file) throws IOException {
+		output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		output.write(SnippetCorpus.MAGIC);
+	}
+
+	/**
+	 * Appends a snippet to the corpus.
+	 * 
+	 * @param snippet the snippet to be appended.
+	 * @throws IOException if the snippet cannot be written.
+	 */
+	public void append(String snippet) throws IOException {
+		byte[] bytes = snippet.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Writes any buffered snippets and closes the file of the corpus.
+	 * 
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		output.close();
+	}
+
+}
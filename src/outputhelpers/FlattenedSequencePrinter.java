@@ -1,53 +1,81 @@
-package outputhelpers;
-
-import parsehelpers.Block;
-import parsehelpers.Snippet;
-import parsehelpers.Statement;
-import sequenceextractor.LevelOrderPair;
-
-/**
- * Class that prints the snippets as flattened sequences.
- * 
- * @author themis
- */
-public class FlattenedSequencePrinter implements SnippetPrinter {
-
-	/**
-	 * Receives a snippet and returns a flattened sequence representation.
-	 * Given for example the snippet sequence [[A, B, C], [D, E]], where [A, B, C] and [D, E] are sequences of two
-	 * functions, this function would return [A, B, C, D, E].
-	 * 
-	 * @param snippet the snippet to be parsed.
-	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
-	 * @return a flattened tree representation for the snippet.
-	 */
-	@Override
-	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
-		int id = 0;
-		String seq = "[";
-		for (LevelOrderPair orderAndLevel : snippet.blocks.keySet()) {
-			for (Block block : snippet.blocks.get(orderAndLevel)) {
-				if (block.size() > 0) {
-					for (Statement statement : block) {
-						if (!(statement.toString().equals("START_METHOD") || statement.toString().equals("END_METHOD")
-								|| statement.toString().equals("START_CONDITION")
-								|| statement.toString().equals("START_CASE") || statement.toString().equals("START_TRY")
-								|| statement.toString().equals("START_LOOP")
-								|| statement.toString().equals("ELSE_CONDITION")
-								|| statement.toString().equals("ELSEIF_CONDITION")
-								|| statement.toString().equals("ELSEIF_CASE")
-								|| statement.toString().equals("ELSEIF_TRY") || statement.toString().equals("ELSE_CASE")
-								|| statement.toString().equals("ELSE_TRY") || statement.toString().equals("ELSE_LOOP")
-								|| statement.toString().equals("END_CONDITION")
-								|| statement.toString().equals("END_CASE") || statement.toString().equals("END_TRY")
-								|| statement.toString().equals("END_LOOP")))
-							seq += (seq.charAt(seq.length() - 1) == '[' ? "" : ", ") + statement.toString()
-									+ (addUniqueIDs ? "#" + (++id) : "");
-					}
-				}
-			}
-		}
-		return seq + "]";
-	}
-
-}
+package outputhelpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import parsehelpers.Block;
+import parsehelpers.Snippet;
+import parsehelpers.Statement;
+import sequenceextractor.LevelOrderPair;
+
+/**
+ * Class that prints the snippets as flattened sequences.
+ * 
+ * @author themis
+ */
+public class FlattenedSequencePrinter implements SnippetPrinter {
+
+	/**
+	 * Traverses the statements of a snippet in the order of its blocks, skipping all flow statements.
+	 * 
+	 * @param snippet the snippet to be traversed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @param visitor the visitor that receives the statements.
+	 */
+	private static void visitSnippet(Snippet snippet, boolean addUniqueIDs, StatementVisitor visitor) {
+		int id = 0;
+		for (LevelOrderPair orderAndLevel : snippet.blocks.keySet()) {
+			for (Block block : snippet.blocks.get(orderAndLevel)) {
+				for (Statement statement : block) {
+					if (!StatementToken.isFlowStatement(statement))
+						visitor.visitStatement(statement, addUniqueIDs ? ++id : 0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Receives a snippet and returns a flattened sequence representation.
+	 * Given for example the snippet sequence [[A, B, C], [D, E]], where [A, B, C] and [D, E] are sequences of two
+	 * functions, this function would return [A, B, C, D, E].
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return a flattened tree representation for the snippet.
+	 */
+	@Override
+	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
+		StatementListBuilder builder = new StatementListBuilder();
+		visitSnippet(snippet, addUniqueIDs, builder);
+		return builder.toString();
+	}
+
+	/**
+	 * Receives a snippet and returns its flattened sequence as typed tokens, in the same order and with the same IDs as
+	 * in the representation of {@link #snippetToString(Snippet, boolean)}.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return the statements of the snippet as tokens.
+	 */
+	public List<StatementToken> snippetToTokens(Snippet snippet, boolean addUniqueIDs) {
+		final ArrayList<StatementToken> tokens = new ArrayList<StatementToken>();
+		visitSnippet(snippet, addUniqueIDs, new StatementVisitor() {
+			@Override
+			public void openList() {
+			}
+
+			@Override
+			public void closeList() {
+			}
+
+			@Override
+			public void visitStatement(Statement statement, int id) {
+				if (StatementToken.isToken(statement))
+					tokens.add(new StatementToken(statement, id));
+			}
+		});
+		return tokens;
+	}
+
+}
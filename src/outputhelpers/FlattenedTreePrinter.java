@@ -1,53 +1,472 @@
-package outputhelpers;
-
-import org.python.util.PythonInterpreter;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
-
-import parsehelpers.Snippet;
-
-/**
- * Class that prints the snippets as flattened trees.
- * 
- * @author themis
- */
-public class FlattenedTreePrinter extends TreePrinter implements SnippetPrinter {
-
-	/**
-	 * Receives a snippet and returns a string representation in the form of flattened trees.
-	 * Given for example the snippet tree [[A, [B, C], [D, E]]], this function would return
-	 * [[A, B, D], [A, B, E], [A, C, D], [A, C, E]].
-	 * 
-	 * @param snippet the snippet to be parsed.
-	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
-	 * @return a flattened tree representation for the snippet.
-	 */
-	@Override
-	@SuppressWarnings("unchecked")
-	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
-		String tree = super.snippetToString(snippet, false);
-		InputStream inputStream = getClass().getClassLoader().getResourceAsStream("flattened_tree_printer.py");
-		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-		byte[] buffer = new byte[1024];
-		int length;
-		String s = null;
-		try {
-			while ((length = inputStream.read(buffer)) != -1)
-				outputStream.write(buffer, 0, length);
-			s = outputStream.toString("UTF-8");
-			inputStream.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		PythonInterpreter pi = new PythonInterpreter();
-		if (s != null)
-			pi.exec(s);
-		pi.exec("result = get_paths('" + tree + "', " + (addUniqueIDs ? "True": "False") + ")");
-		ArrayList<ArrayList<String>> result = pi.get("result", ArrayList.class);
-		return result.toString();
-	}
-
-}
+package outputhelpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import parsehelpers.Block;
+import parsehelpers.Snippet;
+import parsehelpers.Statement;
+import sequenceextractor.LevelOrderPair;
+
+/**
+ * Class that prints the snippets as flattened trees.
+ * 
+ * @author themis
+ */
+public class FlattenedTreePrinter extends TreePrinter implements SnippetPrinter {
+
+	/**
+	 * The id of the element denoting the start of all paths.
+	 */
+	private static final int START = 0;
+
+	/**
+	 * The id of the element denoting the end of all paths.
+	 */
+	private static final int END = Integer.MAX_VALUE;
+
+	/**
+	 * Class that represents a statement of the tree, having a unique id.
+	 */
+	private static class Element {
+
+		/**
+		 * The unique id of this element.
+		 */
+		final int id;
+
+		/**
+		 * The statement of this element, or an empty string for elements of empty paths.
+		 */
+		final String statement;
+
+		/**
+		 * The statement from which this element was created, or {@code null} for elements of empty paths.
+		 */
+		final Statement source;
+
+		/**
+		 * Initializes this element.
+		 * 
+		 * @param id the unique id of the element.
+		 * @param statement the statement of the element.
+		 * @param source the statement from which the element was created.
+		 */
+		Element(int id, String statement, Statement source) {
+			this.id = id;
+			this.statement = statement;
+			this.source = source;
+		}
+	}
+
+	/**
+	 * Checks if a statement can be part of a tree, i.e. if it starts and ends with a word character or a parenthesis.
+	 * 
+	 * @param statement the statement to be checked.
+	 * @return {@code true} if the statement can be part of a tree, or {@code false} otherwise.
+	 */
+	private static boolean isValidStatement(String statement) {
+		if (statement.length() == 0 || statement.indexOf('"') >= 0 || statement.indexOf('\\') >= 0)
+			return false;
+		char first = statement.charAt(0);
+		char last = statement.charAt(statement.length() - 1);
+		return (first < 128 && (Character.isLetterOrDigit(first) || first == '_' || first == '(' || first == ')'))
+				&& (last < 128 && (Character.isLetterOrDigit(last) || last == '_' || last == '(' || last == ')'));
+	}
+
+	/**
+	 * Receives a snippet and returns its tree as nested lists, where the branches are lists of paths. The lists are
+	 * opened and closed exactly as the brackets of the tree representation of {@link TreePrinter}, so that the tree is
+	 * considered not well formed whenever its representation is not a valid list. Empty statements are skipped if
+	 * they are followed by the end of a list, and make the tree not well formed otherwise.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @return the blocks of the tree of the snippet, or {@code null} if the tree is not well formed.
+	 */
+	private static List<Object> snippetToTree(Snippet snippet) {
+		ArrayList<Object> topLevelLists = new ArrayList<Object>();
+		ArrayList<List<Object>> stack = new ArrayList<List<Object>>();
+		openList(stack, topLevelLists);
+		boolean emptyStatementAdded = false;
+		for (LevelOrderPair orderAndLevel : snippet.blocks.keySet()) {
+			for (Block block : snippet.blocks.get(orderAndLevel)) {
+				for (Statement statement : block) {
+					String statementString = statement.toString();
+					if (statementString.equals("END_TRY"))
+						continue;
+					boolean isOpening = statementString.equals("START_METHOD")
+							|| statementString.equals("START_CONDITION") || statementString.equals("START_CASE")
+							|| statementString.equals("START_TRY") || statementString.equals("START_LOOP");
+					boolean isClosing = statementString.equals("END_METHOD")
+							|| statementString.equals("ELSE_CONDITION") || statementString.equals("ELSEIF_CONDITION")
+							|| statementString.equals("ELSE_CASE") || statementString.equals("ELSEIF_CASE")
+							|| statementString.equals("ELSEIF_TRY") || statementString.equals("ELSE_LOOP")
+							|| statementString.equals("ELSE_TRY") || statementString.equals("END_CONDITION")
+							|| statementString.equals("END_CASE") || statementString.equals("END_LOOP");
+					if (emptyStatementAdded && !isClosing)
+						return null;
+					emptyStatementAdded = false;
+					if (statementString.equals("START_METHOD")) {
+						openList(stack, topLevelLists);
+					} else if (isOpening) {
+						openList(stack, topLevelLists);
+						openList(stack, topLevelLists);
+					} else if (statementString.equals("END_METHOD")) {
+						if (!closeList(stack))
+							return null;
+					} else if (isClosing && statementString.startsWith("ELSE") && !statementString.equals("ELSE_TRY")) {
+						if (!closeList(stack))
+							return null;
+						openList(stack, topLevelLists);
+					} else if (isClosing) {
+						if (!closeList(stack) || !closeList(stack))
+							return null;
+					} else if (stack.isEmpty() || (statementString.length() > 0 && !isValidStatement(statementString)))
+						return null;
+					else if (statementString.length() > 0)
+						stack.get(stack.size() - 1).add(statement);
+					else
+						emptyStatementAdded = !stack.get(stack.size() - 1).isEmpty();
+				}
+			}
+		}
+		if (!closeList(stack) || !stack.isEmpty())
+			return null;
+		if (topLevelLists.size() == 1) {
+			@SuppressWarnings("unchecked")
+			List<Object> root = (List<Object>) topLevelLists.get(0);
+			return root;
+		} else
+			return topLevelLists;
+	}
+
+	/**
+	 * Opens a new list, adding it to the list that is currently open or to the top level lists.
+	 * 
+	 * @param stack the lists that are currently open.
+	 * @param topLevelLists the top level lists.
+	 */
+	private static void openList(ArrayList<List<Object>> stack, ArrayList<Object> topLevelLists) {
+		List<Object> list = new ArrayList<Object>();
+		if (stack.isEmpty())
+			topLevelLists.add(list);
+		else
+			stack.get(stack.size() - 1).add(list);
+		stack.add(list);
+	}
+
+	/**
+	 * Closes the list that is currently open.
+	 * 
+	 * @param stack the lists that are currently open.
+	 * @return {@code true} if a list was closed, or {@code false} if there was no open list.
+	 */
+	private static boolean closeList(ArrayList<List<Object>> stack) {
+		if (stack.isEmpty())
+			return false;
+		stack.remove(stack.size() - 1);
+		return true;
+	}
+
+	/**
+	 * Replaces the statements of a tree with elements with unique ids and adds an empty element to all empty lists.
+	 * The statements of the tree are {@link Statement} objects or empty strings. The ids are given in depth first
+	 * order, starting from the given last id.
+	 * 
+	 * @param tree the tree of which the statements are replaced.
+	 * @param lastId the last id that was given to an element.
+	 * @param elements a map where all elements are added given their ids.
+	 * @return the last id that was given to an element.
+	 */
+	@SuppressWarnings("unchecked")
+	private static int addIds(List<Object> tree, int lastId, Map<Integer, Element> elements) {
+		if (tree.isEmpty())
+			tree.add("");
+		for (int i = 0; i < tree.size(); i++) {
+			Element element;
+			if (tree.get(i) instanceof Statement)
+				element = new Element(++lastId, tree.get(i).toString(), (Statement) tree.get(i));
+			else if (tree.get(i) instanceof List) {
+				lastId = addIds((List<Object>) tree.get(i), lastId, elements);
+				continue;
+			} else
+				element = new Element(++lastId, (String) tree.get(i), null);
+			elements.put(element.id, element);
+			tree.set(i, element);
+		}
+		return lastId;
+	}
+
+	/**
+	 * Checks if the given object is a list of which the first item is also a list, i.e. if it is a branch.
+	 * 
+	 * @param object the object to be checked.
+	 * @return {@code true} if the object is a list of lists, or {@code false} otherwise.
+	 */
+	private static boolean isListOfLists(Object object) {
+		return object instanceof List && ((List<?>) object).get(0) instanceof List;
+	}
+
+	/**
+	 * Adds a pair of consecutive elements to the given set of pairs.
+	 * 
+	 * @param element1 the first element of the pair.
+	 * @param element2 the second element of the pair.
+	 * @param pairs the set of pairs where the pair is added.
+	 */
+	private static void addPair(Object element1, Object element2, LinkedHashSet<Long> pairs) {
+		pairs.add(((long) ((Element) element1).id << 32) | ((Element) element2).id);
+	}
+
+	/**
+	 * Adds the pairs connecting two consecutive blocks to the given set of pairs.
+	 * 
+	 * @param block1 the first block, which is a list or an element.
+	 * @param block2 the second block, which is a list or an element.
+	 * @param pairs the set of pairs where the pairs are added.
+	 */
+	private static void iterateBlocks(Object block1, Object block2, LinkedHashSet<Long> pairs) {
+		if (block1 instanceof List && block2 instanceof List) {
+			List<?> list1 = (List<?>) block1;
+			List<?> list2 = (List<?>) block2;
+			iteratePairs(list1, pairs);
+			iteratePairs(list2, pairs);
+			iterateConditions(list1.get(list1.size() - 1), list2.get(0), pairs);
+		} else if (block1 instanceof List) {
+			List<?> list1 = (List<?>) block1;
+			iteratePairs(list1, pairs);
+			iterateConditions(list1.get(list1.size() - 1), block2, pairs);
+		} else if (block2 instanceof List) {
+			List<?> list2 = (List<?>) block2;
+			iteratePairs(list2, pairs);
+			iterateConditions(block1, list2.get(0), pairs);
+		} else
+			addPair(block1, block2, pairs);
+	}
+
+	/**
+	 * Adds the pairs connecting two consecutive blocks to the given set of pairs, connecting all paths of the blocks
+	 * that are branches.
+	 * 
+	 * @param block1 the first block, which is a branch, a list or an element.
+	 * @param block2 the second block, which is a branch, a list or an element.
+	 * @param pairs the set of pairs where the pairs are added.
+	 */
+	private static void iterateConditions(Object block1, Object block2, LinkedHashSet<Long> pairs) {
+		if (isListOfLists(block1) && isListOfLists(block2)) {
+			for (Object path1 : (List<?>) block1) {
+				for (Object path2 : (List<?>) block2)
+					iterateBlocks(path1, path2, pairs);
+			}
+		} else if (isListOfLists(block1)) {
+			for (Object path1 : (List<?>) block1)
+				iterateBlocks(path1, block2, pairs);
+		} else if (isListOfLists(block2)) {
+			for (Object path2 : (List<?>) block2)
+				iterateBlocks(block1, path2, pairs);
+		} else if (block1 instanceof List || block2 instanceof List)
+			iterateBlocks(block1, block2, pairs);
+		else
+			addPair(block1, block2, pairs);
+	}
+
+	/**
+	 * Adds the pairs of all consecutive blocks of a list to the given set of pairs.
+	 * 
+	 * @param blocks the list of blocks.
+	 * @param pairs the set of pairs where the pairs are added.
+	 */
+	private static void iteratePairs(List<?> blocks, LinkedHashSet<Long> pairs) {
+		for (int i = 0; i < blocks.size() - 1; i++) {
+			Object block1 = blocks.get(i);
+			Object block2 = blocks.get(i + 1);
+			if (block1 instanceof List || block2 instanceof List)
+				iterateConditions(block1, block2, pairs);
+			else
+				addPair(block1, block2, pairs);
+		}
+	}
+
+	/**
+	 * Builds the graph of the given pairs, removing all empty elements by connecting their previous elements directly
+	 * to their next elements. The next elements of each element are sorted by id, so that paths are found in the order
+	 * of the statements.
+	 * 
+	 * @param pairs the pairs of consecutive elements.
+	 * @param elements the elements of the pairs given their ids.
+	 * @return the graph as a map from the id of each element to the ids of its next elements.
+	 */
+	private static HashMap<Integer, ArrayList<Integer>> getGraph(LinkedHashSet<Long> pairs,
+			Map<Integer, Element> elements) {
+		HashMap<Integer, LinkedHashSet<Integer>> next = new HashMap<Integer, LinkedHashSet<Integer>>();
+		HashMap<Integer, LinkedHashSet<Integer>> previous = new HashMap<Integer, LinkedHashSet<Integer>>();
+		for (long pair : pairs) {
+			int id1 = (int) (pair >>> 32);
+			int id2 = (int) pair;
+			if (!next.containsKey(id1))
+				next.put(id1, new LinkedHashSet<Integer>());
+			if (!previous.containsKey(id2))
+				previous.put(id2, new LinkedHashSet<Integer>());
+			next.get(id1).add(id2);
+			previous.get(id2).add(id1);
+		}
+		for (Element element : elements.values()) {
+			if (element.statement.length() == 0) {
+				LinkedHashSet<Integer> previousIds = previous.remove(element.id);
+				LinkedHashSet<Integer> nextIds = next.remove(element.id);
+				if (previousIds == null || nextIds == null) {
+					for (Integer previousId : previousIds != null ? previousIds : Collections.<Integer> emptySet())
+						next.get(previousId).remove(element.id);
+					for (Integer nextId : nextIds != null ? nextIds : Collections.<Integer> emptySet())
+						previous.get(nextId).remove(element.id);
+					continue;
+				}
+				for (Integer previousId : previousIds) {
+					next.get(previousId).remove(element.id);
+					next.get(previousId).addAll(nextIds);
+				}
+				for (Integer nextId : nextIds) {
+					previous.get(nextId).remove(element.id);
+					previous.get(nextId).addAll(previousIds);
+				}
+			}
+		}
+		HashMap<Integer, ArrayList<Integer>> graph = new HashMap<Integer, ArrayList<Integer>>();
+		for (Map.Entry<Integer, LinkedHashSet<Integer>> entry : next.entrySet()) {
+			ArrayList<Integer> nextIds = new ArrayList<Integer>(entry.getValue());
+			Collections.sort(nextIds);
+			graph.put(entry.getKey(), nextIds);
+		}
+		return graph;
+	}
+
+	/**
+	 * Finds all paths of the given graph from the given element to the end element recursively.
+	 * 
+	 * @param graph the graph given as a map from the id of each element to the ids of its next elements.
+	 * @param id the id of the current element.
+	 * @param path the ids of the elements of the current path.
+	 * @param paths the paths that are found, excluding their start and end elements.
+	 */
+	private static void getPaths(HashMap<Integer, ArrayList<Integer>> graph, int id, ArrayList<Integer> path,
+			ArrayList<ArrayList<Integer>> paths) {
+		if (id == END) {
+			paths.add(new ArrayList<Integer>(path.subList(1, path.size())));
+		} else if (graph.containsKey(id)) {
+			path.add(id);
+			for (int nextId : graph.get(id))
+				getPaths(graph, nextId, path, paths);
+			path.remove(path.size() - 1);
+		}
+	}
+
+	/**
+	 * Receives a snippet and returns a string representation in the form of flattened trees.
+	 * Given for example the snippet tree [[A, [B, C], [D, E]]], this function would return
+	 * [[A, B, D], [A, B, E], [A, C, D], [A, C, E]].
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return a flattened tree representation for the snippet.
+	 */
+	@Override
+	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
+		ArrayList<ArrayList<String>> result = new ArrayList<ArrayList<String>>();
+		for (ArrayList<ArrayList<Element>> methodPaths : snippetToElementPaths(snippet)) {
+			for (ArrayList<Element> path : methodPaths) {
+				ArrayList<String> statements = new ArrayList<String>();
+				for (Element element : path)
+					statements.add(element.statement + (addUniqueIDs ? "#" + element.id : ""));
+				result.add(statements);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Receives a snippet and returns its flattened tree as paths of typed tokens, which are the same paths with the
+	 * same IDs as in the representation of {@link #snippetToString(Snippet, boolean)}.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return the paths of the tree of the snippet.
+	 */
+	public List<List<StatementToken>> snippetToPaths(Snippet snippet, boolean addUniqueIDs) {
+		ArrayList<List<StatementToken>> result = new ArrayList<List<StatementToken>>();
+		for (List<List<StatementToken>> methodPaths : snippetToMethodPaths(snippet, addUniqueIDs))
+			result.addAll(methodPaths);
+		return result;
+	}
+
+	/**
+	 * Receives a snippet and returns the paths of its flattened tree grouped by the top-level block of the tree that
+	 * they run through, i.e. by method, since each path runs through exactly one top-level block. The blocks are the
+	 * methods of the snippet and any statements outside methods, in the order of the tree, and their paths are the
+	 * same paths with the same IDs as in {@link #snippetToPaths(Snippet, boolean)}.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return the paths of each top-level block of the tree of the snippet.
+	 */
+	public List<List<List<StatementToken>>> snippetToMethodPaths(Snippet snippet, boolean addUniqueIDs) {
+		ArrayList<List<List<StatementToken>>> result = new ArrayList<List<List<StatementToken>>>();
+		for (ArrayList<ArrayList<Element>> methodPaths : snippetToElementPaths(snippet)) {
+			ArrayList<List<StatementToken>> paths = new ArrayList<List<StatementToken>>(methodPaths.size());
+			for (ArrayList<Element> path : methodPaths) {
+				ArrayList<StatementToken> tokens = new ArrayList<StatementToken>(path.size());
+				for (Element element : path)
+					tokens.add(new StatementToken(element.source, addUniqueIDs ? element.id : 0));
+				paths.add(tokens);
+			}
+			result.add(paths);
+		}
+		return result;
+	}
+
+	/**
+	 * Receives a snippet and returns all paths of its tree from the start to the end, excluding any empty elements,
+	 * grouped by the top-level block of the tree that they run through.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @return the paths of each top-level block of the tree of the snippet, or no paths if the tree is not well
+	 *         formed.
+	 */
+	private static ArrayList<ArrayList<ArrayList<Element>>> snippetToElementPaths(Snippet snippet) {
+		ArrayList<ArrayList<ArrayList<Element>>> result = new ArrayList<ArrayList<ArrayList<Element>>>();
+		List<Object> tree = snippetToTree(snippet);
+		if (tree == null)
+			return result;
+		if (tree.isEmpty())
+			tree.add("");
+		int lastId = 0;
+		for (Object block : tree) {
+			// Assign ids to the statements of the block and connect it to the start and the end
+			ArrayList<Object> blocks = new ArrayList<Object>();
+			blocks.add(block);
+			Map<Integer, Element> elements = new HashMap<Integer, Element>();
+			lastId = addIds(blocks, lastId, elements);
+			blocks.add(0, new Element(START, "START", null));
+			blocks.add(new Element(END, "END", null));
+			LinkedHashSet<Long> pairs = new LinkedHashSet<Long>();
+			iteratePairs(blocks, pairs);
+
+			// Find all paths from the start to the end, ignoring empty elements
+			ArrayList<ArrayList<Integer>> paths = new ArrayList<ArrayList<Integer>>();
+			getPaths(getGraph(pairs, elements), START, new ArrayList<Integer>(), paths);
+			ArrayList<ArrayList<Element>> blockPaths = new ArrayList<ArrayList<Element>>(paths.size());
+			for (ArrayList<Integer> path : paths) {
+				ArrayList<Element> pathElements = new ArrayList<Element>(path.size());
+				for (int id : path)
+					pathElements.add(elements.get(id));
+				blockPaths.add(pathElements);
+			}
+			result.add(blockPaths);
+		}
+		return result;
+	}
+
+}
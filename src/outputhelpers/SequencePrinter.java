@@ -1,57 +1,98 @@
-package outputhelpers;
-
-import parsehelpers.Block;
-import parsehelpers.Snippet;
-import parsehelpers.Statement;
-import sequenceextractor.LevelOrderPair;
-
-/**
- * Class that prints the snippets as sequences.
- * 
- * @author themis
- */
-public class SequencePrinter implements SnippetPrinter {
-
-	/**
-	 * Receives a snippet and returns a sequence representation for the snippet.
-	 * An example of a sequence would be [[A, B, C], [D, E]], where [A, B, C] and [D, E] are sequences of two functions.
-	 * 
-	 * @param snippet the snippet to be parsed.
-	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
-	 * @return a tree representation for the snippet.
-	 */
-	@Override
-	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
-		int id = 0;
-		String seq = "[";
-		for (LevelOrderPair orderAndLevel : snippet.blocks.keySet()) {
-			for (Block block : snippet.blocks.get(orderAndLevel)) {
-				if (block.size() > 0) {
-					for (Statement statement : block) {
-						if (statement.toString().equals("START_METHOD"))
-							seq += (seq.charAt(seq.length() - 1) == '[' ? "" : ", ") + "[";
-						else if (statement.toString().equals("END_METHOD"))
-							seq += "]";
-						else if (!(statement.toString().equals("START_METHOD")
-								|| statement.toString().equals("END_METHOD")
-								|| statement.toString().equals("START_CONDITION")
-								|| statement.toString().equals("START_CASE") || statement.toString().equals("START_TRY")
-								|| statement.toString().equals("START_LOOP")
-								|| statement.toString().equals("ELSE_CONDITION")
-								|| statement.toString().equals("ELSEIF_CONDITION")
-								|| statement.toString().equals("ELSEIF_CASE")
-								|| statement.toString().equals("ELSEIF_TRY") || statement.toString().equals("ELSE_CASE")
-								|| statement.toString().equals("ELSE_TRY") || statement.toString().equals("ELSE_LOOP")
-								|| statement.toString().equals("END_CONDITION")
-								|| statement.toString().equals("END_CASE") || statement.toString().equals("END_TRY")
-								|| statement.toString().equals("END_LOOP")))
-							seq += (seq.charAt(seq.length() - 1) == '[' ? "" : ", ") + statement.toString()
-									+ (addUniqueIDs ? "#" + (++id) : "");
-					}
-				}
-			}
-		}
-		return seq + "]";
-	}
-
-}
+package outputhelpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import parsehelpers.Block;
+import parsehelpers.Snippet;
+import parsehelpers.Statement;
+import sequenceextractor.LevelOrderPair;
+
+/**
+ * Class that prints the snippets as sequences.
+ * 
+ * @author themis
+ */
+public class SequencePrinter implements SnippetPrinter {
+
+	/**
+	 * Traverses the statements of a snippet in the order of its blocks, giving each function as a list. Flow
+	 * statements other than the start and the end of a function are skipped.
+	 * 
+	 * @param snippet the snippet to be traversed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @param visitor the visitor that receives the statements and the lists.
+	 */
+	private static void visitSnippet(Snippet snippet, boolean addUniqueIDs, StatementVisitor visitor) {
+		int id = 0;
+		for (LevelOrderPair orderAndLevel : snippet.blocks.keySet()) {
+			for (Block block : snippet.blocks.get(orderAndLevel)) {
+				for (Statement statement : block) {
+					if (!StatementToken.isFlowStatement(statement))
+						visitor.visitStatement(statement, addUniqueIDs ? ++id : 0);
+					else if (statement.toString().equals("START_METHOD"))
+						visitor.openList();
+					else if (statement.toString().equals("END_METHOD"))
+						visitor.closeList();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Receives a snippet and returns a sequence representation for the snippet.
+	 * An example of a sequence would be [[A, B, C], [D, E]], where [A, B, C] and [D, E] are sequences of two functions.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return a tree representation for the snippet.
+	 */
+	@Override
+	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
+		StatementListBuilder builder = new StatementListBuilder();
+		visitSnippet(snippet, addUniqueIDs, builder);
+		return builder.toString();
+	}
+
+	/**
+	 * Receives a snippet and returns the sequence of each of its functions as typed tokens, in the same order and with
+	 * the same IDs as in the representation of {@link #snippetToString(Snippet, boolean)}. Any statements that are not
+	 * in a function are given as a sequence of their own.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return the sequences of the functions of the snippet.
+	 */
+	public List<List<StatementToken>> snippetToTokens(Snippet snippet, boolean addUniqueIDs) {
+		final ArrayList<List<StatementToken>> sequences = new ArrayList<List<StatementToken>>();
+		visitSnippet(snippet, addUniqueIDs, new StatementVisitor() {
+
+			/**
+			 * The sequence of the function that is currently open, or {@code null} if no function is open.
+			 */
+			private List<StatementToken> sequence;
+
+			@Override
+			public void openList() {
+				sequence = new ArrayList<StatementToken>();
+				sequences.add(sequence);
+			}
+
+			@Override
+			public void closeList() {
+				sequence = null;
+			}
+
+			@Override
+			public void visitStatement(Statement statement, int id) {
+				if (!StatementToken.isToken(statement))
+					return;
+				if (sequence == null)
+					openList();
+				sequence.add(new StatementToken(statement, id));
+			}
+		});
+		return sequences;
+	}
+
+}
@@ -0,0 +1,63 @@
+package outputhelpers;
+
+import parsehelpers.Statement;
+
+/**
+ * Class that builds the string representation of the printers from the statements and the lists of a snippet. Each
+ * list is enclosed in brackets and every item of a list is separated from the previous one by a comma, while the whole
+ * snippet is enclosed in an outer list.
+ * 
+ * @author themis
+ */
+class StatementListBuilder implements StatementVisitor {
+
+	/**
+	 * The representation that is built.
+	 */
+	private final StringBuilder builder;
+
+	/**
+	 * Initializes this builder, opening the outer list.
+	 */
+	StatementListBuilder() {
+		builder = new StringBuilder("[");
+	}
+
+	/**
+	 * Appends the separator of a new item, unless the item is the first of its list.
+	 */
+	private void appendSeparator() {
+		if (builder.charAt(builder.length() - 1) != '[')
+			builder.append(", ");
+	}
+
+	@Override
+	public void openList() {
+		appendSeparator();
+		builder.append('[');
+	}
+
+	@Override
+	public void closeList() {
+		builder.append(']');
+	}
+
+	@Override
+	public void visitStatement(Statement statement, int id) {
+		appendSeparator();
+		builder.append(statement.toString());
+		if (id > 0)
+			builder.append('#').append(id);
+	}
+
+	/**
+	 * Returns the representation that is built, closing the outer list.
+	 * 
+	 * @return the representation of the snippet.
+	 */
+	@Override
+	public String toString() {
+		return builder.toString() + "]";
+	}
+
+}
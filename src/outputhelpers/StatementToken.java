@@ -0,0 +1,117 @@
+package outputhelpers;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import parsehelpers.Statement;
+import parsehelpers.StatementKind;
+
+/**
+ * A statement of an extracted snippet as a typed token, i.e. its kind (e.g. {@code FC} for function calls or
+ * {@code CI} for class instance creations), its type, the type of its caller if function call types are kept, and its
+ * unique ID if statements should have IDs. The string representation of a token is the same as the one of the
+ * statement in the output of the printers, e.g. {@code FC_void(JPanel)#2}.
+ * 
+ * @author themis
+ */
+public class StatementToken {
+
+	/**
+	 * The statements that denote the flow of the blocks.
+	 */
+	private static final Set<String> FLOW_STATEMENTS = new HashSet<String>(Arrays.asList("START_METHOD", "END_METHOD",
+			"START_CONDITION", "START_CASE", "START_TRY", "START_LOOP", "ELSE_CONDITION", "ELSEIF_CONDITION",
+			"ELSEIF_CASE", "ELSEIF_TRY", "ELSE_CASE", "ELSE_TRY", "ELSE_LOOP", "END_CONDITION", "END_CASE", "END_TRY",
+			"END_LOOP"));
+
+	/**
+	 * The kind of the statement.
+	 */
+	public final String kind;
+
+	/**
+	 * The type of the statement.
+	 */
+	public final String type;
+
+	/**
+	 * The type of the caller of the statement, or {@code null} if it is not kept.
+	 */
+	public final String callerType;
+
+	/**
+	 * The unique ID of the statement, or 0 if statements do not have IDs.
+	 */
+	public final int id;
+
+	/**
+	 * Initializes this token.
+	 * 
+	 * @param kind the kind of the statement.
+	 * @param type the type of the statement.
+	 * @param callerType the type of the caller of the statement, or {@code null} if it is not kept.
+	 * @param id the unique ID of the statement, or 0 if statements do not have IDs.
+	 */
+	public StatementToken(String kind, String type, String callerType, int id) {
+		this.kind = kind;
+		this.type = type;
+		this.callerType = callerType;
+		this.id = id;
+	}
+
+	/**
+	 * Initializes this token given a statement that has at least a kind and a type.
+	 * 
+	 * @param statement the statement of the token.
+	 * @param id the unique ID of the statement, or 0 if statements do not have IDs.
+	 */
+	public StatementToken(Statement statement, int id) {
+		this(statement.get(0), statement.get(1), statement.size() > 2 ? statement.get(2) : null, id);
+	}
+
+	/**
+	 * Checks if a statement can be given as a token, i.e. if it has at least a kind and a type. Any other statements
+	 * are printed as empty strings, so they are omitted from the typed results.
+	 * 
+	 * @param statement the statement to be checked.
+	 * @return {@code true} if the statement can be given as a token, or {@code false} otherwise.
+	 */
+	public static boolean isToken(Statement statement) {
+		return statement.size() > 1;
+	}
+
+	/**
+	 * Checks if a statement denotes the flow of the blocks (e.g. {@code START_METHOD} or {@code ELSE_CONDITION}), in
+	 * which case it is not printed as a statement. The kind of the statement is checked first, so that the statements
+	 * of the code are not converted to strings.
+	 * 
+	 * @param statement the statement to be checked.
+	 * @return {@code true} if the statement denotes the flow of the blocks, or {@code false} otherwise.
+	 */
+	static boolean isFlowStatement(Statement statement) {
+		StatementKind kind = statement.getKind();
+		return kind != null && kind.isFlow() && statement.size() == 2
+				&& FLOW_STATEMENTS.contains(statement.toString());
+	}
+
+	/**
+	 * Returns the name of this token, i.e. its string representation without its ID, e.g. {@code FC_void(JPanel)}.
+	 * 
+	 * @return the name of this token.
+	 */
+	public String getName() {
+		return kind + "_" + type + (callerType != null ? "(" + callerType + ")" : "");
+	}
+
+	/**
+	 * Returns a string representation of this token, which is the same as the one of the printers.
+	 * 
+	 * @return a string representation of this token.
+	 */
+	@Override
+	public String toString() {
+		return getName() + (id > 0 ? "#" + id : "");
+	}
+
+}
@@ -0,0 +1,33 @@
+package outputhelpers;
+
+import parsehelpers.Statement;
+
+/**
+ * Interface of the receivers of the statements of a snippet as they are traversed by a printer, which are given the
+ * statements along with their IDs and the lists that the flow statements open and close. The same traversal is used to
+ * print a snippet and to give it as typed tokens, so that both have the same statements in the same order and with
+ * the same IDs.
+ * 
+ * @author themis
+ */
+interface StatementVisitor {
+
+	/**
+	 * Receives the start of a list.
+	 */
+	public void openList();
+
+	/**
+	 * Receives the end of the list that is currently open.
+	 */
+	public void closeList();
+
+	/**
+	 * Receives a statement that is not a flow statement.
+	 * 
+	 * @param statement the statement.
+	 * @param id the ID of the statement, or 0 if the statements do not have IDs.
+	 */
+	public void visitStatement(Statement statement, int id);
+
+}
@@ -0,0 +1,288 @@
+package outputhelpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONArray;
+
+/**
+ * A dictionary that maps the names of the tokens (see {@link StatementToken#getName()}) to integer IDs, so that the
+ * extracted sequences can be given as arrays of integers, e.g. to be used directly as the vocabulary of a sequence
+ * model. The IDs are given in the order that the tokens are first seen, starting from 0, so that a dictionary only
+ * grows and the ID of a token never changes. A dictionary is thread-safe; looking up a known token does not lock, so
+ * a single instance can be shared by all threads that encode sequences.<br>
+ * A dictionary can be saved to a file as a JSON array of its tokens in the order of their IDs and loaded again, so
+ * that the IDs stay the same across runs. The encoded sequences can also be written as unsigned variable-length
+ * integers (see {@link #toVarints(int[][])}), which is a compact format for sending them over the binders.
+ * 
+ * @author themis
+ */
+public class TokenDictionary {
+
+	/**
+	 * The ID of each token.
+	 */
+	private final ConcurrentHashMap<String, Integer> ids;
+
+	/**
+	 * The tokens in the order of their IDs, which is guarded by this dictionary.
+	 */
+	private final ArrayList<String> tokens;
+
+	/**
+	 * Initializes an empty dictionary.
+	 */
+	public TokenDictionary() {
+		ids = new ConcurrentHashMap<String, Integer>();
+		tokens = new ArrayList<String>();
+	}
+
+	/**
+	 * Initializes a dictionary given its tokens in the order of their IDs.
+	 * 
+	 * @param tokens the tokens of the dictionary.
+	 */
+	public TokenDictionary(List<String> tokens) {
+		this();
+		extend(tokens);
+	}
+
+	/**
+	 * Loads a dictionary from a file written by {@link #save(File)}.
+	 * 
+	 * @param file the file of the dictionary.
+	 * @return the loaded dictionary.
+	 * @throws IOException if the file cannot be read or is not a valid dictionary.
+	 */
+	public static TokenDictionary load(File file) throws IOException {
+		JSONArray array;
+		try {
+			array = new JSONArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		} catch (RuntimeException e) {
+			throw new IOException("Not a token dictionary: " + file, e);
+		}
+		ArrayList<String> tokens = new ArrayList<String>(array.length());
+		for (int i = 0; i < array.length(); i++)
+			tokens.add(array.getString(i));
+		try {
+			return new TokenDictionary(tokens);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Not a token dictionary: " + file, e);
+		}
+	}
+
+	/**
+	 * Saves this dictionary to a file as a JSON array of its tokens in the order of their IDs.
+	 * 
+	 * @param file the file where the dictionary is saved.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void save(File file) throws IOException {
+		Files.write(file.toPath(), new JSONArray(getTokens(0)).toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the ID of a token, adding the token to this dictionary if it is not already there.
+	 * 
+	 * @param token the name of the token.
+	 * @return the ID of the token.
+	 */
+	public int getId(String token) {
+		Integer id = ids.get(token);
+		if (id != null)
+			return id;
+		synchronized (this) {
+			id = ids.get(token);
+			if (id == null) {
+				id = tokens.size();
+				tokens.add(token);
+				ids.put(token, id);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * Returns the ID of a token given its name (see {@link StatementToken#getName()}), adding the token to this
+	 * dictionary if it is not already there. The unique ID of the statement, if any, is not part of its name.
+	 * 
+	 * @param token the token.
+	 * @return the ID of the token.
+	 */
+	public int getId(StatementToken token) {
+		return getId(token.getName());
+	}
+
+	/**
+	 * Returns the token of an ID.
+	 * 
+	 * @param id the ID of the token.
+	 * @return the name of the token.
+	 */
+	public synchronized String getToken(int id) {
+		return tokens.get(id);
+	}
+
+	/**
+	 * Returns the tokens of this dictionary starting from the given ID, i.e. the tokens that were added after a client
+	 * received the first tokens of the dictionary.
+	 * 
+	 * @param from the ID of the first token.
+	 * @return the tokens in the order of their IDs.
+	 */
+	public synchronized List<String> getTokens(int from) {
+		return new ArrayList<String>(tokens.subList(Math.min(Math.max(from, 0), tokens.size()), tokens.size()));
+	}
+
+	/**
+	 * Returns the number of tokens of this dictionary.
+	 * 
+	 * @return the number of tokens of this dictionary.
+	 */
+	public synchronized int size() {
+		return tokens.size();
+	}
+
+	/**
+	 * Extends this dictionary with the given tokens in the order of their IDs, e.g. the tokens of a dictionary of an
+	 * earlier run. The first tokens must be the same as the tokens of this dictionary, so that no ID is changed.
+	 * 
+	 * @param tokens the tokens in the order of their IDs.
+	 * @throws IllegalArgumentException if a token has a different ID in this dictionary or appears twice.
+	 */
+	public synchronized void extend(List<String> tokens) {
+		for (int i = 0; i < tokens.size(); i++) {
+			if (i < this.tokens.size()) {
+				if (!this.tokens.get(i).equals(tokens.get(i)))
+					throw new IllegalArgumentException("Token " + tokens.get(i) + " does not have ID " + i);
+			} else if (getId(tokens.get(i)) != i)
+				throw new IllegalArgumentException("Token " + tokens.get(i) + " appears more than once");
+		}
+	}
+
+	/**
+	 * Encodes a sequence of tokens as their IDs, adding any new tokens to this dictionary.
+	 * 
+	 * @param sequence the tokens of the sequence.
+	 * @return the IDs of the tokens.
+	 */
+	public int[] encode(List<StatementToken> sequence) {
+		int[] encoded = new int[sequence.size()];
+		for (int i = 0; i < encoded.length; i++)
+			encoded[i] = getId(sequence.get(i));
+		return encoded;
+	}
+
+	/**
+	 * Decodes a sequence of IDs to the names of their tokens.
+	 * 
+	 * @param encoded the IDs of the tokens.
+	 * @return the names of the tokens.
+	 */
+	public List<String> decode(int[] encoded) {
+		ArrayList<String> sequence = new ArrayList<String>(encoded.length);
+		for (int id : encoded)
+			sequence.add(getToken(id));
+		return sequence;
+	}
+
+	/**
+	 * Writes encoded sequences as unsigned variable-length integers, where each integer is written in groups of 7 bits
+	 * starting from the lowest, with the highest bit of each byte set if more bytes follow. The number of sequences is
+	 * written first, followed by the length and the IDs of each sequence, so that an ID lower than 128 takes one byte.
+	 * 
+	 * @param sequences the encoded sequences.
+	 * @return the bytes of the sequences.
+	 */
+	public static byte[] toVarints(int[][] sequences) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		writeVarint(output, sequences.length);
+		for (int[] sequence : sequences) {
+			writeVarint(output, sequence.length);
+			for (int id : sequence)
+				writeVarint(output, id);
+		}
+		return output.toByteArray();
+	}
+
+	/**
+	 * Reads encoded sequences written by {@link #toVarints(int[][])}.
+	 * 
+	 * @param bytes the bytes of the sequences.
+	 * @return the encoded sequences.
+	 * @throws IllegalArgumentException if the bytes are not valid encoded sequences.
+	 */
+	public static int[][] fromVarints(byte[] bytes) {
+		int[] position = new int[1];
+		int[][] sequences = new int[readLength(bytes, position)][];
+		for (int i = 0; i < sequences.length; i++) {
+			sequences[i] = new int[readLength(bytes, position)];
+			for (int j = 0; j < sequences[i].length; j++)
+				sequences[i][j] = readVarint(bytes, position);
+		}
+		if (position[0] != bytes.length)
+			throw new IllegalArgumentException("Trailing bytes after encoded sequences");
+		return sequences;
+	}
+
+	/**
+	 * Writes a non-negative integer as an unsigned variable-length integer.
+	 * 
+	 * @param output the output where the integer is written.
+	 * @param value the integer to be written.
+	 */
+	private static void writeVarint(ByteArrayOutputStream output, int value) {
+		while ((value & ~0x7F) != 0) {
+			output.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.write(value);
+	}
+
+	/**
+	 * Reads the length of a list as an unsigned variable-length integer, checking that the rest of the bytes can hold
+	 * that many integers.
+	 * 
+	 * @param bytes the bytes where the length is read from.
+	 * @param position the position of the length, which is advanced past it.
+	 * @return the length that was read.
+	 * @throws IllegalArgumentException if the length is not valid.
+	 */
+	private static int readLength(byte[] bytes, int[] position) {
+		int length = readVarint(bytes, position);
+		if (length > bytes.length - position[0])
+			throw new IllegalArgumentException("Truncated encoded sequences");
+		return length;
+	}
+
+	/**
+	 * Reads an unsigned variable-length integer.
+	 * 
+	 * @param bytes the bytes where the integer is read from.
+	 * @param position the position of the integer, which is advanced past it.
+	 * @return the integer that was read.
+	 * @throws IllegalArgumentException if the integer is truncated or too long.
+	 */
+	private static int readVarint(byte[] bytes, int[] position) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			if (position[0] >= bytes.length)
+				throw new IllegalArgumentException("Truncated variable-length integer");
+			byte b = bytes[position[0]++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				if (value < 0)
+					throw new IllegalArgumentException("Variable-length integer is too long");
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Variable-length integer is too long");
+	}
+
+}
@@ -0,0 +1,63 @@
+package outputhelpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node of the tree of an extracted snippet, which is either a statement or a list of nodes. The root of the tree is
+ * a list with a list for each method, where a method is a list of statements and branches. A branch (e.g. a condition
+ * or a loop) is a list with a list for each of its paths, so that the nodes are nested exactly as the brackets of the
+ * output of {@link TreePrinter}.
+ * 
+ * @author themis
+ */
+public class TreeNode {
+
+	/**
+	 * The statement of this node, or {@code null} if this node is a list.
+	 */
+	public final StatementToken statement;
+
+	/**
+	 * The children of this node, which are empty if this node is a statement.
+	 */
+	public final List<TreeNode> children;
+
+	/**
+	 * Initializes this node as a statement.
+	 * 
+	 * @param statement the statement of the node.
+	 */
+	public TreeNode(StatementToken statement) {
+		this.statement = statement;
+		this.children = new ArrayList<TreeNode>(0);
+	}
+
+	/**
+	 * Initializes this node as an empty list.
+	 */
+	public TreeNode() {
+		this.statement = null;
+		this.children = new ArrayList<TreeNode>();
+	}
+
+	/**
+	 * Checks if this node is a statement.
+	 * 
+	 * @return {@code true} if this node is a statement, or {@code false} if it is a list.
+	 */
+	public boolean isStatement() {
+		return statement != null;
+	}
+
+	/**
+	 * Returns a string representation of this node, which is the statement or the list of the children.
+	 * 
+	 * @return a string representation of this node.
+	 */
+	@Override
+	public String toString() {
+		return isStatement() ? statement.toString() : children.toString();
+	}
+
+}
@@ -1,63 +1,128 @@
-package outputhelpers;
-
-import parsehelpers.Block;
-import parsehelpers.Snippet;
-import parsehelpers.Statement;
-import sequenceextractor.LevelOrderPair;
-
-/**
- * Class that prints the snippets as trees.
- * 
- * @author themis
- */
-public class TreePrinter implements SnippetPrinter {
-
-	/**
-	 * Receives a snippet and returns a tree representation for the snippet.
-	 * An example of the snippet tree would be [[A, [B, C], [D, E]]].
-	 * 
-	 * @param snippet the snippet to be parsed.
-	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
-	 * @return a tree representation for the snippet.
-	 */
-	@Override
-	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
-		int id = 0;
-		String treeseq = "[";
-		for (LevelOrderPair orderAndLevel : snippet.blocks.keySet()) {
-			for (Block block : snippet.blocks.get(orderAndLevel)) {
-				if (block.size() > 0) {
-					for (Statement statement : block) {
-						if (statement.toString().equals("START_METHOD"))
-							treeseq += (treeseq.charAt(treeseq.length() - 1) == '[' ? "" : ", ") + "[";
-						else if (statement.toString().equals("END_METHOD"))
-							treeseq += "]";
-						else if (statement.toString().equals("START_CONDITION")
-								|| statement.toString().equals("START_CASE") || statement.toString().equals("START_TRY")
-								|| statement.toString().equals("START_LOOP"))
-							treeseq += (treeseq.charAt(treeseq.length() - 1) == '[' ? "" : ", ") + "[[";
-						else if (statement.toString().equals("ELSE_CONDITION")
-								|| statement.toString().equals("ELSEIF_CONDITION")
-								|| statement.toString().equals("ELSE_CASE")
-								|| statement.toString().equals("ELSEIF_CASE")
-								|| statement.toString().equals("ELSEIF_TRY")
-								|| statement.toString().equals("ELSE_LOOP"))
-							treeseq += "], [";
-						else if (statement.toString().equals("ELSE_TRY"))
-							treeseq += "]]";
-						else if (statement.toString().equals("END_CONDITION") || statement.toString().equals("END_CASE")
-								|| statement.toString().equals("END_LOOP"))
-							treeseq += "]]";
-						else if (statement.toString().equals("END_TRY"))
-							treeseq += "";
-						else
-							treeseq += (treeseq.charAt(treeseq.length() - 1) == '[' ? "" : ", ") + statement.toString()
-									+ (addUniqueIDs ? "#" + (++id) : "");
-					}
-				}
-			}
-		}
-		return treeseq + "]";
-	}
-
-}
+package outputhelpers;
+
+import java.util.ArrayList;
+
+import parsehelpers.Block;
+import parsehelpers.Snippet;
+import parsehelpers.Statement;
+import sequenceextractor.LevelOrderPair;
+
+/**
+ * Class that prints the snippets as trees.
+ * 
+ * @author themis
+ */
+public class TreePrinter implements SnippetPrinter {
+
+	/**
+	 * Traverses the statements of a snippet in the order of its blocks, giving each function as a list and each branch
+	 * as a list of the lists of its paths. The end of a try statement is skipped, since its branches are closed by its
+	 * finally block.
+	 * 
+	 * @param snippet the snippet to be traversed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @param visitor the visitor that receives the statements and the lists.
+	 */
+	private static void visitSnippet(Snippet snippet, boolean addUniqueIDs, StatementVisitor visitor) {
+		int id = 0;
+		for (LevelOrderPair orderAndLevel : snippet.blocks.keySet()) {
+			for (Block block : snippet.blocks.get(orderAndLevel)) {
+				for (Statement statement : block) {
+					if (!StatementToken.isFlowStatement(statement)) {
+						visitor.visitStatement(statement, addUniqueIDs ? ++id : 0);
+						continue;
+					}
+					String statementString = statement.toString();
+					if (statementString.equals("START_METHOD")) {
+						visitor.openList();
+					} else if (statementString.equals("START_CONDITION") || statementString.equals("START_CASE")
+							|| statementString.equals("START_TRY") || statementString.equals("START_LOOP")) {
+						visitor.openList();
+						visitor.openList();
+					} else if (statementString.equals("ELSE_CONDITION") || statementString.equals("ELSEIF_CONDITION")
+							|| statementString.equals("ELSE_CASE") || statementString.equals("ELSEIF_CASE")
+							|| statementString.equals("ELSEIF_TRY") || statementString.equals("ELSE_LOOP")) {
+						visitor.closeList();
+						visitor.openList();
+					} else if (statementString.equals("ELSE_TRY") || statementString.equals("END_CONDITION")
+							|| statementString.equals("END_CASE") || statementString.equals("END_LOOP")) {
+						visitor.closeList();
+						visitor.closeList();
+					} else if (statementString.equals("END_METHOD")) {
+						visitor.closeList();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Receives a snippet and returns a tree representation for the snippet.
+	 * An example of the snippet tree would be [[A, [B, C], [D, E]]].
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return a tree representation for the snippet.
+	 */
+	@Override
+	public String snippetToString(Snippet snippet, boolean addUniqueIDs) {
+		StatementListBuilder builder = new StatementListBuilder();
+		visitSnippet(snippet, addUniqueIDs, builder);
+		return builder.toString();
+	}
+
+	/**
+	 * Receives a snippet and returns its tree as nested nodes, where the statements are typed tokens with the same IDs
+	 * as in the representation of {@link #snippetToString(Snippet, boolean)}, and the lists are nested exactly as its
+	 * brackets. Any flow statements that would close more lists than the ones that are open are ignored.
+	 * 
+	 * @param snippet the snippet to be parsed.
+	 * @param addUniqueIDs boolean denoting whether statements should have IDs ({@code true}) or not ({@code false}).
+	 * @return the root of the tree of the snippet.
+	 */
+	public TreeNode snippetToTreeNode(Snippet snippet, boolean addUniqueIDs) {
+		TreeNode root = new TreeNode();
+		final ArrayList<TreeNode> stack = new ArrayList<TreeNode>();
+		stack.add(root);
+		visitSnippet(snippet, addUniqueIDs, new StatementVisitor() {
+			@Override
+			public void openList() {
+				openNode(stack);
+			}
+
+			@Override
+			public void closeList() {
+				closeNode(stack);
+			}
+
+			@Override
+			public void visitStatement(Statement statement, int id) {
+				if (StatementToken.isToken(statement))
+					stack.get(stack.size() - 1).children.add(new TreeNode(new StatementToken(statement, id)));
+			}
+		});
+		return root;
+	}
+
+	/**
+	 * Opens a new list node, adding it to the list node that is currently open.
+	 * 
+	 * @param stack the list nodes that are currently open, starting from the root.
+	 */
+	private static void openNode(ArrayList<TreeNode> stack) {
+		TreeNode node = new TreeNode();
+		stack.get(stack.size() - 1).children.add(node);
+		stack.add(node);
+	}
+
+	/**
+	 * Closes the list node that is currently open, unless it is the root.
+	 * 
+	 * @param stack the list nodes that are currently open, starting from the root.
+	 */
+	private static void closeNode(ArrayList<TreeNode> stack) {
+		if (stack.size() > 1)
+			stack.remove(stack.size() - 1);
+	}
+
+}
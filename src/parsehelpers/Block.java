@@ -1,13 +1,109 @@
-package parsehelpers;
-
-import java.util.ArrayList;
-
-/**
- * Class that represents a series of statements.
- * 
- * @author themis
- */
-@SuppressWarnings("serial")
-public class Block extends ArrayList<Statement> {
-
-}
+package parsehelpers;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class that represents a series of statements. The symbols of the statements are kept as their codes (see
+ * {@link StatementSymbols}) in a single array of integers, three for each statement, instead of as a list of objects.
+ * The statements are created again from their codes when they are read.
+ * 
+ * @author themis
+ */
+public class Block implements Iterable<Statement> {
+
+	/**
+	 * The number of codes that are kept for each statement.
+	 */
+	private static final int CODES_PER_STATEMENT = 3;
+
+	/**
+	 * The codes of the symbols of the statements of this block.
+	 */
+	private int[] codes;
+
+	/**
+	 * The number of statements of this block.
+	 */
+	private int size;
+
+	/**
+	 * Initializes an empty block.
+	 */
+	public Block() {
+		codes = new int[4 * CODES_PER_STATEMENT];
+		size = 0;
+	}
+
+	/**
+	 * Adds a statement to the end of this block.
+	 * 
+	 * @param statement the statement to be added.
+	 */
+	public void add(Statement statement) {
+		int offset = size * CODES_PER_STATEMENT;
+		if (offset == codes.length)
+			codes = Arrays.copyOf(codes, 2 * codes.length);
+		for (int i = 0; i < CODES_PER_STATEMENT; i++)
+			codes[offset + i] = statement.getCode(i);
+		size++;
+	}
+
+	/**
+	 * Returns the statement of this block in the given position.
+	 * 
+	 * @param index the position of the statement.
+	 * @return the statement in the given position.
+	 * @throws IndexOutOfBoundsException if the position is not in this block.
+	 */
+	public Statement get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		int offset = index * CODES_PER_STATEMENT;
+		return new Statement(codes[offset], codes[offset + 1], codes[offset + 2]);
+	}
+
+	/**
+	 * Returns the number of statements of this block.
+	 * 
+	 * @return the number of statements of this block.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if this block has no statements.
+	 * 
+	 * @return {@code true} if this block has no statements, or {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns an iterator over the statements of this block in their order.
+	 * 
+	 * @return an iterator over the statements of this block.
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return new Iterator<Statement>() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Statement next() {
+				if (index >= size)
+					throw new NoSuchElementException();
+				return get(index++);
+			}
+		};
+	}
+
+}
@@ -1,45 +1,180 @@
-package parsehelpers;
-
-import java.util.ArrayList;
-
-/**
- * A statement that represents a single java command.
- * 
- * @author themis
- */
-@SuppressWarnings("serial")
-public class Statement extends ArrayList<String> {
-
-	/**
-	 * Initializes an empty statement.
-	 */
-	public Statement() {
-		super();
-	}
-
-	/**
-	 * Initializes a special type of statement including the type of flow (e.g. START, END, etc.) and the given block
-	 * type (e.g. METHOD). Example statements include "START, METHOD", "END, METHOD", etc.
-	 * 
-	 * @param flowType the type of the flow.
-	 * @param blockType the type of the block.
-	 */
-	public Statement(String flowType, String blockType) {
-		super();
-		add(flowType);
-		add(blockType);
-	}
-
-	/**
-	 * Returns a string representation of this statement.
-	 * 
-	 * @return a string representation of this statement.
-	 */
-	@Override
-	public String toString() {
-		if (size() > 2)
-			return get(0) + "_" + get(1) + "(" + get(2) + ")";
-		else
-			return size() > 1 ? get(0) + "_" + get(1) : "";
-	}
-}
+package parsehelpers;
+
+import java.util.List;
+
+/**
+ * A statement that represents a single java command. A statement has up to three symbols, i.e. its kind, its type and
+ * the type of its caller (e.g. {@code FC, void, JPanel}), which are kept as their codes in {@link StatementSymbols},
+ * so that a statement is small and its symbols are shared with all other statements. Statements are immutable; they
+ * are created from the symbols found while iterating the code using {@link #create(List, boolean)}.
+ * 
+ * @author themis
+ */
+public class Statement {
+
+	/**
+	 * The code of the first symbol of this statement, which is normally its kind, or {@link StatementSymbols#NONE}.
+	 */
+	private final int kind;
+
+	/**
+	 * The code of the type of this statement, or {@link StatementSymbols#NONE}.
+	 */
+	private final int type;
+
+	/**
+	 * The code of the type of the caller of this statement, or {@link StatementSymbols#NONE}.
+	 */
+	private final int callerType;
+
+	/**
+	 * Initializes a statement given the codes of its symbols.
+	 * 
+	 * @param kind the code of the first symbol of the statement, or {@link StatementSymbols#NONE}.
+	 * @param type the code of the type of the statement, or {@link StatementSymbols#NONE}.
+	 * @param callerType the code of the type of the caller of the statement, or {@link StatementSymbols#NONE}.
+	 */
+	Statement(int kind, int type, int callerType) {
+		this.kind = kind;
+		this.type = type;
+		this.callerType = callerType;
+	}
+
+	/**
+	 * Initializes a special type of statement including the type of flow (e.g. START, END, etc.) and the given block
+	 * type (e.g. METHOD). Example statements include "START, METHOD", "END, METHOD", etc.
+	 * 
+	 * @param flowType the type of the flow.
+	 * @param blockType the type of the block.
+	 */
+	public Statement(StatementKind flowType, String blockType) {
+		this(flowType.getCode(), StatementSymbols.getCode(blockType), StatementSymbols.NONE);
+	}
+
+	/**
+	 * Creates a statement given the symbols found while iterating its code. The first unknown symbol ({@code ___}) is
+	 * removed and only the kind and the type are kept, followed by the type of the caller if function call types are
+	 * kept. Statements that are empty or have any unknown symbols left are dropped.
+	 * 
+	 * @param symbols the symbols of the statement.
+	 * @param keepFunctionCallTypes boolean denoting whether to keep function call types.
+	 * @return the created statement, or {@code null} if the statement is dropped.
+	 */
+	public static Statement create(List<String> symbols, boolean keepFunctionCallTypes) {
+		int unknown = symbols.indexOf("___");
+		int size = Math.min(symbols.size() - (unknown >= 0 ? 1 : 0), keepFunctionCallTypes ? 3 : 2);
+		if (size == 0)
+			return null;
+		int[] codes = { StatementSymbols.NONE, StatementSymbols.NONE, StatementSymbols.NONE };
+		for (int i = 0; i < size; i++) {
+			String symbol = symbols.get(unknown >= 0 && i >= unknown ? i + 1 : i);
+			if (symbol == null || symbol.equals("null") || symbol.equals("___"))
+				return null;
+			codes[i] = StatementSymbols.getCode(symbol);
+		}
+		return new Statement(codes[0], codes[1], codes[2]);
+	}
+
+	/**
+	 * Returns the kind of this statement.
+	 * 
+	 * @return the kind of this statement, or {@code null} if its first symbol is not a kind (e.g. if it is the type of
+	 *         a variable).
+	 */
+	public StatementKind getKind() {
+		return StatementKind.fromCode(kind);
+	}
+
+	/**
+	 * Returns the symbol of this statement in the given position, i.e. its kind, its type or the type of its caller.
+	 * 
+	 * @param index the position of the symbol, which must be lower than the size of this statement.
+	 * @return the symbol in the given position.
+	 * @throws IndexOutOfBoundsException if the statement does not have a symbol in the given position.
+	 */
+	public String get(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		return StatementSymbols.getSymbol(index == 0 ? kind : index == 1 ? type : callerType);
+	}
+
+	/**
+	 * Returns the number of symbols of this statement.
+	 * 
+	 * @return the number of symbols of this statement.
+	 */
+	public int size() {
+		if (callerType != StatementSymbols.NONE)
+			return 3;
+		else if (type != StatementSymbols.NONE)
+			return 2;
+		else
+			return kind != StatementSymbols.NONE ? 1 : 0;
+	}
+
+	/**
+	 * Checks if this statement has no symbols.
+	 * 
+	 * @return {@code true} if this statement has no symbols, or {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return kind == StatementSymbols.NONE;
+	}
+
+	/**
+	 * Returns the code of the symbol of this statement in the given position, which is used to store the statement in
+	 * a block.
+	 * 
+	 * @param index the position of the symbol.
+	 * @return the code of the symbol, or {@link StatementSymbols#NONE} if the statement does not have a symbol there.
+	 */
+	int getCode(int index) {
+		return index == 0 ? kind : index == 1 ? type : callerType;
+	}
+
+	/**
+	 * Returns a hash code value for this statement given its symbols.
+	 * 
+	 * @return a hash code value for this statement.
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + kind;
+		result = prime * result + type;
+		result = prime * result + callerType;
+		return result;
+	}
+
+	/**
+	 * Indicates whether the given statement is equal to this one, i.e. if their symbols are equal.
+	 * 
+	 * @param otherStatement the given object to be compared to this one.
+	 * @return {@code true} this statement is equal to the given one, or {@code false} otherwise.
+	 */
+	@Override
+	public boolean equals(Object otherStatement) {
+		if (otherStatement == null || getClass() != otherStatement.getClass())
+			return false;
+		else {
+			Statement statement = (Statement) otherStatement;
+			if (kind != statement.kind || type != statement.type || callerType != statement.callerType)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a string representation of this statement.
+	 * 
+	 * @return a string representation of this statement.
+	 */
+	@Override
+	public String toString() {
+		if (size() > 2)
+			return get(0) + "_" + get(1) + "(" + get(2) + ")";
+		else
+			return size() > 1 ? get(0) + "_" + get(1) : "";
+	}
+}
@@ -0,0 +1,80 @@
+package parsehelpers;
+
+/**
+ * The kinds of statements, i.e. the first symbol of each statement. The statements of the code are assignments,
+ * class instance creations and function calls, while the rest of the kinds denote the flow of the blocks (e.g. the
+ * statement {@code START_LOOP} starts a loop). The code of each kind in {@link StatementSymbols} is its ordinal.
+ * 
+ * @author themis
+ */
+public enum StatementKind {
+
+	/**
+	 * An assignment or a variable declaration.
+	 */
+	AM,
+
+	/**
+	 * A class instance creation.
+	 */
+	CI,
+
+	/**
+	 * A function call.
+	 */
+	FC,
+
+	/**
+	 * The start of a block.
+	 */
+	START,
+
+	/**
+	 * A path of a branch block other than the first and the final one (e.g. an else if statement).
+	 */
+	ELSEIF,
+
+	/**
+	 * The final path of a branch block (e.g. an else statement).
+	 */
+	ELSE,
+
+	/**
+	 * The end of a block.
+	 */
+	END;
+
+	/**
+	 * The kinds given their codes.
+	 */
+	private static final StatementKind[] kinds = values();
+
+	/**
+	 * Returns the kind with the given symbol code.
+	 * 
+	 * @param code the code of the symbol (see {@link StatementSymbols}).
+	 * @return the kind with the given code, or {@code null} if the symbol is not a kind.
+	 */
+	public static StatementKind fromCode(int code) {
+		return code >= 0 && code < kinds.length ? kinds[code] : null;
+	}
+
+	/**
+	 * Returns the code of this kind in {@link StatementSymbols}.
+	 * 
+	 * @return the code of this kind.
+	 */
+	public int getCode() {
+		return ordinal();
+	}
+
+	/**
+	 * Checks if this kind denotes the flow of the blocks instead of a statement of the code.
+	 * 
+	 * @return {@code true} if this kind denotes the flow of the blocks, or {@code false} otherwise.
+	 */
+	public boolean isFlow() {
+		return this == START || this == ELSEIF || this == ELSE || this == END;
+	}
+
+}
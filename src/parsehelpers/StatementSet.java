@@ -1,35 +1,153 @@
-package parsehelpers;
-
-import java.util.Arrays;
-import java.util.HashSet;
-
-/**
- * Class that represents a set of statements.
- * 
- * @author themis
- */
-@SuppressWarnings("serial")
-public class StatementSet extends HashSet<String> {
-
-	/**
-	 * Initializes this set providing its items.
-	 * 
-	 * @param items the items of the set.
-	 */
-	public StatementSet(String... items) {
-		super();
-		addAll(Arrays.asList(items));
-	}
-
-	/**
-	 * Initializes this set providing other sets. This function implements the union of the given sets.
-	 * 
-	 * @param sets the sets that contain all items to be added in this set.
-	 */
-	public StatementSet(StatementSet... sets) {
-		super();
-		for (StatementSet set : sets)
-			addAll(set);
-	}
-
-}
+package parsehelpers;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import xmlhelpers.XMLNodeKindSet;
+import xmlhelpers.XMLNodeKinds;
+
+/**
+ * Class that represents a set of statements. Apart from the names of the statements, the set also keeps their kinds
+ * as a bitset, which can be used to check the kinds of the nodes of an {@link xmlhelpers.XMLTree}. The names are kept
+ * in a set that is not exposed, so that all ways of modifying this set (including its iterator and the bulk
+ * operations of {@link AbstractSet}) go through {@link #add(String)} and {@link #remove(Object)} and keep the kinds
+ * up to date.
+ * 
+ * @author themis
+ */
+public class StatementSet extends AbstractSet<String> {
+
+	/**
+	 * The names of the statements of this set.
+	 */
+	private final HashSet<String> items = new HashSet<String>();
+
+	/**
+	 * The kinds of the statements of this set, which are updated when statements are added or removed.
+	 */
+	private final XMLNodeKindSet kinds = new XMLNodeKindSet();
+
+	/**
+	 * Initializes this set providing its items.
+	 * 
+	 * @param items the items of the set.
+	 */
+	public StatementSet(String... items) {
+		super();
+		addAll(Arrays.asList(items));
+	}
+
+	/**
+	 * Initializes this set providing other sets. This function implements the union of the given sets.
+	 * 
+	 * @param sets the sets that contain all items to be added in this set.
+	 */
+	public StatementSet(StatementSet... sets) {
+		super();
+		for (StatementSet set : sets)
+			addAll(set);
+	}
+
+	/**
+	 * Returns an iterator over the statements of this set. Removing a statement using the iterator also removes its
+	 * kind.
+	 * 
+	 * @return an iterator over the statements of this set.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		final Iterator<String> iterator = items.iterator();
+		return new Iterator<String>() {
+
+			/**
+			 * The statement that was last returned by this iterator.
+			 */
+			private String item;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public String next() {
+				item = iterator.next();
+				return item;
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				kinds.remove(XMLNodeKinds.getKind(item));
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of statements in this set.
+	 * 
+	 * @return the number of statements in this set.
+	 */
+	@Override
+	public int size() {
+		return items.size();
+	}
+
+	/**
+	 * Checks if this set contains a statement.
+	 * 
+	 * @param item the statement to be checked.
+	 * @return {@code true} if this set contains the statement, or {@code false} otherwise.
+	 */
+	@Override
+	public boolean contains(Object item) {
+		return items.contains(item);
+	}
+
+	/**
+	 * Adds a statement to this set.
+	 * 
+	 * @param item the statement to be added.
+	 * @return {@code true} if this set did not already contain the statement, or {@code false} otherwise.
+	 */
+	@Override
+	public boolean add(String item) {
+		kinds.add(XMLNodeKinds.getKind(item));
+		return items.add(item);
+	}
+
+	/**
+	 * Removes a statement from this set.
+	 * 
+	 * @param item the statement to be removed.
+	 * @return {@code true} if this set contained the statement, or {@code false} otherwise.
+	 */
+	@Override
+	public boolean remove(Object item) {
+		if (!items.remove(item))
+			return false;
+		kinds.remove(XMLNodeKinds.getKind((String) item));
+		return true;
+	}
+
+	/**
+	 * Removes all statements from this set.
+	 */
+	@Override
+	public void clear() {
+		kinds.clear();
+		items.clear();
+	}
+
+	/**
+	 * Returns the kinds of the statements of this set.
+	 * 
+	 * @return the kinds of the statements of this set.
+	 */
+	public XMLNodeKindSet getKinds() {
+		return kinds;
+	}
+
+}
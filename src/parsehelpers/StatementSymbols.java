@@ -0,0 +1,93 @@
+package parsehelpers;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that keeps the integer codes of the symbols of statements, i.e. their kinds (e.g. {@code FC}) and their types
+ * (e.g. {@code JPanel}). Codes are given to symbols the first time they are requested and are shared among all
+ * snippets, so that each symbol is kept once no matter how many statements use it. The kinds of {@link StatementKind}
+ * are always given the first codes, in the order of their declaration.<br>
+ * The codes are global to the JVM and are never removed, since the statements of any snippet (e.g. the ones kept in a
+ * cache) may still refer to them. The table thus grows with the number of distinct symbols that the JVM has seen,
+ * which is bounded by the types of the corpus in practice. A long-lived binder that receives snippets with an
+ * unbounded number of distinct types (e.g. generated class names) keeps all of them, so its number of symbols (see
+ * {@link #size()}) is reported in its status.
+ * 
+ * @author themis
+ */
+public class StatementSymbols {
+
+	/**
+	 * The code that denotes that a statement does not have a symbol in some position.
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * The codes of the symbols given their names.
+	 */
+	private static final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * The symbols given their codes, which is guarded by {@link #codes} when written. The array is replaced when it is
+	 * full, and it is always written again after a symbol is added, so that it can be read without locking.
+	 */
+	private static volatile String[] symbols = new String[64];
+
+	/**
+	 * The number of symbols, which is guarded by {@link #codes}.
+	 */
+	private static int size = 0;
+
+	static {
+		for (StatementKind kind : StatementKind.values())
+			getCode(kind.name());
+	}
+
+	/**
+	 * Returns the code of a symbol, adding the symbol if it does not exist.
+	 * 
+	 * @param symbol the symbol, which must not be {@code null}.
+	 * @return the code of the symbol.
+	 */
+	public static int getCode(String symbol) {
+		Integer code = codes.get(symbol);
+		if (code != null)
+			return code;
+		synchronized (codes) {
+			code = codes.get(symbol);
+			if (code == null) {
+				String[] newSymbols = symbols;
+				if (size == newSymbols.length)
+					newSymbols = Arrays.copyOf(newSymbols, 2 * size);
+				code = size++;
+				newSymbols[code] = symbol;
+				symbols = newSymbols;
+				codes.put(symbol, code);
+			}
+			return code;
+		}
+	}
+
+	/**
+	 * Returns the number of symbols that have been given codes, including the kinds of {@link StatementKind}.
+	 * 
+	 * @return the number of symbols.
+	 */
+	public static int size() {
+		synchronized (codes) {
+			return size;
+		}
+	}
+
+	/**
+	 * Returns the symbol with the given code. The symbol is the same instance for all statements that use it.
+	 * 
+	 * @param code the code of the symbol.
+	 * @return the symbol, or {@code null} if the code is {@link #NONE}.
+	 */
+	public static String getSymbol(int code) {
+		return code == NONE ? null : symbols[code];
+	}
+
+}
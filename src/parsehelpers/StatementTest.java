@@ -0,0 +1,134 @@
+package parsehelpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class used as a test of the compact form of {@link Statement} and {@link Block}, which checks that the statements
+ * created from all short lists of symbols are the same as the ones of the list form, which removed the unknown
+ * symbols, truncated and dropped the statements in a pass after the extraction.
+ * 
+ * @author themis
+ */
+public class StatementTest {
+
+	/**
+	 * The symbols of which the lists are created, including unknown symbols, {@code null} and kinds used as types.
+	 */
+	private static final String[] SYMBOLS = { "FC", "CI", "START", "int", "List.add", "___", null, "null" };
+
+	/**
+	 * The maximum number of symbols of the lists.
+	 */
+	private static final int MAX_SYMBOLS = 4;
+
+	/**
+	 * Applies the rules of the list form to a list of symbols, i.e. removes the first unknown symbol, keeps only the
+	 * kind, the type and optionally the caller type, and drops the statement if it is empty or has any unknown or
+	 * {@code null} symbols.
+	 * 
+	 * @param symbols the symbols of the statement.
+	 * @param keepFunctionCallTypes {@code true} if the caller types are kept, or {@code false} otherwise.
+	 * @return the symbols of the statement, or {@code null} if the statement is dropped.
+	 */
+	private static List<String> toListForm(List<String> symbols, boolean keepFunctionCallTypes) {
+		ArrayList<String> statement = new ArrayList<String>(symbols);
+		statement.remove("___");
+		while (statement.size() > (keepFunctionCallTypes ? 3 : 2))
+			statement.remove(statement.size() - 1);
+		if (statement.isEmpty() || statement.contains(null) || statement.contains("null") || statement.contains("___"))
+			return null;
+		return statement;
+	}
+
+	/**
+	 * Returns the string of a statement of the list form, as it was printed.
+	 * 
+	 * @param statement the symbols of the statement.
+	 * @return the string of the statement.
+	 */
+	private static String toString(List<String> statement) {
+		if (statement.size() > 2)
+			return statement.get(0) + "_" + statement.get(1) + "(" + statement.get(2) + ")";
+		else
+			return statement.size() > 1 ? statement.get(0) + "_" + statement.get(1) : "";
+	}
+
+	/**
+	 * Checks that a statement has the same symbols and string as a statement of the list form.
+	 * 
+	 * @param statement the statement to be checked.
+	 * @param expected the symbols of the statement of the list form.
+	 * @return {@code true} if the statement is the same as the one of the list form, or {@code false} otherwise.
+	 */
+	private static boolean isSame(Statement statement, List<String> expected) {
+		if (statement.size() != expected.size() || !statement.toString().equals(toString(expected)))
+			return false;
+		for (int i = 0; i < expected.size(); i++) {
+			if (!statement.get(i).equals(expected.get(i)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds all lists of the given symbols up to the given length to a list.
+	 * 
+	 * @param prefix the symbols of the list that is extended.
+	 * @param maxSymbols the maximum number of symbols of the lists.
+	 * @param lists the lists where the lists of symbols are added.
+	 */
+	private static void addLists(ArrayList<String> prefix, int maxSymbols, List<List<String>> lists) {
+		lists.add(new ArrayList<String>(prefix));
+		if (prefix.size() == maxSymbols)
+			return;
+		for (String symbol : SYMBOLS) {
+			prefix.add(symbol);
+			addLists(prefix, maxSymbols, lists);
+			prefix.remove(prefix.size() - 1);
+		}
+	}
+
+	/**
+	 * Creates statements from all lists of symbols with and without caller types, and checks that they are the same
+	 * as the ones of the list form, also after they are stored in a block.
+	 * 
+	 * @param args unused parameter.
+	 */
+	public static void main(String[] args) {
+		List<List<String>> lists = new ArrayList<List<String>>();
+		addLists(new ArrayList<String>(), MAX_SYMBOLS, lists);
+		int mismatches = 0;
+		for (boolean keepFunctionCallTypes : new boolean[] { false, true }) {
+			Block block = new Block();
+			List<List<String>> expectedStatements = new ArrayList<List<String>>();
+			for (List<String> symbols : lists) {
+				Statement statement = Statement.create(symbols, keepFunctionCallTypes);
+				List<String> expected = toListForm(symbols, keepFunctionCallTypes);
+				if (statement == null || expected == null) {
+					if (statement != expected)
+						mismatches++;
+					continue;
+				}
+				if (!isSame(statement, expected))
+					mismatches++;
+				block.add(statement);
+				expectedStatements.add(expected);
+			}
+			if (block.size() != expectedStatements.size())
+				mismatches++;
+			int index = 0;
+			for (Statement statement : block) {
+				if (!isSame(statement, expectedStatements.get(index++)))
+					mismatches++;
+			}
+		}
+		if (!new Statement(StatementKind.START, "METHOD").equals(Statement.create(Arrays.asList("START", "METHOD"),
+				false)) || StatementSymbols.getCode("START") != StatementKind.START.getCode())
+			mismatches++;
+		System.out.println(mismatches == 0 ? "All " + lists.size() + " lists give the statements of the list form"
+				: mismatches + " statements are different than the ones of the list form");
+	}
+
+}
@@ -1,54 +1,99 @@
-package parsehelpers;
-
-/**
- * Class keeping hold of the different sets of statement types in ASTs.
- * 
- * @author themis
- */
-public class StatementTypes {
-
-	/**
-	 * The block statement type.
-	 */
-	public final static StatementSet blockStatementType = new StatementSet("Block");
-
-	/**
-	 * The catch statement type.
-	 */
-	public final static StatementSet catchClauseStatementType = new StatementSet("CatchClause");
-
-	/**
-	 * The simple statements, including expressions, variable declarations, etc.
-	 */
-	public final static StatementSet simpleStatementTypes = new StatementSet("VariableDeclarationStatement",
-			"ExpressionStatement", "ReturnStatement", "ThrowStatement", "InfixExpression");
-
-	/**
-	 * The condition statement types, including if, switch and try statements.
-	 */
-	public final static StatementSet conditionStatementTypes = new StatementSet("IfStatement", "SwitchStatement",
-			"TryStatement");
-
-	/**
-	 * The loop statement types, including for, while and do/while statements.
-	 */
-	public final static StatementSet loopStatementTypes = new StatementSet("ForStatement", "WhileStatement",
-			"DoStatement");
-
-	/**
-	 * The branch statement types, including conditions and loops.
-	 */
-	public final static StatementSet branchStatementTypes = new StatementSet(conditionStatementTypes,
-			loopStatementTypes);
-
-	/**
-	 * All statement types apart from blocks and catch clauses.
-	 */
-	public final static StatementSet allStatementTypes = new StatementSet(simpleStatementTypes, branchStatementTypes);
-
-	/**
-	 * All statement types including blocks and catch clauses.
-	 */
-	public final static StatementSet allAndBlockStatementTypes = new StatementSet(allStatementTypes, blockStatementType,
-			catchClauseStatementType);
-}
+package parsehelpers;
+
+/**
+ * Class keeping hold of the different sets of statement types in ASTs.
+ * 
+ * @author themis
+ */
+public class StatementTypes {
+
+	/**
+	 * The block statement type.
+	 */
+	public final static StatementSet blockStatementType = new StatementSet("Block");
+
+	/**
+	 * The catch statement type.
+	 */
+	public final static StatementSet catchClauseStatementType = new StatementSet("CatchClause");
+
+	/**
+	 * The if statement type.
+	 */
+	public final static StatementSet ifStatementType = new StatementSet("IfStatement");
+
+	/**
+	 * The switch statement type.
+	 */
+	public final static StatementSet switchStatementType = new StatementSet("SwitchStatement");
+
+	/**
+	 * The simple statements, including expressions, variable declarations, etc.
+	 */
+	public final static StatementSet simpleStatementTypes = new StatementSet("VariableDeclarationStatement",
+			"ExpressionStatement", "ReturnStatement", "ThrowStatement", "InfixExpression");
+
+	/**
+	 * The condition statement types, including if, switch and try statements.
+	 */
+	public final static StatementSet conditionStatementTypes = new StatementSet("IfStatement", "SwitchStatement",
+			"TryStatement");
+
+	/**
+	 * The loop statement types, including for, while and do/while statements.
+	 */
+	public final static StatementSet loopStatementTypes = new StatementSet("ForStatement", "WhileStatement",
+			"DoStatement");
+
+	/**
+	 * The branch statement types, including conditions and loops.
+	 */
+	public final static StatementSet branchStatementTypes = new StatementSet(conditionStatementTypes,
+			loopStatementTypes);
+
+	/**
+	 * All statement types apart from blocks and catch clauses.
+	 */
+	public final static StatementSet allStatementTypes = new StatementSet(simpleStatementTypes, branchStatementTypes);
+
+	/**
+	 * All statement types including blocks and catch clauses.
+	 */
+	public final static StatementSet allAndBlockStatementTypes = new StatementSet(allStatementTypes, blockStatementType,
+			catchClauseStatementType);
+
+	/**
+	 * The blocks and the infix expressions of conditions, which are the branches of if statements.
+	 */
+	public final static StatementSet blockAndConditionStatementTypes = new StatementSet("Block", "InfixExpression");
+
+	/**
+	 * The switch case, block and break statement types, which are the branches of switch statements.
+	 */
+	public final static StatementSet switchCaseStatementTypes = new StatementSet("SwitchCase", "Block",
+			"BreakStatement");
+
+	/**
+	 * The class instance creation and method invocation types.
+	 */
+	public final static StatementSet invocationStatementTypes = new StatementSet("ClassInstanceCreation",
+			"MethodInvocation");
+
+	/**
+	 * The node types that are removed from all ASTs, including javadocs, modifiers and import declarations.
+	 */
+	public final static StatementSet ignoredNodeTypes = new StatementSet("Javadoc", "Modifier", "Dimension",
+			"ImportDeclaration", "PackageDeclaration");
+
+	/**
+	 * The literal node types, which are removed from the ASTs if literals (primitives) are not kept.
+	 */
+	public final static StatementSet literalNodeTypes = new StatementSet("BooleanLiteral", "StringLiteral",
+			"NumberLiteral", "CharacterLiteral");
+
+	/**
+	 * The node types that are removed from the ASTs if literals (primitives) are not kept.
+	 */
+	public final static StatementSet ignoredAndLiteralNodeTypes = new StatementSet(ignoredNodeTypes,
+			literalNodeTypes);
+}
@@ -0,0 +1,289 @@
+package sequenceextractor;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
+
+import parsehelpers.StatementTypes;
+import xmlhelpers.XMLNodeKinds;
+import xmlhelpers.XMLTree;
+import xmlhelpers.XMLTreeNodeList;
+
+/**
+ * The AST builder class that parses snippets using the JDT parser and builds their ASTs directly as XML trees. The
+ * resulting trees are the same as the ones produced by exporting the AST to XML, removing all whitespace and ignored
+ * nodes, and reading the XML back.
+ * 
+ * @author themis
+ */
+public class ASTBuilder {
+
+	/**
+	 * Visitor that creates an XML node for each node of the JDT AST.
+	 */
+	private static class XMLElementVisitor extends ASTVisitor {
+
+		/**
+		 * The tree where the nodes are created.
+		 */
+		private final XMLTree tree;
+
+		/**
+		 * Denotes if literals (primitives) should be kept in the document.
+		 */
+		private final boolean keepLiterals;
+
+		/**
+		 * The XML nodes of the nodes that are currently visited, or {@link XMLTree#NONE} for nodes that are removed.
+		 */
+		private final XMLTreeNodeList elements;
+
+		/**
+		 * Initializes this visitor.
+		 * 
+		 * @param tree the tree where the nodes are created.
+		 * @param root the node under which the visited nodes are added.
+		 * @param keepLiterals {@code true} if literals (primitives) should be kept, or {@code false} otherwise.
+		 */
+		XMLElementVisitor(XMLTree tree, int root, boolean keepLiterals) {
+			super(false);
+			this.tree = tree;
+			this.keepLiterals = keepLiterals;
+			elements = new XMLTreeNodeList();
+			elements.add(root);
+		}
+
+		/**
+		 * Creates the XML node of the given node, or skips the node and its children if it has to be removed.
+		 * 
+		 * @param node the node that is visited.
+		 * @return {@code true} if the children of the node should be visited, or {@code false} otherwise.
+		 */
+		@Override
+		public boolean preVisit2(ASTNode node) {
+			int kind = getKind(node);
+			if (StatementTypes.ignoredNodeTypes.getKinds().contains(kind)
+					|| (!keepLiterals && StatementTypes.literalNodeTypes.getKinds().contains(kind))) {
+				elements.add(XMLTree.NONE);
+				return false;
+			}
+			int element = tree.addChildNode(elements.get(elements.size() - 1), kind);
+			if (!hasChildNodes(node)) {
+				String text = removeWhitespace(node.toString());
+				if (text.length() > 0)
+					tree.addTextNode(element, text);
+			}
+			elements.add(element);
+			return true;
+		}
+
+		/**
+		 * Moves back to the XML node of the parent of the given node.
+		 * 
+		 * @param node the node that is visited.
+		 */
+		@Override
+		public void postVisit(ASTNode node) {
+			elements.removeLast();
+		}
+	}
+
+	/**
+	 * The kinds of the XML nodes given the types of the JDT nodes, or {@code 0} for types that are not yet found.
+	 */
+	private static final int[] nodeKinds = new int[128];
+
+	/**
+	 * Returns the kind of the XML node of a JDT node, which is named after the class of the JDT node.
+	 * 
+	 * @param node the JDT node.
+	 * @return the kind of the XML node, as given by {@link XMLNodeKinds}.
+	 */
+	private static int getKind(ASTNode node) {
+		int type = node.getNodeType();
+		if (type >= nodeKinds.length)
+			return XMLNodeKinds.getKind(node.getClass().getSimpleName());
+		if (nodeKinds[type] == 0)
+			nodeKinds[type] = XMLNodeKinds.getKind(node.getClass().getSimpleName());
+		return nodeKinds[type];
+	}
+
+	/**
+	 * Checks if a JDT node has any child nodes, in which case it is exported to XML without its text content.
+	 * 
+	 * @param node the JDT node to be checked.
+	 * @return {@code true} if the node has child nodes, or {@code false} otherwise.
+	 */
+	private static boolean hasChildNodes(ASTNode node) {
+		for (Object property : node.structuralPropertiesForType()) {
+			StructuralPropertyDescriptor descriptor = (StructuralPropertyDescriptor) property;
+			if (descriptor.isChildProperty() && node.getStructuralProperty(descriptor) != null)
+				return true;
+			else if (descriptor.isChildListProperty() && !((List<?>) node.getStructuralProperty(descriptor)).isEmpty())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all newlines and spaces from a string, as done for the AST when it is exported to XML.
+	 * 
+	 * @param text the string of which the whitespace is removed.
+	 * @return the string without newlines and spaces.
+	 */
+	private static String removeWhitespace(String text) {
+		StringBuilder result = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c != '\n' && c != '\r' && c != ' ')
+				result.append(c);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Creates the options of the JDT parser, i.e. the default options of JavaCore with Java 1.8 compliance.
+	 * 
+	 * @return the options of the JDT parser.
+	 */
+	public static Map<String, String> createCompilerOptions() {
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+		return options;
+	}
+
+	/**
+	 * Parses a source string as a compilation unit using the given JDT parser. The parser is reset by JDT after
+	 * parsing, so it is configured again on each call.
+	 * 
+	 * @param parser the JDT parser used to parse the source code.
+	 * @param compilerOptions the options of the JDT parser.
+	 * @param source the source code to be parsed.
+	 * @return the compilation unit of the source code.
+	 */
+	private static CompilationUnit parseCompilationUnit(ASTParser parser, Map<String, String> compilerOptions,
+			String source) {
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setSource(source.toCharArray());
+		parser.setCompilerOptions(compilerOptions);
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	/**
+	 * Checks if the first declaration of the first type of a compilation unit is a method declaration.
+	 * 
+	 * @param compilationUnit the compilation unit to be checked.
+	 * @return {@code true} if the first declaration is a method declaration, or {@code false} otherwise.
+	 */
+	private static boolean startsWithMethodDeclaration(CompilationUnit compilationUnit) {
+		if (compilationUnit.types().isEmpty())
+			return false;
+		List<?> declarations = ((AbstractTypeDeclaration) compilationUnit.types().get(0)).bodyDeclarations();
+		return !declarations.isEmpty() && declarations.get(0) instanceof MethodDeclaration;
+	}
+
+	/**
+	 * Returns the compilation unit of a snippet. This function can also handle non-complete snippets (i.e. those not
+	 * surrounded by a method or class), which are wrapped in the same way as in
+	 * {@link SequenceExtractor#getASTofSnippet(String)}, skipping any parses that cannot be accepted given the kind of
+	 * the snippet.
+	 * 
+	 * @param snippet the snippet given as a string.
+	 * @return the compilation unit of the snippet.
+	 */
+	public static CompilationUnit getCompilationUnitOfSnippet(String snippet) {
+		return getCompilationUnitOfSnippet(snippet, ASTParser.newParser(AST.JLS8), createCompilerOptions());
+	}
+
+	/**
+	 * Returns the compilation unit of a snippet using the given JDT parser and options, so that these can be reused
+	 * for many snippets (see {@link #getCompilationUnitOfSnippet(String)}).
+	 * 
+	 * @param snippet the snippet given as a string.
+	 * @param parser the JDT parser used to parse the snippet.
+	 * @param compilerOptions the options of the JDT parser, as given by {@link #createCompilerOptions()}.
+	 * @return the compilation unit of the snippet.
+	 */
+	public static CompilationUnit getCompilationUnitOfSnippet(String snippet, ASTParser parser,
+			Map<String, String> compilerOptions) {
+		return getCompilationUnitOfSnippet(snippet, parser, compilerOptions, SnippetKind.classify(snippet));
+	}
+
+	/**
+	 * Returns the compilation unit of a snippet, starting from the wrapping of the given kind (see
+	 * {@link #getCompilationUnitOfSnippet(String, ASTParser, Map)}). Giving {@link SnippetKind#COMPILATION_UNIT} tries
+	 * all wrappings.
+	 * 
+	 * @param snippet the snippet given as a string.
+	 * @param parser the JDT parser used to parse the snippet.
+	 * @param compilerOptions the options of the JDT parser, as given by {@link #createCompilerOptions()}.
+	 * @param kind the kind of the snippet.
+	 * @return the compilation unit of the snippet.
+	 */
+	static CompilationUnit getCompilationUnitOfSnippet(String snippet, ASTParser parser,
+			Map<String, String> compilerOptions, SnippetKind kind) {
+		CompilationUnit compilationUnit;
+		if (kind == SnippetKind.COMPILATION_UNIT) {
+			compilationUnit = parseCompilationUnit(parser, compilerOptions, snippet);
+			if (!compilationUnit.types().isEmpty())
+				return compilationUnit;
+		}
+		if (kind != SnippetKind.STATEMENTS) {
+			// Put code inside class declaration
+			compilationUnit = parseCompilationUnit(parser, compilerOptions, "class SampleClass{\n" + snippet + "\n}\n");
+			if (startsWithMethodDeclaration(compilationUnit))
+				return compilationUnit;
+		}
+		// Put code inside method declaration
+		return parseCompilationUnit(parser, compilerOptions,
+				"class SampleClass{\nvoid SampleMethod(){\n" + snippet + "\n}\n\n}\n");
+	}
+
+	/**
+	 * Builds the XML tree of a compilation unit. The tree has a {@code file} root node and does not include any ignored
+	 * nodes (e.g. javadocs and modifiers).
+	 * 
+	 * @param compilationUnit the compilation unit of which the tree is built.
+	 * @param keepLiterals {@code true} if literals (primitives) should be kept, or {@code false} otherwise.
+	 * @return the XML tree of the compilation unit.
+	 */
+	public static XMLTree buildXMLTree(CompilationUnit compilationUnit, boolean keepLiterals) {
+		XMLTree tree = new XMLTree();
+		buildXMLTree(compilationUnit, keepLiterals, tree);
+		return tree;
+	}
+
+	/**
+	 * Builds the XML tree of a compilation unit in the given tree, appending its {@code file} root node to the document
+	 * node of the tree (see {@link #buildXMLTree(CompilationUnit, boolean)}).
+	 * 
+	 * @param compilationUnit the compilation unit of which the tree is built.
+	 * @param keepLiterals {@code true} if literals (primitives) should be kept, or {@code false} otherwise.
+	 * @param tree the tree where the nodes are created.
+	 */
+	public static void buildXMLTree(CompilationUnit compilationUnit, boolean keepLiterals, XMLTree tree) {
+		int root = tree.addChildNode(XMLTree.ROOT, "file");
+		compilationUnit.accept(new XMLElementVisitor(tree, root, keepLiterals));
+	}
+
+	/**
+	 * Returns the Abstract Syntax Tree of a snippet as an XML tree.
+	 * 
+	 * @param snippet the snippet given as a string.
+	 * @param keepLiterals {@code true} if literals (primitives) should be kept, or {@code false} otherwise.
+	 * @return the AST of the snippet.
+	 */
+	public static XMLTree getASTofSnippet(String snippet, boolean keepLiterals) {
+		return buildXMLTree(getCompilationUnitOfSnippet(snippet), keepLiterals);
+	}
+
+}
@@ -0,0 +1,106 @@
+package sequenceextractor;
+
+import parsehelpers.StatementTypes;
+import xmlhelpers.XMLTree;
+
+/**
+ * Class used as a test of the {@link ASTBuilder}, which checks that the visitor engine builds the same trees and
+ * extracts the same sequences as the XML engine.
+ * 
+ * @author themis
+ */
+public class ASTBuilderTest {
+
+	/**
+	 * Builds the tree of each snippet using both engines, with and without literals, and checks that the trees are
+	 * the same. Then checks that both engines extract the same sequence for all combinations of options.
+	 * 
+	 * @param args unused parameter.
+	 */
+	public static void main(String[] args) {
+		// @formatter:off
+		String[] snippets = {
+				"JFrame frame = new JFrame(\"myframe\");\n"
+				+ "JPanel panel = new JPanel();\n"
+				+ "Container pane = frame.getContentPane();\n"
+				+ "GridLayout layout = new GridLayout(2,2);\n"
+				+ "panel.setLayout(layout);\n"
+				+ "if (panel.isVisible())\n"
+				+ "	panel.add(upperLeft);\n"
+				+ "else\n"
+				+ "	panel.add(upperRight);\n"
+				+ "pane.add(panel);\n",
+				"int[] values = new int[] { 1, 2, 3 };\n"
+				+ "char c = 'c';\n"
+				+ "String s = \"a < b && c > \\\"d\\\"\";\n"
+				+ "double d = 1.5e3;\n"
+				+ "boolean b = values.length > 2 ? true : false;\n"
+				+ "Object o = null;\n",
+				"List<Map<String, Integer>> list = new ArrayList<>();\n"
+				+ "for (Map<String, Integer> map : list)\n"
+				+ "	for (int i = 0; i < map.size(); i++)\n"
+				+ "		map.put(\"\" + i, i);\n"
+				+ "while (list.isEmpty())\n"
+				+ "	list.add(new HashMap<String, Integer>());\n",
+				"try {\n"
+				+ "	BufferedReader reader = new BufferedReader(new FileReader(file));\n"
+				+ "	String line = reader.readLine();\n"
+				+ "} catch (IOException | RuntimeException e) {\n"
+				+ "	e.printStackTrace();\n"
+				+ "} finally {\n"
+				+ "	System.out.println(\"done\");\n"
+				+ "}\n",
+				"switch (x) {\n"
+				+ "case 1:\n"
+				+ "	list.add(x);\n"
+				+ "	break;\n"
+				+ "default:\n"
+				+ "	list.clear();\n"
+				+ "}\n"
+				+ "Runnable r = () -> list.clear();\n",
+				"/** Javadoc */\n"
+				+ "@Override\n"
+				+ "public synchronized String toString() {\n"
+				+ "	StringBuilder builder = new StringBuilder();\n"
+				+ "	builder.append(super.toString());\n"
+				+ "	return builder.toString();\n"
+				+ "}\n",
+				"import java.util.List;\n"
+				+ "public class A extends B {\n"
+				+ "	private List<String> list = new ArrayList<String>();\n"
+				+ "	public void f() {\n"
+				+ "		list.add(\"a\");\n"
+				+ "	}\n"
+				+ "}\n" };
+		// @formatter:on
+		int mismatches = 0;
+		for (String snippet : snippets) {
+			for (boolean keepLiterals : new boolean[] { false, true }) {
+				String xmlTree = new XMLTree("<file>" + SequenceExtractor.getASTofSnippet(snippet) + "</file>",
+						keepLiterals ? StatementTypes.ignoredNodeTypes : StatementTypes.ignoredAndLiteralNodeTypes)
+								.toXMLString();
+				String visitorTree = ASTBuilder.getASTofSnippet(snippet, keepLiterals).toXMLString();
+				if (!xmlTree.equals(visitorTree)) {
+					System.out.println("The engines built different trees (keepLiterals=" + keepLiterals + "):\n"
+							+ snippet + "\n" + xmlTree + "\n" + visitorTree);
+					mismatches++;
+				}
+			}
+			for (int i = 0; i < 64; i++) {
+				ExtractionOptions xmlOptions = new ExtractionOptions((i & 1) != 0, (i & 2) != 0, (i & 4) != 0,
+						(i & 8) != 0, (i & 16) != 0, (i & 32) != 0, ExtractionEngine.AST_XML);
+				ExtractionOptions visitorOptions = new ExtractionOptions((i & 1) != 0, (i & 2) != 0, (i & 4) != 0,
+						(i & 8) != 0, (i & 16) != 0, (i & 32) != 0, ExtractionEngine.AST_VISITOR);
+				String xmlSequence = SequenceExtractor.extractSequence(snippet, xmlOptions);
+				String visitorSequence = SequenceExtractor.extractSequence(snippet, visitorOptions);
+				if (!xmlSequence.equals(visitorSequence)) {
+					System.out.println("The engines extracted different sequences (" + visitorOptions + "):\n"
+							+ snippet + "\n" + xmlSequence + "\n" + visitorSequence);
+					mismatches++;
+				}
+			}
+		}
+		System.out.println(mismatches == 0 ? "Both engines built the same trees and extracted the same sequences"
+				: mismatches + " trees or sequences were different between the engines");
+	}
+}
@@ -0,0 +1,313 @@
+package sequenceextractor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import outputhelpers.TokenDictionary;
+
+/**
+ * The batch extractor class that extracts the sequences of many snippets in parallel. The results are returned in the
+ * order of the snippets and any snippet that fails does not affect the rest of the batch; instead its error is given
+ * in its result.
+ * 
+ * @author themis
+ */
+public class BatchExtractor {
+
+	/**
+	 * Task that extracts the sequences of a range of snippets, splitting the range in halves until it has one snippet.
+	 * Each snippet is converted to a string only when its sequence is extracted.
+	 */
+	@SuppressWarnings("serial")
+	private static class ExtractionTask extends RecursiveAction {
+
+		/**
+		 * The snippets of the batch.
+		 */
+		private final List<? extends CharSequence> snippets;
+
+		/**
+		 * The extractor used to extract the sequences.
+		 */
+		private final Extractor extractor;
+
+		/**
+		 * The dictionary used to encode the sequences, or {@code null} if the sequences are printed.
+		 */
+		private final TokenDictionary dictionary;
+
+		/**
+		 * The results of the batch, where the results of the range are written.
+		 */
+		private final BatchResult[] results;
+
+		/**
+		 * The index of the snippet of the first result of the batch.
+		 */
+		private final int first;
+
+		/**
+		 * The start of the range (inclusive).
+		 */
+		private final int from;
+
+		/**
+		 * The end of the range (exclusive).
+		 */
+		private final int to;
+
+		/**
+		 * Initializes this task.
+		 * 
+		 * @param snippets the snippets of the batch.
+		 * @param extractor the extractor used to extract the sequences.
+		 * @param dictionary the dictionary used to encode the sequences, or {@code null} if they are printed.
+		 * @param results the results of the batch.
+		 * @param first the index of the snippet of the first result of the batch.
+		 * @param from the start of the range (inclusive).
+		 * @param to the end of the range (exclusive).
+		 */
+		ExtractionTask(List<? extends CharSequence> snippets, Extractor extractor, TokenDictionary dictionary,
+				BatchResult[] results, int first, int from, int to) {
+			this.snippets = snippets;
+			this.extractor = extractor;
+			this.dictionary = dictionary;
+			this.results = results;
+			this.first = first;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Extracts the sequences of the range, splitting it if it has more than one snippet.
+		 */
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				String snippet = snippets.get(from).toString();
+				results[from - first] = dictionary == null ? extractSequence(from, snippet, extractor)
+						: encodeSequence(from, snippet, extractor, dictionary);
+			} else if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ExtractionTask(snippets, extractor, dictionary, results, first, from, middle),
+						new ExtractionTask(snippets, extractor, dictionary, results, first, middle, to));
+			}
+		}
+	}
+
+	/**
+	 * Extracts the sequence of a snippet of a batch, catching any exception or stack overflow.
+	 * 
+	 * @param index the index of the snippet in the batch.
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @param options the options used to extract the sequence.
+	 * @return the result of the extraction.
+	 */
+	public static BatchResult extractSequence(int index, String snippet, ExtractionOptions options) {
+		return extractSequence(index, snippet, new Extractor(options));
+	}
+
+	/**
+	 * Extracts the sequence of a snippet of a batch using the given extractor, catching any exception or stack
+	 * overflow (e.g. for a deeply nested snippet). Other errors, such as running out of memory, are not caught.
+	 * 
+	 * @param index the index of the snippet in the batch.
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @param extractor the extractor used to extract the sequence.
+	 * @return the result of the extraction.
+	 */
+	public static BatchResult extractSequence(int index, String snippet, Extractor extractor) {
+		try {
+			return new BatchResult(index, extractor.extractSequence(snippet), null);
+		} catch (Exception | StackOverflowError e) {
+			return new BatchResult(index, null, e);
+		}
+	}
+
+	/**
+	 * Extracts the sequence of a snippet of a batch using the given extractor and encodes it using the given
+	 * dictionary, grouped by method (see {@link ExtractionResult#encodeMethods(TokenDictionary)}), catching any
+	 * exception or stack overflow.
+	 * 
+	 * @param index the index of the snippet in the batch.
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @param extractor the extractor used to extract the sequence.
+	 * @param dictionary the dictionary used to encode the sequence.
+	 * @return the result of the extraction, which holds the encoded sequence.
+	 */
+	public static BatchResult encodeSequence(int index, String snippet, Extractor extractor,
+			TokenDictionary dictionary) {
+		try {
+			return new BatchResult(index, null, extractor.extractResult(snippet).encodeMethods(dictionary), null);
+		} catch (Exception | StackOverflowError e) {
+			return new BatchResult(index, null, null, e);
+		}
+	}
+
+	/**
+	 * Extracts the sequences of a collection of snippets in parallel using the common fork-join pool.
+	 * 
+	 * @param snippets the snippets of which the sequences are extracted.
+	 * @param options the options used to extract the sequences.
+	 * @return a list with the result of each snippet, in the order of the snippets.
+	 */
+	public static List<BatchResult> extractSequences(Collection<String> snippets, ExtractionOptions options) {
+		return extractSequences(snippets, options, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Extracts the sequences of a collection of snippets in parallel using the given fork-join pool.
+	 * 
+	 * @param snippets the snippets of which the sequences are extracted.
+	 * @param options the options used to extract the sequences.
+	 * @param pool the pool where the extraction tasks are run.
+	 * @return a list with the result of each snippet, in the order of the snippets.
+	 */
+	public static List<BatchResult> extractSequences(Collection<String> snippets, ExtractionOptions options,
+			ForkJoinPool pool) {
+		return extractSequences(snippets, new Extractor(options), pool);
+	}
+
+	/**
+	 * Extracts the sequences of a collection of snippets in parallel using the given extractor and fork-join pool.
+	 * Reusing the same extractor across batches keeps the parsing state of each thread of the pool between them. This
+	 * function may also be called from a task of the pool, in which case the calling thread takes part in the batch.
+	 * 
+	 * @param snippets the snippets of which the sequences are extracted.
+	 * @param extractor the extractor used to extract the sequences.
+	 * @param pool the pool where the extraction tasks are run.
+	 * @return a list with the result of each snippet, in the order of the snippets.
+	 */
+	public static List<BatchResult> extractSequences(Collection<String> snippets, Extractor extractor,
+			ForkJoinPool pool) {
+		List<String> snippetList = Arrays.asList(snippets.toArray(new String[snippets.size()]));
+		return extractSequences(snippetList, 0, snippetList.size(), extractor, pool);
+	}
+
+	/**
+	 * Extracts the sequences of a range of a list of snippets in parallel using the given extractor and fork-join pool.
+	 * The range is split among the threads of the pool, which read their snippets independently, and each snippet is
+	 * converted to a string only when its sequence is extracted, so that the snippets of a
+	 * {@link corpushelpers.SnippetCorpus} are not copied from its mapping before they are needed. The list should
+	 * provide fast random access.
+	 * 
+	 * @param snippets the snippets of which a range is extracted.
+	 * @param from the start of the range (inclusive).
+	 * @param to the end of the range (exclusive).
+	 * @param extractor the extractor used to extract the sequences.
+	 * @param pool the pool where the extraction tasks are run.
+	 * @return a list with the result of each snippet of the range, in the order of the snippets, where the index of
+	 *         each result is the index of its snippet in the list.
+	 */
+	public static List<BatchResult> extractSequences(List<? extends CharSequence> snippets, int from, int to,
+			Extractor extractor, ForkJoinPool pool) {
+		BatchResult[] results = new BatchResult[to - from];
+		pool.invoke(new ExtractionTask(snippets, extractor, null, results, from, from, to));
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Extracts the sequences of a range of a list of snippets in parallel using the given extractor and fork-join pool,
+	 * and encodes them as the IDs of their tokens in the given dictionary, which is shared by all threads. The results
+	 * hold the encoded sequences instead of the printed ones.
+	 * 
+	 * @param snippets the snippets of which a range is extracted.
+	 * @param from the start of the range (inclusive).
+	 * @param to the end of the range (exclusive).
+	 * @param extractor the extractor used to extract the sequences.
+	 * @param dictionary the dictionary used to encode the sequences.
+	 * @param pool the pool where the extraction tasks are run.
+	 * @return a list with the result of each snippet of the range, in the order of the snippets, where the index of
+	 *         each result is the index of its snippet in the list.
+	 */
+	public static List<BatchResult> encodeSequences(List<? extends CharSequence> snippets, int from, int to,
+			Extractor extractor, TokenDictionary dictionary, ForkJoinPool pool) {
+		BatchResult[] results = new BatchResult[to - from];
+		pool.invoke(new ExtractionTask(snippets, extractor, dictionary, results, from, from, to));
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Extracts the sequences of a stream of snippets in parallel using the given fork-join pool. The stream is first
+	 * collected, so it must be finite.
+	 * 
+	 * @param snippets the snippets of which the sequences are extracted.
+	 * @param options the options used to extract the sequences.
+	 * @param pool the pool where the extraction tasks are run.
+	 * @return a list with the result of each snippet, in the order of the snippets.
+	 */
+	public static List<BatchResult> extractSequences(Stream<String> snippets, ExtractionOptions options,
+			ForkJoinPool pool) {
+		return extractSequences(snippets.collect(Collectors.toList()), options, pool);
+	}
+
+	/**
+	 * Extracts the sequences of a collection of snippets in parallel using the given executor. A task is submitted for
+	 * each snippet. If the calling thread is interrupted, the remaining tasks are cancelled and their results hold the
+	 * interruption as their error.
+	 * 
+	 * @param snippets the snippets of which the sequences are extracted.
+	 * @param options the options used to extract the sequences.
+	 * @param executor the executor where the extraction tasks are run.
+	 * @return a list with the result of each snippet, in the order of the snippets.
+	 */
+	public static List<BatchResult> extractSequences(Collection<String> snippets, ExtractionOptions options,
+			ExecutorService executor) {
+		return extractSequences(snippets, new Extractor(options), executor);
+	}
+
+	/**
+	 * Extracts the sequences of a collection of snippets in parallel using the given extractor and executor. A task is
+	 * submitted for each snippet. If the calling thread is interrupted, the remaining tasks are cancelled and their
+	 * results hold the interruption as their error.
+	 * 
+	 * @param snippets the snippets of which the sequences are extracted.
+	 * @param extractor the extractor used to extract the sequences.
+	 * @param executor the executor where the extraction tasks are run.
+	 * @return a list with the result of each snippet, in the order of the snippets.
+	 */
+	public static List<BatchResult> extractSequences(Collection<String> snippets, final Extractor extractor,
+			ExecutorService executor) {
+		ArrayList<Future<BatchResult>> futures = new ArrayList<Future<BatchResult>>(snippets.size());
+		int index = 0;
+		for (final String snippet : snippets) {
+			final int snippetIndex = index++;
+			futures.add(executor.submit(new Callable<BatchResult>() {
+				@Override
+				public BatchResult call() {
+					return extractSequence(snippetIndex, snippet, extractor);
+				}
+			}));
+		}
+		ArrayList<BatchResult> results = new ArrayList<BatchResult>(futures.size());
+		InterruptedException interruption = null;
+		for (int i = 0; i < futures.size(); i++) {
+			if (interruption == null) {
+				try {
+					results.add(futures.get(i).get());
+					continue;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					interruption = e;
+				} catch (ExecutionException e) {
+					results.add(new BatchResult(i, null, e.getCause()));
+					continue;
+				}
+			}
+			futures.get(i).cancel(true);
+			results.add(new BatchResult(i, null, interruption));
+		}
+		return results;
+	}
+
+}
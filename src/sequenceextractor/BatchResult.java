@@ -0,0 +1,94 @@
+package sequenceextractor;
+
+import java.util.Arrays;
+
+import outputhelpers.TokenDictionary;
+
+/**
+ * The result of extracting the sequence of a snippet of a batch, which holds either the extracted sequence or the
+ * error that occurred while extracting it.
+ * 
+ * @author themis
+ */
+public class BatchResult {
+
+	/**
+	 * The index of the snippet in the batch.
+	 */
+	public final int index;
+
+	/**
+	 * The extracted sequence, or {@code null} if the extraction failed.
+	 */
+	public final String sequence;
+
+	/**
+	 * The extracted sequence encoded as the IDs of its tokens and grouped by method (see
+	 * {@link ExtractionResult#encodeMethods(TokenDictionary)}), or {@code null} if the sequence was not encoded or the
+	 * extraction failed.
+	 */
+	public final int[][][] encoded;
+
+	/**
+	 * The error that occurred while extracting the sequence, or {@code null} if the extraction succeeded.
+	 */
+	public final Throwable error;
+
+	/**
+	 * Initializes this result.
+	 * 
+	 * @param index the index of the snippet in the batch.
+	 * @param sequence the extracted sequence, or {@code null} if the extraction failed.
+	 * @param error the error that occurred while extracting the sequence, or {@code null} if the extraction succeeded.
+	 */
+	public BatchResult(int index, String sequence, Throwable error) {
+		this(index, sequence, null, error);
+	}
+
+	/**
+	 * Initializes this result, which may hold the sequence, its encoded form, or both.
+	 * 
+	 * @param index the index of the snippet in the batch.
+	 * @param sequence the extracted sequence, or {@code null} if it was not printed or the extraction failed.
+	 * @param encoded the encoded sequence grouped by method, or {@code null} if it was not encoded or the extraction
+	 *            failed.
+	 * @param error the error that occurred while extracting the sequence, or {@code null} if the extraction succeeded.
+	 */
+	public BatchResult(int index, String sequence, int[][][] encoded, Throwable error) {
+		this.index = index;
+		this.sequence = sequence;
+		this.encoded = encoded;
+		this.error = error;
+	}
+
+	/**
+	 * Checks if the extraction succeeded.
+	 * 
+	 * @return {@code true} if the sequence was extracted, or {@code false} if an error occurred.
+	 */
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	/**
+	 * Returns a string representation of this result, which is the sequence, the encoded sequence, or the error.
+	 * 
+	 * @return a string representation of this result.
+	 */
+	@Override
+	public String toString() {
+		if (!isSuccessful())
+			return "Error(index: " + index + ", error: " + error + ")";
+		return sequence != null || encoded == null ? sequence : Arrays.deepToString(getEncodedSequences());
+	}
+
+	/**
+	 * Returns the encoded sequences of all methods in order (see {@link ExtractionResult#encode(TokenDictionary)}).
+	 * 
+	 * @return the encoded sequences, or {@code null} if the sequence was not encoded or the extraction failed.
+	 */
+	public int[][] getEncodedSequences() {
+		return encoded == null ? null : ExtractionResult.flatten(encoded);
+	}
+
+}
@@ -0,0 +1,540 @@
+package sequenceextractor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+
+import cachehelpers.SequenceCache;
+import cachehelpers.SequenceStore;
+import corpushelpers.SequenceCorpus;
+import corpushelpers.SequenceCorpusWriter;
+import corpushelpers.SnippetCorpus;
+import outputhelpers.TokenDictionary;
+
+/**
+ * The corpus extractor class that extracts the sequences of a corpus of snippets which may be too large to fit in
+ * memory. The corpus is either a JSONL file, where each line is a JSON object with a {@code snippet} and optionally an
+ * {@code id}, a directory, where each {@code .java} file is a snippet with its relative path as its id, or a
+ * {@link SnippetCorpus} file, which is memory-mapped and where each snippet has its index as its id. The snippets
+ * are read as a stream and extracted by a number of workers, while the number of snippets that are read but not yet
+ * written is bounded, so that the memory used does not depend on the size of the corpus. The results are written as
+ * JSONL, where each line is a JSON object with the {@code id} of a snippet and either its {@code sequence} or the
+ * {@code error} of its extraction, either in the order of the corpus or in the order in which the extractions finish.
+ * The results of a snippet corpus can also be encoded and written as a {@link SequenceCorpus}, in the order of the
+ * corpus.
+ * 
+ * @author themis
+ */
+public class CorpusExtractor {
+
+	/**
+	 * The number of seconds between reports of the progress of the extraction.
+	 */
+	private static final int REPORT_INTERVAL = 10;
+
+	/**
+	 * The extension of the results that are written as a {@link SequenceCorpus} instead of JSONL.
+	 */
+	private static final String SEQUENCE_CORPUS_EXTENSION = ".sequences";
+
+	/**
+	 * The extractor used to extract the sequences.
+	 */
+	private final Extractor extractor;
+
+	/**
+	 * The number of workers that extract the sequences.
+	 */
+	private final int threads;
+
+	/**
+	 * The maximum number of snippets that may be read but not yet written.
+	 */
+	private final int maxInFlight;
+
+	/**
+	 * Denotes if the results are written in the order of the corpus, or else in the order in which they finish.
+	 */
+	private final boolean ordered;
+
+	/**
+	 * The number of snippets that were extracted.
+	 */
+	private final AtomicLong snippets;
+
+	/**
+	 * The number of snippets of which the extraction failed.
+	 */
+	private final AtomicLong errors;
+
+	/**
+	 * The permits of the snippets that may be read but not yet written.
+	 */
+	private Semaphore window;
+
+	/**
+	 * The writer of the results.
+	 */
+	private Writer output;
+
+	/**
+	 * The results that have finished before the results of previous snippets, given the index of their snippet.
+	 */
+	private HashMap<Long, String> finishedResults;
+
+	/**
+	 * The index of the snippet of which the result is written next, when the results are written in order.
+	 */
+	private long nextIndex;
+
+	/**
+	 * The first error that occurred while writing the results, which stops the extraction.
+	 */
+	private volatile IOException outputError;
+
+	/**
+	 * Initializes this corpus extractor.
+	 * 
+	 * @param extractor the extractor used to extract the sequences.
+	 * @param threads the number of workers that extract the sequences.
+	 * @param maxInFlight the maximum number of snippets that may be read but not yet written.
+	 * @param ordered {@code true} if the results are written in the order of the corpus, or {@code false} if they are
+	 *            written in the order in which they finish.
+	 */
+	public CorpusExtractor(Extractor extractor, int threads, int maxInFlight, boolean ordered) {
+		this.extractor = extractor;
+		this.threads = threads;
+		this.maxInFlight = maxInFlight;
+		this.ordered = ordered;
+		snippets = new AtomicLong();
+		errors = new AtomicLong();
+	}
+
+	/**
+	 * Returns the number of snippets that were extracted.
+	 * 
+	 * @return the number of snippets that were extracted.
+	 */
+	public long getSnippets() {
+		return snippets.get();
+	}
+
+	/**
+	 * Returns the number of snippets of which the extraction failed.
+	 * 
+	 * @return the number of snippets of which the extraction failed.
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * Extracts the sequences of a corpus given as JSONL, where each line is a JSON object with a {@code snippet} and
+	 * optionally an {@code id}. Lines without an id are identified by their index among the lines of the corpus.
+	 * 
+	 * @param input the reader of the corpus.
+	 * @param output the writer of the results.
+	 * @throws IOException if the corpus cannot be read or the results cannot be written.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the workers.
+	 */
+	public void extractLines(BufferedReader input, Writer output) throws IOException, InterruptedException {
+		ExecutorService workers = start(output);
+		try {
+			String line;
+			long index = 0;
+			while (outputError == null && (line = input.readLine()) != null) {
+				if (!line.trim().isEmpty())
+					submit(workers, index++, line, null);
+			}
+		} finally {
+			finish(workers);
+		}
+	}
+
+	/**
+	 * Extracts the sequences of a corpus given as a directory, where each {@code .java} file is a snippet identified
+	 * by its path relative to the directory. The directory is walked as a stream, so that its files are not all kept
+	 * in memory.
+	 * 
+	 * @param directory the directory of the corpus.
+	 * @param output the writer of the results.
+	 * @throws IOException if the directory cannot be walked or the results cannot be written.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the workers.
+	 */
+	public void extractDirectory(Path directory, Writer output) throws IOException, InterruptedException {
+		ExecutorService workers = start(output);
+		Stream<Path> files = Files.walk(directory);
+		try {
+			Iterator<Path> iterator = files.iterator();
+			long index = 0;
+			while (outputError == null && iterator.hasNext()) {
+				Path file = iterator.next();
+				if (file.toString().endsWith(".java") && Files.isRegularFile(file))
+					submit(workers, index++, directory.relativize(file).toString(), file);
+			}
+		} finally {
+			files.close();
+			finish(workers);
+		}
+	}
+
+	/**
+	 * Extracts the sequences of a memory-mapped corpus, where each snippet is identified by its index in the corpus.
+	 * The corpus is extracted in consecutive ranges of at most the maximum number of snippets in flight, which are
+	 * split among the workers by {@link BatchExtractor}, and the results of each range are written in order. The
+	 * snippets are read by the workers directly from the mapping of the corpus.
+	 * 
+	 * @param corpus the memory-mapped corpus.
+	 * @param output the writer of the results.
+	 * @throws IOException if the results cannot be written.
+	 */
+	public void extractCorpus(SnippetCorpus corpus, Writer output) throws IOException {
+		ForkJoinPool workers = new ForkJoinPool(threads);
+		try {
+			for (int from = 0; from < corpus.size(); from += maxInFlight) {
+				int to = (int) Math.min((long) from + maxInFlight, corpus.size());
+				for (BatchResult batchResult : BatchExtractor.extractSequences(corpus, from, to, extractor, workers)) {
+					JSONObject result = new JSONObject().put("id", batchResult.index);
+					if (batchResult.isSuccessful()) {
+						result.put("sequence", batchResult.sequence);
+					} else {
+						errors.incrementAndGet();
+						result.put("error", batchResult.error.toString());
+					}
+					snippets.incrementAndGet();
+					output.write(result.toString());
+					output.write('\n');
+				}
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+		output.flush();
+	}
+
+	/**
+	 * Extracts the sequences of a memory-mapped corpus as {@link #extractCorpus(SnippetCorpus, Writer)} does, but
+	 * encodes them using the dictionary of the given writer and appends them to a {@link SequenceCorpus} instead of
+	 * writing them as JSONL, so that each snippet has the same index in both corpora.
+	 * 
+	 * @param corpus the memory-mapped corpus.
+	 * @param output the writer of the encoded sequences.
+	 * @throws IOException if the encoded sequences cannot be written.
+	 * @throws IllegalArgumentException if the options of the extractor require a tree that is not flattened, which
+	 *             cannot be encoded.
+	 */
+	public void encodeCorpus(SnippetCorpus corpus, SequenceCorpusWriter output) throws IOException {
+		if (!extractor.getOptions().isEncodable())
+			throw new IllegalArgumentException("A tree can be encoded only if it is flattened");
+		ForkJoinPool workers = new ForkJoinPool(threads);
+		try {
+			for (int from = 0; from < corpus.size(); from += maxInFlight) {
+				int to = (int) Math.min((long) from + maxInFlight, corpus.size());
+				for (BatchResult batchResult : BatchExtractor.encodeSequences(corpus, from, to, extractor,
+						output.getDictionary(), workers)) {
+					if (!batchResult.isSuccessful())
+						errors.incrementAndGet();
+					snippets.incrementAndGet();
+					output.append(batchResult.encoded);
+				}
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Starts the workers of an extraction.
+	 * 
+	 * @param output the writer of the results.
+	 * @return the workers that extract the sequences.
+	 */
+	private ExecutorService start(Writer output) {
+		this.output = output;
+		window = new Semaphore(maxInFlight);
+		finishedResults = new HashMap<Long, String>();
+		nextIndex = 0;
+		outputError = null;
+		return Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Waits for all the results of an extraction to be written, and stops its workers.
+	 * 
+	 * @param workers the workers that extract the sequences.
+	 * @throws IOException if the results cannot be written.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the workers.
+	 */
+	private void finish(ExecutorService workers) throws IOException, InterruptedException {
+		try {
+			if (outputError == null)
+				window.acquire(maxInFlight);
+		} finally {
+			workers.shutdownNow();
+		}
+		workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		if (outputError != null)
+			throw outputError;
+		output.flush();
+	}
+
+	/**
+	 * Submits a snippet to the workers, after waiting until the number of snippets that are read but not yet written
+	 * is below the maximum.
+	 * 
+	 * @param workers the workers that extract the sequences.
+	 * @param index the index of the snippet in the corpus.
+	 * @param source either the line of the snippet, or the id of the snippet if it is read from a file.
+	 * @param file the file of the snippet, or {@code null} if the snippet is given as a line.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting.
+	 */
+	private void submit(ExecutorService workers, final long index, final String source, final Path file)
+			throws InterruptedException {
+		window.acquire();
+		workers.execute(new Runnable() {
+			@Override
+			public void run() {
+				write(index, extractResult(index, source, file).toString());
+			}
+		});
+	}
+
+	/**
+	 * Extracts the sequence of a snippet, catching any error.
+	 * 
+	 * @param index the index of the snippet in the corpus.
+	 * @param source either the line of the snippet, or the id of the snippet if it is read from a file.
+	 * @param file the file of the snippet, or {@code null} if the snippet is given as a line.
+	 * @return the result of the snippet, which is a JSON object with its id and either its sequence or its error.
+	 */
+	private JSONObject extractResult(long index, String source, Path file) {
+		JSONObject result = new JSONObject();
+		result.put("id", file != null ? source : index);
+		try {
+			String snippet;
+			if (file != null) {
+				snippet = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+			} else {
+				JSONObject request = new JSONObject(source);
+				if (request.has("id"))
+					result.put("id", request.get("id"));
+				snippet = request.getString("snippet");
+			}
+			result.put("sequence", extractor.extractSequence(snippet));
+		} catch (Exception | StackOverflowError e) {
+			errors.incrementAndGet();
+			result.put("error", e.toString());
+		}
+		snippets.incrementAndGet();
+		return result;
+	}
+
+	/**
+	 * Writes the result of a snippet. When the results are written in order, a result that finishes before the results
+	 * of previous snippets is kept until they are written.
+	 * 
+	 * @param index the index of the snippet in the corpus.
+	 * @param result the result of the snippet as a JSON line.
+	 */
+	private synchronized void write(long index, String result) {
+		if (!ordered) {
+			writeLine(result);
+			return;
+		}
+		finishedResults.put(index, result);
+		while ((result = finishedResults.remove(nextIndex)) != null) {
+			writeLine(result);
+			nextIndex++;
+		}
+	}
+
+	/**
+	 * Writes a line of the results and releases the permit of its snippet. If the line cannot be written, the error is
+	 * kept so that the extraction stops.
+	 * 
+	 * @param line the line to be written.
+	 */
+	private void writeLine(String line) {
+		try {
+			if (outputError == null) {
+				output.write(line);
+				output.write('\n');
+			}
+		} catch (IOException e) {
+			outputError = e;
+		}
+		window.release();
+	}
+
+	/**
+	 * Reports the progress of the extraction in the standard error.
+	 * 
+	 * @param startTime the time when the extraction started, in nanoseconds.
+	 */
+	private void report(long startTime) {
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		System.err.println(String.format("Extracted %d snippets with %d errors in %.1f seconds (%.1f snippets/s)",
+				snippets.get(), errors.get(), seconds, snippets.get() / Math.max(seconds, 1e-9)));
+	}
+
+	/**
+	 * Extracts the sequences of a corpus given its path and writes them as JSONL given the path of the results.
+	 * 
+	 * @param corpus the path of the corpus, which is either a JSONL file, a directory of {@code .java} files, or a
+	 *            {@link SnippetCorpus} file ({@code -} to read JSONL from the standard input).
+	 * @param results the path of the JSONL file of the results ({@code -} to write them in the standard output).
+	 * @throws IOException if the corpus cannot be read or the results cannot be written.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the workers.
+	 */
+	private void extract(String corpus, String results) throws IOException, InterruptedException {
+		Writer output = new BufferedWriter(new OutputStreamWriter(
+				results.equals("-") ? System.out : new FileOutputStream(results), StandardCharsets.UTF_8), 1 << 16);
+		try {
+			if (new File(corpus).isDirectory()) {
+				extractDirectory(Paths.get(corpus), output);
+			} else if (SnippetCorpus.isSnippetCorpus(new File(corpus))) {
+				SnippetCorpus snippetCorpus = new SnippetCorpus(new File(corpus));
+				try {
+					extractCorpus(snippetCorpus, output);
+				} finally {
+					snippetCorpus.close();
+				}
+			} else {
+				BufferedReader input = new BufferedReader(new InputStreamReader(
+						corpus.equals("-") ? System.in : new FileInputStream(corpus), StandardCharsets.UTF_8), 1 << 16);
+				try {
+					extractLines(input, output);
+				} finally {
+					input.close();
+				}
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Extracts the sequences of a {@link SnippetCorpus} given its path and writes them as a {@link SequenceCorpus}
+	 * given the path of the results, using a new dictionary.
+	 * 
+	 * @param corpus the path of the snippet corpus.
+	 * @param results the path of the sequence corpus.
+	 * @throws IOException if the corpus cannot be read or the results cannot be written.
+	 */
+	private void encodeCorpus(String corpus, String results) throws IOException {
+		if (!SnippetCorpus.isSnippetCorpus(new File(corpus)))
+			throw new IOException("Only a snippet corpus can be extracted to a sequence corpus");
+		SnippetCorpus snippetCorpus = new SnippetCorpus(new File(corpus));
+		try {
+			SequenceCorpusWriter output = new SequenceCorpusWriter(new File(results), new TokenDictionary());
+			try {
+				encodeCorpus(snippetCorpus, output);
+			} finally {
+				output.close();
+			}
+		} finally {
+			snippetCorpus.close();
+		}
+	}
+
+	/**
+	 * Function used to extract the sequences of a corpus from the command line. The progress of the extraction is
+	 * reported in the standard error every few seconds.
+	 * 
+	 * @param args receives the corpus, which is either a JSONL file, a directory of {@code .java} files, or a
+	 *            {@link SnippetCorpus} file ({@code -} to read JSONL from the standard input), the JSONL file of the
+	 *            results ({@code -} to write them in the standard output, which is the default) or a
+	 *            {@link SequenceCorpus} file ending with {@code .sequences} if the corpus is a snippet corpus, the
+	 *            order of the results, which is either {@code input} (default) or {@code completion}, the number of
+	 *            workers (one per processor by default), the maximum number of snippets that may be read but not yet
+	 *            written (1024 per worker by default), the booleans denoting if function call types, literals and
+	 *            branches should be kept, if the output should be a tree or sequence, if the output should be
+	 *            flattened, and if the statements should have IDs, and optionally the directory of a
+	 *            {@link SequenceStore} where the extracted sequences are kept across runs.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: CorpusExtractor corpus [results] [input|completion] [threads] [maxInFlight]"
+					+ " [keepFunctionCallTypes keepLiterals keepBranches outputTree flattenOutput addUniqueIDs]"
+					+ " [store]");
+			return;
+		}
+		String corpus = args[0];
+		String results = args.length > 1 ? args[1] : "-";
+		boolean ordered = args.length > 2 ? !args[2].equals("completion") : true;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		int maxInFlight = args.length > 4 ? Integer.parseInt(args[4]) : 1024 * threads;
+		boolean keepFunctionCallTypes = args.length > 5 ? Boolean.parseBoolean(args[5]) : false;
+		boolean keepLiterals = args.length > 6 ? Boolean.parseBoolean(args[6]) : false;
+		boolean keepBranches = args.length > 7 ? Boolean.parseBoolean(args[7]) : true;
+		boolean outputTree = args.length > 8 ? Boolean.parseBoolean(args[8]) : false;
+		boolean flattenOutput = args.length > 9 ? Boolean.parseBoolean(args[9]) : true;
+		boolean addUniqueIDs = args.length > 10 ? Boolean.parseBoolean(args[10]) : false;
+		ExtractionOptions options = new ExtractionOptions(keepFunctionCallTypes, keepLiterals, keepBranches, outputTree,
+				flattenOutput, addUniqueIDs);
+		if (results.endsWith(SEQUENCE_CORPUS_EXTENSION) && !options.isEncodable()) {
+			System.err.println("A tree can be written to a sequence corpus only if it is flattened");
+			return;
+		}
+		SequenceStore store = null;
+		if (args.length > 11) {
+			try {
+				store = new SequenceStore(new File(args[11]));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		SequenceCache cache = store == null ? null : new SequenceCache(store);
+		final CorpusExtractor corpusExtractor = new CorpusExtractor(new Extractor(options, cache), threads, maxInFlight,
+				ordered);
+		final long startTime = System.nanoTime();
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+		reporter.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				corpusExtractor.report(startTime);
+			}
+		}, REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.SECONDS);
+		try {
+			if (results.endsWith(SEQUENCE_CORPUS_EXTENSION))
+				corpusExtractor.encodeCorpus(corpus, results);
+			else
+				corpusExtractor.extract(corpus, results);
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+		}
+		reporter.shutdownNow();
+		corpusExtractor.report(startTime);
+		if (store != null) {
+			System.err.println(cache);
+			try {
+				store.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+}
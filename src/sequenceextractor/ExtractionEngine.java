@@ -0,0 +1,20 @@
+package sequenceextractor;
+
+/**
+ * Enumeration of the engines that can be used to extract the AST of a snippet.
+ * 
+ * @author themis
+ */
+public enum ExtractionEngine {
+
+	/**
+	 * The AST is exported to XML using the ASTExtractor library and then parsed back to an XML document.
+	 */
+	AST_XML,
+
+	/**
+	 * The AST is built as an XML document directly from the nodes of the JDT parser, without serializing it to XML.
+	 */
+	AST_VISITOR;
+
+}
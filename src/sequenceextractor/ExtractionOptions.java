@@ -0,0 +1,149 @@
+package sequenceextractor;
+
+/**
+ * The options used to extract the sequence of a snippet.
+ * 
+ * @author themis
+ */
+public class ExtractionOptions {
+
+	/**
+	 * Denotes if function call types should be kept.
+	 */
+	public final boolean keepFunctionCallTypes;
+
+	/**
+	 * Denotes if literals (primitives) should be kept.
+	 */
+	public final boolean keepLiterals;
+
+	/**
+	 * Denotes if all branches should be kept, or only the first branch.
+	 */
+	public final boolean keepBranches;
+
+	/**
+	 * Denotes if the output should be a tree, or a sequence.
+	 */
+	public final boolean outputTree;
+
+	/**
+	 * Denotes if the output should be flattened.
+	 */
+	public final boolean flattenOutput;
+
+	/**
+	 * Denotes if the statements should have IDs.
+	 */
+	public final boolean addUniqueIDs;
+
+	/**
+	 * The engine used to extract the AST of a snippet.
+	 */
+	public final ExtractionEngine engine;
+
+	/**
+	 * Initializes the options with their default values, i.e. the ones of
+	 * {@link SequenceExtractor#extractSequence(String)}.
+	 */
+	public ExtractionOptions() {
+		this(false, false, true, false, true, false);
+	}
+
+	/**
+	 * Initializes the options using the {@link ExtractionEngine#AST_XML} engine.
+	 * 
+	 * @param keepFunctionCallTypes {@code true} if call types should be kept, or {@code false} otherwise.
+	 * @param keepLiterals {@code true} if literals (primitives) should be kept, or {@code false} otherwise.
+	 * @param keepBranches {@code true} if all branches should be kept, or {@code false} for the first branch.
+	 * @param outputTree {@code true} if the output should be a tree, or {@code false} for output as a sequence.
+	 * @param flattenOutput {@code true} if the output should be flattened, or {@code false} otherwise.
+	 * @param addUniqueIDs {@code true} if the statements should have IDs, or {@code false} otherwise.
+	 */
+	public ExtractionOptions(boolean keepFunctionCallTypes, boolean keepLiterals, boolean keepBranches,
+			boolean outputTree, boolean flattenOutput, boolean addUniqueIDs) {
+		this(keepFunctionCallTypes, keepLiterals, keepBranches, outputTree, flattenOutput, addUniqueIDs,
+				ExtractionEngine.AST_XML);
+	}
+
+	/**
+	 * Initializes the options.
+	 * 
+	 * @param keepFunctionCallTypes {@code true} if call types should be kept, or {@code false} otherwise.
+	 * @param keepLiterals {@code true} if literals (primitives) should be kept, or {@code false} otherwise.
+	 * @param keepBranches {@code true} if all branches should be kept, or {@code false} for the first branch.
+	 * @param outputTree {@code true} if the output should be a tree, or {@code false} for output as a sequence.
+	 * @param flattenOutput {@code true} if the output should be flattened, or {@code false} otherwise.
+	 * @param addUniqueIDs {@code true} if the statements should have IDs, or {@code false} otherwise.
+	 * @param engine the engine used to extract the AST of a snippet.
+	 */
+	public ExtractionOptions(boolean keepFunctionCallTypes, boolean keepLiterals, boolean keepBranches,
+			boolean outputTree, boolean flattenOutput, boolean addUniqueIDs, ExtractionEngine engine) {
+		this.keepFunctionCallTypes = keepFunctionCallTypes;
+		this.keepLiterals = keepLiterals;
+		this.keepBranches = keepBranches;
+		this.outputTree = outputTree;
+		this.flattenOutput = flattenOutput;
+		this.addUniqueIDs = addUniqueIDs;
+		this.engine = engine;
+	}
+
+	/**
+	 * Checks if the results of these options can be encoded (see {@link ExtractionResult#encode}), i.e. if they do not
+	 * require a tree that is not flattened, which cannot be given as arrays.
+	 * 
+	 * @return {@code true} if the results can be encoded, or {@code false} otherwise.
+	 */
+	public boolean isEncodable() {
+		return !outputTree || flattenOutput;
+	}
+
+	/**
+	 * Returns a hash code value for these options given their values, to be used in hashmaps.
+	 * 
+	 * @return a hash code value for these options.
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (keepFunctionCallTypes ? 1 : 0);
+		result = prime * result + (keepLiterals ? 1 : 0);
+		result = prime * result + (keepBranches ? 1 : 0);
+		result = prime * result + (outputTree ? 1 : 0);
+		result = prime * result + (flattenOutput ? 1 : 0);
+		result = prime * result + (addUniqueIDs ? 1 : 0);
+		result = prime * result + engine.hashCode();
+		return result;
+	}
+
+	/**
+	 * Indicates whether the given options are equal to these ones, i.e. if all their values are equal.
+	 * 
+	 * @param otherOptions the given object to be compared to this one.
+	 * @return {@code true} these options are equal to the given ones, or {@code false} otherwise.
+	 */
+	@Override
+	public boolean equals(Object otherOptions) {
+		if (otherOptions == null || getClass() != otherOptions.getClass())
+			return false;
+		ExtractionOptions options = (ExtractionOptions) otherOptions;
+		return keepFunctionCallTypes == options.keepFunctionCallTypes && keepLiterals == options.keepLiterals
+				&& keepBranches == options.keepBranches && outputTree == options.outputTree
+				&& flattenOutput == options.flattenOutput && addUniqueIDs == options.addUniqueIDs
+				&& engine == options.engine;
+	}
+
+	/**
+	 * Returns a string representation of these options.
+	 * 
+	 * @return a string representation of these options.
+	 */
+	@Override
+	public String toString() {
+		return "ExtractionOptions(keepFunctionCallTypes: " + keepFunctionCallTypes + ", keepLiterals: " + keepLiterals
+				+ ", keepBranches: " + keepBranches + ", outputTree: " + outputTree + ", flattenOutput: "
+				+ flattenOutput + ", addUniqueIDs: " + addUniqueIDs + ", engine: " + engine + ")";
+	}
+
+}
@@ -0,0 +1,193 @@
+package sequenceextractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import outputhelpers.FlattenedSequencePrinter;
+import outputhelpers.FlattenedTreePrinter;
+import outputhelpers.SequencePrinter;
+import outputhelpers.StatementToken;
+import outputhelpers.TokenDictionary;
+import outputhelpers.TreeNode;
+import outputhelpers.TreePrinter;
+import parsehelpers.Snippet;
+
+/**
+ * The typed result of extracting a snippet, which gives its statements as {@link StatementToken} objects instead of
+ * the string of a printer, so that consumers do not have to parse the string back into lists. The same result can be
+ * given in any form, i.e. as a sequence, as the sequences of its functions, as a tree of {@link TreeNode} objects, or
+ * as the paths of its tree, regardless of the form of the output in the options of the extraction. The statements have
+ * the same IDs as in the respective printed form if the options require IDs. Rendering the result as the string of the
+ * options, which is the same as the one returned by {@link Extractor#extractSequence(String)}, is an optional last
+ * step.
+ * 
+ * @author themis
+ */
+public class ExtractionResult {
+
+	/**
+	 * The extracted snippet.
+	 */
+	private final Snippet snippet;
+
+	/**
+	 * The options used to extract the snippet.
+	 */
+	private final ExtractionOptions options;
+
+	/**
+	 * Initializes this result.
+	 * 
+	 * @param snippet the extracted snippet.
+	 * @param options the options used to extract the snippet.
+	 */
+	ExtractionResult(Snippet snippet, ExtractionOptions options) {
+		this.snippet = snippet;
+		this.options = options;
+	}
+
+	/**
+	 * Returns the options used to extract the snippet.
+	 * 
+	 * @return the options used to extract the snippet.
+	 */
+	public ExtractionOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * Returns the statements of the snippet as a flattened sequence.
+	 * 
+	 * @return the statements of the snippet.
+	 */
+	public List<StatementToken> getSequence() {
+		return new FlattenedSequencePrinter().snippetToTokens(snippet, options.addUniqueIDs);
+	}
+
+	/**
+	 * Returns the sequence of each function of the snippet.
+	 * 
+	 * @return the sequences of the functions of the snippet.
+	 */
+	public List<List<StatementToken>> getFunctionSequences() {
+		return new SequencePrinter().snippetToTokens(snippet, options.addUniqueIDs);
+	}
+
+	/**
+	 * Returns the tree of the snippet, where the root has a list for each function.
+	 * 
+	 * @return the root of the tree of the snippet.
+	 */
+	public TreeNode getTree() {
+		return new TreePrinter().snippetToTreeNode(snippet, options.addUniqueIDs);
+	}
+
+	/**
+	 * Returns the paths of the tree of the snippet, i.e. its flattened tree.
+	 * 
+	 * @return the paths of the tree of the snippet, or no paths if the tree is not well formed.
+	 */
+	public List<List<StatementToken>> getPaths() {
+		return new FlattenedTreePrinter().snippetToPaths(snippet, options.addUniqueIDs);
+	}
+
+	/**
+	 * Returns the paths of the tree of the snippet grouped by method, i.e. by the top-level block of the tree that each
+	 * path runs through, which is a method or a statement outside methods.
+	 * 
+	 * @return the paths of each method of the tree of the snippet, or no methods if the tree is not well formed.
+	 */
+	public List<List<List<StatementToken>>> getMethodPaths() {
+		return new FlattenedTreePrinter().snippetToMethodPaths(snippet, options.addUniqueIDs);
+	}
+
+	/**
+	 * Encodes this result as the IDs of its tokens in a dictionary, adding any new tokens to the dictionary. The form
+	 * of the result is given by the options, i.e. the flattened sequence is given as a single array, while the
+	 * sequences of the functions and the paths of the tree are given as an array each. The unique IDs of the
+	 * statements, if any, are not part of the encoded tokens, since they are given by the position of each token.
+	 * 
+	 * @param dictionary the dictionary of the tokens.
+	 * @return the encoded sequences of this result.
+	 * @throws IllegalArgumentException if the options require a tree that is not flattened, which cannot be given as
+	 *             arrays (see {@link ExtractionOptions#isEncodable()}).
+	 */
+	public int[][] encode(TokenDictionary dictionary) {
+		return flatten(encodeMethods(dictionary));
+	}
+
+	/**
+	 * Encodes this result as {@link #encode(TokenDictionary)} does, but groups the encoded sequences by method. The
+	 * paths of the tree are grouped as in {@link #getMethodPaths()}, the sequence of each function is a group by
+	 * itself, and the flattened sequence is a single group, since the methods of the snippet are not kept when it is
+	 * flattened.
+	 * 
+	 * @param dictionary the dictionary of the tokens.
+	 * @return the encoded sequences of each method of this result.
+	 * @throws IllegalArgumentException if the options require a tree that is not flattened, which cannot be given as
+	 *             arrays (see {@link ExtractionOptions#isEncodable()}).
+	 */
+	public int[][][] encodeMethods(TokenDictionary dictionary) {
+		if (!options.isEncodable())
+			throw new IllegalArgumentException("A tree can be encoded only if it is flattened");
+		List<List<List<StatementToken>>> methods;
+		if (options.outputTree)
+			methods = getMethodPaths();
+		else if (options.flattenOutput)
+			methods = Collections.singletonList(Collections.singletonList(getSequence()));
+		else {
+			methods = new ArrayList<List<List<StatementToken>>>();
+			for (List<StatementToken> sequence : getFunctionSequences())
+				methods.add(Collections.singletonList(sequence));
+		}
+		int[][][] encoded = new int[methods.size()][][];
+		for (int i = 0; i < encoded.length; i++) {
+			List<List<StatementToken>> sequences = methods.get(i);
+			encoded[i] = new int[sequences.size()][];
+			for (int j = 0; j < encoded[i].length; j++)
+				encoded[i][j] = dictionary.encode(sequences.get(j));
+		}
+		return encoded;
+	}
+
+	/**
+	 * Concatenates the encoded sequences of all methods, as given by {@link #encodeMethods(TokenDictionary)}.
+	 * 
+	 * @param methods the encoded sequences of each method.
+	 * @return the encoded sequences of all methods in order.
+	 */
+	public static int[][] flatten(int[][][] methods) {
+		int count = 0;
+		for (int[][] sequences : methods)
+			count += sequences.length;
+		int[][] encoded = new int[count][];
+		int index = 0;
+		for (int[][] sequences : methods) {
+			for (int[] sequence : sequences)
+				encoded[index++] = sequence;
+		}
+		return encoded;
+	}
+
+	/**
+	 * Renders this result as the string of the printer of the options.
+	 * 
+	 * @return the snippet as a list of statements.
+	 */
+	public String render() {
+		return SequenceExtractor.createPrinter(options.outputTree, options.flattenOutput).snippetToString(snippet,
+				options.addUniqueIDs);
+	}
+
+	/**
+	 * Returns a string representation of this result, which is its rendering (see {@link #render()}).
+	 * 
+	 * @return a string representation of this result.
+	 */
+	@Override
+	public String toString() {
+		return render();
+	}
+
+}
@@ -0,0 +1,132 @@
+package sequenceextractor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import outputhelpers.StatementToken;
+
+/**
+ * Class used as a test of {@link ExtractionResult}, which checks that the typed forms of a result have the same
+ * statements, in the same order and with the same IDs, as the string of the printer of the options, and that the paths
+ * grouped by method are the same as the paths of the tree.
+ * 
+ * @author themis
+ */
+public class ExtractionResultTest {
+
+	/**
+	 * Returns the typed form of a result that corresponds to the printer of its options.
+	 * 
+	 * @param result the result of an extraction.
+	 * @return the typed form of the result.
+	 */
+	private static Object getTypedForm(ExtractionResult result) {
+		ExtractionOptions options = result.getOptions();
+		if (options.outputTree && options.flattenOutput)
+			return result.getPaths();
+		else if (options.outputTree)
+			return result.getTree();
+		else if (options.flattenOutput)
+			return result.getSequence();
+		else
+			return result.getFunctionSequences();
+	}
+
+	/**
+	 * Normalizes a rendering to the string of its typed form. The statements that are not tokens (see
+	 * {@link outputhelpers.StatementToken#isToken}), i.e. the empty items that are given only their IDs, if any, are
+	 * removed, since they are not part of the typed forms although they are counted in the IDs of the statements. Any
+	 * lists that the rendering leaves open, e.g. the branches of a try statement that are not kept, are closed at the
+	 * end, as in the tree of the result.
+	 * 
+	 * @param rendering the rendering of a result.
+	 * @return the normalized rendering.
+	 */
+	private static String normalize(String rendering) {
+		String previous;
+		do {
+			previous = rendering;
+			rendering = rendering.replaceAll("\\[(#\\d+)?, ", "[").replaceAll(", (#\\d+)?(?=[,\\]])", "")
+					.replaceAll("\\[#\\d+\\]", "[]");
+		} while (!rendering.equals(previous));
+		int openLists = 0;
+		for (int i = 0; i < rendering.length(); i++)
+			openLists += rendering.charAt(i) == '[' ? 1 : rendering.charAt(i) == ']' ? -1 : 0;
+		for (int i = 0; i < openLists; i++)
+			rendering += "]";
+		return rendering;
+	}
+
+	/**
+	 * Extracts each snippet with all combinations of options, and checks that the string of each typed form is the
+	 * same as the normalized rendering of the result and that the paths grouped by method are the same as the paths.
+	 * 
+	 * @param args unused parameter.
+	 */
+	public static void main(String[] args) {
+		// @formatter:off
+		String[] snippets = {
+				"List a = new ArrayList();\n"
+				+ "if (a.isEmpty()) {\n"
+				+ "	a.add(\"x\");\n"
+				+ "} else if (a.size() > 2) {\n"
+				+ "	a.clear();\n"
+				+ "} else {\n"
+				+ "	a.remove(0);\n"
+				+ "}\n"
+				+ "a.size();",
+				"Reader r = new FileReader(\"f\");\n"
+				+ "try {\n"
+				+ "	r.read();\n"
+				+ "} catch (IOException e) {\n"
+				+ "	e.printStackTrace();\n"
+				+ "} finally {\n"
+				+ "	r.close();\n"
+				+ "}",
+				"int x = 0;\n"
+				+ "switch (x) {\n"
+				+ "case 1:\n"
+				+ "	System.out.println(x);\n"
+				+ "	break;\n"
+				+ "default:\n"
+				+ "	System.out.println(-x);\n"
+				+ "}\n"
+				+ "for (int i = 0; i < x; i++)\n"
+				+ "	System.out.println(i);",
+				"void foo() { bar(1); }\n"
+				+ "int bar(int y) { while (y > 0) y = baz(y); return y; }",
+				"JFrame frame = new JFrame(\"myframe\");\n"
+				+ "frame.setVisible(true);",
+		};
+		// @formatter:on
+		int mismatches = 0;
+		int groupingMismatches = 0;
+		for (String snippet : snippets) {
+			for (int combination = 0; combination < 64; combination++) {
+				boolean[] flags = new boolean[6];
+				for (int i = 0; i < flags.length; i++)
+					flags[i] = (combination & (1 << i)) != 0;
+				ExtractionOptions options = new ExtractionOptions(flags[0], flags[1], flags[2], flags[3], flags[4],
+						flags[5]);
+				ExtractionResult result = new Extractor(options).extractResult(snippet);
+				String rendering = normalize(result.render());
+				String typedForm = getTypedForm(result).toString();
+				if (!rendering.equals(typedForm)) {
+					System.out.println("Snippet:\n" + snippet + "\nOptions: " + options + "\nRendering:  " + rendering
+							+ "\nTyped form: " + typedForm);
+					mismatches++;
+				}
+				List<List<StatementToken>> methodPaths = new ArrayList<List<StatementToken>>();
+				for (List<List<StatementToken>> paths : result.getMethodPaths())
+					methodPaths.addAll(paths);
+				if (!methodPaths.toString().equals(result.getPaths().toString()))
+					groupingMismatches++;
+			}
+		}
+		System.out.println(mismatches == 0 ? "All typed forms are the same as the renderings"
+				: mismatches + " typed forms are different than the renderings");
+		System.out.println(groupingMismatches == 0 ? "All paths grouped by method are the same as the paths"
+				: groupingMismatches + " paths grouped by method are different than the paths");
+	}
+
+}
@@ -0,0 +1,217 @@
+package sequenceextractor;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+
+import cachehelpers.CacheKey;
+import cachehelpers.SequenceCache;
+import outputhelpers.SnippetPrinter;
+import parsehelpers.Snippet;
+import parsehelpers.StatementTypes;
+import xmlhelpers.XMLNodeKinds;
+import xmlhelpers.XMLTree;
+
+/**
+ * The extractor class that extracts the sequences of snippets given a set of options. In contrast to the static
+ * functions of {@link SequenceExtractor}, an extractor creates its printer once and keeps the state used for parsing
+ * (i.e. the JDT parser, its compiler options, and the reusable {@link XMLTree} of the AST) for each thread that uses
+ * it, so that this state is created once per thread instead of once per snippet. An extractor is thread-safe, so a
+ * single instance can be shared by any number of threads. An extractor may also be given a cache, so that the
+ * sequences of duplicate snippets are extracted only once. Extractors with other options can be derived from an
+ * extractor using {@link #withOptions(ExtractionOptions)}, in which case they share its parsing state and its cache.
+ * 
+ * @author themis
+ */
+public class Extractor {
+
+	/**
+	 * The state used by a thread to parse snippets, which must not be shared with other threads.
+	 */
+	private static class ParsingState {
+
+		/**
+		 * The JDT parser used to parse the snippets.
+		 */
+		private ASTParser parser;
+
+		/**
+		 * The options of the JDT parser.
+		 */
+		private Map<String, String> compilerOptions;
+
+		/**
+		 * The tree where the AST of each snippet is kept.
+		 */
+		private final XMLTree tree = new XMLTree();
+	}
+
+	/**
+	 * The options used to extract the sequences.
+	 */
+	private final ExtractionOptions options;
+
+	/**
+	 * The printer of the extracted snippets.
+	 */
+	private final SnippetPrinter printer;
+
+	/**
+	 * The cache of the extracted sequences, or {@code null} if the sequences are not cached.
+	 */
+	private final SequenceCache cache;
+
+	/**
+	 * The parsing state of each thread that uses this extractor.
+	 */
+	private final ThreadLocal<ParsingState> parsingState;
+
+	/**
+	 * Initializes this extractor using the default options (see {@link ExtractionOptions#ExtractionOptions()}).
+	 */
+	public Extractor() {
+		this(new ExtractionOptions());
+	}
+
+	/**
+	 * Initializes this extractor given its options.
+	 * 
+	 * @param options the options used to extract the sequences.
+	 */
+	public Extractor(ExtractionOptions options) {
+		this(options, null);
+	}
+
+	/**
+	 * Initializes this extractor given its options and a cache of the extracted sequences. The cache may be shared by
+	 * extractors with different options, since the options are part of the key of each sequence.
+	 * 
+	 * @param options the options used to extract the sequences.
+	 * @param cache the cache of the extracted sequences, or {@code null} if the sequences should not be cached.
+	 */
+	public Extractor(ExtractionOptions options, SequenceCache cache) {
+		this(options, cache, new ThreadLocal<ParsingState>() {
+			@Override
+			protected ParsingState initialValue() {
+				return new ParsingState();
+			}
+		});
+	}
+
+	/**
+	 * Initializes this extractor given its options, a cache of the extracted sequences, and the parsing state of each
+	 * thread that uses it.
+	 * 
+	 * @param options the options used to extract the sequences.
+	 * @param cache the cache of the extracted sequences, or {@code null} if the sequences should not be cached.
+	 * @param parsingState the parsing state of each thread that uses the extractor.
+	 */
+	private Extractor(ExtractionOptions options, SequenceCache cache, ThreadLocal<ParsingState> parsingState) {
+		this.options = options;
+		this.printer = SequenceExtractor.createPrinter(options.outputTree, options.flattenOutput);
+		this.cache = cache;
+		this.parsingState = parsingState;
+	}
+
+	/**
+	 * Returns an extractor with the given options that shares the parsing state and the cache of this extractor, so
+	 * that snippets can be extracted with many different options without creating the parsing state of each thread
+	 * again for each set of options.
+	 * 
+	 * @param options the options used to extract the sequences.
+	 * @return this extractor if it has the given options, or else a new extractor with the given options.
+	 */
+	public Extractor withOptions(ExtractionOptions options) {
+		if (this.options.equals(options))
+			return this;
+		return new Extractor(options, cache, parsingState);
+	}
+
+	/**
+	 * Returns the options of this extractor.
+	 * 
+	 * @return the options used to extract the sequences.
+	 */
+	public ExtractionOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * Returns the cache of this extractor.
+	 * 
+	 * @return the cache of the extracted sequences, or {@code null} if the sequences are not cached.
+	 */
+	public SequenceCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Extracts the sequence for a snippet, or returns it from the cache of this extractor. The result is the same as
+	 * the one of {@link SequenceExtractor#extractSequence(String, ExtractionOptions)} given the options of this
+	 * extractor.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @return the snippet as a list of statements.
+	 */
+	public String extractSequence(final String snippet) {
+		if (cache == null)
+			return extractUncachedSequence(snippet);
+		return cache.get(new CacheKey(snippet, options), new Callable<String>() {
+			@Override
+			public String call() {
+				return extractUncachedSequence(snippet);
+			}
+		});
+	}
+
+	/**
+	 * Extracts a snippet and returns its typed result, which gives its statements as tokens instead of a string, so
+	 * that they do not have to be parsed back from the string. The result is not cached, since the cache keeps only the
+	 * strings of the sequences.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @return the typed result of the snippet.
+	 */
+	public ExtractionResult extractResult(String snippet) {
+		return new ExtractionResult(extractSnippet(snippet), options);
+	}
+
+	/**
+	 * Extracts the sequence for a snippet without using the cache.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @return the snippet as a list of statements.
+	 */
+	private String extractUncachedSequence(String snippet) {
+		return printer.snippetToString(extractSnippet(snippet), options.addUniqueIDs);
+	}
+
+	/**
+	 * Extracts the statements of a snippet given the options of this extractor.
+	 * 
+	 * @param snippet the snippet of which the statements are extracted.
+	 * @return the extracted snippet.
+	 */
+	private Snippet extractSnippet(String snippet) {
+		ParsingState state = parsingState.get();
+		XMLTree ast = state.tree;
+		ast.clear();
+		if (options.engine == ExtractionEngine.AST_VISITOR) {
+			if (state.parser == null) {
+				state.parser = ASTParser.newParser(AST.JLS8);
+				state.compilerOptions = ASTBuilder.createCompilerOptions();
+			}
+			ASTBuilder.buildXMLTree(
+					ASTBuilder.getCompilationUnitOfSnippet(snippet, state.parser, state.compilerOptions),
+					options.keepLiterals, ast);
+		} else {
+			ast.read(SequenceExtractor.getASTofSnippet(snippet),
+					options.keepLiterals ? StatementTypes.ignoredNodeTypes : StatementTypes.ignoredAndLiteralNodeTypes,
+					ast.addChildNode(XMLTree.ROOT, XMLNodeKinds.FILE));
+		}
+		return SequenceExtractor.createSequence(ast, options.keepFunctionCallTypes, options.keepBranches);
+	}
+
+}
@@ -0,0 +1,71 @@
+package sequenceextractor;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class used as a test of the {@link Extractor}, which checks that an extractor can be shared by many threads and that
+ * the extractors derived from it with other options extract the same sequences as {@link SequenceExtractor}.
+ * 
+ * @author themis
+ */
+public class ExtractorTest {
+
+	/**
+	 * Gives the same snippet to an extractor from many threads and checks that every thread extracts the sequence that
+	 * is extracted by {@link SequenceExtractor}. Then checks the same for an extractor derived with other options.
+	 * 
+	 * @param args unused parameter.
+	 * @throws Exception if any of the threads fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		// @formatter:off
+		final String snippet = ""
+				+ "JFrame frame = new JFrame(\"myframe\");\n"
+				+ "JPanel panel = new JPanel();\n"
+				+ "Container pane = frame.getContentPane();\n"
+				+ "GridLayout layout = new GridLayout(2,2);\n"
+				+ "panel.setLayout(layout);\n"
+				+ "if (panel.isVisible())\n"
+				+ "	panel.add(upperLeft);\n"
+				+ "else\n"
+				+ "	panel.add(upperRight);\n"
+				+ "pane.add(panel);\n";
+		// @formatter:on
+		final ExtractionOptions options = new ExtractionOptions(true, false, true, true, false, true);
+		String expected = SequenceExtractor.extractSequence(snippet, options);
+
+		final Extractor extractor = new Extractor(options);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		ArrayList<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 0; i < 64; i++) {
+			futures.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() {
+					String sequence = null;
+					for (int j = 0; j < 10; j++)
+						sequence = extractor.extractSequence(snippet);
+					return sequence;
+				}
+			}));
+		}
+		int mismatches = 0;
+		for (Future<String> future : futures) {
+			if (!expected.equals(future.get()))
+				mismatches++;
+		}
+		executor.shutdown();
+		System.out.println(expected);
+		System.out.println(mismatches == 0 ? "All threads extracted the same sequence"
+				: mismatches + " threads extracted a different sequence");
+
+		ExtractionOptions otherOptions = new ExtractionOptions();
+		String otherExpected = SequenceExtractor.extractSequence(snippet, otherOptions);
+		System.out.println(otherExpected.equals(extractor.withOptions(otherOptions).extractSequence(snippet))
+				? "The derived extractor extracted the same sequence"
+				: "The derived extractor extracted a different sequence");
+	}
+}
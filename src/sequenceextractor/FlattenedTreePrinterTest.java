@@ -0,0 +1,140 @@
+package sequenceextractor;
+
+import java.util.Arrays;
+
+import outputhelpers.FlattenedTreePrinter;
+
+/**
+ * Class used as a test of the {@link FlattenedTreePrinter}, which checks that it produces the paths of the legacy
+ * Jython {@code get_paths} script, in the order it is expected to produce them.
+ * 
+ * @author themis
+ */
+public class FlattenedTreePrinterTest {
+
+	/**
+	 * The declarations that all snippets start with.
+	 */
+	// @formatter:off
+	private static final String declarations = ""
+			+ "List a = new ArrayList();\n"
+			+ "List b = new LinkedList();\n"
+			+ "int x = 0;\n"
+			+ "int n = 5;\n"
+			+ "Reader r = new FileReader(f);\n";
+	// @formatter:on
+
+	/**
+	 * Flattens the tree of each snippet with and without IDs, and checks that the paths are the expected ones, in the
+	 * expected order, and that they are the same as the ones of the legacy script (which may be in a different order).
+	 * 
+	 * @param args unused parameter.
+	 */
+	public static void main(String[] args) {
+		// @formatter:off
+		String[] snippets = {
+				"if (a.isEmpty()) {\n"
+				+ "	a.add(b);\n"
+				+ "} else if (a.size() > 2) {\n"
+				+ "	a.clear();\n"
+				+ "} else {\n"
+				+ "	b.clear();\n"
+				+ "}\n"
+				+ "b.add(a);",
+				"try {\n"
+				+ "	r.read();\n"
+				+ "} catch (IOException e) {\n"
+				+ "	e.printStackTrace();\n"
+				+ "} finally {\n"
+				+ "	r.close();\n"
+				+ "}",
+				"switch (x) {\n"
+				+ "case 1:\n"
+				+ "	a.add(b);\n"
+				+ "	break;\n"
+				+ "case 2:\n"
+				+ "	a.clear();\n"
+				+ "default:\n"
+				+ "	b.clear();\n"
+				+ "}\n"
+				+ "while (a.isEmpty())\n"
+				+ "	a.add(b);",
+				"for (int i = 0; i < n; i++) {\n"
+				+ "	if (a.contains(i))\n"
+				+ "		a.remove(i);\n"
+				+ "	else\n"
+				+ "		b.add(i);\n"
+				+ "}\n"
+				+ "if (b.isEmpty())\n"
+				+ "	b.clear();" };
+		String[] expectedPaths = {
+				"[[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#5, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#6, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#7, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#8, FC_void#9]]",
+				"[[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#6], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#5, FC_void#6]]",
+				"[[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#8, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#8], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#5, FC_void#6, FC_void#8, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#5, FC_void#6, FC_void#8], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#7, FC_void#8, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#7, FC_void#8]]",
+				"[[CI_List#1, CI_List#2, CI_Reader#3, int_AM#4, FC_void#7, FC_void#8], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, int_AM#4, FC_void#7]]" };
+		String[] legacyPaths = {
+				"[[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#5, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#6, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#8, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#7, FC_void#9]]",
+				"[[CI_List#1, CI_List#2, CI_Reader#3, FC_void#5, FC_void#6], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#6]]",
+				"[[CI_List#1, CI_List#2, CI_Reader#3, FC_void#5, FC_void#6, FC_void#8, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#5, FC_void#6, FC_void#8], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#8, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#4, FC_void#8], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#7, FC_void#8, FC_void#9], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, FC_void#7, FC_void#8]]",
+				"[[CI_List#1, CI_List#2, CI_Reader#3, int_AM#4, FC_void#7, FC_void#8], "
+				+ "[CI_List#1, CI_List#2, CI_Reader#3, int_AM#4, FC_void#7]]" };
+		// @formatter:on
+		int mismatches = 0;
+		for (int i = 0; i < snippets.length; i++) {
+			String snippet = declarations + snippets[i];
+			for (ExtractionEngine engine : ExtractionEngine.values()) {
+				String paths = SequenceExtractor.extractSequence(snippet, false, false, true, true, true, true, engine);
+				String pathsWithoutIDs = SequenceExtractor.extractSequence(snippet, false, false, true, true, true,
+						false, engine);
+				if (!paths.equals(expectedPaths[i])) {
+					System.out.println("The paths are not in the expected order (" + engine + "):\n" + snippet + "\n"
+							+ paths + "\n" + expectedPaths[i]);
+					mismatches++;
+				}
+				if (!Arrays.equals(sortedPaths(paths), sortedPaths(legacyPaths[i]))) {
+					System.out.println("The paths are not the legacy ones (" + engine + "):\n" + snippet + "\n"
+							+ paths + "\n" + legacyPaths[i]);
+					mismatches++;
+				}
+				if (!pathsWithoutIDs.equals(expectedPaths[i].replaceAll("#\\d+", ""))) {
+					System.out.println("The paths without IDs are not the expected ones (" + engine + "):\n" + snippet
+							+ "\n" + pathsWithoutIDs + "\n" + expectedPaths[i].replaceAll("#\\d+", ""));
+					mismatches++;
+				}
+			}
+		}
+		System.out.println(mismatches == 0 ? "All snippets were flattened to the expected paths"
+				: mismatches + " snippets were flattened differently");
+	}
+
+	/**
+	 * Splits the given flattened output to its paths and sorts them.
+	 * 
+	 * @param paths the flattened output, as a list of paths.
+	 * @return the paths of the output sorted.
+	 */
+	private static String[] sortedPaths(String paths) {
+		String[] sorted = paths.substring(2, paths.length() - 2).split("\\], \\[");
+		Arrays.sort(sorted);
+		return sorted;
+	}
+}
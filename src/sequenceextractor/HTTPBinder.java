@@ -0,0 +1,339 @@
+package sequenceextractor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import cachehelpers.SequenceCache;
+import cachehelpers.SequenceStore;
+
+/**
+ * Class used to serve this library over HTTP on the loopback interface, so that services in any language can extract
+ * sequences from a single long-lived JVM. The binder has the following endpoints:
+ * <ul>
+ * <li>{@code POST /extract} receives a JSON request with either a {@code snippet} or an array of {@code snippets} and
+ * optionally its own {@code options}, as described in {@link RequestProcessor}, or a JSON array of snippets, and
+ * responds with the JSON response of the request.</li>
+ * <li>{@code GET /health} responds with {@code {"status":"ok"}} as long as the binder is running.</li>
+ * <li>{@code GET /metrics} responds with the status of the binder (see {@link RequestProcessor#getStatus()}) along with
+ * the number of requests that are in progress and the numbers of requests that were accepted and rejected.</li>
+ * </ul>
+ * Each request is handled on a virtual thread if the JVM supports them, or else on a thread of a fixed pool with a
+ * thread per processor. The number of requests that are in progress or waiting for a thread is bounded, and any
+ * requests that arrive while the binder is saturated are rejected with status {@code 429} (Too Many Requests) so that
+ * clients can back off instead of waiting without bound. Request bodies longer than {@link #MAX_BODY_LENGTH} bytes are
+ * rejected with status {@code 413} (Payload Too Large) without being read.
+ * 
+ * @author themis
+ */
+public class HTTPBinder {
+
+	/**
+	 * The maximum length in bytes of the body of a request.
+	 */
+	static final int MAX_BODY_LENGTH = 64 * 1024 * 1024;
+
+	/**
+	 * The processor of the requests.
+	 */
+	private final RequestProcessor processor;
+
+	/**
+	 * The executor where the requests are handled.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * The pool where the snippets of the requests with many snippets are extracted.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The permits of the requests that may be in progress or waiting for a thread.
+	 */
+	private final Semaphore admissions;
+
+	/**
+	 * The maximum number of requests that may be in progress or waiting for a thread.
+	 */
+	private final int maxRequests;
+
+	/**
+	 * The number of requests that were accepted.
+	 */
+	private final AtomicLong acceptedRequests;
+
+	/**
+	 * The number of requests that were rejected because the binder was saturated.
+	 */
+	private final AtomicLong rejectedRequests;
+
+	/**
+	 * Initializes this binder.
+	 * 
+	 * @param processor the processor of the requests.
+	 * @param maxRequests the maximum number of requests that may be in progress or waiting for a thread.
+	 */
+	public HTTPBinder(RequestProcessor processor, int maxRequests) {
+		this.processor = processor;
+		this.maxRequests = maxRequests;
+		executor = createExecutor(Runtime.getRuntime().availableProcessors());
+		pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		admissions = new Semaphore(maxRequests);
+		acceptedRequests = new AtomicLong();
+		rejectedRequests = new AtomicLong();
+	}
+
+	/**
+	 * Creates the executor where the requests are handled. Virtual threads are used if the JVM supports them, which is
+	 * checked using reflection so that this library can still run on older JVMs.
+	 * 
+	 * @param threads the number of threads of the executor if the JVM does not support virtual threads.
+	 * @return the executor where the requests are handled.
+	 */
+	private static ExecutorService createExecutor(int threads) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return Executors.newFixedThreadPool(threads);
+		}
+	}
+
+	/**
+	 * Returns a description of the threads where the requests are handled.
+	 * 
+	 * @return {@code "virtual"} if the requests are handled on virtual threads, or {@code "platform"} otherwise.
+	 */
+	private String getThreads() {
+		return executor.getClass().getName().contains("ThreadPerTask") ? "virtual" : "platform";
+	}
+
+	/**
+	 * Starts serving requests on the loopback interface.
+	 * 
+	 * @param port the port of the server, or 0 to use any free port.
+	 * @return the started server.
+	 * @throws IOException if the server cannot be started.
+	 */
+	public HttpServer start(int port) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		// The handlers run on the thread of the server, so that they can reject requests before queueing them
+		server.createContext("/extract", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				submitExtraction(exchange);
+			}
+		});
+		server.createContext("/health", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				sendResponse(exchange, 200, new JSONObject().put("status", "ok"));
+			}
+		});
+		server.createContext("/metrics", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				JSONObject metrics = processor.getStatus();
+				metrics.put("requestsInProgress", maxRequests - admissions.availablePermits());
+				metrics.put("maxRequests", maxRequests);
+				metrics.put("acceptedRequests", acceptedRequests.get());
+				metrics.put("rejectedRequests", rejectedRequests.get());
+				metrics.put("threads", getThreads());
+				sendResponse(exchange, 200, metrics);
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	/**
+	 * Admits an extraction request and hands it to the executor, or rejects it if the binder is saturated.
+	 * 
+	 * @param exchange the exchange of the request.
+	 * @throws IOException if the response cannot be sent.
+	 */
+	private void submitExtraction(final HttpExchange exchange) throws IOException {
+		if (!exchange.getRequestMethod().equals("POST")) {
+			sendResponse(exchange, 405, new JSONObject().put("error", "Extraction requests must use POST"));
+			return;
+		}
+		if (!admissions.tryAcquire()) {
+			rejectedRequests.incrementAndGet();
+			sendResponse(exchange, 429, new JSONObject().put("error", "Too many requests"));
+			return;
+		}
+		acceptedRequests.incrementAndGet();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						handleExtraction(exchange);
+					} catch (IOException e) {
+						e.printStackTrace();
+					} finally {
+						exchange.close();
+						admissions.release();
+					}
+				}
+			});
+		} catch (RuntimeException e) {
+			admissions.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Handles an extraction request, responding with status {@code 413} if its body is too long, with status
+	 * {@code 400} if the request is not valid, with status {@code 422} if the extraction of a single snippet failed,
+	 * or else with status {@code 200}.
+	 * 
+	 * @param exchange the exchange of the request.
+	 * @throws IOException if the request cannot be read or the response cannot be sent.
+	 */
+	private void handleExtraction(HttpExchange exchange) throws IOException {
+		String body = readBody(exchange, MAX_BODY_LENGTH);
+		if (body == null) {
+			sendResponse(exchange, 413,
+					new JSONObject().put("error", "The request body is longer than " + MAX_BODY_LENGTH + " bytes"));
+			return;
+		}
+		body = body.trim();
+		JSONObject request;
+		try {
+			request = body.startsWith("[") ? new JSONObject().put("snippets", new JSONArray(body))
+					: new JSONObject(body);
+		} catch (JSONException e) {
+			sendResponse(exchange, 400, new JSONObject().put("error", e.toString()));
+			return;
+		}
+		if (!request.has("snippet") && !request.has("snippets")) {
+			sendResponse(exchange, 400, new JSONObject().put("error", "The request has no snippet or snippets"));
+			return;
+		}
+		JSONObject response = processor.process(request, pool);
+		sendResponse(exchange, response.has("error") && !request.has("snippets") ? 422 : 200, response);
+	}
+
+	/**
+	 * Reads the body of a request, stopping as soon as its declared or actual length exceeds a maximum length.
+	 * 
+	 * @param exchange the exchange of the request.
+	 * @param maxLength the maximum length in bytes of the body.
+	 * @return the body of the request, decoded as UTF-8, or {@code null} if the body is longer than the maximum length.
+	 * @throws IOException if the body cannot be read.
+	 */
+	private static String readBody(HttpExchange exchange, int maxLength) throws IOException {
+		String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+		if (contentLength != null) {
+			try {
+				if (Long.parseLong(contentLength.trim()) > maxLength)
+					return null;
+			} catch (NumberFormatException e) {
+				// The server rejects malformed lengths itself, so the body is read up to the maximum length
+			}
+		}
+		InputStream input = exchange.getRequestBody();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int length;
+		while ((length = input.read(buffer)) != -1) {
+			if (body.size() + length > maxLength)
+				return null;
+			body.write(buffer, 0, length);
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Sends a JSON response and closes the exchange.
+	 * 
+	 * @param exchange the exchange of the request.
+	 * @param status the HTTP status of the response.
+	 * @param response the JSON object that is sent as the body of the response.
+	 * @throws IOException if the response cannot be sent.
+	 */
+	private static void sendResponse(HttpExchange exchange, int status, JSONObject response) throws IOException {
+		byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream output = exchange.getResponseBody();
+		output.write(bytes);
+		output.close();
+		exchange.close();
+	}
+
+	/**
+	 * Function used to serve this library over HTTP. The server runs until the JVM is terminated.
+	 * 
+	 * @param args receives the port of the server (8080 by default), the maximum number of requests that may be in
+	 *            progress or waiting for a thread (64 per processor by default), the booleans denoting if function call
+	 *            types, literals and branches should be kept, if the output should be a tree or sequence, if the output
+	 *            should be flattened, and if the statements should have IDs, and optionally the directory of a
+	 *            {@link SequenceStore} where the extracted sequences are kept across runs.
+	 */
+	public static void main(String[] args) {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		int maxRequests = args.length > 1 ? Integer.parseInt(args[1])
+				: 64 * Runtime.getRuntime().availableProcessors();
+		boolean keepFunctionCallTypes = args.length > 2 ? Boolean.parseBoolean(args[2]) : false;
+		boolean keepLiterals = args.length > 3 ? Boolean.parseBoolean(args[3]) : false;
+		boolean keepBranches = args.length > 4 ? Boolean.parseBoolean(args[4]) : true;
+		boolean outputTree = args.length > 5 ? Boolean.parseBoolean(args[5]) : false;
+		boolean flattenOutput = args.length > 6 ? Boolean.parseBoolean(args[6]) : true;
+		boolean addUniqueIDs = args.length > 7 ? Boolean.parseBoolean(args[7]) : false;
+		SequenceStore store = null;
+		if (args.length > 8) {
+			try {
+				store = new SequenceStore(new File(args[8]));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		ExtractionOptions options = new ExtractionOptions(keepFunctionCallTypes, keepLiterals, keepBranches, outputTree,
+				flattenOutput, addUniqueIDs);
+		final SequenceStore finalStore = store;
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				if (finalStore != null) {
+					try {
+						finalStore.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		});
+		HTTPBinder binder = new HTTPBinder(
+				new RequestProcessor(
+						new Extractor(options, store == null ? null : new SequenceCache(store))),
+				maxRequests);
+		try {
+			HttpServer server = binder.start(port);
+			System.out.println("Serving on http://" + server.getAddress().getHostString() + ":"
+					+ server.getAddress().getPort() + " using " + binder.getThreads() + " threads");
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
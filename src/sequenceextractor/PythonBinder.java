@@ -1,64 +1,304 @@
-package sequenceextractor;
-
-import java.nio.charset.Charset;
-import java.util.Scanner;
-
-import javax.xml.bind.DatatypeConverter;
-
-/**
- * Class used to bind this library to a python file.
- * 
- * @author themis
- */
-public class PythonBinder {
-
-	/**
-	 * Function used to bind this library to a python file. It works by opening a {@link Scanner} on the standard input,
-	 * reading the required task in the form of a message and writing the result as a message in the standard output.
-	 * The base 64 format is used to send the messages.
-	 * 
-	 * @param args receives the booleans denoting if function call types, literals and branches should be kept, if
-	 *            the output should be a tree or sequence, and if the output should be flattened.
-	 */
-	public static void main(String[] args) {
-		boolean keepFunctionCallTypes = args.length > 0 ? Boolean.parseBoolean(args[0]) : false;
-		boolean keepLiterals = args.length > 1 ? Boolean.parseBoolean(args[1]) : false;
-		boolean keepBranches = args.length > 2 ? Boolean.parseBoolean(args[2]) : true;
-		boolean outputTree = args.length > 3 ? Boolean.parseBoolean(args[3]) : false;
-		boolean flattenOutput = args.length > 4 ? Boolean.parseBoolean(args[4]) : true;
-		boolean addUniqueIDs = args.length > 5 ? Boolean.parseBoolean(args[5]) : false;
-		Scanner scanner = new Scanner(System.in);
-		while (scanner.hasNextLine()) {
-			// Receive message and decode it
-			String b64message = scanner.nextLine();
-			String message = new String(DatatypeConverter.parseBase64Binary(b64message));
-
-			// Operate on message and return response
-			String messageresult = "";
-			if (message.equals("START_OF_TRANSMISSION")) {
-				messageresult = message;
-				String b64messageresult = DatatypeConverter
-						.printBase64Binary(messageresult.getBytes(Charset.forName("US-ASCII")));
-				System.out.println(b64messageresult);
-				System.out.flush();
-				continue;
-			} else if (message.equals("END_OF_TRANSMISSION")) {
-				messageresult = message;
-				String b64messageresult = DatatypeConverter
-						.printBase64Binary(messageresult.getBytes(Charset.forName("US-ASCII")));
-				System.out.println(b64messageresult);
-				System.out.flush();
-				break;
-			} else {
-				messageresult = SequenceExtractor.extractSequence(message, keepFunctionCallTypes, keepLiterals,
-						keepBranches, outputTree, flattenOutput, addUniqueIDs).toString();
-				String b64messageresult = DatatypeConverter
-						.printBase64Binary(messageresult.getBytes(Charset.forName("US-ASCII")));
-				System.out.println(b64messageresult);
-				System.out.flush();
-			}
-		}
-		scanner.close();
-	}
-
-}
+package sequenceextractor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import cachehelpers.SequenceCache;
+import cachehelpers.SequenceStore;
+
+/**
+ * Class used to bind this library to a python file. The binder supports two protocols. In the original protocol, each
+ * message is a snippet and each response is its sequence, so that snippets are extracted one at a time. In the
+ * multiplexed protocol, which is enabled by requesting the {@code MULTIPLEXED} feature when starting the transmission
+ * (i.e. sending {@code START_OF_TRANSMISSION MULTIPLEXED}), each message is a JSON request with an {@code id} and
+ * either a {@code snippet} or an array of {@code snippets}, as described in {@link RequestProcessor}, where the options
+ * given as arguments to the binder are the defaults of the requests. The requests are processed by a pool of workers
+ * and each response is written as soon as it is ready, so responses may arrive in a different order than the
+ * requests. Any of the two protocols can send its messages either as lines in the base 64 format or, if the
+ * {@code FRAMED} feature is requested, as frames of UTF-8 bytes preceded by their length as a 4-byte big-endian
+ * integer. The features are negotiated using base 64 lines and the binder responds with the features it enables, after
+ * which all messages are sent as frames if requested. A frame longer than {@link #MAX_FRAME_LENGTH} is a protocol
+ * error, which is answered with a JSON object holding the {@code error} (in the multiplexed protocol) and ends the
+ * transmission. Finally, if the {@code STATUS} feature is requested, the message
+ * {@code STATUS} is answered with {@code STATUS} followed by a JSON object with the memory usage of the binder (see
+ * {@link RequestProcessor#getStatus()}), so that clients can restart it only when its memory is exhausted.
+ * 
+ * @author themis
+ */
+public class PythonBinder {
+
+	/**
+	 * The feature that enables the multiplexed protocol.
+	 */
+	static final String MULTIPLEXED = "MULTIPLEXED";
+
+	/**
+	 * The feature that enables sending messages as length-prefixed UTF-8 frames instead of base 64 lines.
+	 */
+	static final String FRAMED = "FRAMED";
+
+	/**
+	 * The feature that enables the {@code STATUS} message, which reports the memory usage of the binder.
+	 */
+	static final String STATUS = "STATUS";
+
+	/**
+	 * The maximum number of requests of the multiplexed protocol that each worker may have in progress. When all
+	 * workers have that many requests, no more messages are read until a request finishes.
+	 */
+	static final int MAX_REQUESTS_PER_WORKER = 1024;
+
+	/**
+	 * The maximum length of a frame, in bytes. Longer frames, like frames with a negative length, are protocol errors,
+	 * since their length cannot be trusted.
+	 */
+	static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+	/**
+	 * The buffered standard input.
+	 */
+	private static final DataInputStream input = new DataInputStream(new BufferedInputStream(System.in));
+
+	/**
+	 * The buffered standard output.
+	 */
+	private static final DataOutputStream output = new DataOutputStream(
+			new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+
+	/**
+	 * Denotes if the messages are sent as frames, i.e. if the {@code FRAMED} feature is enabled.
+	 */
+	private static volatile boolean framed = false;
+
+	/**
+	 * Reads a line from the given stream, without its line terminator.
+	 * 
+	 * @param input the stream from which the line is read.
+	 * @return the line that was read, or {@code null} if the stream has ended.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static String readLine(InputStream input) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = input.read()) != -1 && c != '\n') {
+			if (c != '\r')
+				line.append((char) c);
+		}
+		return c == -1 && line.length() == 0 ? null : line.toString();
+	}
+
+	/**
+	 * Reads a message from the standard input. Messages are either lines in the base 64 format or, if the
+	 * {@code FRAMED} feature is enabled, frames of UTF-8 bytes preceded by their length as a 4-byte integer.
+	 * 
+	 * @return the message that was read, or {@code null} if the standard input has ended.
+	 * @throws ProtocolException if the length of a frame is negative or longer than {@link #MAX_FRAME_LENGTH}.
+	 * @throws IOException if the standard input cannot be read.
+	 */
+	private static String readMessage() throws IOException {
+		if (framed) {
+			int length;
+			try {
+				length = input.readInt();
+			} catch (EOFException e) {
+				return null;
+			}
+			if (length < 0 || length > MAX_FRAME_LENGTH)
+				throw new ProtocolException("Invalid frame length " + length + " (the maximum is " + MAX_FRAME_LENGTH
+						+ ")");
+			byte[] message = new byte[length];
+			input.readFully(message);
+			return new String(message, StandardCharsets.UTF_8);
+		}
+		String b64message = readLine(input);
+		return b64message == null ? null : new String(Base64.getMimeDecoder().decode(b64message));
+	}
+
+	/**
+	 * Writes a message in the standard output, either as a line in the base 64 format or, if the {@code FRAMED}
+	 * feature is enabled, as a frame of UTF-8 bytes preceded by its length. Messages are written atomically, so that
+	 * the messages of different workers are not interleaved.
+	 * 
+	 * @param message the message to be written.
+	 * @param charset the charset used to encode the message before converting it to base 64.
+	 */
+	private static synchronized void writeMessage(String message, Charset charset) {
+		try {
+			output.write(encodeMessage(message, charset, framed));
+			output.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Encodes a message either as a line in the base 64 format or as a frame of UTF-8 bytes preceded by its length as
+	 * a 4-byte big-endian integer.
+	 * 
+	 * @param message the message to be encoded.
+	 * @param charset the charset used to encode the message before converting it to base 64.
+	 * @param framed {@code true} if the message is encoded as a frame, or {@code false} if it is encoded as a line.
+	 * @return the bytes of the encoded message.
+	 */
+	static byte[] encodeMessage(String message, Charset charset, boolean framed) {
+		if (framed) {
+			byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+			return ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes).array();
+		}
+		byte[] line = Base64.getEncoder().encode(message.getBytes(charset));
+		byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+		return ByteBuffer.allocate(line.length + lineSeparator.length).put(line).put(lineSeparator).array();
+	}
+
+	/**
+	 * Submits a request of the multiplexed protocol to the workers. The response of the request is written when the
+	 * extraction finishes, holding either the extracted sequence or the error of the extraction. If the request is a
+	 * batch, its snippets are split among the workers and the response is written when all of them are extracted. If
+	 * the workers already have {@link #MAX_REQUESTS_PER_WORKER} requests each in progress, this function waits until
+	 * one of them finishes.
+	 * 
+	 * @param workers the pool of workers that extract the snippets.
+	 * @param requests the permits of the requests in progress, one of which is acquired until the request finishes, so
+	 *            that reading waits while too many requests are in progress.
+	 * @param processor the processor of the requests.
+	 * @param message the message of the request, which is a JSON object with an id, either a snippet or an array of
+	 *            snippets, and optionally the options of the extraction.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for a request to finish.
+	 */
+	private static void submitRequest(final ForkJoinPool workers, final Semaphore requests,
+			final RequestProcessor processor, String message) throws InterruptedException {
+		final JSONObject request;
+		try {
+			request = new JSONObject(message);
+		} catch (JSONException e) {
+			writeMessage(RequestProcessor.getParseErrorResponse(message, e).toString(), StandardCharsets.UTF_8);
+			return;
+		}
+		requests.acquire();
+		workers.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					writeMessage(processor.process(request, workers).toString(), StandardCharsets.UTF_8);
+				} finally {
+					requests.release();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Function used to bind this library to a python file. It works by reading the required task in the form of a
+	 * message from the standard input and writing the result as a message in the standard output.
+	 * 
+	 * @param args receives the booleans denoting if function call types, literals and branches should be kept, if
+	 *            the output should be a tree or sequence, if the output should be flattened, and if the statements
+	 *            should have IDs, and optionally the directory of a {@link SequenceStore} where the extracted sequences
+	 *            are kept across runs.
+	 */
+	public static void main(String[] args) {
+		boolean keepFunctionCallTypes = args.length > 0 ? Boolean.parseBoolean(args[0]) : false;
+		boolean keepLiterals = args.length > 1 ? Boolean.parseBoolean(args[1]) : false;
+		boolean keepBranches = args.length > 2 ? Boolean.parseBoolean(args[2]) : true;
+		boolean outputTree = args.length > 3 ? Boolean.parseBoolean(args[3]) : false;
+		boolean flattenOutput = args.length > 4 ? Boolean.parseBoolean(args[4]) : true;
+		boolean addUniqueIDs = args.length > 5 ? Boolean.parseBoolean(args[5]) : false;
+		SequenceStore store = null;
+		if (args.length > 6) {
+			try {
+				store = new SequenceStore(new File(args[6]));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		ExtractionOptions options = new ExtractionOptions(keepFunctionCallTypes, keepLiterals, keepBranches, outputTree,
+				flattenOutput, addUniqueIDs);
+		RequestProcessor processor = new RequestProcessor(
+				new Extractor(options, store == null ? null : new SequenceCache(store)));
+		ForkJoinPool workers = null;
+		Semaphore requests = null;
+		boolean status = false;
+		try {
+			String message;
+			while ((message = readMessage()) != null) {
+				// Operate on message and return response
+				if (message.equals("START_OF_TRANSMISSION")) {
+					writeMessage(message, StandardCharsets.US_ASCII);
+				} else if (message.startsWith("START_OF_TRANSMISSION ")) {
+					// Enable the requested features that are supported
+					String messageresult = "START_OF_TRANSMISSION";
+					boolean enableFraming = false;
+					for (String feature : message.substring("START_OF_TRANSMISSION ".length()).split(" ")) {
+						if (feature.equals(MULTIPLEXED) && workers == null) {
+							workers = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+							requests = new Semaphore(MAX_REQUESTS_PER_WORKER * workers.getParallelism());
+							messageresult += " " + MULTIPLEXED;
+						} else if (feature.equals(FRAMED) && !framed) {
+							enableFraming = true;
+							messageresult += " " + FRAMED;
+						} else if (feature.equals(STATUS) && !status) {
+							status = true;
+							messageresult += " " + STATUS;
+						}
+					}
+					writeMessage(messageresult, StandardCharsets.US_ASCII);
+					framed |= enableFraming;
+				} else if (message.equals("END_OF_TRANSMISSION")) {
+					// Wait for all running requests before ending the transmission
+					if (workers != null) {
+						workers.shutdown();
+						try {
+							workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+						} catch (InterruptedException e) {
+							e.printStackTrace();
+						}
+					}
+					writeMessage(message, StandardCharsets.US_ASCII);
+					break;
+				} else if (status && message.equals(STATUS)) {
+					writeMessage(STATUS + " " + processor.getStatus(), StandardCharsets.US_ASCII);
+				} else if (workers != null) {
+					submitRequest(workers, requests, processor, message);
+				} else {
+					writeMessage(processor.extractSequence(message), StandardCharsets.US_ASCII);
+				}
+			}
+		} catch (ProtocolException e) {
+			// The messages cannot be told apart after an invalid frame, so the error ends the transmission
+			if (workers != null)
+				writeMessage(new JSONObject().put("error", e.toString()).toString(), StandardCharsets.UTF_8);
+			e.printStackTrace();
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+		}
+		if (workers != null)
+			workers.shutdownNow();
+		if (store != null) {
+			try {
+				store.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,367 @@
+package sequenceextractor;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import com.sun.management.GcInfo;
+
+import outputhelpers.TokenDictionary;
+import parsehelpers.StatementSymbols;
+
+/**
+ * The request processor class that serves the JSON requests of the binders of this library. A request is a JSON
+ * object with either a {@code snippet} or an array of {@code snippets}, optionally its own {@code options}, i.e. a JSON
+ * object with any of the fields of {@link ExtractionOptions}, and optionally an {@code id}. The response is a JSON
+ * object with the {@code id} of the request and either the {@code sequence} or the {@code error} of the extraction. If
+ * the request has many snippets, they are extracted in parallel and the response holds the array of their
+ * {@code sequences} in the order of the snippets, with {@code null} for each snippet that failed and, if any snippet
+ * failed, an array of {@code errors} with {@code null} for each snippet that succeeded. The processor is thread-safe.
+ * <br>
+ * A request may also have an {@code encoding}, in which case each sequence is encoded as the IDs of its tokens in the
+ * dictionary of the processor (see {@link ExtractionResult#encode(TokenDictionary)}), which is an error if the options
+ * require a tree that is not flattened. If the encoding is {@code ids}, each sequence is an array of arrays of IDs,
+ * while if it is {@code varint}, each sequence is the base 64 string of its IDs written as variable-length integers
+ * (see {@link TokenDictionary#toVarints(int[][])}). The response of an encoded request also has its {@code encoding}
+ * and the {@code tokens} of the dictionary starting from the ID given as {@code knownTokens} in the request (which is
+ * also given in the response), so that a client learns the tokens of all IDs it receives. A request may also have a
+ * {@code dictionary}, i.e. an array of tokens in the order of their IDs, e.g. saved by a client in an earlier run,
+ * which extends the dictionary of the processor so that the IDs stay the same across runs.
+ * 
+ * @author themis
+ */
+public class RequestProcessor {
+
+	/**
+	 * The pattern of the {@code id} of a request, i.e. a number or a string, which is used to find the id of a request
+	 * that is not valid JSON.
+	 */
+	private static final Pattern idPattern = Pattern.compile("\"id\"\\s*:\\s*(-?\\d+|\"(?:[^\"\\\\]|\\\\.)*\")");
+
+	/**
+	 * The default extractor, which is used for the requests that do not have options.
+	 */
+	private final Extractor extractor;
+
+	/**
+	 * The extractors of the options given in the requests, which share the parsing state of the default extractor.
+	 */
+	private final ConcurrentHashMap<ExtractionOptions, Extractor> extractors;
+
+	/**
+	 * The dictionary used to encode the sequences of the requests that have an encoding.
+	 */
+	private final TokenDictionary dictionary;
+
+	/**
+	 * The number of snippets received by the processor.
+	 */
+	private final AtomicLong snippets;
+
+	/**
+	 * Initializes this processor given its default extractor.
+	 * 
+	 * @param extractor the default extractor, which is used for the requests that do not have options.
+	 */
+	public RequestProcessor(Extractor extractor) {
+		this(extractor, new TokenDictionary());
+	}
+
+	/**
+	 * Initializes this processor given its default extractor and the dictionary used to encode the sequences.
+	 * 
+	 * @param extractor the default extractor, which is used for the requests that do not have options.
+	 * @param dictionary the dictionary used to encode the sequences of the requests that have an encoding.
+	 */
+	public RequestProcessor(Extractor extractor, TokenDictionary dictionary) {
+		this.extractor = extractor;
+		this.dictionary = dictionary;
+		extractors = new ConcurrentHashMap<ExtractionOptions, Extractor>();
+		snippets = new AtomicLong();
+	}
+
+	/**
+	 * Returns the dictionary used to encode the sequences.
+	 * 
+	 * @return the dictionary used to encode the sequences of the requests that have an encoding.
+	 */
+	public TokenDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Extracts the sequence of a snippet using the default extractor.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @return the snippet as a list of statements.
+	 */
+	public String extractSequence(String snippet) {
+		snippets.incrementAndGet();
+		return extractor.extractSequence(snippet);
+	}
+
+	/**
+	 * Returns the response of a request that is not valid JSON, which holds the error of parsing the request. If the
+	 * {@code id} of the request can still be found in its text, it is also given in the response, so that a client can
+	 * match the error to its request.
+	 * 
+	 * @param message the text of the request.
+	 * @param error the error of parsing the request.
+	 * @return the response of the request.
+	 */
+	public static JSONObject getParseErrorResponse(String message, JSONException error) {
+		JSONObject response = new JSONObject();
+		Matcher matcher = idPattern.matcher(message);
+		if (matcher.find()) {
+			try {
+				response.put("id", new JSONTokener(matcher.group(1)).nextValue());
+			} catch (JSONException e) {
+				// The id is not valid either, so the response has no id
+			}
+		}
+		response.put("error", error.toString());
+		return response;
+	}
+
+	/**
+	 * Processes a request and returns its response. Any error of the extraction is given in the response.
+	 * 
+	 * @param request the request, which is a JSON object with an optional id, either a snippet or an array of snippets,
+	 *            optionally the options of the extraction, and optionally the encoding of the sequences.
+	 * @param pool the pool where the snippets of a request with many snippets are extracted.
+	 * @return the response of the request.
+	 */
+	public JSONObject process(JSONObject request, ForkJoinPool pool) {
+		JSONObject response = new JSONObject();
+		response.put("id", request.opt("id"));
+		try {
+			String encoding = request.optString("encoding", null);
+			if (encoding != null && !encoding.equals("ids") && !encoding.equals("varint"))
+				throw new IllegalArgumentException("Unknown encoding: " + encoding);
+			if (encoding != null && !getExtractor(request).getOptions().isEncodable())
+				throw new IllegalArgumentException("A tree can be encoded only if it is flattened");
+			JSONArray requestDictionary = request.optJSONArray("dictionary");
+			if (requestDictionary != null) {
+				List<String> tokens = new ArrayList<String>(requestDictionary.length());
+				for (int i = 0; i < requestDictionary.length(); i++)
+					tokens.add(requestDictionary.getString(i));
+				dictionary.extend(tokens);
+			}
+			if (request.optInt("knownTokens", 0) > dictionary.size())
+				throw new IllegalStateException("The dictionary does not have the known tokens of the request");
+			if (request.has("snippets")) {
+				JSONArray requestSnippets = request.getJSONArray("snippets");
+				List<String> snippetList = new ArrayList<String>(requestSnippets.length());
+				for (int i = 0; i < requestSnippets.length(); i++)
+					snippetList.add(requestSnippets.getString(i));
+				snippets.addAndGet(snippetList.size());
+				List<BatchResult> results = encoding == null
+						? BatchExtractor.extractSequences(snippetList, getExtractor(request), pool)
+						: BatchExtractor.encodeSequences(snippetList, 0, snippetList.size(), getExtractor(request),
+								dictionary, pool);
+				JSONArray sequences = new JSONArray();
+				JSONArray errors = null;
+				for (BatchResult result : results) {
+					sequences.put(result.isSuccessful() ? toSequence(result, encoding) : JSONObject.NULL);
+					if (!result.isSuccessful() && errors == null) {
+						errors = new JSONArray();
+						for (int i = 0; i < result.index; i++)
+							errors.put(JSONObject.NULL);
+					}
+					if (errors != null)
+						errors.put(result.isSuccessful() ? JSONObject.NULL : result.error.toString());
+				}
+				response.put("sequences", sequences);
+				if (errors != null)
+					response.put("errors", errors);
+			} else if (request.has("snippet")) {
+				snippets.incrementAndGet();
+				String snippet = request.getString("snippet");
+				BatchResult result = extractSequence(snippet, getExtractor(request), encoding, pool);
+				response.put("sequence", toSequence(result, encoding));
+			} else if (requestDictionary == null) {
+				// Only a request that extends the dictionary may have no snippets
+				throw new IllegalArgumentException("The request has no snippet, snippets or dictionary");
+			}
+			if (encoding != null || requestDictionary != null) {
+				int knownTokens = request.optInt("knownTokens", 0);
+				response.put("encoding", encoding);
+				response.put("knownTokens", knownTokens);
+				response.put("tokens", new JSONArray(dictionary.getTokens(knownTokens)));
+			}
+		} catch (Exception | StackOverflowError e) {
+			response.put("error", e.toString());
+		}
+		return response;
+	}
+
+	/**
+	 * Extracts the sequence of a single snippet on the given pool, so that the parsing state of its extractor is kept
+	 * by the threads of the pool, instead of being set up again by each thread that handles a request. If the calling
+	 * thread is already a thread of the pool, the snippet is extracted directly.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @param extractor the extractor used to extract the sequence.
+	 * @param encoding the encoding of the sequence, or {@code null} if the sequence is printed.
+	 * @param pool the pool where the snippet is extracted.
+	 * @return the result of the extraction.
+	 */
+	private BatchResult extractSequence(final String snippet, final Extractor extractor, final String encoding,
+			ForkJoinPool pool) {
+		if (ForkJoinTask.getPool() == pool)
+			return extractSequence(snippet, extractor, encoding);
+		return pool.submit(new Callable<BatchResult>() {
+			@Override
+			public BatchResult call() {
+				return extractSequence(snippet, extractor, encoding);
+			}
+		}).join();
+	}
+
+	/**
+	 * Extracts the sequence of a single snippet on the calling thread, catching any exception or stack overflow.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @param extractor the extractor used to extract the sequence.
+	 * @param encoding the encoding of the sequence, or {@code null} if the sequence is printed.
+	 * @return the result of the extraction.
+	 */
+	private BatchResult extractSequence(String snippet, Extractor extractor, String encoding) {
+		return encoding == null ? BatchExtractor.extractSequence(0, snippet, extractor)
+				: BatchExtractor.encodeSequence(0, snippet, extractor, dictionary);
+	}
+
+	/**
+	 * Returns the sequence of a result in the given encoding, i.e. the printed sequence if there is no encoding, an
+	 * array of arrays of IDs for the {@code ids} encoding, or the base 64 string of the IDs for the {@code varint}
+	 * encoding.
+	 * 
+	 * @param result the result of the extraction.
+	 * @param encoding the encoding of the sequence, or {@code null} if the sequence is printed.
+	 * @return the sequence of the result in the given encoding.
+	 * @throws Exception if the extraction failed.
+	 */
+	private static Object toSequence(BatchResult result, String encoding) throws Exception {
+		if (!result.isSuccessful()) {
+			if (result.error instanceof Error)
+				throw (Error) result.error;
+			throw (Exception) result.error;
+		}
+		if (encoding == null)
+			return result.sequence;
+		int[][] encoded = result.getEncodedSequences();
+		if (encoding.equals("varint"))
+			return Base64.getEncoder().encodeToString(TokenDictionary.toVarints(encoded));
+		JSONArray sequences = new JSONArray();
+		for (int[] encodedSequence : encoded) {
+			JSONArray sequence = new JSONArray();
+			for (int id : encodedSequence)
+				sequence.put(id);
+			sequences.put(sequence);
+		}
+		return sequences;
+	}
+
+	/**
+	 * Returns the extractor of the options of a request. Any options that are not given in the request are the same as
+	 * the options of the default extractor.
+	 * 
+	 * @param request the request, which may have its own options.
+	 * @return the extractor used to extract the snippets of the request.
+	 */
+	private Extractor getExtractor(JSONObject request) {
+		JSONObject requestOptions = request.optJSONObject("options");
+		if (requestOptions == null)
+			return extractor;
+		ExtractionOptions defaults = extractor.getOptions();
+		ExtractionOptions options = new ExtractionOptions(
+				requestOptions.optBoolean("keepFunctionCallTypes", defaults.keepFunctionCallTypes),
+				requestOptions.optBoolean("keepLiterals", defaults.keepLiterals),
+				requestOptions.optBoolean("keepBranches", defaults.keepBranches),
+				requestOptions.optBoolean("outputTree", defaults.outputTree),
+				requestOptions.optBoolean("flattenOutput", defaults.flattenOutput),
+				requestOptions.optBoolean("addUniqueIDs", defaults.addUniqueIDs),
+				ExtractionEngine.valueOf(requestOptions.optString("engine", defaults.engine.name())));
+		Extractor optionsExtractor = extractors.get(options);
+		if (optionsExtractor == null) {
+			optionsExtractor = extractor.withOptions(options);
+			Extractor existingExtractor = extractors.putIfAbsent(options, optionsExtractor);
+			if (existingExtractor != null)
+				optionsExtractor = existingExtractor;
+		}
+		return optionsExtractor;
+	}
+
+	/**
+	 * Returns the heap memory that was used right after the most recent garbage collection, which is the memory that
+	 * is actually retained. If no collection has happened or the collectors do not report it, the heap memory that is
+	 * currently used is returned instead.
+	 * 
+	 * @param heap the current usage of the heap memory.
+	 * @return the heap memory used after the most recent garbage collection, in bytes.
+	 */
+	private static long getHeapUsedAfterGC(MemoryUsage heap) {
+		GcInfo lastGcInfo = null;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (collector instanceof com.sun.management.GarbageCollectorMXBean) {
+				GcInfo gcInfo = ((com.sun.management.GarbageCollectorMXBean) collector).getLastGcInfo();
+				if (gcInfo != null && (lastGcInfo == null || gcInfo.getEndTime() > lastGcInfo.getEndTime()))
+					lastGcInfo = gcInfo;
+			}
+		}
+		if (lastGcInfo == null)
+			return heap.getUsed();
+		long heapUsedAfterGC = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			MemoryUsage usage = lastGcInfo.getMemoryUsageAfterGc().get(pool.getName());
+			if (pool.getType() == MemoryType.HEAP && usage != null)
+				heapUsedAfterGC += usage.getUsed();
+		}
+		return heapUsedAfterGC;
+	}
+
+	/**
+	 * Returns the status of the processor, which is a JSON object with the number of {@code snippets} it has received
+	 * and the heap memory of the JVM in bytes, i.e. the {@code heapUsed}, the {@code heapCommitted}, the
+	 * {@code heapMax}, and the {@code heapUsedAfterGC} (see {@link #getHeapUsedAfterGC(MemoryUsage)}). The latter is
+	 * the amount of memory that is actually retained, so it should be compared to the maximum heap to decide if the JVM
+	 * must be restarted. The number of {@code symbols} of the statements (see {@link StatementSymbols}), which are kept
+	 * for the lifetime of the JVM, is also given, and if the default extractor has a cache, its {@code cacheSize} and
+	 * {@code cacheWeight} are given as well.
+	 * 
+	 * @return the status of the processor.
+	 */
+	public JSONObject getStatus() {
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		JSONObject status = new JSONObject();
+		status.put("snippets", snippets.get());
+		status.put("heapUsed", heap.getUsed());
+		status.put("heapCommitted", heap.getCommitted());
+		status.put("heapMax", Runtime.getRuntime().maxMemory());
+		status.put("heapUsedAfterGC", getHeapUsedAfterGC(heap));
+		status.put("symbols", StatementSymbols.size());
+		if (extractor.getCache() != null) {
+			status.put("cacheSize", extractor.getCache().size());
+			status.put("cacheWeight", extractor.getCache().getWeight());
+		}
+		return status;
+	}
+
+}
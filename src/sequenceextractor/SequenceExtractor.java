@@ -2,8 +2,7 @@ package sequenceextractor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.List;
 
 import astextractor.ASTExtractor;
 import outputhelpers.FlattenedSequencePrinter;
@@ -11,14 +10,12 @@ import outputhelpers.FlattenedTreePrinter;
 import outputhelpers.SequencePrinter;
 import outputhelpers.SnippetPrinter;
 import outputhelpers.TreePrinter;
-import parsehelpers.Block;
 import parsehelpers.LookUpTable;
 import parsehelpers.Snippet;
-import parsehelpers.Statement;
 import parsehelpers.StatementTypes;
-import xmlhelpers.XMLDocument;
-import xmlhelpers.XMLNode;
-import xmlhelpers.XMLNodeList;
+import xmlhelpers.XMLNodeKinds;
+import xmlhelpers.XMLTree;
+import xmlhelpers.XMLTreeNodeList;
 
 /**
  * The sequence extractor class that receives code snippets and translates it to sequences.
@@ -30,46 +27,62 @@ public class SequenceExtractor {
 	/**
 	 * Returns the type of a variable given its XML node.
 	 * 
+	 * @param ast the AST of the variable.
 	 * @param node the XML node of the variable.
 	 * @return the type of the variable of which the XML node is given.
 	 */
-	private static String getType(XMLNode node) {
+	private static String getType(XMLTree ast, int node) {
 		String type = null;
-		if (node.getChildNodeByName("SimpleType") != null) {
-			XMLNode stype = node.getChildNodeByName("SimpleType");
-			if (stype.getChildNodeByName("QualifiedName") != null) {
-				XMLNode sstype = stype.getChildNodeByName("QualifiedName");
-				ArrayList<XMLNode> snnodes = sstype.getChildNodesByName("SimpleName");
-				type = snnodes.get(snnodes.size() - 1).getTextContent();
+		if (ast.getChildNodeByKind(node, XMLNodeKinds.SIMPLE_TYPE) != XMLTree.NONE) {
+			int stype = ast.getChildNodeByKind(node, XMLNodeKinds.SIMPLE_TYPE);
+			if (ast.getChildNodeByKind(stype, XMLNodeKinds.QUALIFIED_NAME) != XMLTree.NONE) {
+				int sstype = ast.getChildNodeByKind(stype, XMLNodeKinds.QUALIFIED_NAME);
+				XMLTreeNodeList snnodes = ast.getChildNodesByKind(sstype, XMLNodeKinds.SIMPLE_NAME);
+				type = ast.getTextContent(snnodes.get(snnodes.size() - 1));
 			} else
-				type = stype.getChildNodeByName("SimpleName").getTextContent();
-		} else if (node.getChildNodeByName("PrimitiveType") != null)
-			type = node.getChildNodeByName("PrimitiveType").getTextContent();
-		else if (node.getChildNodeByName("ArrayType") != null) {
-			type = "" + getType(node.getChildNodeByName("ArrayType"));
-		} else if (node.getChildNodeByName("ParameterizedType") != null) {
-			type = "" + getType(node.getChildNodeByName("ParameterizedType"));
+				type = ast.getTextContent(ast.getChildNodeByKind(stype, XMLNodeKinds.SIMPLE_NAME));
+		} else if (ast.getChildNodeByKind(node, XMLNodeKinds.PRIMITIVE_TYPE) != XMLTree.NONE)
+			type = ast.getTextContent(ast.getChildNodeByKind(node, XMLNodeKinds.PRIMITIVE_TYPE));
+		else if (ast.getChildNodeByKind(node, XMLNodeKinds.ARRAY_TYPE) != XMLTree.NONE) {
+			type = "" + getType(ast, ast.getChildNodeByKind(node, XMLNodeKinds.ARRAY_TYPE));
+		} else if (ast.getChildNodeByKind(node, XMLNodeKinds.PARAMETERIZED_TYPE) != XMLTree.NONE) {
+			type = "" + getType(ast, ast.getChildNodeByKind(node, XMLNodeKinds.PARAMETERIZED_TYPE));
 		}
 		return type;
 	}
 
+	/**
+	 * Iterates the child nodes of a node starting from the given child node and constructs a statement.
+	 * 
+	 * @param ast the AST of the node.
+	 * @param childnode the first child node to be iterated.
+	 * @param output the symbols of the output statement.
+	 * @param lookUpTable the look up table for variables.
+	 */
+	private static void iterateLowLevelCodeOfSiblings(XMLTree ast, int childnode, List<String> output,
+			LookUpTable lookUpTable) {
+		for (; childnode != XMLTree.NONE; childnode = ast.getNextSibling(childnode)) {
+			iterateLowLevelCode(ast, childnode, output, lookUpTable);
+		}
+	}
+
 	/**
 	 * Iterates statement-level code recursively and constructs a statement.
 	 * 
+	 * @param ast the AST of the node.
 	 * @param node the node given as root.
-	 * @param output the output statement.
+	 * @param output the symbols of the output statement.
 	 * @param lookUpTable the look up table for variables.
 	 */
-	private static void iterateLowLevelCode(XMLNode node, Statement output, LookUpTable lookUpTable) {
-		if (node.isTextNode()) {
-			output.add(lookUpTable.getTypeOfVariable(node.getTextContent()));
+	private static void iterateLowLevelCode(XMLTree ast, int node, List<String> output, LookUpTable lookUpTable) {
+		if (ast.isTextNode(node)) {
+			output.add(lookUpTable.getTypeOfVariable(ast.getTextContent(node)));
 		} else {
-			if (node.hasName("VariableDeclarationFragment") || node.hasName("Assignment")) {
+			if (ast.hasKind(node, XMLNodeKinds.VARIABLE_DECLARATION_FRAGMENT)
+					|| ast.hasKind(node, XMLNodeKinds.ASSIGNMENT)) {
 				output.add("AM");
-				for (XMLNode childnode : node.getChildNodes()) {
-					iterateLowLevelCode(childnode, output, lookUpTable);
-				}
-			} else if (node.hasName("ClassInstanceCreation")) {
+				iterateLowLevelCodeOfSiblings(ast, ast.getFirstChild(node), output, lookUpTable);
+			} else if (ast.hasKind(node, XMLNodeKinds.CLASS_INSTANCE_CREATION)) {
 				if (output.size() > 1 && output.get(1) != null && !output.get(1).equals("___")) {
 					String ctype = output.get(1);
 					output.clear();
@@ -78,9 +91,9 @@ public class SequenceExtractor {
 				} else {
 					output.clear();
 					output.add("CI");
-					output.add(getType(node));
+					output.add(getType(ast, node));
 				}
-			} else if (node.hasName("MethodInvocation")) {
+			} else if (ast.hasKind(node, XMLNodeKinds.METHOD_INVOCATION)) {
 				if (output.size() > 1 && output.get(1) != null && !output.get(1).equals("___")) {
 					String ctype = output.get(1);
 					output.clear();
@@ -92,9 +105,9 @@ public class SequenceExtractor {
 					output.add("void");
 				}
 				// Append also the type of the calling object in this case
-				XMLNodeList methodTypeAndName = node.getChildNodesByName("SimpleName");
+				XMLTreeNodeList methodTypeAndName = ast.getChildNodesByKind(node, XMLNodeKinds.SIMPLE_NAME);
 				if (methodTypeAndName.size() > 0) {
-					String methodType = lookUpTable.getTypeOfVariable(methodTypeAndName.get(0).getTextContent());
+					String methodType = lookUpTable.getTypeOfVariable(ast.getTextContent(methodTypeAndName.get(0)));
 					if (methodType != null && methodType != "___" && output.size() > 1) {
 						if (!(methodType.equals(output.get(1)) || methodType.equals("byte")
 								|| methodType.equals("short") || methodType.equals("int") || methodType.equals("long")
@@ -105,32 +118,27 @@ public class SequenceExtractor {
 					}
 				}
 				if (methodTypeAndName.size() > 1) {
-					String methodName = methodTypeAndName.get(1).getTextContent();
+					String methodName = ast.getTextContent(methodTypeAndName.get(1));
 					if (output.size() > 2) {
 						output.set(2, output.get(2) + "." + methodName);
 					}
 				}
-			} else if (node.hasName("SuperMethodInvocation")) {
+			} else if (ast.hasKind(node, XMLNodeKinds.SUPER_METHOD_INVOCATION)) {
 				output.add("FC");
-				output.add(lookUpTable.getTypeOfVariable(node.getChildNodeByName("SimpleName").getTextContent()));
-			} else if (node.hasName("SimpleType") || node.hasName("ArrayType") || node.hasName("PrimitiveType")) {
-				output.add(getType(node.getParentNode()));
-			} else if (node.hasName("ReturnStatement")) {
-				for (XMLNode childnode : node.getChildNodes()) {
-					iterateLowLevelCode(childnode, output, lookUpTable);
-				}
-			} else if (node.hasName("CastExpression")) {
-				for (XMLNode childnode : node.getChildNodes().subList(1)) {
-					iterateLowLevelCode(childnode, output, lookUpTable);
-				}
-			} else if (node.hasName("QualifiedName")) {
-				for (XMLNode childnode : node.getChildNodes().subList(1)) {
-					iterateLowLevelCode(childnode, output, lookUpTable);
-				}
+				output.add(lookUpTable
+						.getTypeOfVariable(ast.getTextContent(ast.getChildNodeByKind(node, XMLNodeKinds.SIMPLE_NAME))));
+			} else if (ast.hasKind(node, XMLNodeKinds.SIMPLE_TYPE) || ast.hasKind(node, XMLNodeKinds.ARRAY_TYPE)
+					|| ast.hasKind(node, XMLNodeKinds.PRIMITIVE_TYPE)) {
+				output.add(getType(ast, ast.getParentNode(node)));
+			} else if (ast.hasKind(node, XMLNodeKinds.RETURN_STATEMENT)) {
+				iterateLowLevelCodeOfSiblings(ast, ast.getFirstChild(node), output, lookUpTable);
+			} else if (ast.hasKind(node, XMLNodeKinds.CAST_EXPRESSION)
+					|| ast.hasKind(node, XMLNodeKinds.QUALIFIED_NAME)) {
+				if (ast.getFirstChild(node) != XMLTree.NONE)
+					iterateLowLevelCodeOfSiblings(ast, ast.getNextSibling(ast.getFirstChild(node)), output,
+							lookUpTable);
 			} else {
-				for (XMLNode childnode : node.getChildNodes()) {
-					iterateLowLevelCode(childnode, output, lookUpTable);
-				}
+				iterateLowLevelCodeOfSiblings(ast, ast.getFirstChild(node), output, lookUpTable);
 			}
 		}
 	}
@@ -138,115 +146,141 @@ public class SequenceExtractor {
 	/**
 	 * Iterates statement-level code recursively and constructs a statement.
 	 * 
+	 * @param ast the AST of the node.
 	 * @param node the node given as root.
 	 * @param lookUpTable the look up table for variables.
-	 * @return the output statement.
+	 * @return the symbols of the output statement.
 	 */
-	private static Statement iterateLowLevelCode(XMLNode node, LookUpTable lookUpTable) {
-		Statement output = new Statement();
-		iterateLowLevelCode(node, output, lookUpTable);
+	private static List<String> iterateLowLevelCode(XMLTree ast, int node, LookUpTable lookUpTable) {
+		ArrayList<String> output = new ArrayList<String>();
+		iterateLowLevelCode(ast, node, output, lookUpTable);
 		return output;
 	}
 
-	private static void processBlock(XMLNode block, LookUpTable lookUpTable, Snippet snippet, boolean keepBranches) {
-		if (block != null) {
-			ArrayList<XMLNode> statements = block.getChildNodesRecursivelyByName(StatementTypes.allStatementTypes);
-			for (XMLNode statement : statements) {
-				if (statement.hasName("VariableDeclarationStatement")) {
-					String variableType = getType(statement);
-					XMLNode vardecl = statement.getChildNodeByName("VariableDeclarationFragment");
-					ArrayList<XMLNode> variableNodes = vardecl.getChildNodesByName("SimpleName");
-					for (XMLNode variableNode : variableNodes) {
-						String variableName = variableNode.getTextContent();
+	/**
+	 * Adds the statements of all class instantiations and method invocations under a statement to the snippet, so that
+	 * inner ones are added first.
+	 * 
+	 * @param ast the AST of the statement.
+	 * @param statement the statement of which the instantiations and invocations are added.
+	 * @param lookUpTable the look up table for variables.
+	 * @param snippet the snippet where statements are added.
+	 */
+	private static void processInstantiations(XMLTree ast, int statement, LookUpTable lookUpTable, Snippet snippet) {
+		XMLTreeNodeList classinstantiations = ast.getChildNodesRecursivelyByKind(statement,
+				StatementTypes.invocationStatementTypes.getKinds());
+		for (int c = 0; c < classinstantiations.size(); c++) {
+			XMLTreeNodeList innerinstantiations = ast.getDeepChildNodesRecursivelyByKind(classinstantiations.get(c),
+					StatementTypes.invocationStatementTypes.getKinds());
+			innerinstantiations.reverse();
+			for (int i = 0; i < innerinstantiations.size(); i++) {
+				snippet.addStatement(iterateLowLevelCode(ast, innerinstantiations.get(i), lookUpTable));
+			}
+		}
+	}
+
+	private static void processBlock(XMLTree ast, int block, LookUpTable lookUpTable, Snippet snippet,
+			boolean keepBranches) {
+		if (block != XMLTree.NONE) {
+			XMLTreeNodeList statements = ast.getChildNodesRecursivelyByKind(block,
+					StatementTypes.allStatementTypes.getKinds());
+			for (int s = 0; s < statements.size(); s++) {
+				int statement = statements.get(s);
+				if (ast.hasKind(statement, XMLNodeKinds.VARIABLE_DECLARATION_STATEMENT)) {
+					String variableType = getType(ast, statement);
+					int vardecl = ast.getChildNodeByKind(statement, XMLNodeKinds.VARIABLE_DECLARATION_FRAGMENT);
+					XMLTreeNodeList variableNodes = ast.getChildNodesByKind(vardecl, XMLNodeKinds.SIMPLE_NAME);
+					for (int v = 0; v < variableNodes.size(); v++) {
+						String variableName = ast.getTextContent(variableNodes.get(v));
 						lookUpTable.addMethodVariable(variableName, variableType);
 					}
-					if (vardecl.hasMoreThanOneChildren()) {
-						for (XMLNode classinstantiation : statement.getChildNodesRecursivelyByName("ClassInstanceCreation", "MethodInvocation")) {
-							XMLNodeList innerinstantiations = classinstantiation.getDeepChildNodesRecursivelyByName("ClassInstanceCreation", "MethodInvocation");
-							Collections.reverse(innerinstantiations);
-							for (XMLNode innerclassinstantiation : innerinstantiations) {
-								snippet.addStatement(iterateLowLevelCode(innerclassinstantiation, lookUpTable));
-							}
-						}
-						snippet.addStatement(iterateLowLevelCode(vardecl, lookUpTable));
+					if (ast.hasMoreThanOneChildren(vardecl)) {
+						processInstantiations(ast, statement, lookUpTable, snippet);
+						snippet.addStatement(iterateLowLevelCode(ast, vardecl, lookUpTable));
 					}
-				} else if (statement.hasName(StatementTypes.branchStatementTypes)) {
-					ArrayList<XMLNode> branchstatements = statement.getChildNodesByName("Block");
-					if (statement.getChildNodes().size() > 0 && !statement.getChildNodes().get(0).hasName("Block")) {
-						snippet.addStatement(iterateLowLevelCode(statement.getChildNodes().get(0), lookUpTable));
+				} else if (ast.hasKind(statement, StatementTypes.branchStatementTypes.getKinds())) {
+					XMLTreeNodeList branchstatements = ast.getChildNodesByKind(statement, XMLNodeKinds.BLOCK);
+					int firstchild = ast.getFirstChild(statement);
+					if (firstchild != XMLTree.NONE && !ast.hasKind(firstchild, XMLNodeKinds.BLOCK)) {
+						snippet.addStatement(iterateLowLevelCode(ast, firstchild, lookUpTable));
 					}
 
 					// Check the type of the branch
-					if (statement.hasName(StatementTypes.loopStatementTypes) && branchstatements.size() > 0) {
+					if (ast.hasKind(statement, StatementTypes.loopStatementTypes.getKinds())
+							&& branchstatements.size() > 0) {
 						snippet.levelInner();
 						snippet.startBlock("LOOP");
-						processBlock(branchstatements.get(0), lookUpTable, snippet, keepBranches);
+						processBlock(ast, branchstatements.get(0), lookUpTable, snippet, keepBranches);
 						if (keepBranches)
 							snippet.elseBlock("LOOP");
 						snippet.endBlock("LOOP");
 						snippet.levelOuter();
-					} else if (statement.hasName("IfStatement") && branchstatements.size() > 0) {
+					} else if (ast.hasKind(statement, XMLNodeKinds.IF_STATEMENT) && branchstatements.size() > 0) {
 						snippet.levelInner();
 						snippet.startBlock("CONDITION");
-						processBlock(branchstatements.get(0), lookUpTable, snippet, keepBranches);
+						processBlock(ast, branchstatements.get(0), lookUpTable, snippet, keepBranches);
 						if (keepBranches) {
 							boolean hasElse = false;
 							for (int i = 1; i < branchstatements.size(); i++) {
-								if (branchstatements.get(i).getChildNodeByName("InfixExpression") != null)
+								if (ast.getChildNodeByKind(branchstatements.get(i),
+										XMLNodeKinds.INFIX_EXPRESSION) != XMLTree.NONE)
 									snippet.elseifBlock("CONDITION");
 								else {
 									hasElse = true;
 									snippet.elseBlock("CONDITION");
 								}
-								processBlock(branchstatements.get(i), lookUpTable, snippet, keepBranches);
+								processBlock(ast, branchstatements.get(i), lookUpTable, snippet, keepBranches);
 							}
 							if (!hasElse)
 								snippet.elseBlock("CONDITION");
 						}
 						snippet.endBlock("CONDITION");
 						snippet.levelOuter();
-					} else if (statement.hasName("SwitchStatement") && branchstatements.size() > 0) {
+					} else if (ast.hasKind(statement, XMLNodeKinds.SWITCH_STATEMENT) && branchstatements.size() > 0) {
 						snippet.levelInner();
 						snippet.startBlock("CASE");
-						processBlock(branchstatements.get(0), lookUpTable, snippet, keepBranches);
+						processBlock(ast, branchstatements.get(0), lookUpTable, snippet, keepBranches);
 						if (keepBranches) {
 							boolean hasDefault = false;
 							for (int i = 1; i < branchstatements.size(); i++) {
-								if (!branchstatements.get(i).getChildNodeByName("SwitchCase")
-										.textContentStartsWith("default")) {
+								int switchcase = ast.getChildNodeByKind(branchstatements.get(i),
+										XMLNodeKinds.SWITCH_CASE);
+								if (!ast.textContentStartsWith(switchcase, "default")) {
 									snippet.elseifBlock("CASE");
 								} else {
 									hasDefault = true;
 									snippet.elseBlock("CASE");
 								}
-								processBlock(branchstatements.get(i), lookUpTable, snippet, keepBranches);
+								processBlock(ast, branchstatements.get(i), lookUpTable, snippet, keepBranches);
 							}
 							if (!hasDefault)
 								snippet.elseBlock("CASE");
 						}
 						snippet.endBlock("CASE");
 						snippet.levelOuter();
-					} else if (statement.hasName("TryStatement") && branchstatements.size() > 0) {
+					} else if (ast.hasKind(statement, XMLNodeKinds.TRY_STATEMENT) && branchstatements.size() > 0) {
 						snippet.levelInner();
 						snippet.startBlock("TRY");
-						processBlock(branchstatements.get(0), lookUpTable, snippet, keepBranches);
+						processBlock(ast, branchstatements.get(0), lookUpTable, snippet, keepBranches);
 						if (keepBranches) {
 							boolean hasCatch = false;
 							boolean hasFinally = false;
 							for (int i = 1; i < branchstatements.size(); i++) {
-								if (branchstatements.get(i).getChildNodeByName("CatchClause") != null) {
+								if (ast.getChildNodeByKind(branchstatements.get(i),
+										XMLNodeKinds.CATCH_CLAUSE) != XMLTree.NONE) {
 									hasCatch = true;
 									snippet.elseifBlock("TRY");
-									processBlock(branchstatements.get(i), lookUpTable, snippet, keepBranches);
+									processBlock(ast, branchstatements.get(i), lookUpTable, snippet, keepBranches);
 								}
 							}
 							if (!hasCatch)
 								snippet.elseifBlock("TRY");
 							for (int i = 1; i < branchstatements.size(); i++) {
-								if (branchstatements.get(i).getChildNodeByName("CatchClause") == null) {
+								if (ast.getChildNodeByKind(branchstatements.get(i),
+										XMLNodeKinds.CATCH_CLAUSE) == XMLTree.NONE) {
 									hasFinally = true;
 									snippet.elseBlock("TRY");
-									processBlock(branchstatements.get(i), lookUpTable, snippet, keepBranches);
+									processBlock(ast, branchstatements.get(i), lookUpTable, snippet, keepBranches);
 								}
 							}
 							if (!hasFinally)
@@ -256,14 +290,8 @@ public class SequenceExtractor {
 						snippet.levelOuter();
 					}
 				} else {
-					for (XMLNode classinstantiation : statement.getChildNodesRecursivelyByName("ClassInstanceCreation", "MethodInvocation")) {
-						XMLNodeList innerinstantiations = classinstantiation.getDeepChildNodesRecursivelyByName("ClassInstanceCreation", "MethodInvocation");
-						Collections.reverse(innerinstantiations);
-						for (XMLNode innerclassinstantiation : innerinstantiations) {
-							snippet.addStatement(iterateLowLevelCode(innerclassinstantiation, lookUpTable));
-						}
-					}
-					snippet.addStatement(iterateLowLevelCode(statement, lookUpTable));
+					processInstantiations(ast, statement, lookUpTable, snippet);
+					snippet.addStatement(iterateLowLevelCode(ast, statement, lookUpTable));
 				}
 			}
 		}
@@ -272,25 +300,28 @@ public class SequenceExtractor {
 	/**
 	 * Processes a method and populates the snippet.
 	 * 
+	 * @param ast the AST of the method.
 	 * @param method the method node to be processed.
 	 * @param lookUpTable the look up table for variables.
 	 * @param snippet the snippet where statements are added.
 	 * @param keepBranches {@code true} if all branches should be kept, or {@code false} for the first branch.
 	 */
-	private static void processMethod(XMLNode method, LookUpTable lookUpTable, Snippet snippet, boolean keepBranches) {
+	private static void processMethod(XMLTree ast, int method, LookUpTable lookUpTable, Snippet snippet,
+			boolean keepBranches) {
 		lookUpTable.enterMethod();
 
-		ArrayList<XMLNode> parameters = method.getChildNodesByName("SingleVariableDeclaration");
-		for (XMLNode parameter : parameters) {
-			String parameterName = parameter.getChildNodeByName("SimpleName").getTextContent();
-			String parameterType = getType(parameter);
+		XMLTreeNodeList parameters = ast.getChildNodesByKind(method, XMLNodeKinds.SINGLE_VARIABLE_DECLARATION);
+		for (int p = 0; p < parameters.size(); p++) {
+			int parameter = parameters.get(p);
+			String parameterName = ast.getTextContent(ast.getChildNodeByKind(parameter, XMLNodeKinds.SIMPLE_NAME));
+			String parameterType = getType(ast, parameter);
 			lookUpTable.addMethodVariable(parameterName, parameterType);
 		}
 
-		XMLNode block = method.getChildNodeByName("Block");
+		int block = ast.getChildNodeByKind(method, XMLNodeKinds.BLOCK);
 		snippet.levelInner();
 		snippet.startBlock("METHOD");
-		processBlock(block, lookUpTable, snippet, keepBranches);
+		processBlock(ast, block, lookUpTable, snippet, keepBranches);
 		snippet.endBlock("METHOD");
 		snippet.levelOuter();
 	}
@@ -298,23 +329,26 @@ public class SequenceExtractor {
 	/**
 	 * Processes a field variable and populates the snippet.
 	 * 
+	 * @param ast the AST of the variable.
 	 * @param variable the variable node to be processed.
 	 * @param lookUpTable the look up table for variables.
 	 * @param snippet the snippet where statements are added.
 	 */
-	private static void processField(XMLNode variable, LookUpTable lookUpTable, Snippet snippet) {
-		String variableType = getType(variable);
-		ArrayList<XMLNode> variableDeclarationNodes = variable.getChildNodesByName("VariableDeclarationFragment");
-		for (XMLNode vardecl : variableDeclarationNodes) {
-			ArrayList<XMLNode> variableNodes = vardecl.getChildNodesByName("SimpleName");
-			for (XMLNode variableNode : variableNodes) {
-				String variableName = variableNode.getTextContent();
+	private static void processField(XMLTree ast, int variable, LookUpTable lookUpTable, Snippet snippet) {
+		String variableType = getType(ast, variable);
+		XMLTreeNodeList variableDeclarationNodes = ast.getChildNodesByKind(variable,
+				XMLNodeKinds.VARIABLE_DECLARATION_FRAGMENT);
+		for (int d = 0; d < variableDeclarationNodes.size(); d++) {
+			int vardecl = variableDeclarationNodes.get(d);
+			XMLTreeNodeList variableNodes = ast.getChildNodesByKind(vardecl, XMLNodeKinds.SIMPLE_NAME);
+			for (int v = 0; v < variableNodes.size(); v++) {
+				String variableName = ast.getTextContent(variableNodes.get(v));
 				lookUpTable.addClassVariable(variableName, variableType);
 			}
-			if (vardecl.hasMoreThanOneChildren()) {
+			if (ast.hasMoreThanOneChildren(vardecl)) {
 				snippet.levelInner();
 				// snippet.addBlock();
-				snippet.addStatement(iterateLowLevelCode(vardecl, lookUpTable));
+				snippet.addStatement(iterateLowLevelCode(ast, vardecl, lookUpTable));
 				snippet.levelOuter();
 			}
 		}
@@ -331,38 +365,48 @@ public class SequenceExtractor {
 	 */
 	private static Snippet createSequence(String xml, boolean keepFunctionCallTypes, boolean keepLiterals,
 			boolean keepBranches) {
-		// Preprocess the XML of the AST
-		xml = "<file>" + xml + "</file>";
-		xml = xml.replaceAll("\n|\r| ", "");
-		xml = XMLDocument.removeXMLNodes(xml, "Javadoc", "Modifier", "Dimension", "ImportDeclaration",
-				"PackageDeclaration");
-		if (!keepLiterals)
-			xml = XMLDocument.removeXMLNodes(xml, "BooleanLiteral", "StringLiteral", "NumberLiteral",
-					"CharacterLiteral");
-		XMLDocument ast = new XMLDocument(xml);
+		// Read the XML of the AST under a file node, removing whitespace and ignored nodes
+		XMLTree ast = new XMLTree();
+		ast.read(xml, keepLiterals ? StatementTypes.ignoredNodeTypes : StatementTypes.ignoredAndLiteralNodeTypes,
+				ast.addChildNode(XMLTree.ROOT, XMLNodeKinds.FILE));
+		return createSequence(ast, keepFunctionCallTypes, keepBranches);
+	}
+
+	/**
+	 * Receives as input an AST as an XML tree and returns a sequence of statements. Note that the tree must already
+	 * have all whitespace and ignored nodes (e.g. javadocs, modifiers and possibly literals) removed.
+	 * 
+	 * @param ast an AST as an XML tree.
+	 * @param keepFunctionCallTypes {@code true} if call types should be kept, or {@code false} otherwise.
+	 * @param keepBranches {@code true} if all branches should be kept, or {@code false} for the first branch.
+	 * @return a snippet as a sequence of statements
+	 */
+	static Snippet createSequence(XMLTree ast, boolean keepFunctionCallTypes, boolean keepBranches) {
 		ASTPreprocessor.preprocessBranches(ast);
 
 		// Initialize the snippet and the look up table
-		Snippet snippet = new Snippet();
+		Snippet snippet = new Snippet(keepFunctionCallTypes);
 		LookUpTable lookUpTable = new LookUpTable();
-		XMLNodeList nodeList;
+		XMLTreeNodeList nodeList;
 		// snippet.levelInner();
 
 		// Process a class
-		nodeList = ast.getElementsByTagName("TypeDeclaration");
-		for (XMLNode node : nodeList) {
+		nodeList = ast.getElementsByKind(XMLNodeKinds.TYPE_DECLARATION);
+		for (int n = 0; n < nodeList.size(); n++) {
+			int node = nodeList.get(n);
 			String superClassName = null;
-			if (node.getChildNodeByName("SimpleType") != null)
-				superClassName = node.getChildNodeByName("SimpleType").getTextContent();
+			if (ast.getChildNodeByKind(node, XMLNodeKinds.SIMPLE_TYPE) != XMLTree.NONE)
+				superClassName = ast.getTextContent(ast.getChildNodeByKind(node, XMLNodeKinds.SIMPLE_TYPE));
 			lookUpTable.enterClass(superClassName);
-			ArrayList<XMLNode> variables = node.getChildNodesByName("FieldDeclaration");
-			for (XMLNode variable : variables) {
-				processField(variable, lookUpTable, snippet);
+			XMLTreeNodeList variables = ast.getChildNodesByKind(node, XMLNodeKinds.FIELD_DECLARATION);
+			for (int v = 0; v < variables.size(); v++) {
+				processField(ast, variables.get(v), lookUpTable, snippet);
 			}
-			ArrayList<XMLNode> methods = node.getChildNodesByName("MethodDeclaration");
-			for (XMLNode method : methods) {
-				String methodName = method.getChildNodeByName("SimpleName").getTextContent();
-				String methodType = getType(method);
+			XMLTreeNodeList methods = ast.getChildNodesByKind(node, XMLNodeKinds.METHOD_DECLARATION);
+			for (int m = 0; m < methods.size(); m++) {
+				int method = methods.get(m);
+				String methodName = ast.getTextContent(ast.getChildNodeByKind(method, XMLNodeKinds.SIMPLE_NAME));
+				String methodType = getType(ast, method);
 				lookUpTable.addClassVariable(methodName, methodType);
 			}
 		}
@@ -370,41 +414,21 @@ public class SequenceExtractor {
 		// Process a field
 		lookUpTable = new LookUpTable();
 		lookUpTable.enterClass();
-		nodeList = ast.getElementsByTagName("FieldDeclaration");
-		for (XMLNode variable : nodeList) {
-			processField(variable, lookUpTable, snippet);
+		nodeList = ast.getElementsByKind(XMLNodeKinds.FIELD_DECLARATION);
+		for (int n = 0; n < nodeList.size(); n++) {
+			processField(ast, nodeList.get(n), lookUpTable, snippet);
 		}
 
 		// Process a method
-		nodeList = ast.getElementsByTagName("MethodDeclaration");
-		for (XMLNode method : nodeList) {
-			String methodName = method.getChildNodeByName("SimpleName").getTextContent();
-			String methodType = getType(method);
+		nodeList = ast.getElementsByKind(XMLNodeKinds.METHOD_DECLARATION);
+		for (int n = 0; n < nodeList.size(); n++) {
+			int method = nodeList.get(n);
+			String methodName = ast.getTextContent(ast.getChildNodeByKind(method, XMLNodeKinds.SIMPLE_NAME));
+			String methodType = getType(ast, method);
 			lookUpTable.addClassVariable(methodName, methodType);
 		}
-		for (XMLNode method : nodeList) {
-			processMethod(method, lookUpTable, snippet, keepBranches);
-		}
-
-		// Remove empty or error statements
-		for (Iterator<ArrayList<Block>> iterator = snippet.blocks.values().iterator(); iterator.hasNext();) {
-			ArrayList<Block> blocks = iterator.next();
-			for (Iterator<Block> niterator = blocks.iterator(); niterator.hasNext();) {
-				Block block = niterator.next();
-				for (Iterator<Statement> siterator = block.iterator(); siterator.hasNext();) {
-					Statement statement = siterator.next();
-					if (statement.contains("___")) {
-						statement.remove("___");
-					}
-					while (statement.size() > (keepFunctionCallTypes ? 3 : 2)) {
-						statement.remove(statement.size() - 1);
-					}
-					if (statement.isEmpty() || statement.contains(null) || statement.contains("null")
-							|| statement.contains("___")) {
-						siterator.remove();
-					}
-				}
-			}
+		for (int n = 0; n < nodeList.size(); n++) {
+			processMethod(ast, nodeList.get(n), lookUpTable, snippet, keepBranches);
 		}
 
 		return snippet;
@@ -431,26 +455,48 @@ public class SequenceExtractor {
 
 	/**
 	 * Returns the Abstract Syntax Tree of a snippet. This function can also handle non-complete snippets (i.e. those
-	 * not surrounded by a method or class).
+	 * not surrounded by a method or class). The snippet is parsed as is, else wrapped in a class, else wrapped in a
+	 * class and a method, skipping any of the first two parses that cannot be accepted given the kind of the snippet.
 	 * 
 	 * @param snippet the snippet given as a string.
 	 * @param keepNodeInfo denotes if any added nodes should be kept in the AST.
 	 * @return the AST of a snippet.
 	 */
 	protected static String getASTofSnippet(String snippet, boolean keepNodeInfo) {
-		String ast = ASTExtractor.parseString(snippet);
-		if (!ast.trim().startsWith("<CompilationUnit>")) {
+		return getASTofSnippet(snippet, keepNodeInfo, SnippetKind.classify(snippet));
+	}
+
+	/**
+	 * Returns the Abstract Syntax Tree of a snippet, starting from the wrapping of the given kind (see
+	 * {@link #getASTofSnippet(String, boolean)}). Giving {@link SnippetKind#COMPILATION_UNIT} tries all wrappings.
+	 * 
+	 * @param snippet the snippet given as a string.
+	 * @param keepNodeInfo denotes if any added nodes should be kept in the AST.
+	 * @param kind the kind of the snippet.
+	 * @return the AST of a snippet.
+	 */
+	static String getASTofSnippet(String snippet, boolean keepNodeInfo, SnippetKind kind) {
+		String ast;
+		if (kind == SnippetKind.COMPILATION_UNIT) {
+			ast = ASTExtractor.parseString(snippet);
+			if (ast.trim().startsWith("<CompilationUnit>"))
+				return ast;
+		}
+		if (kind != SnippetKind.STATEMENTS) {
 			// Put code inside class declaration
 			ast = ASTExtractor.parseString("class SampleClass{\n" + snippet + "\n}\n");
-			if (!keepNodeInfo)
-				ast = getSubstring(ast, "\n", 3, -2);
-			if (!getSubstring(ast, "\n", 3, -2).trim().startsWith("<MethodDeclaration>")) {
-				// Put code inside method declaration
-				ast = ASTExtractor.parseString("class SampleClass{\nvoid SampleMethod(){\n" + snippet + "\n}\n\n}\n");
-				if (!keepNodeInfo)
-					ast = getSubstring(ast, "\n", 6, -3);
+			String declarations = getSubstring(ast, "\n", 3, -2);
+			if (!keepNodeInfo) {
+				ast = declarations;
+				declarations = getSubstring(ast, "\n", 3, -2);
 			}
+			if (declarations.trim().startsWith("<MethodDeclaration>"))
+				return ast;
 		}
+		// Put code inside method declaration
+		ast = ASTExtractor.parseString("class SampleClass{\nvoid SampleMethod(){\n" + snippet + "\n}\n\n}\n");
+		if (!keepNodeInfo)
+			ast = getSubstring(ast, "\n", 6, -3);
 		return ast;
 	}
 
@@ -488,8 +534,57 @@ public class SequenceExtractor {
 	 */
 	public static String extractSequence(String snippet, boolean keepFunctionCallTypes, boolean keepLiterals,
 			boolean keepBranches, boolean outputTree, boolean flattenOutput, boolean addUniqueIDs) {
-		String ast = getASTofSnippet(snippet);
-		Snippet seq = createSequence(ast, keepFunctionCallTypes, keepLiterals, keepBranches);
+		return extractSequence(snippet, keepFunctionCallTypes, keepLiterals, keepBranches, outputTree, flattenOutput,
+				addUniqueIDs, ExtractionEngine.AST_XML);
+	}
+
+	/**
+	 * Extracts the sequence for a snippet using the given options.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @param options the options used to extract the sequence.
+	 * @return the snippet as a list of statements.
+	 */
+	public static String extractSequence(String snippet, ExtractionOptions options) {
+		return extractSequence(snippet, options.keepFunctionCallTypes, options.keepLiterals, options.keepBranches,
+				options.outputTree, options.flattenOutput, options.addUniqueIDs, options.engine);
+	}
+
+	/**
+	 * Extracts the sequence for a snippet using the given engine.
+	 * 
+	 * @param snippet the snippet of which the sequence is extracted.
+	 * @param keepFunctionCallTypes {@code true} if call types should be kept, or {@code false} otherwise.
+	 * @param keepLiterals {@code true} if literals (primitives) should be kept, or {@code false} otherwise.
+	 * @param keepBranches {@code true} if all branches should be kept, or {@code false} for the first branch.
+	 * @param outputTree {@code true} if the output should be a tree, or {@code false} for output as a sequence.
+	 * @param flattenOutput {@code true} if the output should be flattened, or {@code false} otherwise.
+	 * @param addUniqueIDs {@code true} if the statements should have IDs, or {@code false} otherwise.
+	 * @param engine the engine used to extract the AST of the snippet.
+	 * @return the snippet as a list of statements.
+	 */
+	public static String extractSequence(String snippet, boolean keepFunctionCallTypes, boolean keepLiterals,
+			boolean keepBranches, boolean outputTree, boolean flattenOutput, boolean addUniqueIDs,
+			ExtractionEngine engine) {
+		Snippet seq;
+		if (engine == ExtractionEngine.AST_VISITOR) {
+			XMLTree ast = ASTBuilder.getASTofSnippet(snippet, keepLiterals);
+			seq = createSequence(ast, keepFunctionCallTypes, keepBranches);
+		} else {
+			String ast = getASTofSnippet(snippet);
+			seq = createSequence(ast, keepFunctionCallTypes, keepLiterals, keepBranches);
+		}
+		return createPrinter(outputTree, flattenOutput).snippetToString(seq, addUniqueIDs);
+	}
+
+	/**
+	 * Creates the printer of the snippets given the form of the output.
+	 * 
+	 * @param outputTree {@code true} if the output should be a tree, or {@code false} for output as a sequence.
+	 * @param flattenOutput {@code true} if the output should be flattened, or {@code false} otherwise.
+	 * @return the printer of the snippets.
+	 */
+	static SnippetPrinter createPrinter(boolean outputTree, boolean flattenOutput) {
 		SnippetPrinter printer;
 		if (outputTree) {
 			if (!flattenOutput)
@@ -502,7 +597,7 @@ public class SequenceExtractor {
 			else
 				printer = new FlattenedSequencePrinter();
 		}
-		return printer.snippetToString(seq, addUniqueIDs);
+		return printer;
 	}
 
 }
@@ -0,0 +1,108 @@
+package sequenceextractor;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * The kinds of snippets, which denote the first wrapping that has to be tried so that a snippet is parsed. A snippet
+ * is parsed as is only if it may declare a type, and wrapped in a class only if it has a name followed by an opening
+ * parenthesis, since the JDT parser may recover any such name as a method (e.g. {@code return size() == 0;} is
+ * recovered as a method {@code size()}). Other snippets are wrapped in a class and a method directly. The kind is
+ * found by a lexical scan of the snippet, so that the parses that are sure to be rejected are skipped.
+ * 
+ * @author themis
+ */
+public enum SnippetKind {
+
+	/**
+	 * A snippet that may declare a type (e.g. a class), which is first parsed as is.
+	 */
+	COMPILATION_UNIT,
+
+	/**
+	 * A snippet that may be parsed as methods (e.g. one that declares a method or calls a function), which is first
+	 * parsed wrapped in a class.
+	 */
+	CLASS_BODY,
+
+	/**
+	 * A snippet of statements without any names followed by parentheses, which is parsed wrapped in a class and a
+	 * method.
+	 */
+	STATEMENTS;
+
+	/**
+	 * The keywords of Java, which cannot be the names of types or methods. The keywords {@code this} and {@code super}
+	 * are not included, since they may be followed by arguments like methods.
+	 */
+	private static final HashSet<String> keywords = new HashSet<String>(Arrays.asList("abstract", "assert", "break",
+			"case", "catch", "class", "const", "continue", "default", "do", "else", "enum", "extends", "final",
+			"finally", "for", "goto", "if", "implements", "import", "instanceof", "interface", "native", "new",
+			"package", "private", "protected", "public", "return", "static", "strictfp", "switch", "synchronized",
+			"throw", "throws", "transient", "try", "volatile", "while", "true", "false", "null"));
+
+	/**
+	 * Finds the kind of a snippet. The snippet may declare a type if it has a {@code class}, {@code interface} or
+	 * {@code enum} keyword. It may be parsed as methods if it has a name (i.e. an identifier that is not a keyword)
+	 * followed by an opening parenthesis at any depth, e.g. {@code void foo(}, {@code foo(} or {@code new Foo(}.
+	 * Snippets that cannot be scanned (e.g. ones with unterminated comments) are considered to declare a type, so that
+	 * all wrappings are tried.
+	 * 
+	 * @param snippet the snippet given as a string.
+	 * @return the kind of the snippet.
+	 */
+	public static SnippetKind classify(String snippet) {
+		boolean hasCall = false;
+		boolean previousIsName = false;
+		char previous = ' ';
+		int depth = 0;
+		int i = 0;
+		int n = snippet.length();
+		while (i < n) {
+			char c = snippet.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '/' && i + 1 < n && snippet.charAt(i + 1) == '/') {
+				while (i < n && snippet.charAt(i) != '\n')
+					i++;
+			} else if (c == '/' && i + 1 < n && snippet.charAt(i + 1) == '*') {
+				int end = snippet.indexOf("*/", i + 2);
+				if (end < 0)
+					return COMPILATION_UNIT;
+				i = end + 2;
+			} else if (c == '"' || c == '\'') {
+				i++;
+				while (i < n && snippet.charAt(i) != c && snippet.charAt(i) != '\n')
+					i += snippet.charAt(i) == '\\' ? 2 : 1;
+				if (i >= n || snippet.charAt(i) != c)
+					return COMPILATION_UNIT;
+				i++;
+				previous = c;
+				previousIsName = false;
+			} else if (Character.isJavaIdentifierStart(c) || Character.isDigit(c)) {
+				int start = i;
+				while (i < n && Character.isJavaIdentifierPart(snippet.charAt(i)))
+					i++;
+				String token = snippet.substring(start, i);
+				if ((token.equals("class") || token.equals("interface") || token.equals("enum")) && previous != '.')
+					return COMPILATION_UNIT;
+				previous = 'a';
+				previousIsName = Character.isJavaIdentifierStart(c) && !keywords.contains(token);
+			} else {
+				i++;
+				previous = c;
+				hasCall |= c == '(' && previousIsName;
+				previousIsName = false;
+				if (c == '{') {
+					depth++;
+				} else if (c == '}') {
+					depth--;
+					if (depth < 0)
+						return COMPILATION_UNIT;
+				}
+			}
+		}
+		return hasCall ? CLASS_BODY : STATEMENTS;
+	}
+
+}
@@ -0,0 +1,72 @@
+package sequenceextractor;
+
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+
+/**
+ * Class used as a test of {@link SnippetKind}, which checks that skipping the wrappings of a snippet given its kind
+ * gives the same AST as trying all wrappings, for both engines.
+ * 
+ * @author themis
+ */
+public class SnippetKindTest {
+
+	/**
+	 * Parses each snippet starting from the wrapping of its kind and trying all wrappings, and checks that the ASTs
+	 * are the same for both engines. The snippets include statements that the JDT parser recovers as methods when
+	 * wrapped in a class, which must not be wrapped in a method directly.
+	 * 
+	 * @param args unused parameter.
+	 */
+	public static void main(String[] args) {
+		// @formatter:off
+		String[] snippets = {
+				"return listIterator(0);",
+				"return size() == 0;",
+				"while (poll() != null) ;",
+				"if (isEmpty()) return null; return get(0);",
+				"x = 1;",
+				"int a = b + c;\nreturn a;",
+				"List<String> list = new ArrayList<>();",
+				"JFrame frame = new JFrame(\"myframe\");\nframe.setVisible(true);",
+				"String s = \"foo(\"; // bar()\n/* baz() */ s = s + 1;",
+				"for (int i = 0; i < n; i++) { sum += i; }",
+				"Runnable r = () -> run();",
+				"super(1);\nthis.x = x;",
+				"void foo() { bar(); }",
+				"public static <T> List<T> foo(T t) { return null; }\nint x;",
+				"@Override public String toString() { return \"\"; }",
+				"Foo() { }",
+				"class A { void f() { g(); } }",
+				"interface I { void f(); }",
+				"enum E { A, B }",
+				"Object o = String.class;\no.hashCode();",
+				"/* unterminated comment",
+				"}" };
+		// @formatter:on
+		ASTParser parser = ASTParser.newParser(AST.JLS8);
+		Map<String, String> compilerOptions = ASTBuilder.createCompilerOptions();
+		int mismatches = 0;
+		for (String snippet : snippets) {
+			SnippetKind kind = SnippetKind.classify(snippet);
+			String ast = SequenceExtractor.getASTofSnippet(snippet, true, kind);
+			String allWrappingsAST = SequenceExtractor.getASTofSnippet(snippet, true, SnippetKind.COMPILATION_UNIT);
+			String tree = ASTBuilder.buildXMLTree(
+					ASTBuilder.getCompilationUnitOfSnippet(snippet, parser, compilerOptions, kind), true).toXMLString();
+			String allWrappingsTree = ASTBuilder.buildXMLTree(ASTBuilder.getCompilationUnitOfSnippet(snippet, parser,
+					compilerOptions, SnippetKind.COMPILATION_UNIT), true).toXMLString();
+			if (!ast.equals(allWrappingsAST)) {
+				System.out.println("The XML engine parsed a different AST (" + kind + "): " + snippet);
+				mismatches++;
+			}
+			if (!tree.equals(allWrappingsTree)) {
+				System.out.println("The visitor engine parsed a different AST (" + kind + "): " + snippet);
+				mismatches++;
+			}
+		}
+		System.out.println(mismatches == 0 ? "All snippets were parsed the same as when trying all wrappings"
+				: mismatches + " snippets were parsed differently than when trying all wrappings");
+	}
+}
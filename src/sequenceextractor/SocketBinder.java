@@ -0,0 +1,565 @@
+package sequenceextractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.ProtocolException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import cachehelpers.SequenceCache;
+import cachehelpers.SequenceStore;
+
+/**
+ * Class used to serve this library over a Unix domain socket, so that many local processes can share a single
+ * long-lived JVM without the overhead of TCP or of starting a process per client. Each connection speaks the same
+ * protocol as {@link PythonBinder}, i.e. it starts with {@code START_OF_TRANSMISSION} followed by the requested
+ * features, it exchanges either snippets and sequences or, if the {@code MULTIPLEXED} feature is requested, JSON
+ * requests and responses, either as base 64 lines or as frames, and it ends with {@code END_OF_TRANSMISSION}. All
+ * connections are served by a single thread using a selector, while the snippets are extracted by a pool of workers
+ * that is shared by all connections. A connection is not read while it has too many requests in progress, so that
+ * clients that do not read their responses cannot make the binder queue requests without bound. A connection that
+ * does not request the {@code MULTIPLEXED} feature has at most one request in progress, since its responses carry no
+ * IDs and must be written in the order of its requests. A frame longer than {@link PythonBinder#MAX_FRAME_LENGTH}, or
+ * a line longer than its base 64 encoding, is a protocol error that is answered as in {@link PythonBinder} and closes
+ * the connection.
+ * 
+ * @author themis
+ */
+public class SocketBinder {
+
+	/**
+	 * The maximum number of requests of a connection that may be in progress before the connection is no longer read.
+	 */
+	private static final int MAX_REQUESTS_PER_CONNECTION = 1024;
+
+	/**
+	 * The initial capacity of the input buffer of a connection, which grows to fit the largest message.
+	 */
+	private static final int INITIAL_BUFFER_CAPACITY = 8192;
+
+	/**
+	 * The maximum length of a line, i.e. the length of the base 64 encoding of the longest frame followed by CRLF.
+	 */
+	private static final int MAX_LINE_LENGTH = 4 * ((PythonBinder.MAX_FRAME_LENGTH + 2) / 3) + 2;
+
+	/**
+	 * Class that holds the state of a connection of a client.
+	 */
+	private class Connection {
+
+		/**
+		 * The channel of the connection.
+		 */
+		final SocketChannel channel;
+
+		/**
+		 * The selection key of the channel.
+		 */
+		final SelectionKey key;
+
+		/**
+		 * The bytes read from the channel that do not form a complete message yet.
+		 */
+		ByteBuffer input;
+
+		/**
+		 * The encoded messages that are waiting to be written to the channel.
+		 */
+		final ConcurrentLinkedQueue<ByteBuffer> output;
+
+		/**
+		 * The number of requests that are in progress.
+		 */
+		final AtomicInteger requests;
+
+		/**
+		 * Denotes if the messages are sent as frames, i.e. if the {@code FRAMED} feature is enabled.
+		 */
+		volatile boolean framed;
+
+		/**
+		 * Denotes if the {@code MULTIPLEXED} feature is enabled.
+		 */
+		boolean multiplexed;
+
+		/**
+		 * Denotes if the {@code STATUS} feature is enabled.
+		 */
+		boolean status;
+
+		/**
+		 * Denotes if the client has ended the transmission, so that no more messages are read.
+		 */
+		volatile boolean ending;
+
+		/**
+		 * Denotes if the end of the transmission has been written, after which the connection is closed.
+		 */
+		final AtomicBoolean ended;
+
+		/**
+		 * Initializes this connection and registers its channel for reading.
+		 * 
+		 * @param channel the channel of the connection.
+		 * @throws IOException if the channel cannot be registered.
+		 */
+		Connection(SocketChannel channel) throws IOException {
+			this.channel = channel;
+			input = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+			output = new ConcurrentLinkedQueue<ByteBuffer>();
+			requests = new AtomicInteger();
+			ended = new AtomicBoolean();
+			channel.configureBlocking(false);
+			key = channel.register(selector, SelectionKey.OP_READ, this);
+		}
+
+		/**
+		 * Checks if this connection may have another request in progress. Requests of the original protocol are handled
+		 * one at a time, so that their responses are written in order.
+		 * 
+		 * @return {@code true} if this connection may have another request in progress, or {@code false} otherwise.
+		 */
+		boolean acceptsRequests() {
+			return requests.get() < (multiplexed ? MAX_REQUESTS_PER_CONNECTION : 1);
+		}
+	}
+
+	/**
+	 * The processor of the requests.
+	 */
+	private final RequestProcessor processor;
+
+	/**
+	 * The pool of workers that extract the snippets of all connections.
+	 */
+	private final ForkJoinPool workers;
+
+	/**
+	 * The selector of the channels.
+	 */
+	private final Selector selector;
+
+	/**
+	 * The connections of which the interest in reading or writing must be updated by the thread of the selector.
+	 */
+	private final ConcurrentLinkedQueue<Connection> changedConnections;
+
+	/**
+	 * Initializes this binder.
+	 * 
+	 * @param processor the processor of the requests.
+	 * @throws IOException if the selector cannot be opened.
+	 */
+	public SocketBinder(RequestProcessor processor) throws IOException {
+		this.processor = processor;
+		workers = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		selector = Selector.open();
+		changedConnections = new ConcurrentLinkedQueue<Connection>();
+	}
+
+	/**
+	 * Opens a server channel bound to a Unix domain socket, replacing any file that exists at its path. Unix domain
+	 * socket channels are supported by Java 16 or later, so they are created using reflection in order for this library
+	 * to still run on older JVMs.
+	 * 
+	 * @param path the path of the socket.
+	 * @return the server channel of the socket.
+	 * @throws IOException if the socket cannot be opened or the JVM does not support Unix domain sockets.
+	 */
+	public static ServerSocketChannel openServerChannel(Path path) throws IOException {
+		ServerSocketChannel server;
+		SocketAddress address;
+		try {
+			ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+			server = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class)
+					.invoke(null, unix);
+			address = (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class)
+					.invoke(null, path);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Unix domain sockets are not supported", e.getCause());
+		} catch (ReflectiveOperationException | IllegalArgumentException e) {
+			throw new IOException("Unix domain sockets require Java 16 or later", e);
+		}
+		Files.deleteIfExists(path);
+		server.bind(address);
+		return server;
+	}
+
+	/**
+	 * Serves the connections of a server channel until the channel is closed.
+	 * 
+	 * @param server the server channel of which the connections are served.
+	 * @throws IOException if the server channel cannot be registered or selected.
+	 */
+	public void serve(ServerSocketChannel server) throws IOException {
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		while (server.isOpen()) {
+			selector.select();
+			Connection changedConnection;
+			while ((changedConnection = changedConnections.poll()) != null) {
+				if (changedConnection.key.isValid())
+					handleMessages(changedConnection);
+			}
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if (!key.isValid())
+					continue;
+				if (key.isAcceptable()) {
+					SocketChannel channel = server.accept();
+					if (channel != null)
+						new Connection(channel);
+					continue;
+				}
+				Connection connection = (Connection) key.attachment();
+				try {
+					if (key.isReadable())
+						read(connection);
+					if (key.isValid() && key.isWritable())
+						write(connection);
+				} catch (IOException e) {
+					close(connection);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the interest of a connection in reading and writing. A connection is read unless it has ended its
+	 * transmission or has too many requests in progress, and it is written while it has messages waiting.
+	 * 
+	 * @param connection the connection of which the interest is updated.
+	 */
+	private void updateInterest(Connection connection) {
+		if (!connection.key.isValid())
+			return;
+		int interestOps = 0;
+		if (!connection.ending && connection.acceptsRequests())
+			interestOps |= SelectionKey.OP_READ;
+		if (!connection.output.isEmpty())
+			interestOps |= SelectionKey.OP_WRITE;
+		connection.key.interestOps(interestOps);
+	}
+
+	/**
+	 * Reads the available bytes of a connection and handles its complete messages.
+	 * 
+	 * @param connection the connection that is read.
+	 * @throws IOException if the channel of the connection cannot be read.
+	 */
+	private void read(Connection connection) throws IOException {
+		if (!connection.input.hasRemaining()) {
+			ByteBuffer input = ByteBuffer.allocate(2 * connection.input.capacity());
+			connection.input.flip();
+			connection.input = input.put(connection.input);
+		}
+		if (connection.channel.read(connection.input) == -1) {
+			close(connection);
+			return;
+		}
+		handleMessages(connection);
+	}
+
+	/**
+	 * Handles every complete message in the input buffer of a connection, as long as the connection has not ended its
+	 * transmission and does not have too many requests in progress. Any remaining messages are handled when the
+	 * requests in progress finish. After a protocol error the messages cannot be told apart, so the error is written
+	 * (in the multiplexed protocol) and the connection is closed.
+	 * 
+	 * @param connection the connection of which the messages are handled.
+	 */
+	private void handleMessages(Connection connection) {
+		connection.input.flip();
+		String message;
+		try {
+			while (!connection.ending && connection.acceptsRequests() && (message = nextMessage(connection)) != null)
+				handleMessage(connection, message);
+		} catch (ProtocolException e) {
+			e.printStackTrace();
+			connection.ending = true;
+			if (!connection.multiplexed || !connection.ended.compareAndSet(false, true)) {
+				close(connection);
+				return;
+			}
+			writeMessage(connection, new JSONObject().put("error", e.toString()).toString(), StandardCharsets.UTF_8);
+		}
+		connection.input.compact();
+		updateInterest(connection);
+	}
+
+	/**
+	 * Removes the next complete message from the input buffer of a connection. Messages are either lines in the base 64
+	 * format or, if the {@code FRAMED} feature is enabled, frames of UTF-8 bytes preceded by their length as a 4-byte
+	 * integer.
+	 * 
+	 * @param connection the connection of which the message is read.
+	 * @return the message that was read, or {@code null} if the buffer does not hold a complete message.
+	 * @throws ProtocolException if the length of a frame is negative or longer than
+	 *             {@link PythonBinder#MAX_FRAME_LENGTH}, or if a line is longer than {@link #MAX_LINE_LENGTH}.
+	 */
+	private static String nextMessage(Connection connection) throws ProtocolException {
+		ByteBuffer input = connection.input;
+		if (connection.framed) {
+			if (input.remaining() < 4)
+				return null;
+			int length = input.getInt(input.position());
+			if (length < 0 || length > PythonBinder.MAX_FRAME_LENGTH)
+				throw new ProtocolException("Invalid frame length " + length + " (the maximum is "
+						+ PythonBinder.MAX_FRAME_LENGTH + ")");
+			if (input.remaining() < 4 + length)
+				return null;
+			byte[] message = new byte[length];
+			input.position(input.position() + 4);
+			input.get(message);
+			return new String(message, StandardCharsets.UTF_8);
+		}
+		for (int i = input.position(); i < input.limit(); i++) {
+			if (input.get(i) == '\n') {
+				byte[] line = new byte[i - input.position()];
+				input.get(line);
+				input.get();
+				int length = line.length > 0 && line[line.length - 1] == '\r' ? line.length - 1 : line.length;
+				return new String(
+						Base64.getMimeDecoder().decode(new String(line, 0, length, StandardCharsets.US_ASCII)));
+			}
+		}
+		if (input.remaining() > MAX_LINE_LENGTH)
+			throw new ProtocolException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+		return null;
+	}
+
+	/**
+	 * Handles a message of a connection. The features and the status are answered immediately, while the snippets and
+	 * the requests are submitted to the workers and answered when their extraction finishes.
+	 * 
+	 * @param connection the connection of the message.
+	 * @param message the message to be handled.
+	 */
+	private void handleMessage(final Connection connection, String message) {
+		if (message.equals("START_OF_TRANSMISSION")) {
+			writeMessage(connection, message, StandardCharsets.US_ASCII);
+		} else if (message.startsWith("START_OF_TRANSMISSION ")) {
+			// Enable the requested features that are supported
+			String messageresult = "START_OF_TRANSMISSION";
+			boolean enableFraming = false;
+			for (String feature : message.substring("START_OF_TRANSMISSION ".length()).split(" ")) {
+				if (feature.equals(PythonBinder.MULTIPLEXED) && !connection.multiplexed) {
+					connection.multiplexed = true;
+					messageresult += " " + PythonBinder.MULTIPLEXED;
+				} else if (feature.equals(PythonBinder.FRAMED) && !connection.framed) {
+					enableFraming = true;
+					messageresult += " " + PythonBinder.FRAMED;
+				} else if (feature.equals(PythonBinder.STATUS) && !connection.status) {
+					connection.status = true;
+					messageresult += " " + PythonBinder.STATUS;
+				}
+			}
+			writeMessage(connection, messageresult, StandardCharsets.US_ASCII);
+			connection.framed |= enableFraming;
+		} else if (message.equals("END_OF_TRANSMISSION")) {
+			// The end of the transmission is written after all running requests
+			connection.ending = true;
+			endIfFinished(connection);
+		} else if (connection.status && message.equals(PythonBinder.STATUS)) {
+			writeMessage(connection, PythonBinder.STATUS + " " + processor.getStatus(), StandardCharsets.US_ASCII);
+		} else if (connection.multiplexed) {
+			final JSONObject request;
+			try {
+				request = new JSONObject(message);
+			} catch (JSONException e) {
+				writeMessage(connection, RequestProcessor.getParseErrorResponse(message, e).toString(),
+						StandardCharsets.UTF_8);
+				return;
+			}
+			submit(connection, new Runnable() {
+				@Override
+				public void run() {
+					writeMessage(connection, processor.process(request, workers).toString(), StandardCharsets.UTF_8);
+				}
+			});
+		} else {
+			// The requests of the original protocol are handled one at a time, so their responses are written in order
+			final String snippet = message;
+			submit(connection, new Runnable() {
+				@Override
+				public void run() {
+					String sequence = "";
+					try {
+						sequence = processor.extractSequence(snippet);
+					} catch (Exception | StackOverflowError e) {
+						e.printStackTrace();
+					}
+					writeMessage(connection, sequence, StandardCharsets.US_ASCII);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Submits a request of a connection to the workers, counting it as in progress until it finishes.
+	 * 
+	 * @param connection the connection of the request.
+	 * @param request the runnable that processes the request and writes its response.
+	 */
+	private void submit(final Connection connection, final Runnable request) {
+		connection.requests.incrementAndGet();
+		workers.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					request.run();
+				} finally {
+					connection.requests.decrementAndGet();
+					endIfFinished(connection);
+					signal(connection);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes the end of the transmission of a connection if the client has ended it and no requests are in progress.
+	 * The connection is closed after all of its messages are written.
+	 * 
+	 * @param connection the connection that may be ended.
+	 */
+	private void endIfFinished(Connection connection) {
+		if (connection.ending && connection.requests.get() == 0 && connection.ended.compareAndSet(false, true))
+			writeMessage(connection, "END_OF_TRANSMISSION", StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Queues a message to be written to a connection by the thread of the selector.
+	 * 
+	 * @param connection the connection to which the message is written.
+	 * @param message the message to be written.
+	 * @param charset the charset used to encode the message before converting it to base 64.
+	 */
+	private void writeMessage(Connection connection, String message, Charset charset) {
+		connection.output.add(ByteBuffer.wrap(PythonBinder.encodeMessage(message, charset, connection.framed)));
+		signal(connection);
+	}
+
+	/**
+	 * Notifies the thread of the selector that the interest of a connection must be updated.
+	 * 
+	 * @param connection the connection of which the interest must be updated.
+	 */
+	private void signal(Connection connection) {
+		changedConnections.add(connection);
+		selector.wakeup();
+	}
+
+	/**
+	 * Writes the waiting messages of a connection, as far as its channel accepts them without blocking. If the
+	 * transmission has ended and all messages are written, the connection is closed.
+	 * 
+	 * @param connection the connection that is written.
+	 * @throws IOException if the channel of the connection cannot be written.
+	 */
+	private void write(Connection connection) throws IOException {
+		ByteBuffer buffer;
+		while ((buffer = connection.output.peek()) != null) {
+			connection.channel.write(buffer);
+			if (buffer.hasRemaining())
+				break;
+			connection.output.poll();
+		}
+		if (connection.ended.get() && connection.output.isEmpty())
+			close(connection);
+		else
+			updateInterest(connection);
+	}
+
+	/**
+	 * Closes a connection. Any requests of the connection that are in progress finish, but their responses are
+	 * discarded.
+	 * 
+	 * @param connection the connection to be closed.
+	 */
+	private static void close(Connection connection) {
+		connection.key.cancel();
+		connection.output.clear();
+		try {
+			connection.channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Function used to serve this library over a Unix domain socket. The server runs until the JVM is terminated.
+	 * 
+	 * @param args receives the path of the socket ({@code sequenceextractor.sock} by default), the booleans denoting if
+	 *            function call types, literals and branches should be kept, if the output should be a tree or sequence,
+	 *            if the output should be flattened, and if the statements should have IDs, and optionally the directory
+	 *            of a {@link SequenceStore} where the extracted sequences are kept across runs.
+	 */
+	public static void main(String[] args) {
+		final Path path = Paths.get(args.length > 0 ? args[0] : "sequenceextractor.sock").toAbsolutePath();
+		boolean keepFunctionCallTypes = args.length > 1 ? Boolean.parseBoolean(args[1]) : false;
+		boolean keepLiterals = args.length > 2 ? Boolean.parseBoolean(args[2]) : false;
+		boolean keepBranches = args.length > 3 ? Boolean.parseBoolean(args[3]) : true;
+		boolean outputTree = args.length > 4 ? Boolean.parseBoolean(args[4]) : false;
+		boolean flattenOutput = args.length > 5 ? Boolean.parseBoolean(args[5]) : true;
+		boolean addUniqueIDs = args.length > 6 ? Boolean.parseBoolean(args[6]) : false;
+		SequenceStore store = null;
+		if (args.length > 7) {
+			try {
+				store = new SequenceStore(new File(args[7]));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		ExtractionOptions options = new ExtractionOptions(keepFunctionCallTypes, keepLiterals, keepBranches, outputTree,
+				flattenOutput, addUniqueIDs);
+		final SequenceStore finalStore = store;
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try {
+					Files.deleteIfExists(path);
+					if (finalStore != null)
+						finalStore.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		try {
+			SocketBinder binder = new SocketBinder(new RequestProcessor(
+					new Extractor(options, store == null ? null : new SequenceCache(store))));
+			ServerSocketChannel server = openServerChannel(path);
+			System.out.println("Serving on " + path);
+			binder.serve(server);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package sequenceextractor;
+
+/**
+ * Class used as a test of the statements extracted by {@link SequenceExtractor}, which checks the sequences of a
+ * snippet with the edge cases of statements against the sequences that were extracted when statements were lists of
+ * symbols. The snippet has unknown variables and types, {@code null} literals, statements with a single symbol (which
+ * are printed as empty statements), statements of which the first symbol is not a kind (e.g. {@code int_int}), and a
+ * type named as a kind (i.e. {@code START}).
+ * 
+ * @author themis
+ */
+public class StatementEdgeCasesTest {
+
+	/**
+	 * Extracts the snippet with some combinations of options using both engines, and checks that the sequences are the
+	 * expected ones.
+	 * 
+	 * @param args unused parameter.
+	 */
+	public static void main(String[] args) {
+		// @formatter:off
+		String snippet = ""
+				+ "class SampleClass {\n"
+				+ "	START s = new START();\n"
+				+ "	void sampleMethod() {\n"
+				+ "		List l = new ArrayList();\n"
+				+ "		int a = 1;\n"
+				+ "		int b;\n"
+				+ "		a = b;\n"
+				+ "		zz = a;\n"
+				+ "		a = qq;\n"
+				+ "		a = null;\n"
+				+ "		a++;\n"
+				+ "		unknown++;\n"
+				+ "		l.add(a);\n"
+				+ "		zz.foo();\n"
+				+ "		a.bar();\n"
+				+ "		baz();\n"
+				+ "		Map m = l.stream();\n"
+				+ "		new Foo(new Bar(), l.size());\n"
+				+ "		if (a == b) {\n"
+				+ "			m.clear();\n"
+				+ "			return a + b;\n"
+				+ "		} else\n"
+				+ "			l.clear();\n"
+				+ "		super.nope();\n"
+				+ "		return a + b;\n"
+				+ "	}\n"
+				+ "}";
+		ExtractionOptions[] options = {
+				new ExtractionOptions(true, false, false, false, false, false),
+				new ExtractionOptions(false, true, false, false, false, false),
+				new ExtractionOptions(false, false, false, false, true, false),
+				new ExtractionOptions(true, true, true, true, false, true),
+		};
+		String[] expectedSequences = {
+				"[CI_START, CI_START, [CI_List, AM_int(int), AM_int, AM_int, AM_int, , FC_void(List.add), FC_void, "
+				+ "FC_void, FC_void, FC_Map(List.stream), FC_void(List.size), CI_Bar, CI_Foo, int_int, , int_int]]",
+				"[CI_START, CI_START, [CI_List, AM_int, AM_int, AM_int, AM_int, AM_int, , FC_void, FC_void, FC_void, "
+				+ "FC_void, FC_Map, FC_void, CI_Bar, CI_Foo, int_int, , int_int]]",
+				"[CI_START, CI_START, CI_List, AM_int, AM_int, AM_int, AM_int, , FC_void, FC_void, FC_void, FC_void, "
+				+ "FC_Map, FC_void, CI_Bar, CI_Foo, int_int, , int_int]",
+				"[CI_START#1, CI_START#2, [CI_List#3, AM_int#4, AM_int(int)#5, AM_int#6, AM_int#7, AM_int#8, #9, "
+				+ "FC_void(List.add)#10, FC_void#11, FC_void#12, FC_void#13, FC_Map(List.stream)#14, "
+				+ "FC_void(List.size)#15, CI_Bar#16, CI_Foo#17, [[int_int#18], [FC_void(Map.clear)#19, int_int#20], "
+				+ "[FC_void(List.clear)#21]], #22, int_int#23]]",
+		};
+		// @formatter:on
+		int mismatches = 0;
+		for (int i = 0; i < options.length; i++) {
+			for (ExtractionEngine engine : ExtractionEngine.values()) {
+				ExtractionOptions o = options[i];
+				String sequence = SequenceExtractor.extractSequence(snippet, new ExtractionOptions(
+						o.keepFunctionCallTypes, o.keepLiterals, o.keepBranches, o.outputTree, o.flattenOutput,
+						o.addUniqueIDs, engine));
+				if (!expectedSequences[i].equals(sequence)) {
+					System.out.println("Options: " + o + "\nEngine: " + engine + "\nExpected: " + expectedSequences[i]
+							+ "\nActual:   " + sequence);
+					mismatches++;
+				}
+			}
+		}
+		System.out.println(mismatches == 0 ? "All sequences are the expected ones"
+				: mismatches + " sequences are different than the expected ones");
+	}
+
+}
@@ -0,0 +1,64 @@
+package xmlhelpers;
+
+import java.util.BitSet;
+
+/**
+ * Class that represents a set of kinds of XML nodes, as given by {@link XMLNodeKinds}. The set is kept as a bitset, so
+ * that checking whether it contains a kind does not involve any hashing or allocation.
+ * 
+ * @author themis
+ */
+public class XMLNodeKindSet {
+
+	/**
+	 * The bits of the kinds of this set.
+	 */
+	private final BitSet kinds;
+
+	/**
+	 * Initializes this set providing its kinds.
+	 * 
+	 * @param kinds the kinds of the set.
+	 */
+	public XMLNodeKindSet(int... kinds) {
+		this.kinds = new BitSet();
+		for (int kind : kinds)
+			this.kinds.set(kind);
+	}
+
+	/**
+	 * Adds a kind to this set.
+	 * 
+	 * @param kind the kind to be added.
+	 */
+	public void add(int kind) {
+		kinds.set(kind);
+	}
+
+	/**
+	 * Removes a kind from this set.
+	 * 
+	 * @param kind the kind to be removed.
+	 */
+	public void remove(int kind) {
+		kinds.clear(kind);
+	}
+
+	/**
+	 * Removes all kinds from this set.
+	 */
+	public void clear() {
+		kinds.clear();
+	}
+
+	/**
+	 * Checks if this set contains the given kind.
+	 * 
+	 * @param kind the kind to be checked.
+	 * @return {@code true} if this set contains the given kind, or {@code false} otherwise.
+	 */
+	public boolean contains(int kind) {
+		return kind >= 0 && kinds.get(kind);
+	}
+
+}
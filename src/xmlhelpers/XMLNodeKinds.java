@@ -0,0 +1,363 @@
+package xmlhelpers;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that keeps the integer codes of the kinds (names) of XML nodes. Codes are given to names the first time they
+ * are requested and are shared among all trees, so that checking the kind of a node is an integer comparison. The
+ * kinds of the nodes that are used when extracting sequences are given as constants.
+ * 
+ * @author themis
+ */
+public class XMLNodeKinds {
+
+	/**
+	 * The codes of the kinds given their names.
+	 */
+	private static final ConcurrentHashMap<String, Integer> kinds = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * The names of the kinds given their codes. The array is replaced when a kind is added, so that it can be read
+	 * without locking.
+	 */
+	private static volatile String[] names = new String[0];
+
+	/**
+	 * An open addressing hash table of the codes of the kinds (plus one, so that empty slots are zero), used to find
+	 * the kind of a name that is part of a larger string without creating a string for it. The table is replaced
+	 * after {@link #names} when a kind is added, so that it can be read without locking.
+	 */
+	private static volatile int[] table = new int[16];
+
+	/**
+	 * The kind of document nodes.
+	 */
+	public static final int DOCUMENT = getKind("#document");
+
+	/**
+	 * The kind of text nodes.
+	 */
+	public static final int TEXT = getKind("#text");
+
+	/**
+	 * The kind of {@code file} nodes.
+	 */
+	public static final int FILE = getKind("file");
+
+	/**
+	 * The kind of {@code Block} nodes.
+	 */
+	public static final int BLOCK = getKind("Block");
+
+	/**
+	 * The kind of {@code CatchClause} nodes.
+	 */
+	public static final int CATCH_CLAUSE = getKind("CatchClause");
+
+	/**
+	 * The kind of {@code VariableDeclarationStatement} nodes.
+	 */
+	public static final int VARIABLE_DECLARATION_STATEMENT = getKind("VariableDeclarationStatement");
+
+	/**
+	 * The kind of {@code ExpressionStatement} nodes.
+	 */
+	public static final int EXPRESSION_STATEMENT = getKind("ExpressionStatement");
+
+	/**
+	 * The kind of {@code ReturnStatement} nodes.
+	 */
+	public static final int RETURN_STATEMENT = getKind("ReturnStatement");
+
+	/**
+	 * The kind of {@code ThrowStatement} nodes.
+	 */
+	public static final int THROW_STATEMENT = getKind("ThrowStatement");
+
+	/**
+	 * The kind of {@code InfixExpression} nodes.
+	 */
+	public static final int INFIX_EXPRESSION = getKind("InfixExpression");
+
+	/**
+	 * The kind of {@code IfStatement} nodes.
+	 */
+	public static final int IF_STATEMENT = getKind("IfStatement");
+
+	/**
+	 * The kind of {@code SwitchStatement} nodes.
+	 */
+	public static final int SWITCH_STATEMENT = getKind("SwitchStatement");
+
+	/**
+	 * The kind of {@code TryStatement} nodes.
+	 */
+	public static final int TRY_STATEMENT = getKind("TryStatement");
+
+	/**
+	 * The kind of {@code ForStatement} nodes.
+	 */
+	public static final int FOR_STATEMENT = getKind("ForStatement");
+
+	/**
+	 * The kind of {@code WhileStatement} nodes.
+	 */
+	public static final int WHILE_STATEMENT = getKind("WhileStatement");
+
+	/**
+	 * The kind of {@code DoStatement} nodes.
+	 */
+	public static final int DO_STATEMENT = getKind("DoStatement");
+
+	/**
+	 * The kind of {@code SwitchCase} nodes.
+	 */
+	public static final int SWITCH_CASE = getKind("SwitchCase");
+
+	/**
+	 * The kind of {@code BreakStatement} nodes.
+	 */
+	public static final int BREAK_STATEMENT = getKind("BreakStatement");
+
+	/**
+	 * The kind of {@code TypeDeclaration} nodes.
+	 */
+	public static final int TYPE_DECLARATION = getKind("TypeDeclaration");
+
+	/**
+	 * The kind of {@code FieldDeclaration} nodes.
+	 */
+	public static final int FIELD_DECLARATION = getKind("FieldDeclaration");
+
+	/**
+	 * The kind of {@code MethodDeclaration} nodes.
+	 */
+	public static final int METHOD_DECLARATION = getKind("MethodDeclaration");
+
+	/**
+	 * The kind of {@code SingleVariableDeclaration} nodes.
+	 */
+	public static final int SINGLE_VARIABLE_DECLARATION = getKind("SingleVariableDeclaration");
+
+	/**
+	 * The kind of {@code VariableDeclarationFragment} nodes.
+	 */
+	public static final int VARIABLE_DECLARATION_FRAGMENT = getKind("VariableDeclarationFragment");
+
+	/**
+	 * The kind of {@code SimpleName} nodes.
+	 */
+	public static final int SIMPLE_NAME = getKind("SimpleName");
+
+	/**
+	 * The kind of {@code QualifiedName} nodes.
+	 */
+	public static final int QUALIFIED_NAME = getKind("QualifiedName");
+
+	/**
+	 * The kind of {@code SimpleType} nodes.
+	 */
+	public static final int SIMPLE_TYPE = getKind("SimpleType");
+
+	/**
+	 * The kind of {@code PrimitiveType} nodes.
+	 */
+	public static final int PRIMITIVE_TYPE = getKind("PrimitiveType");
+
+	/**
+	 * The kind of {@code ArrayType} nodes.
+	 */
+	public static final int ARRAY_TYPE = getKind("ArrayType");
+
+	/**
+	 * The kind of {@code ParameterizedType} nodes.
+	 */
+	public static final int PARAMETERIZED_TYPE = getKind("ParameterizedType");
+
+	/**
+	 * The kind of {@code Assignment} nodes.
+	 */
+	public static final int ASSIGNMENT = getKind("Assignment");
+
+	/**
+	 * The kind of {@code ClassInstanceCreation} nodes.
+	 */
+	public static final int CLASS_INSTANCE_CREATION = getKind("ClassInstanceCreation");
+
+	/**
+	 * The kind of {@code MethodInvocation} nodes.
+	 */
+	public static final int METHOD_INVOCATION = getKind("MethodInvocation");
+
+	/**
+	 * The kind of {@code SuperMethodInvocation} nodes.
+	 */
+	public static final int SUPER_METHOD_INVOCATION = getKind("SuperMethodInvocation");
+
+	/**
+	 * The kind of {@code CastExpression} nodes.
+	 */
+	public static final int CAST_EXPRESSION = getKind("CastExpression");
+
+	/**
+	 * The kind of {@code Javadoc} nodes.
+	 */
+	public static final int JAVADOC = getKind("Javadoc");
+
+	/**
+	 * The kind of {@code Modifier} nodes.
+	 */
+	public static final int MODIFIER = getKind("Modifier");
+
+	/**
+	 * The kind of {@code Dimension} nodes.
+	 */
+	public static final int DIMENSION = getKind("Dimension");
+
+	/**
+	 * The kind of {@code ImportDeclaration} nodes.
+	 */
+	public static final int IMPORT_DECLARATION = getKind("ImportDeclaration");
+
+	/**
+	 * The kind of {@code PackageDeclaration} nodes.
+	 */
+	public static final int PACKAGE_DECLARATION = getKind("PackageDeclaration");
+
+	/**
+	 * The kind of {@code BooleanLiteral} nodes.
+	 */
+	public static final int BOOLEAN_LITERAL = getKind("BooleanLiteral");
+
+	/**
+	 * The kind of {@code StringLiteral} nodes.
+	 */
+	public static final int STRING_LITERAL = getKind("StringLiteral");
+
+	/**
+	 * The kind of {@code NumberLiteral} nodes.
+	 */
+	public static final int NUMBER_LITERAL = getKind("NumberLiteral");
+
+	/**
+	 * The kind of {@code CharacterLiteral} nodes.
+	 */
+	public static final int CHARACTER_LITERAL = getKind("CharacterLiteral");
+
+	/**
+	 * Returns the code of the kind with the given name, adding it if it does not exist.
+	 * 
+	 * @param name the name of the kind.
+	 * @return the code of the kind.
+	 */
+	public static int getKind(String name) {
+		Integer kind = kinds.get(name);
+		if (kind != null)
+			return kind;
+		synchronized (kinds) {
+			kind = kinds.get(name);
+			if (kind == null) {
+				String[] newNames = Arrays.copyOf(names, names.length + 1);
+				kind = names.length;
+				newNames[kind] = name;
+				names = newNames;
+				table = createTable(newNames);
+				kinds.put(name, kind);
+			}
+			return kind;
+		}
+	}
+
+	/**
+	 * Returns the code of the kind whose name is the part of the given string between the given indices, adding it if
+	 * it does not exist. No string is created for the name unless the kind is added.
+	 * 
+	 * @param content the string that contains the name of the kind.
+	 * @param start the index of the first character of the name.
+	 * @param end the index after the last character of the name.
+	 * @return the code of the kind.
+	 */
+	public static int getKind(String content, int start, int end) {
+		int kind = findKind(content, start, end);
+		return kind != -1 ? kind : getKind(content.substring(start, end));
+	}
+
+	/**
+	 * Returns the code of the kind whose name is the part of the given string between the given indices, without
+	 * adding it if it does not exist.
+	 * 
+	 * @param content the string that contains the name of the kind.
+	 * @param start the index of the first character of the name.
+	 * @param end the index after the last character of the name.
+	 * @return the code of the kind, or {@code -1} if there is no kind with the given name.
+	 */
+	public static int findKind(String content, int start, int end) {
+		int[] table = XMLNodeKinds.table;
+		String[] names = XMLNodeKinds.names;
+		int mask = table.length - 1;
+		for (int i = hash(content, start, end) & mask; table[i] != 0; i = (i + 1) & mask) {
+			String name = names[table[i] - 1];
+			if (name.length() == end - start && content.regionMatches(start, name, 0, name.length()))
+				return table[i] - 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Creates the hash table of the given names, which is at most half full.
+	 * 
+	 * @param names the names of the kinds given their codes.
+	 * @return the hash table of the codes of the kinds.
+	 */
+	private static int[] createTable(String[] names) {
+		int capacity = 16;
+		while (capacity < 2 * names.length)
+			capacity *= 2;
+		int[] table = new int[capacity];
+		for (int kind = 0; kind < names.length; kind++) {
+			int i = hash(names[kind], 0, names[kind].length()) & (capacity - 1);
+			while (table[i] != 0)
+				i = (i + 1) & (capacity - 1);
+			table[i] = kind + 1;
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the hash of the part of the given string between the given indices.
+	 * 
+	 * @param content the string that contains the name of a kind.
+	 * @param start the index of the first character of the name.
+	 * @param end the index after the last character of the name.
+	 * @return the hash of the name.
+	 */
+	private static int hash(String content, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++)
+			hash = 31 * hash + content.charAt(i);
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the code of the kind with the given name, without adding it if it does not exist.
+	 * 
+	 * @param name the name of the kind.
+	 * @return the code of the kind, or {@code -1} if there is no kind with the given name.
+	 */
+	public static int findKind(String name) {
+		Integer kind = kinds.get(name);
+		return kind != null ? kind : -1;
+	}
+
+	/**
+	 * Returns the name of the kind with the given code.
+	 * 
+	 * @param kind the code of the kind.
+	 * @return the name of the kind.
+	 */
+	public static String getName(int kind) {
+		return names[kind];
+	}
+
+}
@@ -0,0 +1,1117 @@
+package xmlhelpers;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Class that represents an XML tree in a compact form. In contrast to {@link XMLDocument}, the nodes of this tree are
+ * not objects; each node is an integer id and its kind, its parent, its children and its siblings are kept in
+ * primitive arrays, while the text of all text nodes is kept in a single character buffer. The functions of this class
+ * follow the ones of {@link XMLNode}, receiving the id of the node as their first argument. Nodes that are created or
+ * removed are kept in the tree detached (i.e. without a parent), as done for the nodes of a document.
+ * 
+ * @author themis
+ */
+public class XMLTree {
+
+	/**
+	 * The id that denotes the absence of a node (e.g. the parent of a detached node).
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * The id of the document node, which is the root of the tree.
+	 */
+	public static final int ROOT = 0;
+
+	/**
+	 * The initial number of nodes that fit in a tree.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * The initial number of characters that fit in the text buffer of a tree.
+	 */
+	private static final int INITIAL_TEXT_CAPACITY = 256;
+
+	/**
+	 * The maximum number of nodes that fit in a tree after it is cleared. Trees that grew beyond it are shrunk when
+	 * cleared, so that a tree that is reused does not keep the memory of the largest document it has held.
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+	/**
+	 * The maximum number of characters that fit in the text buffer of a tree after it is cleared.
+	 */
+	private static final int MAX_RETAINED_TEXT_CAPACITY = 1 << 20;
+
+	/**
+	 * The number of nodes of this tree.
+	 */
+	private int size;
+
+	/**
+	 * The kinds of the nodes, as given by {@link XMLNodeKinds}.
+	 */
+	private int[] kinds;
+
+	/**
+	 * The parents of the nodes.
+	 */
+	private int[] parents;
+
+	/**
+	 * The first children of the nodes.
+	 */
+	private int[] firstChildren;
+
+	/**
+	 * The last children of the nodes.
+	 */
+	private int[] lastChildren;
+
+	/**
+	 * The next siblings of the nodes.
+	 */
+	private int[] nextSiblings;
+
+	/**
+	 * The previous siblings of the nodes.
+	 */
+	private int[] previousSiblings;
+
+	/**
+	 * The start of the text of each text node in the text buffer.
+	 */
+	private int[] textStarts;
+
+	/**
+	 * The length of the text of each text node.
+	 */
+	private int[] textLengths;
+
+	/**
+	 * The buffer holding the text of all text nodes.
+	 */
+	private char[] text;
+
+	/**
+	 * The number of characters used in the text buffer.
+	 */
+	private int textSize;
+
+	/**
+	 * Initializes this class as an empty tree, which contains only the document node.
+	 */
+	public XMLTree() {
+		allocateNodes();
+		text = new char[INITIAL_TEXT_CAPACITY];
+		newNode(XMLNodeKinds.DOCUMENT);
+	}
+
+	/**
+	 * Allocates the arrays of the nodes of this tree using the initial capacity.
+	 */
+	private void allocateNodes() {
+		kinds = new int[INITIAL_CAPACITY];
+		parents = new int[INITIAL_CAPACITY];
+		firstChildren = new int[INITIAL_CAPACITY];
+		lastChildren = new int[INITIAL_CAPACITY];
+		nextSiblings = new int[INITIAL_CAPACITY];
+		previousSiblings = new int[INITIAL_CAPACITY];
+		textStarts = new int[INITIAL_CAPACITY];
+		textLengths = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Removes all nodes of this tree except for the document node, so that the tree can be reused. The capacity of the
+	 * tree is kept, so filling it again does not allocate any memory unless the new nodes do not fit. However, if the
+	 * tree has grown beyond {@link #MAX_RETAINED_CAPACITY} nodes or {@link #MAX_RETAINED_TEXT_CAPACITY} characters,
+	 * its capacity is reset, so that a single large document does not keep its memory for the lifetime of the tree.
+	 */
+	public void clear() {
+		if (kinds.length > MAX_RETAINED_CAPACITY)
+			allocateNodes();
+		if (text.length > MAX_RETAINED_TEXT_CAPACITY)
+			text = new char[INITIAL_TEXT_CAPACITY];
+		size = 0;
+		textSize = 0;
+		newNode(XMLNodeKinds.DOCUMENT);
+	}
+
+	/**
+	 * Initializes this class given the content of an XML document as a string, which is read in a single pass. While
+	 * reading, all newlines and spaces are removed from the text of the document and all nodes with the given names
+	 * are omitted along with their children, so that the tree is the same as the one of the document that results
+	 * from removing the whitespace from the content and then calling {@link XMLDocument#removeXMLNodes}.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param nodesToBeRemoved the names of the XML nodes to be removed.
+	 */
+	public XMLTree(String content, Set<String> nodesToBeRemoved) {
+		this();
+		read(content, nodesToBeRemoved, ROOT);
+	}
+
+	/**
+	 * Reads the content of an XML document given as a string in a single pass, appending its nodes to the given node
+	 * of this tree. The content may also be a fragment of a document, i.e. it may have more than one top-level
+	 * element. While reading, all newlines and spaces are removed from the text of the document and all nodes with
+	 * the given names are omitted along with their children. The content is scanned directly instead of using a
+	 * parser, so that reading does not allocate any memory apart from growing the tree. Comments, processing
+	 * instructions, document type declarations and attributes are skipped.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param nodesToBeRemoved the names of the XML nodes to be removed.
+	 * @param node the node to which the nodes of the document are appended.
+	 */
+	public void read(String content, Set<String> nodesToBeRemoved, int node) {
+		try {
+			scan(content, nodesToBeRemoved, node);
+		} catch (XMLStreamException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Scans the content of an XML document, appending its nodes to the given node of this tree.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param nodesToBeRemoved the names of the XML nodes to be removed.
+	 * @param node the node to which the nodes of the document are appended.
+	 * @throws XMLStreamException if the content is not well-formed.
+	 */
+	private void scan(String content, Set<String> nodesToBeRemoved, int node) throws XMLStreamException {
+		int parent = node;
+		int textStart = textSize;
+		int removedNodeDepth = 0;
+		int i = 0;
+		while (i < content.length()) {
+			if (content.charAt(i) != '<') {
+				int end = content.indexOf('<', i);
+				if (end == -1)
+					end = content.length();
+				if (removedNodeDepth == 0)
+					appendText(content, i, end);
+				i = end;
+			} else if (content.startsWith("<!--", i)) {
+				i = skipPast(content, i, "-->");
+			} else if (content.startsWith("<![CDATA[", i)) {
+				int end = content.indexOf("]]>", i);
+				if (end == -1)
+					throw new XMLStreamException("Unterminated CDATA section at " + i);
+				if (removedNodeDepth == 0)
+					appendCharacters(content, i + 9, end);
+				i = end + 3;
+			} else if (content.startsWith("<?", i)) {
+				i = skipPast(content, i, "?>");
+			} else if (content.startsWith("<!", i)) {
+				i = skipPast(content, i, ">");
+			} else if (content.startsWith("</", i)) {
+				int nameEnd = getNameEnd(content, i + 2);
+				if (removedNodeDepth > 0) {
+					removedNodeDepth--;
+				} else {
+					String name = XMLNodeKinds.getName(kinds[parent]);
+					if (parent == node || name.length() != nameEnd - i - 2
+							|| !content.regionMatches(i + 2, name, 0, name.length()))
+						throw new XMLStreamException("Unexpected end tag at " + i);
+					addText(parent, textStart);
+					parent = parents[parent];
+					textStart = textSize;
+				}
+				i = getTagEnd(content, nameEnd) + 1;
+			} else {
+				int nameEnd = getNameEnd(content, i + 1);
+				int tagEnd = getTagEnd(content, nameEnd);
+				boolean isEmpty = content.charAt(tagEnd - 1) == '/';
+				if (removedNodeDepth > 0) {
+					if (!isEmpty)
+						removedNodeDepth++;
+				} else {
+					int kind = XMLNodeKinds.getKind(content, i + 1, nameEnd);
+					if (nodesToBeRemoved.contains(XMLNodeKinds.getName(kind))) {
+						if (!isEmpty)
+							removedNodeDepth++;
+					} else {
+						addText(parent, textStart);
+						int child = addChildNode(parent, kind);
+						if (!isEmpty)
+							parent = child;
+						textStart = textSize;
+					}
+				}
+				i = tagEnd + 1;
+			}
+		}
+		if (parent != node || removedNodeDepth > 0)
+			throw new XMLStreamException("Unexpected end of document");
+		addText(parent, textStart);
+	}
+
+	/**
+	 * Returns the index after the given delimiter, searching from the given index.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param start the index where the search starts.
+	 * @param delimiter the delimiter that is searched for.
+	 * @return the index after the delimiter.
+	 * @throws XMLStreamException if the delimiter is not found.
+	 */
+	private static int skipPast(String content, int start, String delimiter) throws XMLStreamException {
+		int end = content.indexOf(delimiter, start);
+		if (end == -1)
+			throw new XMLStreamException("Missing " + delimiter + " after " + start);
+		return end + delimiter.length();
+	}
+
+	/**
+	 * Returns the index after the name of a tag, given the index of its first character.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param start the index of the first character of the name.
+	 * @return the index after the last character of the name.
+	 * @throws XMLStreamException if the name is empty.
+	 */
+	private static int getNameEnd(String content, int start) throws XMLStreamException {
+		int end = start;
+		while (end < content.length() && !Character.isWhitespace(content.charAt(end)) && content.charAt(end) != '/'
+				&& content.charAt(end) != '>')
+			end++;
+		if (end == start)
+			throw new XMLStreamException("Missing tag name at " + start);
+		return end;
+	}
+
+	/**
+	 * Returns the index of the {@code >} that closes a tag, skipping any attributes, whose values may contain it.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param start the index after the name of the tag.
+	 * @return the index of the end of the tag.
+	 * @throws XMLStreamException if the tag is not closed.
+	 */
+	private static int getTagEnd(String content, int start) throws XMLStreamException {
+		for (int i = start; i < content.length(); i++) {
+			char c = content.charAt(i);
+			if (c == '>')
+				return i;
+			if (c == '"' || c == '\'') {
+				i = content.indexOf(c, i + 1);
+				if (i == -1)
+					break;
+			}
+		}
+		throw new XMLStreamException("Unterminated tag at " + start);
+	}
+
+	/**
+	 * Appends the text of the given part of the content to the text buffer, replacing entity and character references
+	 * and removing all newlines and spaces.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param start the index of the first character of the text.
+	 * @param end the index after the last character of the text.
+	 * @throws XMLStreamException if a reference is not well-formed.
+	 */
+	private void appendText(String content, int start, int end) throws XMLStreamException {
+		ensureTextCapacity(end - start);
+		for (int i = start; i < end; i++) {
+			char c = content.charAt(i);
+			if (c == '&') {
+				int referenceEnd = content.indexOf(';', i);
+				if (referenceEnd == -1 || referenceEnd >= end)
+					throw new XMLStreamException("Unterminated reference at " + i);
+				int codePoint = getReference(content, i + 1, referenceEnd);
+				if (Character.isSupplementaryCodePoint(codePoint)) {
+					text[textSize++] = Character.highSurrogate(codePoint);
+					text[textSize++] = Character.lowSurrogate(codePoint);
+				} else if (codePoint != '\n' && codePoint != '\r' && codePoint != ' ') {
+					text[textSize++] = (char) codePoint;
+				}
+				i = referenceEnd;
+			} else if (c != '\n' && c != '\r' && c != ' ') {
+				text[textSize++] = c;
+			}
+		}
+	}
+
+	/**
+	 * Appends the characters of the given part of the content to the text buffer as they are, removing all newlines
+	 * and spaces.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param start the index of the first character.
+	 * @param end the index after the last character.
+	 */
+	private void appendCharacters(String content, int start, int end) {
+		ensureTextCapacity(end - start);
+		for (int i = start; i < end; i++) {
+			char c = content.charAt(i);
+			if (c != '\n' && c != '\r' && c != ' ')
+				text[textSize++] = c;
+		}
+	}
+
+	/**
+	 * Returns the character of an entity or character reference, given the part of the content between its {@code &}
+	 * and its {@code ;}.
+	 * 
+	 * @param content the content of an XML document.
+	 * @param start the index after the {@code &} of the reference.
+	 * @param end the index of the {@code ;} of the reference.
+	 * @return the code point of the character of the reference.
+	 * @throws XMLStreamException if the reference is not one of the predefined entities or a character reference.
+	 */
+	private static int getReference(String content, int start, int end) throws XMLStreamException {
+		int length = end - start;
+		if (length > 1 && content.charAt(start) == '#') {
+			int radix = content.charAt(start + 1) == 'x' ? 16 : 10;
+			int codePoint = 0;
+			for (int i = radix == 16 ? start + 2 : start + 1; i < end; i++) {
+				int digit = Character.digit(content.charAt(i), radix);
+				if (digit == -1 || codePoint > Character.MAX_CODE_POINT)
+					throw new XMLStreamException("Invalid character reference at " + start);
+				codePoint = radix * codePoint + digit;
+			}
+			if (!Character.isValidCodePoint(codePoint))
+				throw new XMLStreamException("Invalid character reference at " + start);
+			return codePoint;
+		} else if (length == 2 && content.startsWith("lt", start)) {
+			return '<';
+		} else if (length == 2 && content.startsWith("gt", start)) {
+			return '>';
+		} else if (length == 3 && content.startsWith("amp", start)) {
+			return '&';
+		} else if (length == 4 && content.startsWith("quot", start)) {
+			return '"';
+		} else if (length == 4 && content.startsWith("apos", start)) {
+			return '\'';
+		}
+		throw new XMLStreamException("Unknown entity reference at " + start);
+	}
+
+	/**
+	 * Appends the text that is written in the buffer after the given start to a node as a text node. Nothing is
+	 * appended if there is no such text.
+	 * 
+	 * @param node the node to which the text is appended.
+	 * @param textStart the start of the text in the buffer.
+	 */
+	private void addText(int node, int textStart) {
+		if (textSize > textStart) {
+			int textNode = newNode(XMLNodeKinds.TEXT);
+			textStarts[textNode] = textStart;
+			textLengths[textNode] = textSize - textStart;
+			appendChild(node, textNode);
+		}
+	}
+
+	/**
+	 * Makes sure that the text buffer can hold the given number of additional characters.
+	 * 
+	 * @param length the number of characters to be added to the buffer.
+	 */
+	private void ensureTextCapacity(int length) {
+		if (textSize + length > text.length)
+			text = Arrays.copyOf(text, Math.max(2 * text.length, textSize + length));
+	}
+
+	/**
+	 * Creates a new detached node of the given kind.
+	 * 
+	 * @param kind the kind of the new node.
+	 * @return the id of the new node.
+	 */
+	private int newNode(int kind) {
+		if (size == kinds.length) {
+			int capacity = 2 * size;
+			kinds = Arrays.copyOf(kinds, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			firstChildren = Arrays.copyOf(firstChildren, capacity);
+			lastChildren = Arrays.copyOf(lastChildren, capacity);
+			nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+			previousSiblings = Arrays.copyOf(previousSiblings, capacity);
+			textStarts = Arrays.copyOf(textStarts, capacity);
+			textLengths = Arrays.copyOf(textLengths, capacity);
+		}
+		int node = size++;
+		kinds[node] = kind;
+		parents[node] = NONE;
+		firstChildren[node] = NONE;
+		lastChildren[node] = NONE;
+		nextSiblings[node] = NONE;
+		previousSiblings[node] = NONE;
+		textStarts[node] = 0;
+		textLengths[node] = 0;
+		return node;
+	}
+
+	/**
+	 * Detaches a node from its parent, if it has one.
+	 * 
+	 * @param node the node to be detached.
+	 */
+	private void detach(int node) {
+		int parent = parents[node];
+		if (parent == NONE)
+			return;
+		if (previousSiblings[node] != NONE)
+			nextSiblings[previousSiblings[node]] = nextSiblings[node];
+		else
+			firstChildren[parent] = nextSiblings[node];
+		if (nextSiblings[node] != NONE)
+			previousSiblings[nextSiblings[node]] = previousSiblings[node];
+		else
+			lastChildren[parent] = previousSiblings[node];
+		parents[node] = NONE;
+		nextSiblings[node] = NONE;
+		previousSiblings[node] = NONE;
+	}
+
+	/**
+	 * Moves a node to be the last child of the given parent node.
+	 * 
+	 * @param parent the new parent node.
+	 * @param child the node to be moved.
+	 */
+	private void appendChild(int parent, int child) {
+		detach(child);
+		parents[child] = parent;
+		previousSiblings[child] = lastChildren[parent];
+		if (lastChildren[parent] != NONE)
+			nextSiblings[lastChildren[parent]] = child;
+		else
+			firstChildren[parent] = child;
+		lastChildren[parent] = child;
+	}
+
+	/**
+	 * Moves a node to be the child of the given parent node before the given reference child node.
+	 * 
+	 * @param parent the new parent node.
+	 * @param child the node to be moved.
+	 * @param reference the child of the parent node before which the node is moved.
+	 */
+	private void insertBefore(int parent, int child, int reference) {
+		detach(child);
+		parents[child] = parent;
+		nextSiblings[child] = reference;
+		previousSiblings[child] = previousSiblings[reference];
+		if (previousSiblings[reference] != NONE)
+			nextSiblings[previousSiblings[reference]] = child;
+		else
+			firstChildren[parent] = child;
+		previousSiblings[reference] = child;
+	}
+
+	/**
+	 * Creates a detached copy of a node and all of its children. The copied text nodes share their text with the
+	 * original ones.
+	 * 
+	 * @param node the node to be copied.
+	 * @return the id of the copy.
+	 */
+	private int copyNode(int node) {
+		int copy = newNode(kinds[node]);
+		textStarts[copy] = textStarts[node];
+		textLengths[copy] = textLengths[node];
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child])
+			appendChild(copy, copyNode(child));
+		return copy;
+	}
+
+	/**
+	 * Creates a new detached node of this tree with the given name.
+	 * 
+	 * @param name the name of the new node.
+	 * @return the id of the new node.
+	 */
+	public int createNode(String name) {
+		return newNode(XMLNodeKinds.getKind(name));
+	}
+
+	/**
+	 * Creates a new detached node of this tree of the given kind.
+	 * 
+	 * @param kind the kind of the new node, as given by {@link XMLNodeKinds}.
+	 * @return the id of the new node.
+	 */
+	public int createNode(int kind) {
+		return newNode(kind);
+	}
+
+	/**
+	 * Adds a new node with the given name as the last child of a node.
+	 * 
+	 * @param node the node to which the new node is added.
+	 * @param name the name of the new node.
+	 * @return the id of the new node.
+	 */
+	public int addChildNode(int node, String name) {
+		return addChildNode(node, XMLNodeKinds.getKind(name));
+	}
+
+	/**
+	 * Adds a new node of the given kind as the last child of a node.
+	 * 
+	 * @param node the node to which the new node is added.
+	 * @param kind the kind of the new node, as given by {@link XMLNodeKinds}.
+	 * @return the id of the new node.
+	 */
+	public int addChildNode(int node, int kind) {
+		int child = newNode(kind);
+		appendChild(node, child);
+		return child;
+	}
+
+	/**
+	 * Adds a new text node with the given text as the last child of a node.
+	 * 
+	 * @param node the node to which the text node is added.
+	 * @param content the text of the new text node.
+	 * @return the id of the new text node.
+	 */
+	public int addTextNode(int node, CharSequence content) {
+		int textStart = textSize;
+		ensureTextCapacity(content.length());
+		for (int i = 0; i < content.length(); i++)
+			text[textSize++] = content.charAt(i);
+		int textNode = newNode(XMLNodeKinds.TEXT);
+		textStarts[textNode] = textStart;
+		textLengths[textNode] = content.length();
+		appendChild(node, textNode);
+		return textNode;
+	}
+
+	/**
+	 * Returns the number of nodes of this tree, including any detached nodes.
+	 * 
+	 * @return the number of nodes of this tree.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns all nodes of the tree with the given name, in document order.
+	 * 
+	 * @param name the given name.
+	 * @return a list of the nodes with the given name.
+	 */
+	public XMLTreeNodeList getElementsByTagName(String name) {
+		return getElementsByKind(XMLNodeKinds.findKind(name));
+	}
+
+	/**
+	 * Returns all nodes of the tree of the given kind, in document order.
+	 * 
+	 * @param kind the given kind, as given by {@link XMLNodeKinds}.
+	 * @return a list of the nodes of the given kind.
+	 */
+	public XMLTreeNodeList getElementsByKind(int kind) {
+		XMLTreeNodeList nodes = new XMLTreeNodeList();
+		int node = firstChildren[ROOT];
+		while (node != NONE) {
+			if (kinds[node] == kind)
+				nodes.add(node);
+			if (firstChildren[node] != NONE)
+				node = firstChildren[node];
+			else {
+				while (node != ROOT && nextSiblings[node] == NONE)
+					node = parents[node];
+				node = node != ROOT ? nextSiblings[node] : NONE;
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Returns the kind of a node, as given by {@link XMLNodeKinds}.
+	 * 
+	 * @param node the id of the node.
+	 * @return the kind of the node.
+	 */
+	public int getKind(int node) {
+		return kinds[node];
+	}
+
+	/**
+	 * Returns the name of a node.
+	 * 
+	 * @param node the id of the node.
+	 * @return the name of the node.
+	 */
+	public String getName(int node) {
+		return XMLNodeKinds.getName(kinds[node]);
+	}
+
+	/**
+	 * Returns a list of the child nodes of a node by name.
+	 * 
+	 * @param node the id of the node.
+	 * @param name the name of the child nodes that are returned.
+	 * @return a list of nodes with the given name.
+	 */
+	public XMLTreeNodeList getChildNodesByName(int node, String name) {
+		return getChildNodesByKind(node, XMLNodeKinds.findKind(name));
+	}
+
+	/**
+	 * Returns a list of the child nodes of a node by kind.
+	 * 
+	 * @param node the id of the node.
+	 * @param kind the kind of the child nodes that are returned, as given by {@link XMLNodeKinds}.
+	 * @return a list of nodes of the given kind.
+	 */
+	public XMLTreeNodeList getChildNodesByKind(int node, int kind) {
+		XMLTreeNodeList nodes = new XMLTreeNodeList();
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			if (kinds[child] == kind)
+				nodes.add(child);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Returns the first child node of a node by name.
+	 * 
+	 * @param node the id of the node.
+	 * @param name the name of the returned child node.
+	 * @return the first child node with the given name, or {@link #NONE} if there is no such node.
+	 */
+	public int getChildNodeByName(int node, String name) {
+		return getChildNodeByKind(node, XMLNodeKinds.findKind(name));
+	}
+
+	/**
+	 * Returns the first child node of a node by kind.
+	 * 
+	 * @param node the id of the node.
+	 * @param kind the kind of the returned child node, as given by {@link XMLNodeKinds}.
+	 * @return the first child node of the given kind, or {@link #NONE} if there is no such node.
+	 */
+	public int getChildNodeByKind(int node, int kind) {
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			if (kinds[child] == kind)
+				return child;
+		}
+		return NONE;
+	}
+
+	/**
+	 * Appends the text of all text nodes under a node to the given builder.
+	 * 
+	 * @param node the id of the node.
+	 * @param content the builder where the text is appended.
+	 */
+	private void appendTextContent(int node, StringBuilder content) {
+		if (kinds[node] == XMLNodeKinds.TEXT)
+			content.append(text, textStarts[node], textLengths[node]);
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child])
+			appendTextContent(child, content);
+	}
+
+	/**
+	 * Returns the content of a node as a string, i.e. the text of all text nodes under the node.
+	 * 
+	 * @param node the id of the node.
+	 * @return the text content of the node.
+	 */
+	public String getTextContent(int node) {
+		if (kinds[node] == XMLNodeKinds.TEXT)
+			return new String(text, textStarts[node], textLengths[node]);
+		int child = firstChildren[node];
+		if (child == NONE)
+			return "";
+		if (nextSiblings[child] == NONE && firstChildren[child] == NONE)
+			return getTextContent(child);
+		StringBuilder content = new StringBuilder();
+		appendTextContent(node, content);
+		return content.toString();
+	}
+
+	/**
+	 * Denotes whether the text content of a node starts with the given text.
+	 * 
+	 * @param node the id of the node.
+	 * @param prefix the text to check if it is the start of the contents of the node.
+	 * @return {@code true} if the the text content of the node starts with the given text, or {@code false} otherwise.
+	 */
+	public boolean textContentStartsWith(int node, String prefix) {
+		return getTextContent(node).startsWith(prefix);
+	}
+
+	/**
+	 * Checks if a node has more than one children.
+	 * 
+	 * @param node the id of the node.
+	 * @return {@code true} if the node has more than one children, or {@code false} otherwise.
+	 */
+	public boolean hasMoreThanOneChildren(int node) {
+		return firstChildren[node] != lastChildren[node];
+	}
+
+	/**
+	 * Finds all child nodes of the given node that have the given kinds resursively.
+	 * 
+	 * @param node the node of which the child nodes are searched.
+	 * @param kinds the kinds for which the child nodes are found.
+	 * @param deep {@code true} if the search continues under the nodes that are found, or {@code false} otherwise.
+	 * @param nodes the child nodes that are found.
+	 */
+	private void getChildNodesRecursivelyByKind(int node, XMLNodeKindSet kinds, boolean deep, XMLTreeNodeList nodes) {
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			if (kinds.contains(this.kinds[child])) {
+				nodes.add(child);
+				if (deep)
+					getChildNodesRecursivelyByKind(child, kinds, deep, nodes);
+			} else
+				getChildNodesRecursivelyByKind(child, kinds, deep, nodes);
+		}
+	}
+
+	/**
+	 * Returns the set of the kinds of the given names.
+	 * 
+	 * @param names the names of the kinds.
+	 * @return a set with the kind of each name.
+	 */
+	private static XMLNodeKindSet findKinds(Iterable<String> names) {
+		XMLNodeKindSet kinds = new XMLNodeKindSet();
+		for (String name : names) {
+			if (XMLNodeKinds.findKind(name) >= 0)
+				kinds.add(XMLNodeKinds.findKind(name));
+		}
+		return kinds;
+	}
+
+	/**
+	 * Returns all child nodes of a node that have the given names resursively.
+	 * 
+	 * @param node the id of the node.
+	 * @param names the names for which the child nodes are found.
+	 * @return a list of nodes with the given names.
+	 */
+	public XMLTreeNodeList getChildNodesRecursivelyByName(int node, Set<String> names) {
+		return getChildNodesRecursivelyByKind(node, findKinds(names));
+	}
+
+	/**
+	 * Returns all child nodes of a node that have the given names resursively.
+	 * 
+	 * @param node the id of the node.
+	 * @param names the names for which the child nodes are found.
+	 * @return a list of nodes with the given names.
+	 */
+	public XMLTreeNodeList getChildNodesRecursivelyByName(int node, String... names) {
+		return getChildNodesRecursivelyByKind(node, findKinds(Arrays.asList(names)));
+	}
+
+	/**
+	 * Returns all child nodes of a node that have the given kinds resursively.
+	 * 
+	 * @param node the id of the node.
+	 * @param kinds the kinds for which the child nodes are found.
+	 * @return a list of nodes of the given kinds.
+	 */
+	public XMLTreeNodeList getChildNodesRecursivelyByKind(int node, XMLNodeKindSet kinds) {
+		XMLTreeNodeList nodes = new XMLTreeNodeList();
+		getChildNodesRecursivelyByKind(node, kinds, false, nodes);
+		return nodes;
+	}
+
+	/**
+	 * Returns all deep child nodes of a node that have the given names resursively.
+	 * 
+	 * @param node the id of the node.
+	 * @param names the names for which the child nodes are found.
+	 * @return a list of nodes with the given names.
+	 */
+	public XMLTreeNodeList getDeepChildNodesRecursivelyByName(int node, Set<String> names) {
+		return getDeepChildNodesRecursivelyByKind(node, findKinds(names));
+	}
+
+	/**
+	 * Returns all deep child nodes of a node that have the given names resursively.
+	 * 
+	 * @param node the id of the node.
+	 * @param names the names for which the child nodes are found.
+	 * @return a list of nodes with the given names.
+	 */
+	public XMLTreeNodeList getDeepChildNodesRecursivelyByName(int node, String... names) {
+		return getDeepChildNodesRecursivelyByKind(node, findKinds(Arrays.asList(names)));
+	}
+
+	/**
+	 * Returns all deep child nodes of a node that have the given kinds resursively.
+	 * 
+	 * @param node the id of the node.
+	 * @param kinds the kinds for which the child nodes are found.
+	 * @return a list of nodes of the given kinds.
+	 */
+	public XMLTreeNodeList getDeepChildNodesRecursivelyByKind(int node, XMLNodeKindSet kinds) {
+		XMLTreeNodeList nodes = new XMLTreeNodeList();
+		getChildNodesRecursivelyByKind(node, kinds, true, nodes);
+		return nodes;
+	}
+
+	/**
+	 * Checks if a node has the given name.
+	 * 
+	 * @param node the id of the node.
+	 * @param name the name of the node to be checked.
+	 * @return {@code true} if the node has the given name, or {@code false} otherwise.
+	 */
+	public boolean hasName(int node, String name) {
+		return kinds[node] == XMLNodeKinds.findKind(name);
+	}
+
+	/**
+	 * Checks if the name of a node is contained in the given set.
+	 * 
+	 * @param node the id of the node.
+	 * @param names a set of names to be checked whether it contains the name of the node.
+	 * @return {@code true} if the name of the node is contained in the given set, or {@code false} otherwise.
+	 */
+	public boolean hasName(int node, Set<String> names) {
+		return names.contains(XMLNodeKinds.getName(kinds[node]));
+	}
+
+	/**
+	 * Checks if the name of a node is contained in the given strings.
+	 * 
+	 * @param node the id of the node.
+	 * @param names a set of strings to be checked whether they include the name of the node.
+	 * @return {@code true} if the name of the node is contained in the given strings, or {@code false} otherwise.
+	 */
+	public boolean hasName(int node, String... names) {
+		for (String name : names) {
+			if (kinds[node] == XMLNodeKinds.findKind(name))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a node is of the given kind.
+	 * 
+	 * @param node the id of the node.
+	 * @param kind the kind to be checked, as given by {@link XMLNodeKinds}.
+	 * @return {@code true} if the node is of the given kind, or {@code false} otherwise.
+	 */
+	public boolean hasKind(int node, int kind) {
+		return kinds[node] == kind;
+	}
+
+	/**
+	 * Checks if the kind of a node is contained in the given set.
+	 * 
+	 * @param node the id of the node.
+	 * @param kinds a set of kinds to be checked whether it contains the kind of the node.
+	 * @return {@code true} if the kind of the node is contained in the given set, or {@code false} otherwise.
+	 */
+	public boolean hasKind(int node, XMLNodeKindSet kinds) {
+		return kinds.contains(this.kinds[node]);
+	}
+
+	/**
+	 * Returns the child nodes of a node.
+	 * 
+	 * @param node the id of the node.
+	 * @return the child nodes of the node.
+	 */
+	public XMLTreeNodeList getChildNodes(int node) {
+		XMLTreeNodeList nodes = new XMLTreeNodeList();
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child])
+			nodes.add(child);
+		return nodes;
+	}
+
+	/**
+	 * Returns the first child node of a node.
+	 * 
+	 * @param node the id of the node.
+	 * @return the first child node of the node, or {@link #NONE} if the node has no children.
+	 */
+	public int getFirstChild(int node) {
+		return firstChildren[node];
+	}
+
+	/**
+	 * Returns the next sibling node of a node.
+	 * 
+	 * @param node the id of the node.
+	 * @return the next sibling node of the node, or {@link #NONE} if the node is the last child of its parent.
+	 */
+	public int getNextSibling(int node) {
+		return nextSiblings[node];
+	}
+
+	/**
+	 * Checks if a node is a text node.
+	 * 
+	 * @param node the id of the node.
+	 * @return {@code true} if the node is a text node, or {@code false} otherwise.
+	 */
+	public boolean isTextNode(int node) {
+		return kinds[node] == XMLNodeKinds.TEXT;
+	}
+
+	/**
+	 * Returns the parent node of a node.
+	 * 
+	 * @param node the id of the node.
+	 * @return the parent node of the node, or {@link #NONE} if the node is detached.
+	 */
+	public int getParentNode(int node) {
+		return parents[node];
+	}
+
+	/**
+	 * Replaces a node with the given new parent node, which has the node as its last child. The node is moved under
+	 * the new parent node instead of being copied.
+	 * 
+	 * @param node the id of the node.
+	 * @param newParentNode the new parent node of the node.
+	 */
+	public void insertNewParentNode(int node, int newParentNode) {
+		int oldParentNode = parents[node];
+		insertBefore(oldParentNode, newParentNode, node);
+		appendChild(newParentNode, node);
+	}
+
+	/**
+	 * Adds a copy of the given node as a new child node to a node.
+	 * 
+	 * @param node the id of the node.
+	 * @param newChildNode the node to be copied as a new child node of the node.
+	 */
+	public void addNewChildNode(int node, int newChildNode) {
+		appendChild(node, copyNode(newChildNode));
+	}
+
+	/**
+	 * Adds copies of a list of nodes as child nodes to a node.
+	 * 
+	 * @param node the id of the node.
+	 * @param newChildNodes the list of nodes to be copied as new child nodes of the node.
+	 */
+	public void addNewChildNodes(int node, XMLTreeNodeList newChildNodes) {
+		for (int i = 0; i < newChildNodes.size(); i++)
+			appendChild(node, copyNode(newChildNodes.get(i)));
+	}
+
+	/**
+	 * Removes the parent node of a node. After calling this function, the parent of the parent node becomes the new
+	 * parent node of the node, which is moved to the end of its children. The old parent node is removed if it has no
+	 * other children.
+	 * 
+	 * @param node the id of the node.
+	 */
+	public void removeParentNode(int node) {
+		int oldParentNode = parents[node];
+		int newParentNode = parents[oldParentNode];
+		appendChild(newParentNode, node);
+		if (firstChildren[oldParentNode] == NONE)
+			detach(oldParentNode);
+	}
+
+	/**
+	 * Replaces a child node of a node with a copy of another new child node. The replaced child node is detached.
+	 * 
+	 * @param node the id of the node.
+	 * @param newChild the child to be copied in the place of the current child.
+	 * @param oldChild the child that is replaced.
+	 */
+	public void replaceChild(int node, int newChild, int oldChild) {
+		insertBefore(node, copyNode(newChild), oldChild);
+		detach(oldChild);
+	}
+
+	/**
+	 * Removes and returns the given child from a node. The removed child node is detached.
+	 * 
+	 * @param node the id of the node.
+	 * @param child the child node to be removed.
+	 * @return the removed child node.
+	 */
+	public int removeChild(int node, int child) {
+		detach(child);
+		return child;
+	}
+
+	/**
+	 * Adds a copy of the given node as the first child node of a node.
+	 * 
+	 * @param node the id of the node.
+	 * @param newChildNode the node to be copied as the first child node of the node.
+	 */
+	public void addNewChildNodeInTheBeginning(int node, int newChildNode) {
+		if (firstChildren[node] != NONE)
+			insertBefore(node, copyNode(newChildNode), firstChildren[node]);
+		else
+			appendChild(node, copyNode(newChildNode));
+	}
+
+	/**
+	 * Appends the XML representation of a node to the given builder.
+	 * 
+	 * @param node the id of the node.
+	 * @param indent the indentation of the node.
+	 * @param xml the builder where the XML representation is appended.
+	 */
+	private void appendXMLString(int node, String indent, StringBuilder xml) {
+		if (kinds[node] == XMLNodeKinds.TEXT) {
+			xml.append(indent);
+			for (int i = textStarts[node]; i < textStarts[node] + textLengths[node]; i++) {
+				if (text[i] == '<')
+					xml.append("&lt;");
+				else if (text[i] == '>')
+					xml.append("&gt;");
+				else if (text[i] == '&')
+					xml.append("&amp;");
+				else
+					xml.append(text[i]);
+			}
+			xml.append("\n");
+		} else if (kinds[node] == XMLNodeKinds.DOCUMENT) {
+			for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child])
+				appendXMLString(child, indent, xml);
+		} else {
+			String name = getName(node);
+			if (firstChildren[node] == NONE)
+				xml.append(indent).append("<").append(name).append("/>\n");
+			else {
+				xml.append(indent).append("<").append(name).append(">\n");
+				for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child])
+					appendXMLString(child, indent + "   ", xml);
+				xml.append(indent).append("</").append(name).append(">\n");
+			}
+		}
+	}
+
+	/**
+	 * Returns the XML representation of a node.
+	 * 
+	 * @param node the id of the node.
+	 * @return a string with the XML representation of the node.
+	 */
+	public String toXMLString(int node) {
+		StringBuilder xml = new StringBuilder();
+		appendXMLString(node, "", xml);
+		return xml.toString();
+	}
+
+	/**
+	 * Returns the XML representation of this tree.
+	 * 
+	 * @return a string with the XML representation of this tree.
+	 */
+	public String toXMLString() {
+		return toXMLString(ROOT);
+	}
+
+}
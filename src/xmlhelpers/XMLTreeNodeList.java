@@ -0,0 +1,85 @@
+package xmlhelpers;
+
+import java.util.Arrays;
+
+/**
+ * Class that represents a list of nodes of an {@link XMLTree}. The nodes are kept as their integer ids in a primitive
+ * array.
+ * 
+ * @author themis
+ */
+public class XMLTreeNodeList {
+
+	/**
+	 * The ids of the nodes of this list.
+	 */
+	private int[] nodes;
+
+	/**
+	 * The number of nodes of this list.
+	 */
+	private int size;
+
+	/**
+	 * Initializes this class as an empty list of nodes.
+	 */
+	public XMLTreeNodeList() {
+		nodes = new int[8];
+		size = 0;
+	}
+
+	/**
+	 * Adds a new node to this list.
+	 * 
+	 * @param node the id of the node to be added.
+	 */
+	public void add(int node) {
+		if (size == nodes.length)
+			nodes = Arrays.copyOf(nodes, 2 * size);
+		nodes[size++] = node;
+	}
+
+	/**
+	 * Removes and returns the last node of this list.
+	 * 
+	 * @return the id of the removed node.
+	 */
+	public int removeLast() {
+		if (size == 0)
+			throw new IndexOutOfBoundsException("Index: -1, Size: 0");
+		return nodes[--size];
+	}
+
+	/**
+	 * Returns the node at the given index of this list.
+	 * 
+	 * @param index the index of the node.
+	 * @return the id of the node.
+	 */
+	public int get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return nodes[index];
+	}
+
+	/**
+	 * Returns the number of nodes of this list.
+	 * 
+	 * @return the number of nodes of this list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Reverses the order of the nodes of this list.
+	 */
+	public void reverse() {
+		for (int i = 0, j = size - 1; i < j; i++, j--) {
+			int node = nodes[i];
+			nodes[i] = nodes[j];
+			nodes[j] = node;
+		}
+	}
+
+}
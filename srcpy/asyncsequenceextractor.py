@@ -0,0 +1,274 @@
+import json
+import base64
+import struct
+import asyncio
+from asyncio.subprocess import PIPE
+from sequenceextractor import OPTION_NAMES, check_option_names, ExtractorEndedError
+
+class AsyncSequenceExtractor(object):
+	"""
+	Class used as an asyncio binding to the SequenceExtractor library. It works like the SequenceExtractor class,
+	but the jar is executed using asyncio.create_subprocess_exec and messages are written and read without blocking
+	the event loop, so that snippets can be parsed while other coroutines perform network I/O. If the jar supports
+	the multiplexed protocol, many requests can be in flight at the same time. The number of requests in flight is
+	bounded by max_pending and every write waits for the pipe to the jar to drain, so that coroutines wait instead
+	of queueing requests without bound when the jar falls behind.
+	"""
+	def __init__(self, path_to_SequenceExtractor_jar, keep_function_call_types=False, keep_literals=False, keep_branches=True, output_tree=False, flatten_output=True, add_unique_ids=False, store_path=None, framed=True, max_pending=1000):
+		"""
+		Initializes this Sequence Extractor. The jar is not started until start_extractor is awaited, so it is
+		recommended to create instances using the create coroutine.
+
+		:param path_to_SequenceExtractor_jar: the path to the SequenceExtractor jar
+		:param keep_function_call_types: boolean denoting whether function call types should be retained.
+		:param keep_literals: boolean denoting whether literals (primitives) should be retained.
+		:param keep_branches: boolean denoting whether all branches should be kept.
+		:param output_tree: boolean denoting whether the output should be a tree or a sequence.
+		:param flatten_output: boolean denoting whether the output should be flattened.
+		:param add_unique_ids: boolean denoting whether statements should have IDs.
+		:param store_path: the directory where the extracted sequences are stored across runs, or None for no store.
+		:param framed: boolean denoting whether messages should be sent as UTF-8 frames instead of base64 lines.
+		:param max_pending: the maximum number of requests that wait for their response at the same time.
+		"""
+		self.cmd = ['java', '-cp', path_to_SequenceExtractor_jar, 'sequenceextractor.PythonBinder',
+					'true' if keep_function_call_types else 'false', 'true' if keep_literals else 'false',
+					'true' if keep_branches else 'false', 'true' if output_tree else 'false',
+					'true' if flatten_output else 'false', 'true' if add_unique_ids else 'false']
+		if store_path is not None:
+			self.cmd.append(store_path)
+		self.framing = framed
+		self.max_pending = max_pending
+
+	@classmethod
+	async def create(cls, *args, **kwargs):
+		"""
+		Creates a Sequence Extractor and starts its jar. The arguments are the same as the ones of the constructor.
+
+		:returns: the started Sequence Extractor.
+		"""
+		extractor = cls(*args, **kwargs)
+		await extractor.start_extractor()
+		return extractor
+
+	async def start_extractor(self):
+		"""
+		Starts the jar and negotiates the protocol. If the jar does not support the multiplexed protocol, the original
+		protocol is used and requests are sent one at a time.
+		"""
+		# The limit of the reader is raised so that long base64 lines can be read
+		self.proc = await asyncio.create_subprocess_exec(*self.cmd, stdin=PIPE, stdout=PIPE, limit=2 ** 26)
+		self.framed = False
+		self.pending = {}
+		self.next_id = 0
+		self.closed = asyncio.Event()
+		self.closed_normally = False
+		self.drain_lock = asyncio.Lock()
+		self.request_lock = asyncio.Lock()
+		self.slots = asyncio.Semaphore(self.max_pending)
+		line = await self.send_message("START_OF_TRANSMISSION MULTIPLEXED" + (" FRAMED" if self.framing else ""))
+		if line.startswith("START_OF_TRANSMISSION"):
+			enabled = line.split()[1:]
+			self.framed = "FRAMED" in enabled
+			self.multiplexed = "MULTIPLEXED" in enabled
+			line = "START_OF_TRANSMISSION"
+		else:
+			# Older jars treat the request of features as a snippet, so the transmission is started again
+			self.multiplexed = False
+			line = await self.send_message("START_OF_TRANSMISSION")
+		if line != "START_OF_TRANSMISSION":
+			raise RuntimeError("Error in Sequence Extractor!!")
+		if self.multiplexed:
+			self.reader = asyncio.ensure_future(self.read_responses())
+
+	async def close(self):
+		"""
+		Closes the Sequence Extractor, waiting for the requests in flight. Note that this coroutine must be awaited
+		after using the class. Otherwise, this may result to a memory leak.
+
+		:returns: boolean denoting whether the jar ended normally.
+		"""
+		if self.multiplexed:
+			if not self.closed.is_set():
+				try:
+					await self.write_message("END_OF_TRANSMISSION")
+				except (ConnectionError, OSError):
+					pass
+			await self.closed.wait()
+			closed_normally = self.closed_normally
+		else:
+			async with self.request_lock:
+				closed_normally = await self.send_message("END_OF_TRANSMISSION") == "END_OF_TRANSMISSION"
+		await self.proc.wait()
+		return closed_normally
+
+	async def submit_request(self, request, options):
+		"""
+		Sends a request of the multiplexed protocol and waits for its response. If max_pending requests are already
+		in flight, this coroutine first waits for one of them to finish.
+
+		:param request: a dict with the snippet or the snippets of the request.
+		:param options: a dict with the options of this request, or None to use the options of the extractor.
+		:returns: the response of the request.
+		"""
+		if options:
+			request["options"] = {OPTION_NAMES[name]: bool(value) for name, value in options.items()}
+		async with self.slots:
+			if self.closed.is_set():
+				raise ExtractorEndedError("The Sequence Extractor has ended")
+			request_id = request["id"] = self.next_id
+			self.next_id += 1
+			future = self.pending[request_id] = asyncio.get_running_loop().create_future()
+			try:
+				await self.write_message(json.dumps(request))
+				return await future
+			except (ConnectionError, OSError):
+				raise ExtractorEndedError("The Sequence Extractor has ended")
+			finally:
+				self.pending.pop(request_id, None)
+
+	async def get_response(self, request, options):
+		"""
+		Returns the response of a request, using the multiplexed protocol or, if the jar does not support it, sending
+		each snippet of the request in turn using the original protocol.
+
+		:param request: a dict with the snippet or the snippets of the request.
+		:param options: a dict with the options of this request, or None to use the options of the extractor.
+		:returns: the sequence of the snippet, or the list of the sequences of the snippets.
+		"""
+		if self.multiplexed:
+			return await self.submit_request(request, options)
+		if options:
+			raise ValueError("Options per request require a jar that supports the multiplexed protocol")
+		async with self.request_lock:
+			if "snippets" in request:
+				return [await self.send_message(code_entity) for code_entity in request["snippets"]]
+			return await self.send_message(request["snippet"])
+
+	async def parse_snippet(self, snippet_contents, **options):
+		"""
+		Parses the contents of a java snippet and returns its sequence.
+
+		:param snippet_contents: the contents of a java snippet, given as a string.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for this snippet.
+		:returns: a string containing the sequence of the java snippet.
+		"""
+		try:
+			return await self.get_response({"snippet": snippet_contents}, check_option_names(options))
+		except RuntimeError:
+			return ""
+
+	async def parse_snippets(self, snippets_contents, batch_size=100, **options):
+		"""
+		Parses the contents of many java snippets and returns their sequences. The snippets are sent in batches,
+		which are all in flight at the same time.
+
+		:param snippets_contents: a list with the contents of the java snippets, given as strings.
+		:param batch_size: the number of snippets sent in each batch.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for these snippets.
+		:returns: a list of strings containing the sequences of the java snippets in the same order, where the
+		sequence of any snippet that could not be parsed is an empty string.
+		"""
+		options = check_option_names(options)
+		batches = [snippets_contents[i:i + batch_size] for i in range(0, len(snippets_contents), batch_size)]
+		responses = await asyncio.gather(*[self.get_response({"snippets": list(code_entities)}, options)
+										   for code_entities in batches], return_exceptions=True)
+		sequences = []
+		for code_entities, response in zip(batches, responses):
+			if isinstance(response, RuntimeError):
+				sequences.extend([""] * len(code_entities))
+			elif isinstance(response, BaseException):
+				raise response
+			else:
+				sequences.extend(sequence if sequence is not None else "" for sequence in response)
+		return sequences
+
+	async def read_responses(self):
+		"""
+		Reads the responses of the multiplexed protocol and completes the future of each response given its id.
+		When the jar ends, any requests that have not received a response are failed with an ExtractorEndedError.
+		"""
+		while True:
+			try:
+				message = await self.read_message()
+			except ValueError:
+				if self.framed:
+					break
+				continue
+			if message is None:
+				break
+			if message == "END_OF_TRANSMISSION":
+				self.closed_normally = True
+				break
+			try:
+				response = json.loads(message)
+			except ValueError:
+				continue
+			if response.get("id") is None and "error" in response:
+				# The jar could not find the id of a request, so fail all requests since the failed one is unknown
+				for future in self.pending.values():
+					if not future.done():
+						future.set_exception(RuntimeError(response["error"]))
+				continue
+			future = self.pending.get(response.get("id"))
+			if future is None or future.done():
+				continue
+			if "sequences" in response:
+				future.set_result(response["sequences"])
+			elif "sequence" in response:
+				future.set_result(response["sequence"])
+			else:
+				future.set_exception(RuntimeError(response.get("error")))
+		self.closed.set()
+		for future in self.pending.values():
+			if not future.done():
+				future.set_exception(ExtractorEndedError("The Sequence Extractor has ended"))
+
+	async def write_message(self, message):
+		"""
+		Writes a new message to the SequenceExtractor jar, either as a frame or as a base64 line, and waits until
+		the pipe to the jar can accept more data.
+
+		:param message: the message to be written.
+		"""
+		if self.framed:
+			encodedbytes = message.encode(encoding='utf-8')
+			self.proc.stdin.write(struct.pack('>I', len(encodedbytes)) + encodedbytes)
+		else:
+			decodedbytes = message.encode(encoding='ascii')
+			b64encodedbytes = base64.b64encode(decodedbytes)
+			self.proc.stdin.write(b64encodedbytes + b"\r\n")
+		async with self.drain_lock:
+			await self.proc.stdin.drain()
+
+	async def read_message(self):
+		"""
+		Reads a message from the SequenceExtractor jar, either as a frame or as a base64 line.
+
+		:returns: the message that was read, or None if the jar has ended.
+		"""
+		if self.framed:
+			try:
+				header = await self.proc.stdout.readexactly(4)
+				length, = struct.unpack('>I', header)
+				encodedbytes = await self.proc.stdout.readexactly(length)
+			except asyncio.IncompleteReadError:
+				return None
+			return encodedbytes.decode('utf-8')
+		line = await self.proc.stdout.readline()
+		if not line:
+			return None
+		return base64.b64decode(line).decode()
+
+	async def send_message(self, message):
+		"""
+		Sends a new message to the SequenceExtractor jar and waits for its response. This is used only before the
+		reader of the multiplexed protocol is started, or in the original protocol.
+
+		:param message: the message to be sent.
+		:returns: the response of the jar, or an empty string if the jar has ended.
+		"""
+		await self.write_message(message)
+		decodedline = await self.read_message()
+		return decodedline if decodedline is not None else ""
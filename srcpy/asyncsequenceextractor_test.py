@@ -0,0 +1,23 @@
+import asyncio
+from asyncsequenceextractor import AsyncSequenceExtractor
+
+async def main():
+	sequence_extractor = await AsyncSequenceExtractor.create("../target/SequenceExtractor-0.4.jar")
+	sequence = await sequence_extractor.parse_snippet(
+			"JFrame frame = new JFrame(\"myframe\");\n" +
+			"JPanel panel = new JPanel();\n" +
+			"Container pane = frame.getContentPane();\n" +
+			"GridLayout layout = new GridLayout(2,2);\n" +
+			"panel.setLayout(layout);\n" +
+			"panel.add(upperLeft);\n" +
+			"panel.add(upperRight);\n" +
+			"panel.add(lowerLeft);\n" +
+			"panel.add(lowerRight);\n" +
+			"pane.add(panel)\n;"
+	)
+	print(sequence)
+	await sequence_extractor.close()
+
+if __name__ == '__main__':
+	'''Used as a test for the asyncio python bindings'''
+	asyncio.run(main())
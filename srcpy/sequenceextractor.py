@@ -1,113 +1,903 @@
-import base64
-import subprocess
-from subprocess import STDOUT, PIPE
-
-class _SequenceExtractor(object):
-	"""
-	Inner python binding to the SequenceExtractor library. It works by executing the jar file as a subprocess
-	and opening pipes to the standard input and standard output so that messages can be sent and received.
-	Instead of using this class, it is highly recommended to use the abstracted SequenceExtractor class.
-	"""
-	def __init__(self, path_to_SequenceExtractor_jar, keep_function_call_types=False, keep_literals=False, keep_branches=True, output_tree=False, flatten_output=True, add_unique_ids=False):
-		"""
-		Initializes this inner extractor.
-		
-		:param path_to_SequenceExtractorjar: the path to the SequenceExtractor jar.
-		:param keep_function_call_types: boolean denoting whether function call types should be retained.
-		:param keep_literals: boolean denoting whether literals (primitives) should be retained.
-		:param keep_branches: boolean denoting whether all branches should be kept.
-		:param output_tree: boolean denoting whether the output should be a tree or a sequence.
-		:param flatten_output: boolean denoting whether the output should be flattened.
-		:param add_unique_ids: boolean denoting whether statements should have IDs.
-		"""
-		self.cmd = ['java', '-cp', path_to_SequenceExtractor_jar, 'sequenceextractor.PythonBinder',
-					'true' if keep_function_call_types else 'false', 'true' if keep_literals else 'false',
-					'true' if keep_branches else 'false', 'true' if output_tree else 'false',
-					'true' if flatten_output else 'false', 'true' if add_unique_ids else 'false']
-		self.proc = subprocess.Popen(self.cmd, stdin=PIPE, stdout=PIPE, stderr=STDOUT)
-		self.nummessages = 0
-		line = self.send_message("START_OF_TRANSMISSION")
-		if line != "START_OF_TRANSMISSION":
-			print("Error in Sequence Extractor!!")
-			exit()
-
-	def close_extractor(self):
-		"""
-		Closes the extractor.
-		"""
-		return self.send_message("END_OF_TRANSMISSION") == "END_OF_TRANSMISSION"
-
-	def restart_extractor(self, force=False):
-		"""
-		Restarts the extractor.
-		"""
-		if force or self.send_message("END_OF_TRANSMISSION") == "END_OF_TRANSMISSION":
-			self.proc = subprocess.Popen(self.cmd, stdin=PIPE, stdout=PIPE, stderr=STDOUT)
-			self.nummessages = 0
-		else:
-			print("Error in Java compiler!!")
-			exit()
-
-	def get_sequence(self, code_entity):
-		"""
-		Returns the command sequence of a code_entity.
-		
-		:param code_entity: the contents of the code entity.
-		"""
-		self.nummessages += 1
-		if self.nummessages == 10000:
-			self.restart_extractor()
-		return self.send_message(code_entity)
-
-	def send_message(self, message):
-		"""
-		Sends a new message to the SequenceExtractor jar.
-		
-		:param message: the message to be sent.
-		"""
-		decodedbytes = message.encode(encoding='ascii')
-		b64encodedbytes = base64.b64encode(decodedbytes)
-		self.proc.stdin.write(b64encodedbytes + b"\r\n")
-		self.proc.stdin.flush()
-		line = self.proc.stdout.readline()
-		try:
-			b64decodedbytes = base64.b64decode(line)
-			decodedline = b64decodedbytes.decode()
-		except:
-			self.restart_extractor(True)
-			decodedline = ""
-		return decodedline
-
-class SequenceExtractor(_SequenceExtractor):
-	"""
-	Class used as a python binding to the SequenceExtractor library. It contains functions for parsing java snippets to sequences.
-	"""
-	def __init__(self, path_to_SequenceExtractor_jar, keep_function_call_types=False, keep_literals=False, keep_branches=True, output_tree=False, flatten_output=True, add_unique_ids=False):
-		"""
-		Initializes this Sequence Extractor.
-		
-		:param path_to_SequenceExtractor_jar: the path to the SequenceExtractor jar
-		:param keep_function_call_types: boolean denoting whether function call types should be retained.
-		:param keep_literals: boolean denoting whether literals (primitives) should be retained.
-		:param keep_branches: boolean denoting whether all branches should be kept.
-		:param output_tree: boolean denoting whether the output should be a tree or a sequence.
-		:param flatten_output: boolean denoting whether the output should be flattened.
-		:param add_unique_ids: boolean denoting whether statements should have IDs.
-		"""
-		super(SequenceExtractor, self).__init__(path_to_SequenceExtractor_jar, keep_function_call_types, keep_literals, keep_branches, output_tree, flatten_output, add_unique_ids)
-
-	def parse_snippet(self, snippet_contents):
-		"""
-		Parses the contents of a java snippet and returns its sequence.
-
-		:param snippet_contents: the contents of a java snippet, given as a string.
-		:returns: a string containing the sequence of the java snippet.
-		"""
-		return super(SequenceExtractor, self).get_sequence(snippet_contents)
-
-	def close(self):
-		"""
-		Closes the Sequence Extractor. Note that this function must be called after using the class.
-		Otherwise, this may result to a memory leak.
-		"""
-		super(SequenceExtractor, self).close_extractor()
+import json
+import base64
+import socket
+import struct
+import threading
+import subprocess
+from itertools import islice
+from collections import deque
+from functools import partial
+from subprocess import PIPE
+from concurrent.futures import Future
+
+# The names of the options of each request, as given in python and as expected by the jar
+OPTION_NAMES = {'keep_function_call_types': 'keepFunctionCallTypes', 'keep_literals': 'keepLiterals',
+				'keep_branches': 'keepBranches', 'output_tree': 'outputTree', 'flatten_output': 'flattenOutput',
+				'add_unique_ids': 'addUniqueIDs'}
+
+def check_option_names(options):
+	"""
+	Checks that the names of the given options are options of the constructor of the extractor.
+
+	:param options: a dict with the options of a request.
+	:returns: the options of the request.
+	"""
+	for name in options:
+		if name not in OPTION_NAMES:
+			raise TypeError("Unknown option: " + name)
+	return options
+
+def decode_varints(data):
+	"""
+	Decodes encoded sequences written by the jar as unsigned variable-length integers, i.e. the number of
+	sequences followed by the length and the token ids of each sequence.
+
+	:param data: the bytes of the encoded sequences.
+	:returns: a list with a list of token ids for each sequence.
+	"""
+	values, value, shift = [], 0, 0
+	for byte in bytearray(data):
+		value |= (byte & 0x7F) << shift
+		if byte & 0x80:
+			shift += 7
+		else:
+			values.append(value)
+			value = shift = 0
+	sequences, position = [], 1
+	for _ in range(values[0]):
+		sequences.append(values[position + 1:position + 1 + values[position]])
+		position += 1 + values[position]
+	return sequences
+
+class ExtractorEndedError(RuntimeError):
+	"""
+	Error given to the requests that did not receive a response because the extractor has ended.
+	"""
+	pass
+
+class _SequenceExtractor(object):
+	"""
+	Inner python binding to the SequenceExtractor library. It works by executing the jar file as a subprocess
+	and opening pipes to the standard input and standard output so that messages can be sent and received.
+	If the jar supports the multiplexed protocol, each request carries an id and the responses are received
+	by a reader thread as soon as they are ready, so that many requests can be processed at the same time.
+	If the jar supports framing, messages are sent as UTF-8 frames preceded by their length instead of base64 lines.
+	In the multiplexed protocol, each request may also override any of the options given when initializing the extractor.
+	If the jar supports reporting its status, the original protocol restarts the jar only when its heap is exhausted.
+	Instead of using this class, it is highly recommended to use the abstracted SequenceExtractor class.
+	"""
+	def __init__(self, path_to_SequenceExtractor_jar, keep_function_call_types=False, keep_literals=False, keep_branches=True, output_tree=False, flatten_output=True, add_unique_ids=False, store_path=None, multiplexed=True, framed=True, max_heap_fraction=0.8, status_interval=1000):
+		"""
+		Initializes this inner extractor.
+		
+		:param path_to_SequenceExtractorjar: the path to the SequenceExtractor jar.
+		:param keep_function_call_types: boolean denoting whether function call types should be retained.
+		:param keep_literals: boolean denoting whether literals (primitives) should be retained.
+		:param keep_branches: boolean denoting whether all branches should be kept.
+		:param output_tree: boolean denoting whether the output should be a tree or a sequence.
+		:param flatten_output: boolean denoting whether the output should be flattened.
+		:param add_unique_ids: boolean denoting whether statements should have IDs.
+		:param store_path: the directory where the extracted sequences are stored across runs, or None for no store.
+		:param multiplexed: boolean denoting whether the multiplexed protocol should be used if the jar supports it.
+		:param framed: boolean denoting whether messages should be sent as frames if the jar supports it.
+		:param max_heap_fraction: the fraction of the maximum heap of the jar that may be retained before restarting it.
+		:param status_interval: the number of snippets after which the status of the jar is checked.
+		"""
+		self.cmd = ['java', '-cp', path_to_SequenceExtractor_jar, 'sequenceextractor.PythonBinder',
+					'true' if keep_function_call_types else 'false', 'true' if keep_literals else 'false',
+					'true' if keep_branches else 'false', 'true' if output_tree else 'false',
+					'true' if flatten_output else 'false', 'true' if add_unique_ids else 'false']
+		if store_path is not None:
+			self.cmd.append(store_path)
+		self.multiplexed = multiplexed
+		self.framing = framed
+		self.max_heap_fraction = max_heap_fraction
+		self.status_interval = status_interval
+		self.lock = threading.Lock()
+		self.tokens = []
+		self.start_extractor()
+
+	def start_extractor(self):
+		"""
+		Starts the extractor and negotiates the protocol. If the multiplexed protocol or framing is requested but
+		the jar does not support it, the original protocol is used. The standard error of the jar is not merged
+		with its standard output, so that any errors it prints do not corrupt the messages.
+		"""
+		self.proc = self.open_extractor()
+		self.nummessages = 0
+		self.framed = False
+		features = (" MULTIPLEXED" if self.multiplexed else "") + (" FRAMED" if self.framing else "") + " STATUS"
+		line = self.send_message("START_OF_TRANSMISSION" + features)
+		if line.startswith("START_OF_TRANSMISSION"):
+			enabled = line.split()[1:]
+			self.framed = "FRAMED" in enabled
+			self.framing = self.framed
+			self.multiplexed = "MULTIPLEXED" in enabled
+			self.status_supported = "STATUS" in enabled
+			line = "START_OF_TRANSMISSION"
+		else:
+			# Older jars treat the request of features as a snippet, so the transmission is started again
+			self.multiplexed = self.framing = self.status_supported = False
+			line = self.send_message("START_OF_TRANSMISSION")
+		if self.multiplexed:
+			self.pending = {}
+			self.status_requests = deque()
+			self.next_id = 0
+			self.closed = threading.Event()
+			self.reader = threading.Thread(target=self.read_responses, args=(self.proc, ))
+			self.reader.daemon = True
+			self.reader.start()
+			if self.tokens:
+				# The ids of the tokens received from an earlier jar are kept by sending its dictionary first
+				self.submit_request({"dictionary": list(self.tokens)}, None).result()
+		if line != "START_OF_TRANSMISSION":
+			print("Error in Sequence Extractor!!")
+			exit()
+
+	def open_extractor(self):
+		"""
+		Executes the jar as a subprocess with pipes to its standard input and standard output.
+
+		:returns: the process of the jar.
+		"""
+		return subprocess.Popen(self.cmd, stdin=PIPE, stdout=PIPE)
+
+	def close_extractor(self):
+		"""
+		Closes the extractor.
+		"""
+		if self.multiplexed:
+			with self.lock:
+				self.write_message("END_OF_TRANSMISSION")
+			self.closed.wait()
+			return self.closed_normally
+		return self.send_message("END_OF_TRANSMISSION") == "END_OF_TRANSMISSION"
+
+	def restart_extractor(self, force=False):
+		"""
+		Restarts the extractor.
+		"""
+		if force or self.close_extractor():
+			self.start_extractor()
+		else:
+			print("Error in Java compiler!!")
+			exit()
+
+	def get_sequence(self, code_entity, options=None):
+		"""
+		Returns the command sequence of a code_entity.
+		
+		:param code_entity: the contents of the code entity.
+		:param options: a dict with the options of this request, or None to use the options of the extractor.
+		"""
+		if self.multiplexed:
+			try:
+				return self.submit_sequence(code_entity, options).result()
+			except RuntimeError:
+				return ""
+		self.check_options(options)
+		self.nummessages += 1
+		if self.status_supported:
+			if self.nummessages % self.status_interval == 0 and self.heap_exhausted(self.get_status()):
+				self.restart_extractor()
+		elif self.nummessages == 10000:
+			# Older jars cannot report their memory, so they are restarted periodically
+			self.restart_extractor()
+		return self.send_message(code_entity)
+
+	def get_status(self):
+		"""
+		Returns the status of the jar, i.e. the number of snippets it has received and its heap memory in bytes.
+
+		:returns: a dict with the status of the jar, or None if the jar does not support reporting its status.
+		"""
+		if not self.status_supported:
+			return None
+		if self.multiplexed:
+			try:
+				return self.submit_status().result()
+			except RuntimeError:
+				return None
+		line = self.send_message("STATUS")
+		return json.loads(line[len("STATUS "):]) if line.startswith("STATUS ") else None
+
+	def submit_status(self):
+		"""
+		Requests the status of the jar in the multiplexed protocol without waiting for it.
+
+		:returns: a future holding a dict with the status of the jar.
+		"""
+		future = Future()
+		with self.lock:
+			if self.closed.is_set():
+				future.set_exception(ExtractorEndedError("The Sequence Extractor has ended"))
+				return future
+			self.status_requests.append(future)
+			try:
+				self.write_message("STATUS")
+			except (IOError, OSError, ValueError):
+				self.status_requests.remove(future)
+				future.set_exception(ExtractorEndedError("The Sequence Extractor has ended"))
+		return future
+
+	def heap_exhausted(self, status):
+		"""
+		Checks if the memory retained by the jar exceeds the allowed fraction of its maximum heap.
+
+		:param status: a dict with the status of the jar, or None if the status is not known.
+		:returns: boolean denoting whether the jar should be restarted.
+		"""
+		return status is not None and status["heapUsedAfterGC"] > self.max_heap_fraction * status["heapMax"]
+
+	def submit_sequence(self, code_entity, options=None):
+		"""
+		Submits a code_entity to the extractor without waiting for its command sequence. When the multiplexed
+		protocol is not supported, the command sequence is extracted before returning.
+
+		:param code_entity: the contents of the code entity.
+		:param options: a dict with the options of this request, or None to use the options of the extractor.
+		:returns: a future holding the command sequence of the code entity, or a RuntimeError if the extraction failed.
+		"""
+		if not self.multiplexed:
+			future = Future()
+			future.set_result(self.get_sequence(code_entity, options))
+			return future
+		return self.submit_request({"snippet": code_entity}, options)
+
+	def submit_sequences(self, code_entities, options=None):
+		"""
+		Submits a list of code_entities to the extractor as a single batch without waiting for their command
+		sequences, so that the jar extracts them in parallel. When the multiplexed protocol is not supported, the
+		command sequences are extracted one at a time before returning.
+
+		:param code_entities: the contents of the code entities.
+		:param options: a dict with the options of this request, or None to use the options of the extractor.
+		:returns: a future holding the list of the command sequences of the code entities in the same order, where
+		the sequence of any code entity whose extraction failed is an empty string.
+		"""
+		if not self.multiplexed:
+			future = Future()
+			future.set_result([self.get_sequence(code_entity, options) for code_entity in code_entities])
+			return future
+		return self.submit_request({"snippets": list(code_entities)}, options)
+
+	def submit_encoded_sequences(self, code_entities, varint, options=None):
+		"""
+		Submits a list of code_entities to the extractor as a single batch, requesting their command sequences
+		encoded as the ids of their tokens in the dictionary of the jar. The tokens of any new ids are added to
+		the tokens of this extractor before the future is completed.
+
+		:param code_entities: the contents of the code entities.
+		:param varint: boolean denoting whether the ids are sent as variable-length integers instead of JSON arrays.
+		:param options: a dict with the options of this request, or None to use the options of the extractor.
+		:returns: a future holding the list of the encoded command sequences of the code entities in the same
+		order, where the sequence of any code entity whose extraction failed is None.
+		"""
+		if not self.multiplexed:
+			raise ValueError("Encoded sequences require a jar that supports the multiplexed protocol")
+		request = {"snippets": list(code_entities), "encoding": "varint" if varint else "ids",
+				   "knownTokens": len(self.tokens)}
+		return self.submit_request(request, options)
+
+	def load_tokens(self, tokens):
+		"""
+		Extends the dictionary of the jar and of this extractor with the given tokens in the order of their ids,
+		so that the ids of an earlier run stay the same. The first tokens must be the tokens already known.
+
+		:param tokens: the tokens in the order of their ids.
+		"""
+		if not self.multiplexed:
+			raise ValueError("Encoded sequences require a jar that supports the multiplexed protocol")
+		self.submit_request({"dictionary": list(tokens), "knownTokens": len(self.tokens)}, None).result()
+
+	def submit_request(self, request, options):
+		"""
+		Submits a request of the multiplexed protocol, assigning it an id.
+
+		:param request: a dict with the snippet or the snippets of the request.
+		:param options: a dict with the options of this request, or None to use the options of the extractor.
+		:returns: a future holding the response of the request.
+		"""
+		if options:
+			request["options"] = {OPTION_NAMES[name]: bool(value) for name, value in options.items()}
+		future = Future()
+		with self.lock:
+			if self.closed.is_set():
+				future.set_exception(ExtractorEndedError("The Sequence Extractor has ended"))
+				return future
+			request["id"] = self.next_id
+			self.next_id += 1
+			self.pending[request["id"]] = future
+			try:
+				self.write_message(json.dumps(request))
+			except (IOError, OSError, ValueError):
+				del self.pending[request["id"]]
+				future.set_exception(ExtractorEndedError("The Sequence Extractor has ended"))
+		return future
+
+	def check_options(self, options):
+		"""
+		Checks that the options of a request can be used by the original protocol, which supports only the options
+		given when initializing the extractor.
+
+		:param options: a dict with the options of the request, or None to use the options of the extractor.
+		"""
+		if options:
+			raise ValueError("Options per request require a jar that supports the multiplexed protocol")
+
+	def read_responses(self, proc):
+		"""
+		Reads the responses of the multiplexed protocol and completes the future of each response given its id.
+		When the extractor ends, any requests that have not received a response are failed with an ExtractorEndedError.
+
+		:param proc: the process of the extractor.
+		"""
+		self.closed_normally = False
+		while True:
+			try:
+				message = self.read_message(proc)
+			except:
+				if self.framed:
+					break
+				continue
+			if message is None:
+				break
+			if message == "END_OF_TRANSMISSION":
+				self.closed_normally = True
+				break
+			if message.startswith("STATUS "):
+				with self.lock:
+					future = self.status_requests.popleft() if self.status_requests else None
+				if future is not None:
+					future.set_result(json.loads(message[len("STATUS "):]))
+				continue
+			try:
+				response = json.loads(message)
+			except ValueError:
+				continue
+			if response.get("id") is None and "error" in response:
+				# The jar could not find the id of a request, so fail all requests since the failed one is unknown
+				with self.lock:
+					pending, self.pending = list(self.pending.values()), {}
+				for future in pending:
+					future.set_exception(RuntimeError(response["error"]))
+				continue
+			with self.lock:
+				future = self.pending.pop(response.get("id"), None)
+				if "tokens" in response:
+					self.tokens.extend(response["tokens"][len(self.tokens) - response["knownTokens"]:])
+			if future is not None:
+				if "sequences" in response:
+					future.set_result([sequence if sequence is not None or "encoding" in response else ""
+									   for sequence in response["sequences"]])
+				elif "sequence" in response:
+					future.set_result(response["sequence"])
+				elif "error" in response:
+					future.set_exception(RuntimeError(response.get("error")))
+				else:
+					future.set_result(None)
+		with self.lock:
+			pending, self.pending = list(self.pending.values()) + list(self.status_requests), {}
+			self.status_requests.clear()
+			self.closed.set()
+		for future in pending:
+			future.set_exception(ExtractorEndedError("The Sequence Extractor has ended"))
+
+	def write_message(self, message):
+		"""
+		Writes a new message to the SequenceExtractor jar, either as a frame or as a base64 line.
+
+		:param message: the message to be written.
+		"""
+		if self.framed:
+			encodedbytes = message.encode(encoding='utf-8')
+			self.proc.stdin.write(struct.pack('>I', len(encodedbytes)) + encodedbytes)
+		else:
+			decodedbytes = message.encode(encoding='ascii')
+			b64encodedbytes = base64.b64encode(decodedbytes)
+			self.proc.stdin.write(b64encodedbytes + b"\r\n")
+		self.proc.stdin.flush()
+
+	def read_message(self, proc):
+		"""
+		Reads a message from the SequenceExtractor jar, either as a frame or as a base64 line.
+
+		:param proc: the process of the extractor.
+		:returns: the message that was read, or None if the extractor has ended.
+		"""
+		if self.framed:
+			header = proc.stdout.read(4)
+			if len(header) < 4:
+				return None
+			length, = struct.unpack('>I', header)
+			encodedbytes = proc.stdout.read(length)
+			if len(encodedbytes) < length:
+				return None
+			return encodedbytes.decode('utf-8')
+		line = proc.stdout.readline()
+		if not line:
+			return None
+		return base64.b64decode(line).decode()
+
+	def send_message(self, message):
+		"""
+		Sends a new message to the SequenceExtractor jar and waits for its response.
+		
+		:param message: the message to be sent.
+		"""
+		self.write_message(message)
+		try:
+			decodedline = self.read_message(self.proc)
+		except:
+			self.restart_extractor(True)
+			decodedline = ""
+		return decodedline if decodedline is not None else ""
+
+class SequenceExtractor(_SequenceExtractor):
+	"""
+	Class used as a python binding to the SequenceExtractor library. It contains functions for parsing java snippets to sequences.
+	"""
+	def __init__(self, path_to_SequenceExtractor_jar, keep_function_call_types=False, keep_literals=False, keep_branches=True, output_tree=False, flatten_output=True, add_unique_ids=False, store_path=None, multiplexed=True, framed=True, max_heap_fraction=0.8, status_interval=1000):
+		"""
+		Initializes this Sequence Extractor.
+		
+		:param path_to_SequenceExtractor_jar: the path to the SequenceExtractor jar
+		:param keep_function_call_types: boolean denoting whether function call types should be retained.
+		:param keep_literals: boolean denoting whether literals (primitives) should be retained.
+		:param keep_branches: boolean denoting whether all branches should be kept.
+		:param output_tree: boolean denoting whether the output should be a tree or a sequence.
+		:param flatten_output: boolean denoting whether the output should be flattened.
+		:param add_unique_ids: boolean denoting whether statements should have IDs.
+		:param store_path: the directory where the extracted sequences are stored across runs, or None for no store.
+		:param multiplexed: boolean denoting whether snippets may be extracted concurrently by the jar.
+		:param framed: boolean denoting whether messages should be sent as UTF-8 frames instead of base64 lines.
+		:param max_heap_fraction: the fraction of the maximum heap of the jar that may be retained before restarting it.
+		:param status_interval: the number of snippets after which the status of the jar is checked.
+		"""
+		super(SequenceExtractor, self).__init__(path_to_SequenceExtractor_jar, keep_function_call_types, keep_literals, keep_branches, output_tree, flatten_output, add_unique_ids, store_path, multiplexed, framed, max_heap_fraction, status_interval)
+
+	def parse_snippet(self, snippet_contents, **options):
+		"""
+		Parses the contents of a java snippet and returns its sequence.
+
+		:param snippet_contents: the contents of a java snippet, given as a string.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for this snippet.
+		:returns: a string containing the sequence of the java snippet.
+		"""
+		return super(SequenceExtractor, self).get_sequence(snippet_contents, check_option_names(options))
+
+	def submit_snippet(self, snippet_contents, **options):
+		"""
+		Submits the contents of a java snippet to be parsed, without waiting for its sequence. Many snippets can
+		be submitted at the same time, so that they are parsed concurrently by the jar.
+
+		:param snippet_contents: the contents of a java snippet, given as a string.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for this snippet.
+		:returns: a future holding a string containing the sequence of the java snippet.
+		"""
+		return super(SequenceExtractor, self).submit_sequence(snippet_contents, check_option_names(options))
+
+	def parse_snippets(self, snippets_contents, batch_size=100, **options):
+		"""
+		Parses the contents of many java snippets and returns their sequences. The snippets are sent in batches,
+		which are all written before reading any of their responses, so that many small snippets do not each pay
+		for a round-trip to the jar.
+
+		:param snippets_contents: a list with the contents of the java snippets, given as strings.
+		:param batch_size: the number of snippets sent in each batch.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for these snippets.
+		:returns: a list of strings containing the sequences of the java snippets in the same order, where the
+		sequence of any snippet that could not be parsed is an empty string.
+		"""
+		options = check_option_names(options)
+		futures = [super(SequenceExtractor, self).submit_sequences(snippets_contents[i:i + batch_size], options)
+				   for i in range(0, len(snippets_contents), batch_size)]
+		sequences = []
+		for future in futures:
+			try:
+				sequences.extend(future.result())
+			except RuntimeError:
+				sequences.extend([""] * min(batch_size, len(snippets_contents) - len(sequences)))
+		return sequences
+
+	def parse_snippets_ids(self, snippets_contents, batch_size=100, varint=True, **options):
+		"""
+		Parses the contents of many java snippets and returns their sequences encoded as the ids of their tokens,
+		so that they can be given directly to a sequence model. The ids are kept in a dictionary by the jar, which
+		only grows, so the id of a token never changes (see functions get_tokens and save_tokens). Each sequence
+		is a list of lists of ids, i.e. one list for a flattened sequence, or a list for each function or each
+		path of a flattened tree. Trees that are not flattened cannot be encoded.
+
+		:param snippets_contents: a list with the contents of the java snippets, given as strings.
+		:param batch_size: the number of snippets sent in each batch.
+		:param varint: boolean denoting whether the ids are sent as variable-length integers instead of JSON arrays.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for these snippets.
+		:returns: a list with the encoded sequences of the java snippets in the same order, where the sequence of
+		any snippet that could not be parsed is None.
+		"""
+		options = check_option_names(options)
+		futures = [super(SequenceExtractor, self).submit_encoded_sequences(snippets_contents[i:i + batch_size], varint, options)
+				   for i in range(0, len(snippets_contents), batch_size)]
+		sequences = []
+		for future in futures:
+			try:
+				sequences.extend(decode_varints(base64.b64decode(sequence)) if varint and sequence is not None
+								 else sequence for sequence in future.result())
+			except RuntimeError:
+				sequences.extend([None] * min(batch_size, len(snippets_contents) - len(sequences)))
+		return sequences
+
+	def parse_snippet_ids(self, snippet_contents, varint=True, **options):
+		"""
+		Parses the contents of a java snippet and returns its sequence encoded as the ids of its tokens
+		(see function parse_snippets_ids).
+
+		:param snippet_contents: the contents of a java snippet, given as a string.
+		:param varint: boolean denoting whether the ids are sent as variable-length integers instead of JSON arrays.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for this snippet.
+		:returns: a list of lists of ids containing the sequence of the java snippet, or None if it could not be parsed.
+		"""
+		return self.parse_snippets_ids([snippet_contents], 1, varint, **options)[0]
+
+	def get_tokens(self):
+		"""
+		Returns the tokens of all ids received so far, i.e. the token of each id is the item at its index.
+
+		:returns: a list with the tokens in the order of their ids.
+		"""
+		with self.lock:
+			return list(self.tokens)
+
+	def save_tokens(self, path):
+		"""
+		Saves the tokens of all ids received so far to a file as a JSON array, which can be loaded in another run
+		using function load_tokens, or read directly as the vocabulary of a model.
+
+		:param path: the path of the file where the tokens are saved.
+		"""
+		with open(path, 'w') as tokens_file:
+			json.dump(self.get_tokens(), tokens_file)
+
+	def load_tokens(self, path):
+		"""
+		Loads the tokens saved by function save_tokens, so that the ids of an earlier run stay the same. This must be
+		called before parsing any snippets as ids, or else the saved tokens must start with the tokens received so far.
+
+		:param path: the path of the file where the tokens are saved.
+		"""
+		with open(path) as tokens_file:
+			super(SequenceExtractor, self).load_tokens(json.load(tokens_file))
+
+	def get_status(self):
+		"""
+		Returns the status of the jar, i.e. the number of snippets it has received and its heap memory in bytes,
+		given as snippets, heapUsed, heapCommitted, heapMax and heapUsedAfterGC.
+
+		:returns: a dict with the status of the jar, or None if the jar does not support reporting its status.
+		"""
+		return super(SequenceExtractor, self).get_status()
+
+	def close(self):
+		"""
+		Closes the Sequence Extractor. Note that this function must be called after using the class.
+		Otherwise, this may result to a memory leak.
+		"""
+		super(SequenceExtractor, self).close_extractor()
+
+class _SocketConnection(object):
+	"""
+	Connection to a SocketBinder, which is used in place of the process of the jar since the socket speaks the same
+	protocol as the standard input and standard output of the PythonBinder.
+	"""
+	def __init__(self, socket_path):
+		"""
+		Connects to the Unix domain socket of a SocketBinder.
+
+		:param socket_path: the path of the socket.
+		"""
+		self.socket = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+		self.socket.connect(socket_path)
+		self.stdin = self.socket.makefile('wb')
+		self.stdout = self.socket.makefile('rb')
+
+	def wait(self):
+		"""
+		Closes the connection.
+		"""
+		self.stdin.close()
+		self.stdout.close()
+		self.socket.close()
+
+class SocketSequenceExtractor(SequenceExtractor):
+	"""
+	Class used as a python binding to a SequenceExtractor jar that is already running as a SocketBinder, so that many
+	local processes can share the same jar without starting it. The options of the extractor are the ones given when
+	starting the SocketBinder, but any of them can be overridden for each snippet as in the SequenceExtractor class.
+	Since the jar is shared, it is never restarted by its clients.
+	"""
+	def __init__(self, socket_path, multiplexed=True, framed=True):
+		"""
+		Initializes this Sequence Extractor by connecting to a SocketBinder.
+
+		:param socket_path: the path of the Unix domain socket of the SocketBinder.
+		:param multiplexed: boolean denoting whether snippets may be extracted concurrently by the jar.
+		:param framed: boolean denoting whether messages should be sent as UTF-8 frames instead of base64 lines.
+		"""
+		self.socket_path = socket_path
+		self.multiplexed = multiplexed
+		self.framing = framed
+		self.status_interval = 1000
+		self.lock = threading.Lock()
+		self.tokens = []
+		self.start_extractor()
+
+	def open_extractor(self):
+		"""
+		Connects to the socket of the SocketBinder.
+
+		:returns: the connection to the SocketBinder.
+		"""
+		return _SocketConnection(self.socket_path)
+
+	def heap_exhausted(self, status):
+		"""
+		Returns False, since the jar is shared by many clients and cannot be restarted by any of them.
+
+		:param status: a dict with the status of the jar, or None if the status is not known.
+		:returns: boolean denoting whether the jar should be restarted.
+		"""
+		return False
+
+	def close(self):
+		"""
+		Closes the connection to the SocketBinder, waiting for the requests in flight. The SocketBinder keeps running.
+		"""
+		super(SocketSequenceExtractor, self).close()
+		self.proc.wait()
+
+class SequenceExtractorPool(object):
+	"""
+	Class used as a pool of SequenceExtractor jars, so that java snippets are parsed by many JVMs at the same time.
+	Each snippet or batch of snippets is sent to the jar with the fewest snippets waiting for their sequences, and any
+	jar that crashes is replaced by a new one, while the snippets it was parsing are sent again to the rest of the jars.
+	The status of each jar is also checked periodically, and any jar whose heap is exhausted is replaced by a new one
+	after finishing the snippets it is parsing. The pool requires a jar that supports the multiplexed protocol.
+	"""
+	def __init__(self, path_to_SequenceExtractor_jar, num_workers=2, keep_function_call_types=False, keep_literals=False, keep_branches=True, output_tree=False, flatten_output=True, add_unique_ids=False, store_path=None, framed=True, retries=1, max_heap_fraction=0.8, status_interval=1000):
+		"""
+		Initializes this pool and starts its jars.
+		
+		:param path_to_SequenceExtractor_jar: the path to the SequenceExtractor jar
+		:param num_workers: the number of jars of the pool.
+		:param keep_function_call_types: boolean denoting whether function call types should be retained.
+		:param keep_literals: boolean denoting whether literals (primitives) should be retained.
+		:param keep_branches: boolean denoting whether all branches should be kept.
+		:param output_tree: boolean denoting whether the output should be a tree or a sequence.
+		:param flatten_output: boolean denoting whether the output should be flattened.
+		:param add_unique_ids: boolean denoting whether statements should have IDs.
+		:param store_path: the directory where the extracted sequences are stored across runs, or None for no store.
+		:param framed: boolean denoting whether messages should be sent as UTF-8 frames instead of base64 lines.
+		:param retries: the number of times a snippet is sent again if the jar parsing it crashes.
+		:param max_heap_fraction: the fraction of the maximum heap of a jar that may be retained before replacing it.
+		:param status_interval: the number of snippets after which the status of a jar is checked.
+		"""
+		self.args = (path_to_SequenceExtractor_jar, keep_function_call_types, keep_literals, keep_branches, output_tree, flatten_output, add_unique_ids, store_path, True, framed, max_heap_fraction, status_interval)
+		self.retries = retries
+		self.closing = False
+		self.lock = threading.Lock()
+		self.workers = [self.start_worker() for _ in range(num_workers)]
+
+	def start_worker(self):
+		"""
+		Starts a new jar of the pool.
+
+		:returns: the extractor of the new jar.
+		"""
+		worker = _SequenceExtractor(*self.args)
+		if not worker.multiplexed:
+			worker.close_extractor()
+			raise ValueError("SequenceExtractorPool requires a jar that supports the multiplexed protocol")
+		worker.load = 0
+		worker.unchecked = 0
+		worker.retiring = False
+		return worker
+
+	def retire_worker(self, worker):
+		"""
+		Closes a jar that has been replaced, after it finishes the snippets it is parsing.
+
+		:param worker: the extractor of the jar.
+		"""
+		try:
+			worker.close_extractor()
+		except (IOError, OSError, ValueError):
+			pass
+		worker.proc.wait()
+
+	def check_status(self, worker, status):
+		"""
+		Marks a jar to be replaced if its heap is exhausted, given its status.
+
+		:param worker: the extractor of the jar.
+		:param status: the future holding the status of the jar.
+		"""
+		if status.exception() is None and worker.heap_exhausted(status.result()):
+			worker.retiring = True
+
+	def select_worker(self, num_snippets):
+		"""
+		Selects the jar with the fewest snippets waiting for their sequences, replacing any jars that have ended or
+		whose heap is exhausted. The status of the selected jar is requested every status_interval snippets.
+
+		:param num_snippets: the number of snippets that are about to be sent to the selected jar.
+		:returns: the extractor of the selected jar.
+		"""
+		with self.lock:
+			for i, worker in enumerate(self.workers):
+				if worker.closed.is_set():
+					worker.proc.wait()
+					self.workers[i] = self.start_worker()
+				elif worker.retiring:
+					self.workers[i] = self.start_worker()
+					retirement = threading.Thread(target=self.retire_worker, args=(worker, ))
+					retirement.daemon = True
+					retirement.start()
+			worker = min(self.workers, key=lambda worker: worker.load)
+			worker.load += num_snippets
+			worker.unchecked += num_snippets
+			if worker.status_supported and worker.unchecked >= worker.status_interval:
+				worker.unchecked = 0
+				worker.submit_status().add_done_callback(partial(self.check_status, worker))
+			return worker
+
+	def dispatch(self, code_entities, options, retries, future, batch):
+		"""
+		Sends one or many snippets to a jar of the pool and completes the given future with the response.
+
+		:param code_entities: the contents of the snippets.
+		:param options: a dict with the options of the request, or None to use the options of the pool.
+		:param retries: the number of times the snippets are sent again if the jar parsing them crashes.
+		:param future: the future that receives the sequence, or the list of sequences if this is a batch.
+		:param batch: boolean denoting whether the snippets are sent as a batch.
+		"""
+		worker = self.select_worker(len(code_entities))
+		if batch:
+			request = worker.submit_sequences(code_entities, options)
+		else:
+			request = worker.submit_sequence(code_entities[0], options)
+		request.add_done_callback(partial(self.complete, worker, code_entities, options, retries, future, batch))
+
+	def complete(self, worker, code_entities, options, retries, future, batch, request):
+		"""
+		Completes the future of a request when its response is received. If the jar of the request has crashed, the
+		snippets are sent again to the pool, one at a time if they were sent as a batch, so that a snippet that
+		crashes the jar does not fail the rest of the batch.
+
+		:param worker: the extractor of the jar of the request.
+		:param code_entities: the contents of the snippets of the request.
+		:param options: a dict with the options of the request, or None to use the options of the pool.
+		:param retries: the number of times the snippets are sent again if the jar parsing them crashes.
+		:param future: the future that receives the sequence, or the list of sequences if this is a batch.
+		:param batch: boolean denoting whether the snippets were sent as a batch.
+		:param request: the future of the request.
+		"""
+		with self.lock:
+			worker.load -= len(code_entities)
+		exception = request.exception()
+		if isinstance(exception, ExtractorEndedError) and retries > 0 and not self.closing:
+			if batch and len(code_entities) > 1:
+				parts = [Future() for _ in code_entities]
+				for part in parts:
+					part.add_done_callback(partial(self.combine, parts, future))
+				for code_entity, part in zip(code_entities, parts):
+					self.dispatch([code_entity], options, retries - 1, part, True)
+			else:
+				self.dispatch(code_entities, options, retries - 1, future, batch)
+		elif exception is None:
+			future.set_result(request.result())
+		elif batch:
+			future.set_result([""] * len(code_entities))
+		else:
+			future.set_exception(exception)
+
+	def combine(self, parts, future, part):
+		"""
+		Completes the future of a batch when all the snippets of the batch that were sent again have their sequences.
+
+		:param parts: the futures of the snippets of the batch, each holding a list with the sequence of a snippet.
+		:param future: the future that receives the list of sequences of the batch.
+		:param part: the future of the snippet that has just received its sequence.
+		"""
+		if all(part.done() for part in parts) and not future.done():
+			with self.lock:
+				if future.done():
+					return
+				future.set_result([part.result()[0] for part in parts])
+
+	def submit_snippet(self, snippet_contents, **options):
+		"""
+		Submits the contents of a java snippet to be parsed, without waiting for its sequence.
+
+		:param snippet_contents: the contents of a java snippet, given as a string.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for this snippet.
+		:returns: a future holding a string containing the sequence of the java snippet.
+		"""
+		future = Future()
+		self.dispatch([snippet_contents], check_option_names(options), self.retries, future, False)
+		return future
+
+	def parse_snippet(self, snippet_contents, **options):
+		"""
+		Parses the contents of a java snippet and returns its sequence.
+
+		:param snippet_contents: the contents of a java snippet, given as a string.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for this snippet.
+		:returns: a string containing the sequence of the java snippet.
+		"""
+		try:
+			return self.submit_snippet(snippet_contents, **options).result()
+		except RuntimeError:
+			return ""
+
+	def imap(self, snippets_contents, batch_size=100, **options):
+		"""
+		Parses the contents of many java snippets and yields their sequences in the same order. The snippets are read
+		lazily and sent in batches, keeping two batches per jar waiting for their sequences, so that the jars are
+		always busy without sending all the snippets at once.
+
+		:param snippets_contents: an iterable with the contents of the java snippets, given as strings.
+		:param batch_size: the number of snippets sent in each batch.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for these snippets.
+		:returns: a generator of strings containing the sequences of the java snippets, where the sequence of any
+		snippet that could not be parsed is an empty string.
+		"""
+		options = check_option_names(options)
+		snippets_contents = iter(snippets_contents)
+		batches = deque()
+		while True:
+			while len(batches) < 2 * len(self.workers):
+				code_entities = list(islice(snippets_contents, batch_size))
+				if not code_entities:
+					break
+				batches.append(Future())
+				self.dispatch(code_entities, options, self.retries, batches[-1], True)
+			if not batches:
+				return
+			for sequence in batches.popleft().result():
+				yield sequence
+
+	def map(self, snippets_contents, batch_size=100, **options):
+		"""
+		Parses the contents of many java snippets and returns their sequences in the same order.
+
+		:param snippets_contents: an iterable with the contents of the java snippets, given as strings.
+		:param batch_size: the number of snippets sent in each batch.
+		:param options: any of the options of the constructor (e.g. keep_literals=True) that should be different
+		for these snippets.
+		:returns: a list of strings containing the sequences of the java snippets, where the sequence of any snippet
+		that could not be parsed is an empty string.
+		"""
+		return list(self.imap(snippets_contents, batch_size, **options))
+
+	def close(self):
+		"""
+		Closes all the jars of the pool. Note that this function must be called after using the class.
+		Otherwise, this may result to a memory leak.
+		"""
+		self.closing = True
+		with self.lock:
+			workers = list(self.workers)
+		for worker in workers:
+			try:
+				worker.close_extractor()
+			except (IOError, OSError, ValueError):
+				pass
+			worker.proc.wait()